@@ -0,0 +1,80 @@
+package co.estimoo.backend.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * İki JMH JSON sonucunu karşılaştırır ve eşikten fazla kötüleşen benchmark varsa 1 ile çıkar.
+ * Benchmarklar ad ve parametreleriyle eşlenir; sadece bir tarafta olanlar raporlanır ama hata sayılmaz.
+ * Throughput'ta düşüş, süre ölçen modlarda artış kötüleşme kabul edilir.
+ * <p>
+ * Kullanım: {@code java -Djmh.threshold=10 JmhResultComparison <current.json> [baseline.json]}
+ */
+public final class JmhResultComparison {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+
+    private JmhResultComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Baseline verilmedi, karşılaştırma atlandı (-Djmh.baseline=<dosya>)");
+            return;
+        }
+        String configured = System.getProperty("jmh.threshold");
+        double threshold = configured != null ? Double.parseDouble(configured) : DEFAULT_THRESHOLD_PERCENT;
+
+        Map<String, JsonNode> current = read(Path.of(args[0]));
+        Map<String, JsonNode> baseline = read(Path.of(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("YENİ      %s%n", entry.getKey());
+                continue;
+            }
+            double oldScore = before.path("primaryMetric").path("score").asDouble();
+            double newScore = entry.getValue().path("primaryMetric").path("score").asDouble();
+            String unit = entry.getValue().path("primaryMetric").path("scoreUnit").asText();
+            boolean higherIsBetter = "thrpt".equals(entry.getValue().path("mode").asText());
+
+            double change = oldScore == 0 ? 0 : (newScore - oldScore) / oldScore * 100;
+            double worse = higherIsBetter ? -change : change;
+            boolean regressed = worse > threshold;
+            if (regressed) regressions++;
+            System.out.printf("%-9s %s: %.3f → %.3f %s (%+.1f%%)%n",
+                    regressed ? "KÖTÜLEŞTİ" : "OK", entry.getKey(), oldScore, newScore, unit, change);
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf("EKSİK     %s%n", key);
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark %%%.0f eşiğinden fazla kötüleşti%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, JsonNode> read(Path file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(Files.readAllBytes(file))) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            for (Map.Entry<String, JsonNode> param : result.path("params").properties()) {
+                key.append(key.indexOf("{") < 0 ? " {" : ", ").append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            if (key.indexOf("{") >= 0) key.append('}');
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
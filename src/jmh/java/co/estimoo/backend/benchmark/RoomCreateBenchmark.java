@@ -0,0 +1,71 @@
+package co.estimoo.backend.benchmark;
+
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.service.RoomService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paralel oda oluşturma hızı, {@code rooms} kadar dolu bir serviste.
+ * <ul>
+ *   <li>createRoom: sadece oluşturma; oda haritadan doğrudan çıkarılır, doluluk sabit kalır</li>
+ *   <li>createAndRemoveRoom: silme ve kod karantinası dahil tüm yaşam döngüsü</li>
+ *   <li>uuidCode: eski yöntem (UUID'nin ilk 6 karakteri + put), paylaşılan SecureRandom kullanır
+ *       ve çakışmada mevcut odayı ezer</li>
+ * </ul>
+ * Her iterasyon yeni bir servisle başlar; expiry wheel'e eklenen odalar iterasyon boyunca birikir.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RoomCreateBenchmark {
+
+    @Param({"0", "100000"})
+    private int rooms;
+
+    private RoomService roomService;
+    private Map<String, Room> uuidRooms;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        roomService = new RoomService(600_000, 1_000, 6, 60_000);
+        uuidRooms = new ConcurrentHashMap<>();
+        for (int i = 0; i < rooms; i++) {
+            roomService.createRoom("room-" + i);
+            uuidRooms.put(UUID.randomUUID().toString().substring(0, 6).toUpperCase(), new Room());
+        }
+    }
+
+    @Benchmark
+    public String createRoom() {
+        Room room = roomService.createRoom("bench");
+        roomService.getRooms().remove(room.getRoomCode());
+        return room.getRoomCode();
+    }
+
+    @Benchmark
+    public String createAndRemoveRoom() {
+        Room room = roomService.createRoom("bench");
+        roomService.removeRoom(room.getRoomCode());
+        return room.getRoomCode();
+    }
+
+    @Benchmark
+    public String uuidCode() {
+        String roomCode = UUID.randomUUID().toString().substring(0, 6).toUpperCase();
+        Room room = new Room();
+        room.setRoomCode(roomCode);
+        room.setRoomName("bench");
+        uuidRooms.put(roomCode, room);
+        uuidRooms.remove(roomCode);
+        return roomCode;
+    }
+}
@@ -0,0 +1,102 @@
+package co.estimoo.backend.benchmark;
+
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import co.estimoo.backend.model.VoteValue;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 100k odanın heap'te kapladığı yer. Her fork odaları bir kez kurar; GC sonrası kullanılan heap farkı
+ * oda başına byte olarak yazdırılır (katılımcı başı maliyet 0 katılımcılı satırla farktır), süre sadece
+ * kurulum maliyetidir. Harness önceki iterasyonun sonuçlarını bir süre erişilebilir tutabildiğinden
+ * aynı JVM'de tekrar ölçülmez; tekrarlar ayrı fork'lardır ({@code -wi}/{@code -i} verilmemeli).
+ * <p>
+ * {@code compact} güncel {@link Room} (katılımcılar paralel dizilerde), {@code legacy} aynı odaya eski
+ * düzendeki gibi {@code ConcurrentHashMap<String, UserSession>} ekler. Her iki düzen de aynı String
+ * nesnelerini tutar; fark sadece katılımcı başına nesne ve tablo düğümleridir.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+// SerialGC: System.gc sonrası kullanılan heap bölge yuvarlaması olmadan kesin okunur
+@Fork(value = 3, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-XX:+UseSerialGC"})
+public class RoomFootprintBenchmark {
+
+    private static final int ROOMS = 100_000;
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    @Param({"0", "5", "20"})
+    private int users;
+
+    @Param({"compact", "legacy"})
+    private String layout;
+
+    private String[] sessionIds;
+    private String[] nicknames;
+    private Object[] rooms;
+    private long roomsBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // String'ler iki düzende de aynı; ölçüme girmemeleri için önceden üretilir
+        sessionIds = new String[ROOMS * users];
+        nicknames = new String[ROOMS * users];
+        for (int i = 0; i < sessionIds.length; i++) {
+            sessionIds[i] = "session-" + i;
+            nicknames[i] = "user-" + i;
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.out.printf("%n%s, %d katılımcı: %d B/oda%n", layout, users, roomsBytes / ROOMS);
+    }
+
+    @Benchmark
+    public void build() {
+        long before = usedHeap();
+        Object[] built = new Object[ROOMS];
+        boolean compact = "compact".equals(layout);
+        VoteValue[] votes = VoteValue.values();
+        for (int r = 0; r < ROOMS; r++) {
+            Object[] legacy = compact ? null : (Object[]) newRoom(r, false);
+            Room room = compact ? (Room) newRoom(r, true) : (Room) legacy[0];
+            @SuppressWarnings("unchecked")
+            Map<String, UserSession> legacyUsers = compact ? null : (Map<String, UserSession>) legacy[1];
+            for (int u = 0; u < users; u++) {
+                int i = r * users + u;
+                VoteValue vote = u % 2 == 0 ? votes[u % votes.length] : null;
+                if (compact) {
+                    room.getUsers().put(sessionIds[i], new UserSession(sessionIds[i], nicknames[i], vote, u + 1));
+                } else {
+                    legacyUsers.put(sessionIds[i], new UserSession(sessionIds[i], nicknames[i], vote, u + 1));
+                }
+            }
+            built[r] = compact ? room : legacy;
+        }
+        roomsBytes = usedHeap() - before;
+        // odalar alanda tutulur; dönüş değeri olsaydı blackhole'da kalırdı
+        rooms = built;
+    }
+
+    private static Object newRoom(int index, boolean compact) {
+        Room room = new Room();
+        room.setRoomCode(Integer.toString(index, 36));
+        return compact ? room : new Object[]{room, new ConcurrentHashMap<String, UserSession>()};
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,71 @@
+package co.estimoo.backend.benchmark;
+
+import co.estimoo.backend.journal.RoomJournal;
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import co.estimoo.backend.model.VoteValue;
+import co.estimoo.backend.service.RoomEventLog;
+import co.estimoo.backend.service.RoomService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal'ın /app/vote yoluna eklediği maliyeti ve sürekli yazma hızını ölçer.
+ * appendVote kuyruk 64k olayı geçince yazarı bekler; böylece sonuç yazar thread'in
+ * (kodlama + mmap + group commit) sürdürebildiği olay/sn'dir. noJournal karşılaştırma içindir.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoomJournalBenchmark {
+
+    private static final long MAX_BACKLOG = 64 * 1024;
+
+    private Path directory;
+    private RoomJournal journal;
+    private Room room;
+    private UserSession user;
+    private VoteValue[] votes;
+    private int next;
+
+    @Setup
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("journal-bench");
+        journal = new RoomJournal(new RoomService(), true, directory, 64 << 20, 5, 300_000);
+        journal.start();
+
+        room = new Room();
+        room.setRoomCode("BENCH1");
+        user = new UserSession("session-1", "user-1", null, 1);
+        room.getUsers().put(user.getSessionId(), user);
+        votes = VoteValue.values();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        journal.close();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void appendVote() {
+        user.setVote(votes[next++ % votes.length]);
+        journal.voteChanged(room, user);
+        while (journal.getBacklog() > MAX_BACKLOG) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @Benchmark
+    public void noJournal() {
+        user.setVote(votes[next++ % votes.length]);
+        RoomEventLog.NONE.voteChanged(room, user);
+    }
+}
@@ -0,0 +1,74 @@
+package co.estimoo.backend.benchmark;
+
+import co.estimoo.backend.journal.RoomJournal;
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import co.estimoo.backend.model.VoteValue;
+import co.estimoo.backend.service.RoomService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 100k odalık bir journal'ın açılışta geri yüklenme süresi. "snapshot" durumunda odalar
+ * tek bir snapshot dosyasından, "log" durumunda oda başına 11 olaylık segmentlerden okunur.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class RoomJournalRecoveryBenchmark {
+
+    private static final int USERS_PER_ROOM = 5;
+
+    @Param({"100000"})
+    private int rooms;
+
+    @Param({"snapshot", "log"})
+    private String source;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("journal-recovery-bench");
+        RoomService roomService = new RoomService();
+        RoomJournal journal = new RoomJournal(roomService, true, directory, 256 << 20, 5, Long.MAX_VALUE / 2);
+        journal.start();
+
+        VoteValue[] votes = VoteValue.values();
+        for (int i = 0; i < rooms; i++) {
+            Room room = roomService.createRoom("room-" + i);
+            for (int u = 0; u < USERS_PER_ROOM; u++) {
+                UserSession user = new UserSession("session-" + i + "-" + u, "user-" + u, null, room.nextParticipantId());
+                room.getUsers().put(user.getSessionId(), user);
+                roomService.participantJoined(room, user, true);
+                user.setVote(votes[u % votes.length]);
+                roomService.voteChanged(room, user);
+            }
+            while (journal.getBacklog() > 100_000) {
+                Thread.onSpinWait();
+            }
+        }
+        if (source.equals("snapshot")) {
+            journal.requestSnapshot().get(1, TimeUnit.MINUTES);
+        }
+        journal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        FileSystemUtils.deleteRecursively(directory.toFile());
+    }
+
+    @Benchmark
+    public int recover() throws Exception {
+        RoomJournal journal = new RoomJournal(new RoomService(), true, directory, 256 << 20, 5, Long.MAX_VALUE / 2);
+        return journal.recover();
+    }
+}
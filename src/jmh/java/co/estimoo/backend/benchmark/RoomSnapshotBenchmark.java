@@ -0,0 +1,63 @@
+package co.estimoo.backend.benchmark;
+
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import co.estimoo.backend.model.VoteValue;
+import co.estimoo.backend.service.RoomBroadcaster;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot önbelleğinin etkisini ölçer. "-prof gc" ile çalıştırıldığında
+ * cachedSnapshot/subscribeReply için gc.alloc.rate.norm oda boyutundan bağımsız kalmalı,
+ * uncachedSnapshot ise kullanıcı sayısıyla büyümelidir.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomSnapshotBenchmark {
+
+    @Param({"5", "50", "500"})
+    private int users;
+
+    private RoomBroadcaster broadcaster;
+    private Room room;
+
+    @Setup
+    public void setUp() {
+        MessageChannel discard = (message, timeout) -> true;
+        broadcaster = new RoomBroadcaster(new SimpMessagingTemplate(discard), discard, new ObjectMapper());
+
+        room = new Room();
+        room.setRoomCode("BENCH1");
+        VoteValue[] votes = VoteValue.values();
+        for (int i = 0; i < users; i++) {
+            String sessionId = "session-" + i;
+            room.getUsers().put(sessionId, new UserSession(sessionId, "user-" + i, votes[i % votes.length], i + 1));
+        }
+        room.nextVersion();
+    }
+
+    @Benchmark
+    public byte[] cachedSnapshot() {
+        return broadcaster.encodedSnapshot(room);
+    }
+
+    @Benchmark
+    public byte[] uncachedSnapshot() {
+        room.getPayloadCache().invalidate();
+        return broadcaster.encodedSnapshot(room);
+    }
+
+    @Benchmark
+    public void subscribeReply() {
+        broadcaster.sendSnapshot(room, "ws-1", "sub-0", "/app/room/BENCH1");
+    }
+}
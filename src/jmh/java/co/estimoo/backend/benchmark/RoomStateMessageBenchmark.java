@@ -0,0 +1,69 @@
+package co.estimoo.backend.benchmark;
+
+import co.estimoo.backend.dto.RoomStateMessage;
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import co.estimoo.backend.model.VoteValue;
+import co.estimoo.backend.service.RoomBroadcaster;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RoomStateMessage} hazırlama ve Jackson ile serileştirme maliyeti, önbellek devre dışıyken.
+ * <ul>
+ *   <li>build: odadan mesaj nesnesinin kurulması</li>
+ *   <li>serialize: hazır mesajın JSON byte dizisine çevrilmesi</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomStateMessageBenchmark {
+
+    @Param({"5", "50", "500"})
+    private int users;
+
+    @Param({"false", "true"})
+    private boolean revealed;
+
+    private RoomBroadcaster broadcaster;
+    private ObjectMapper objectMapper;
+    private Room room;
+    private RoomStateMessage state;
+
+    @Setup
+    public void setUp() {
+        MessageChannel discard = (message, timeout) -> true;
+        objectMapper = new ObjectMapper();
+        broadcaster = new RoomBroadcaster(new SimpMessagingTemplate(discard), discard, objectMapper);
+
+        room = new Room();
+        room.setRoomCode("BENCH1");
+        VoteValue[] votes = VoteValue.values();
+        for (int i = 0; i < users; i++) {
+            String sessionId = "session-" + i;
+            room.getUsers().put(sessionId, new UserSession(sessionId, "user-" + i, votes[i % votes.length], i + 1));
+        }
+        room.setVotesRevealed(revealed);
+        room.nextVersion();
+        state = broadcaster.snapshot(room);
+    }
+
+    @Benchmark
+    public RoomStateMessage build() {
+        return broadcaster.snapshot(room);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(state);
+    }
+}
@@ -0,0 +1,111 @@
+package co.estimoo.backend.benchmark;
+
+import co.estimoo.backend.dto.RoomBinaryCodec;
+import co.estimoo.backend.dto.RoomDeltaMessage;
+import co.estimoo.backend.dto.RoomDeltaMessage.ChangeType;
+import co.estimoo.backend.dto.RoomStateMessage;
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import co.estimoo.backend.model.VoteValue;
+import co.estimoo.backend.service.RoomBroadcaster;
+import co.estimoo.backend.service.RoomPayloadCompressor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Açılmış oylu snapshot ve reveal deltasının JSON ile {@link RoomBinaryCodec} kodlama maliyeti ve
+ * hazır payload'ın paylaşılan DEFLATE kopyasının üretilmesi. Payload boyutları setup'ta yazdırılır.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomWireFormatBenchmark {
+
+    @Param({"5", "50", "500"})
+    private int users;
+
+    private ObjectMapper objectMapper;
+    private RoomPayloadCompressor compressor;
+    private RoomStateMessage state;
+    private RoomDeltaMessage delta;
+    private byte[] stateJson;
+    private byte[] stateBinary;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        MessageChannel discard = (message, timeout) -> true;
+        objectMapper = new ObjectMapper();
+        RoomBroadcaster broadcaster = new RoomBroadcaster(new SimpMessagingTemplate(discard), discard, objectMapper);
+
+        Room room = new Room();
+        room.setRoomCode("BENCH1");
+        VoteValue[] votes = VoteValue.values();
+        List<RoomDeltaMessage.Change> changes = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            String sessionId = "session-" + i;
+            VoteValue vote = votes[i % votes.length];
+            room.getUsers().put(sessionId, new UserSession(sessionId, "user-" + i, vote, i + 1));
+            changes.add(new RoomDeltaMessage.Change(ChangeType.REVEALED, i + 1, null, vote.getLabel()));
+        }
+        room.setVotesRevealed(true);
+        room.nextVersion();
+        state = broadcaster.snapshot(room);
+
+        delta = new RoomDeltaMessage();
+        delta.setBaseVersion(room.getVersion() - 1);
+        delta.setVersion(room.getVersion());
+        delta.setVotesRevealed(true);
+        delta.setChanges(changes);
+
+        // eşik 0: küçük odalarda da sıkıştırma maliyeti ölçülsün
+        compressor = new RoomPayloadCompressor(0);
+        stateJson = objectMapper.writeValueAsBytes(state);
+        stateBinary = RoomBinaryCodec.encode(state);
+
+        System.out.printf("%n%d kullanıcı: snapshot JSON %d B (deflate %d B) / ikili %d B (deflate %d B), "
+                        + "reveal deltası JSON %d B / ikili %d B%n", users,
+                stateJson.length, compressor.compress(stateJson).length,
+                stateBinary.length, compressor.compress(stateBinary).length,
+                objectMapper.writeValueAsBytes(delta).length, RoomBinaryCodec.encode(delta).length);
+    }
+
+    @Benchmark
+    public byte[] stateJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(state);
+    }
+
+    @Benchmark
+    public byte[] stateBinary() {
+        return RoomBinaryCodec.encode(state);
+    }
+
+    @Benchmark
+    public byte[] stateJsonDeflate() {
+        return compressor.compress(stateJson);
+    }
+
+    @Benchmark
+    public byte[] stateBinaryDeflate() {
+        return compressor.compress(stateBinary);
+    }
+
+    @Benchmark
+    public byte[] deltaJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(delta);
+    }
+
+    @Benchmark
+    public byte[] deltaBinary() {
+        return RoomBinaryCodec.encode(delta);
+    }
+}
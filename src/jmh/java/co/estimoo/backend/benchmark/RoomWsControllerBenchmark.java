@@ -0,0 +1,96 @@
+package co.estimoo.backend.benchmark;
+
+import co.estimoo.backend.cluster.ClusterNode;
+import co.estimoo.backend.dto.JoinRoomMessage;
+import co.estimoo.backend.dto.ResetMessage;
+import co.estimoo.backend.dto.RevealMessage;
+import co.estimoo.backend.dto.VoteMessage;
+import co.estimoo.backend.metrics.LatencyMetrics;
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.resource.RoomWsController;
+import co.estimoo.backend.resume.ResumeTokens;
+import co.estimoo.backend.resume.SessionResumption;
+import co.estimoo.backend.service.RoomBroadcaster;
+import co.estimoo.backend.service.RoomCommandExecutor;
+import co.estimoo.backend.service.RoomPresenceTracker;
+import co.estimoo.backend.service.RoomService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controller çağrısının uçtan uca maliyeti: oda araması, mailbox, mutasyon, delta serileştirme ve
+ * mesajı atan bir kanala sahip {@link SimpMessagingTemplate} ile gönderim. Mailbox çağıran thread'de
+ * çalışır ve coalesce penceresi kapalıdır, yani her çağrı kendi yayınını yapar.
+ * <ul>
+ *   <li>vote: aynı oya tekrar basıldığı için oy verme/geri alma sırayla ölçülür</li>
+ *   <li>revealAndReset: tüm oyların açılması ve sıfırlanması (iki yayın)</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomWsControllerBenchmark {
+
+    @Param({"5", "50", "500"})
+    private int users;
+
+    private RoomWsController controller;
+    private VoteMessage vote;
+    private RevealMessage reveal;
+    private ResetMessage reset;
+    private Map<String, Object> voter;
+
+    @Setup
+    public void setUp() {
+        MessageChannel discard = (message, timeout) -> true;
+        SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate(discard);
+        ObjectMapper objectMapper = new ObjectMapper();
+        RoomService roomService = new RoomService();
+        RoomCommandExecutor roomExecutor = new RoomCommandExecutor(256, Runnable::run);
+        RoomBroadcaster broadcaster = new RoomBroadcaster(messagingTemplate, discard, objectMapper);
+        ClusterNode cluster = new ClusterNode(roomService, roomExecutor, broadcaster, messagingTemplate, objectMapper,
+                false, "", "", "", 128, 3, 10_000, "");
+        RoomPresenceTracker presence = new RoomPresenceTracker(roomService, broadcaster, roomExecutor, cluster, 0);
+        SessionResumption resumption = new SessionResumption(messagingTemplate,
+                new ResumeTokens(new byte[32], 900_000, System::currentTimeMillis));
+        controller = new RoomWsController(roomService, broadcaster, roomExecutor, cluster, new LatencyMetrics(), presence,
+                resumption);
+
+        Room room = roomService.createRoom("bench");
+        String roomCode = room.getRoomCode();
+        for (int i = 0; i < users; i++) {
+            JoinRoomMessage join = new JoinRoomMessage();
+            join.setRoomCode(roomCode);
+            join.setNickname("user-" + i);
+            controller.joinRoom(join, Map.of("sessionId", "session-" + i));
+        }
+        voter = Map.of("sessionId", "session-0");
+
+        vote = new VoteMessage();
+        vote.setRoomCode(roomCode);
+        vote.setVote("5");
+        reveal = new RevealMessage();
+        reveal.setRoomCode(roomCode);
+        reset = new ResetMessage();
+        reset.setRoomCode(roomCode);
+    }
+
+    @Benchmark
+    public void vote() {
+        controller.vote(vote, voter);
+    }
+
+    @Benchmark
+    public void revealAndReset() {
+        controller.revealVotes(reveal);
+        controller.resetVotes(reset);
+    }
+}
@@ -0,0 +1,58 @@
+package co.estimoo.backend.benchmark;
+
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import co.estimoo.backend.model.VoteValue;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bir turun oylanıp sıfırlanması, tur geçmişi kapalıyken ({@code capacity=0}) ve açıkken. Her çağrı tüm
+ * katılımcılara oy verdirir, turu geçmişe yazar ve oyları siler; geçmiş tampon dolduktan sonra en eskisinin
+ * üzerine yazar. Süre katılımcı sayısıyla doğrusal artmalı, geçmişin eklediği fark da katılımcı başına
+ * sabit kalmalıdır (5 → 500 katılımcıda ~100 kat).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoundHistoryBenchmark {
+
+    @Param({"5", "50", "500"})
+    private int users;
+
+    @Param({"0", "50"})
+    private int capacity;
+
+    private Room room;
+    private List<UserSession> participants;
+    private VoteValue[] votes;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        room = new Room();
+        room.setRoomCode("BENCH1");
+        for (int i = 0; i < users; i++) {
+            String sessionId = "session-" + i;
+            room.getUsers().put(sessionId, new UserSession(sessionId, "user-" + i, null, i + 1));
+        }
+        // görünümler slotlarını bildiğinden oy yazmak arama yapmaz
+        participants = List.copyOf(room.getUsers().values());
+        votes = VoteValue.values();
+    }
+
+    @Benchmark
+    public Room voteAndReset() {
+        for (int i = 0; i < participants.size(); i++) {
+            participants.get(i).setVote(votes[i % votes.length]);
+        }
+        room.archiveRound(++now, capacity);
+        room.clearVotes();
+        return room;
+    }
+}
@@ -0,0 +1,44 @@
+package co.estimoo.backend.benchmark;
+
+import co.estimoo.backend.model.VoteValue;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Her vote komutunda çağrılan {@link VoteValue#fromLabel(String)}. Etiketler enum sırasına göre
+ * başta, sonda ve geçersiz (exception yolu) olacak şekilde seçilmiştir.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoteValueBenchmark {
+
+    @Param({"0", "13", "☕"})
+    private String label;
+
+    // her çağrıda yeni bir String, sabit katlanmasın ve equals gerçekten karşılaştırsın
+    private char[] labelChars;
+
+    @Setup
+    public void setUp() {
+        labelChars = label.toCharArray();
+    }
+
+    @Benchmark
+    public VoteValue fromLabel() {
+        return VoteValue.fromLabel(new String(labelChars));
+    }
+
+    @Benchmark
+    public VoteValue fromLabelInvalid() {
+        try {
+            return VoteValue.fromLabel("x" + label);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
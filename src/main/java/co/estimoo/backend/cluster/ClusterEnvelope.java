@@ -0,0 +1,50 @@
+package co.estimoo.backend.cluster;
+
+import co.estimoo.backend.dto.RoomDeltaMessage;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Node'lar arası taşınan mesaj. Komutlar oda sahibine iletilir,
+ * DELTA ise sahibin yayınını diğer node'lardaki abonelere ulaştırır.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ClusterEnvelope {
+    private Type type;
+    private String roomCode;
+    private String sessionId;
+    private String nickname;
+    private String vote;
+    private RoomDeltaMessage delta;
+    private String resumeToken;
+
+    public static ClusterEnvelope command(Type type, String roomCode, String sessionId, String nickname, String vote) {
+        return new ClusterEnvelope(type, roomCode, sessionId, nickname, vote, null, null);
+    }
+
+    /**
+     * Token'la yeniden katılım; sahip token'ı doğrulayamazsa nickname ile normal JOIN uygular.
+     */
+    public static ClusterEnvelope resume(String roomCode, String sessionId, String nickname, String resumeToken) {
+        return new ClusterEnvelope(Type.RESUME, roomCode, sessionId, nickname, null, null, resumeToken);
+    }
+
+    public static ClusterEnvelope delta(String roomCode, RoomDeltaMessage delta) {
+        return new ClusterEnvelope(Type.DELTA, roomCode, null, null, null, delta, null);
+    }
+
+    public enum Type {
+        JOIN,
+        VOTE,
+        REVEAL,
+        RESET,
+        LEAVE,
+        DELTA,
+        RESUME
+    }
+}
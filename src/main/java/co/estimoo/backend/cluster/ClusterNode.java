@@ -0,0 +1,788 @@
+package co.estimoo.backend.cluster;
+
+import co.estimoo.backend.dto.RoomDeltaMessage;
+import co.estimoo.backend.dto.RoomStatus;
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.service.RoomBroadcaster;
+import co.estimoo.backend.service.RoomCommandExecutor;
+import co.estimoo.backend.service.RoomService;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static co.estimoo.backend.service.RoomBroadcaster.ROOM_TOPIC_PREFIX;
+
+/**
+ * Cluster modunda bu node'un üyeliğini ve oda sahipliğini yönetir.
+ * <p>
+ * Odalar roomCode üzerinden {@link ConsistentHashRing} ile node'lara dağıtılır. İstemci hangi
+ * node'a bağlıysa komutları oraya gelir; oda başka bir node'daysa komut sahibine iletilir,
+ * sahibin yayınladığı deltalar da diğer tüm node'lara aktarılıp oradaki abonelere ulaştırılır.
+ * Node'lar arası taşıma {@code /internal/cluster} altındaki HTTP uçlarıdır; her hedef node
+ * için mesajlar tek kuyrukta sıralanıp toplu gönderilir.
+ * <p>
+ * Üyelik değiştiğinde sahipliği değişen odalar yeni sahibine devredilir. Düzgün kapanan node
+ * odalarını devredip ayrılır; çöken node'un odaları kaybolur (durum bellekte tutulur).
+ */
+@Slf4j
+@Service
+@DependsOn("roomJournal") // kapanışta devredilen odalar journal kapanmadan kaydedilir
+public class ClusterNode {
+
+    public static final String INTERNAL_PATH = "/internal/cluster";
+    public static final String TOKEN_HEADER = "X-Cluster-Token";
+    // Proxy'lenen isteği alan node tekrar yönlendirmez; halkalar geçici olarak farklıysa döngü oluşmaz
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded";
+
+    private static final int SEND_BATCH = 256;
+    // Düzgün ayrılan node, eski üye listelerinden bu süre boyunca geri eklenmez
+    private static final long DEPARTED_TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final TypeReference<List<RoomStatus>> STATUS_LIST = new TypeReference<>() {
+    };
+    private static final TypeReference<List<String>> MEMBER_LIST = new TypeReference<>() {
+    };
+
+    private final RoomService roomService;
+    private final RoomCommandExecutor roomExecutor;
+    private final RoomBroadcaster broadcaster;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+    private final String advertisedUrl;
+    private final String serverAddress;
+    private final List<String> seeds;
+    private final int failureThreshold;
+    private final int queueCapacity;
+    private final byte[] secret;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+    private final Duration requestTimeout = Duration.ofSeconds(5);
+    private final ExecutorService senders;
+
+    private volatile String selfUrl;
+    private volatile ConsistentHashRing ring;
+
+    // peer url → gönderim kuyruğu
+    private final Map<String, Peer> peers = new ConcurrentHashMap<>();
+    // ayrılan node url → ayrılma zamanı (nanoTime)
+    private final Map<String, Long> departed = new ConcurrentHashMap<>();
+    // roomCode → süren devir; aynı oda için ikinci devir başlatılmaz
+    private final Map<String, CompletableFuture<Void>> handOffs = new ConcurrentHashMap<>();
+    // roomCode → kopyası gönderilmiş odaya devir bitene kadar gelen komutlar; sadece odanın mailbox'ında değişir
+    private final Map<String, List<HeldCommand>> fenced = new ConcurrentHashMap<>();
+
+    private final LongAdder commandsForwarded = new LongAdder();
+    private final LongAdder forwardsFailed = new LongAdder();
+    private final LongAdder deltasRelayed = new LongAdder();
+    private final LongAdder messagesDropped = new LongAdder();
+    private final LongAdder roomsHandedOff = new LongAdder();
+    private final LongAdder roomsReceived = new LongAdder();
+
+    public ClusterNode(RoomService roomService,
+                       RoomCommandExecutor roomExecutor,
+                       RoomBroadcaster broadcaster,
+                       SimpMessagingTemplate messagingTemplate,
+                       ObjectMapper objectMapper,
+                       @Value("${estimoo.cluster.enabled:false}") boolean enabled,
+                       @Value("${estimoo.cluster.advertised-url:}") String advertisedUrl,
+                       @Value("${server.address:}") String serverAddress,
+                       @Value("${estimoo.cluster.seeds:}") String seeds,
+                       @Value("${estimoo.cluster.virtual-nodes:128}") int virtualNodes,
+                       @Value("${estimoo.cluster.failure-threshold:3}") int failureThreshold,
+                       @Value("${estimoo.cluster.queue-capacity:10000}") int queueCapacity,
+                       @Value("${estimoo.cluster.secret:}") String secret) {
+        this.roomService = roomService;
+        this.roomExecutor = roomExecutor;
+        this.broadcaster = broadcaster;
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.advertisedUrl = trimSlash(advertisedUrl.trim());
+        this.serverAddress = serverAddress;
+        this.seeds = Arrays.stream(seeds.split(","))
+                .map(String::trim)
+                .filter(seed -> !seed.isEmpty())
+                .map(ClusterNode::trimSlash)
+                .toList();
+        this.failureThreshold = failureThreshold;
+        this.queueCapacity = queueCapacity;
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        this.ring = new ConsistentHashRing(virtualNodes);
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.senders = enabled ? Executors.newFixedThreadPool(2, r -> {
+            Thread thread = new Thread(r, "cluster-sender-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Port belli olduktan sonra halkaya katılır ve seed node'lara kendini tanıtır.
+     */
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        if (!enabled || event.getApplicationContext().getServerNamespace() != null) return;
+
+        selfUrl = !advertisedUrl.isEmpty() ? advertisedUrl : "http://" + localHost() + ":" + event.getWebServer().getPort();
+        ring = ring.withNode(selfUrl);
+        roomService.setCodeFilter(this::isOwnedLocally);
+        broadcaster.setRelay(this::relay);
+
+        log.info("Cluster node başlatıldı: {} (seed: {})", selfUrl, seeds);
+        joinSeeds();
+    }
+
+    public boolean isEnabled() {
+        return enabled && selfUrl != null;
+    }
+
+    /**
+     * @return oda başka bir node'a aitse o node'un url'i, bu node'a aitse ya da cluster kapalıysa null
+     */
+    public String remoteOwnerOf(String roomCode) {
+        if (selfUrl == null) return null;
+        String owner = ring.ownerOf(roomCode);
+        return owner == null || owner.equals(selfUrl) ? null : owner;
+    }
+
+    public boolean isOwnedLocally(String roomCode) {
+        return remoteOwnerOf(roomCode) == null;
+    }
+
+    /**
+     * Komutu odanın sahibine iletir. Sahibi bilinen ama kuyruğuna eklenemeyen komut
+     * {@link #getForwardsFailed()} sayacına yazılır.
+     *
+     * @return komut iletilmediyse false: oda başka bir node'a ait değil ya da sahibin kuyruğu dolu
+     */
+    public boolean forward(ClusterEnvelope envelope) {
+        String owner = remoteOwnerOf(envelope.getRoomCode());
+        if (owner == null) return false;
+
+        Peer peer = peers.get(owner);
+        if (peer == null || !peer.offer(envelope)) {
+            forwardsFailed.increment();
+            log.debug("Komut sahibine iletilemedi: {} {} ({})", envelope.getType(), envelope.getRoomCode(), owner);
+            return false;
+        }
+        commandsForwarded.increment();
+        return true;
+    }
+
+    /**
+     * Odanın snapshot'ını sahibinden ister; cevap sahibin önbellekteki JSON'udur.
+     *
+     * @return oda yoksa ya da sahibine ulaşılamazsa null ile tamamlanır
+     */
+    public CompletableFuture<byte[]> fetchSnapshot(String roomCode) {
+        String owner = remoteOwnerOf(roomCode);
+        if (owner == null) return CompletableFuture.completedFuture(null);
+
+        HttpRequest request = request(owner + "/api/rooms/" + UriUtils.encodePathSegment(roomCode, StandardCharsets.UTF_8) + "/state")
+                .header(FORWARDED_HEADER, "true")
+                .GET()
+                .build();
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> response.statusCode() == 200 ? response.body() : null)
+                .exceptionally(e -> {
+                    log.warn("Snapshot sahibinden alınamadı: {} ({})", roomCode, owner);
+                    return null;
+                });
+    }
+
+    /**
+     * Başka node'lara ait odaların özetlerini sahiplerinden ister; her sahibe paralel, tek bir toplu istek gider.
+     *
+     * @return roomCode → özet; bu node'a ait ya da sahibine ulaşılamayan odalar haritada yer almaz
+     */
+    public Map<String, RoomStatus> fetchStatuses(Collection<String> roomCodes) {
+        Map<String, List<String>> byOwner = new HashMap<>();
+        for (String roomCode : roomCodes) {
+            String owner = remoteOwnerOf(roomCode);
+            if (owner != null) byOwner.computeIfAbsent(owner, key -> new ArrayList<>()).add(roomCode);
+        }
+        if (byOwner.isEmpty()) return Map.of();
+
+        List<CompletableFuture<List<RoomStatus>>> requests = new ArrayList<>(byOwner.size());
+        byOwner.forEach((owner, codes) -> requests.add(fetchStatuses(owner, codes)));
+        Map<String, RoomStatus> statuses = new HashMap<>();
+        for (CompletableFuture<List<RoomStatus>> request : requests) {
+            request.join().forEach(status -> statuses.put(status.getRoomCode(), status));
+        }
+        return statuses;
+    }
+
+    private CompletableFuture<List<RoomStatus>> fetchStatuses(String owner, List<String> roomCodes) {
+        HttpRequest request;
+        try {
+            request = request(owner + "/api/rooms/batch/status")
+                    .header(FORWARDED_HEADER, "true")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(roomCodes)))
+                    .build();
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) throw new IllegalStateException("Beklenmeyen cevap: " + response.statusCode());
+                    try {
+                        return objectMapper.readValue(response.body(), STATUS_LIST);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .exceptionally(e -> {
+                    log.warn("Oda özetleri sahibinden alınamadı: {} oda ({})", roomCodes.size(), owner);
+                    return List.of();
+                });
+    }
+
+    /**
+     * REST isteğini odanın sahibine aynen iletir.
+     *
+     * @param ifNoneMatch istemcinin {@code If-None-Match} header'ı; varsa sahip 304 dönebilir
+     */
+    public HttpResponse<byte[]> proxy(String owner, String method, String pathAndQuery, String ifNoneMatch)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = request(owner + pathAndQuery)
+                .header(FORWARDED_HEADER, "true")
+                .method(method, HttpRequest.BodyPublishers.noBody());
+        if (ifNoneMatch != null) request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Sahibin yayınladığı deltayı bu node'daki abonelere gönderir.
+     */
+    public void deliverDelta(ClusterEnvelope envelope) {
+        messagingTemplate.convertAndSend(ROOM_TOPIC_PREFIX + envelope.getRoomCode(), envelope.getDelta());
+    }
+
+    /**
+     * Başka bir node'un devrettiği odayı alır. Aynı oda zaten varsa versiyonu büyük olan kalır.
+     */
+    public void acceptTransfer(RoomTransfer transfer) {
+        Room incoming = transfer.toRoom();
+        roomService.restoreRoom(incoming);
+        roomsReceived.increment();
+
+        // gönderenin halkası eskiyse oda doğru sahibine aktarılır
+        String owner = remoteOwnerOf(incoming.getRoomCode());
+        if (owner != null) {
+            handOff(incoming.getRoomCode(), owner);
+        }
+    }
+
+    /**
+     * Yeni ya da tekrar bağlanan node'u üye yapar.
+     *
+     * @return bu node'un bildiği tüm üyeler (kendisi dahil)
+     */
+    public List<String> onJoin(String url) {
+        if (url != null && !url.equals(selfUrl)) {
+            departed.remove(url);
+            addMember(url);
+        }
+        return getMembers();
+    }
+
+    public void onLeave(String url) {
+        if (url == null || url.equals(selfUrl)) return;
+        departed.put(url, System.nanoTime());
+        removeMember(url);
+    }
+
+    /**
+     * Node'lar arası isteklerdeki paylaşılan anahtarı kontrol eder; anahtar tanımlı değilse her istek kabul edilir.
+     */
+    public boolean isAuthorized(String token) {
+        if (secret.length == 0) return true;
+        return token != null && MessageDigest.isEqual(secret, token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Üyeleri yoklar, cevap vermeyenleri çıkarır ve yanlış node'da kalan odaları devreder.
+     */
+    @Scheduled(fixedDelayString = "${estimoo.cluster.heartbeat-ms:1000}")
+    public void heartbeat() {
+        if (!isEnabled()) return;
+
+        if (peers.isEmpty()) {
+            joinSeeds(); // seed'ler henüz ayakta değildiyse tekrar dene
+        }
+        for (Peer peer : peers.values()) {
+            try {
+                mergeMembers(exchange(peer.url));
+                peer.failures = 0;
+            } catch (IOException e) {
+                if (++peer.failures >= failureThreshold) {
+                    log.warn("Cluster üyesi cevap vermiyor, halkadan çıkarılıyor: {}", peer.url);
+                    removeMember(peer.url);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        departed.values().removeIf(since -> System.nanoTime() - since > DEPARTED_TTL_NANOS);
+        rebalance();
+    }
+
+    public List<String> getMembers() {
+        return List.copyOf(ring.getNodes());
+    }
+
+    public long getCommandsForwarded() {
+        return commandsForwarded.sum();
+    }
+
+    /**
+     * Sahibi başka node'da olduğu halde iletilemeyen (peer yok ya da kuyruğu dolu) komut sayısı.
+     */
+    public long getForwardsFailed() {
+        return forwardsFailed.sum();
+    }
+
+    public long getDeltasRelayed() {
+        return deltasRelayed.sum();
+    }
+
+    public long getMessagesDropped() {
+        return messagesDropped.sum();
+    }
+
+    public long getRoomsHandedOff() {
+        return roomsHandedOff.sum();
+    }
+
+    public long getRoomsReceived() {
+        return roomsReceived.sum();
+    }
+
+    /**
+     * Kapanırken ayrıldığını bildirir ve odalarını kalan node'lara devreder. Önce ayrılma
+     * bildirilir ki devralan node'lar odayı halkalarındaki eski sahibe geri göndermesin.
+     * Web sunucusu bu noktada durmuş olduğundan yeni komut gelmez.
+     */
+    @PreDestroy
+    public void leave() {
+        if (!isEnabled()) return;
+
+        for (String peer : List.copyOf(peers.keySet())) {
+            try {
+                post(peer + INTERNAL_PATH + "/leave", Map.of("url", selfUrl));
+            } catch (IOException e) {
+                log.debug("Ayrılma bildirilemedi: {}", peer);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        ring = ring.withoutNode(selfUrl);
+        if (!ring.getNodes().isEmpty()) {
+            List<CompletableFuture<Void>> transfers = new ArrayList<>();
+            for (String roomCode : List.copyOf(roomService.getRooms().keySet())) {
+                transfers.add(handOff(roomCode, ring.ownerOf(roomCode)));
+            }
+            try {
+                CompletableFuture.allOf(transfers.toArray(CompletableFuture[]::new))
+                        .get(requestTimeout.toMillis() * 2, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.warn("Odaların devri beklenirken süre doldu ({} oda)", transfers.size());
+            }
+        }
+        selfUrl = null;
+        senders.shutdown();
+    }
+
+    private void relay(String roomCode, RoomDeltaMessage delta) {
+        if (selfUrl == null) return;
+        // abonesi olmayan node'da SimpleBroker mesajı kimseye göndermeden bırakır
+        ClusterEnvelope envelope = ClusterEnvelope.delta(roomCode, delta);
+        for (Peer peer : peers.values()) {
+            peer.offer(envelope);
+        }
+        deltasRelayed.increment();
+    }
+
+    private void joinSeeds() {
+        Deque<String> pending = new ArrayDeque<>(seeds);
+        List<String> contacted = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            String url = pending.poll();
+            if (url.equals(selfUrl) || contacted.contains(url)) continue;
+            contacted.add(url);
+            try {
+                List<String> members = exchange(url);
+                addMember(url);
+                // seed'in bildiği üyeler de bizi tanısın
+                for (String member : members) {
+                    if (!member.equals(selfUrl) && !contacted.contains(member)) {
+                        pending.add(member);
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Cluster üyesine ulaşılamadı: {} ({})", url, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private List<String> exchange(String url) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = post(url + INTERNAL_PATH + "/join", Map.of("url", selfUrl));
+        if (response.statusCode() != 200) {
+            throw new IOException("Beklenmeyen cevap: " + response.statusCode());
+        }
+        return objectMapper.readValue(response.body(), MEMBER_LIST);
+    }
+
+    private void mergeMembers(List<String> members) {
+        for (String member : members) {
+            if (!member.equals(selfUrl) && !departed.containsKey(member)) {
+                addMember(member);
+            }
+        }
+    }
+
+    private void addMember(String url) {
+        boolean added;
+        synchronized (this) {
+            added = peers.putIfAbsent(url, new Peer(url)) == null;
+            if (added) {
+                ring = ring.withNode(url);
+            }
+        }
+        if (added) {
+            log.info("Cluster üyesi eklendi: {} ({} node)", url, ring.getNodes().size());
+            rebalance();
+        }
+    }
+
+    private void removeMember(String url) {
+        boolean removed;
+        synchronized (this) {
+            removed = peers.remove(url) != null;
+            if (removed) {
+                ring = ring.withoutNode(url);
+            }
+        }
+        if (removed) {
+            log.info("Cluster üyesi çıkarıldı: {} ({} node)", url, ring.getNodes().size());
+            rebalance();
+        }
+    }
+
+    /**
+     * Artık bu node'a ait olmayan odaları yeni sahiplerine devreder.
+     */
+    private void rebalance() {
+        if (selfUrl == null) return;
+        for (String roomCode : roomService.getRooms().keySet()) {
+            String owner = remoteOwnerOf(roomCode);
+            if (owner != null) {
+                handOff(roomCode, owner);
+            }
+        }
+    }
+
+    /**
+     * Odayı yeni sahibine devreder. Oda durumu odanın mailbox'ında kopyalanır, böylece önceki komutlar
+     * devre dahildir; HTTP isteği HttpClient'ın kendi thread'lerinde gider, mailbox worker'ı beklemez.
+     * Kopya alındığı anda oda kilitlenir: sonra gelen komutlar burada uygulanmaz, {@link #holdDuringHandOff}
+     * ile bekletilir. Sahip kabul edince bekleyen komutlar ona iletilir ve oda mailbox'ta silinir; devir
+     * başarısız olursa komutlar burada sırasıyla uygulanır. Böylece oda hiçbir an iki node'da birden
+     * değişmez, kopya tekrar gönderilip sahipteki değişikliklerin üzerine yazılmaz. Silindikten sonra
+     * kuyrukta kalan komutlar odayı bulamaz ve yeni sahibe iletilir ({@code RoomWsController}).
+     *
+     * @return devir bittiğinde (başarılı ya da değil) tamamlanır; başarısız devir bir sonraki heartbeat'te tekrar denenir
+     */
+    private CompletableFuture<Void> handOff(String roomCode, String owner) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CompletableFuture<Void> running = handOffs.putIfAbsent(roomCode, done);
+        if (running != null) return running;
+        done.whenComplete((result, error) -> handOffs.remove(roomCode, done));
+
+        if (!roomExecutor.execute(roomCode, guarded(done, () -> transfer(roomCode, owner, done)))) {
+            done.complete(null);
+        }
+        return done;
+    }
+
+    // devir adımı hata verirse devir biter; oda yerinde kalır, sonraki heartbeat tekrar dener
+    private static Runnable guarded(CompletableFuture<Void> done, Runnable step) {
+        return () -> {
+            try {
+                step.run();
+            } catch (RuntimeException e) {
+                done.complete(null);
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Devredilmekte olan odaya gelen komutu devir bitene kadar bekletir. Odanın mailbox'ında çağrılmalıdır.
+     * Komut hemen iletilmez: yeni sahip kopyayı henüz almamış olabilir ve odayı bulamadığı komutu düşürür.
+     *
+     * @param remote devir tamamlanınca yeni sahibe iletilecek komut
+     * @param local  devir başarısız olursa bu node'da uygulanacak komut
+     * @return oda devredilmiyorsa false; komut çağıran tarafından hemen uygulanmalıdır
+     */
+    public boolean holdDuringHandOff(String roomCode, Supplier<ClusterEnvelope> remote, Runnable local) {
+        List<HeldCommand> held = fenced.get(roomCode);
+        if (held == null) return false;
+        held.add(new HeldCommand(remote, local));
+        return true;
+    }
+
+    // odanın mailbox'ında çalışır
+    private void transfer(String roomCode, String owner, CompletableFuture<Void> done) {
+        Room room = roomService.getRoom(roomCode);
+        // bu arada oda silindiyse ya da sahiplik yine değiştiyse bir sonraki turda ele alınır
+        if (room == null || owner == null || !owner.equals(ring.ownerOf(roomCode))) {
+            done.complete(null);
+            return;
+        }
+
+        HttpRequest request;
+        try {
+            request = postRequest(owner + INTERNAL_PATH + "/rooms", RoomTransfer.from(room));
+        } catch (IOException e) {
+            log.warn("Oda devri hazırlanamadı: {} ({})", roomCode, e.getMessage());
+            done.complete(null);
+            return;
+        }
+        // kopya alındı; bundan sonraki komutlar kopyaya girmeyeceğinden devir bitene kadar bekletilir
+        fenced.put(roomCode, new ArrayList<>());
+        try {
+            send(request, roomCode, room, owner, done);
+        } catch (RuntimeException e) {
+            // aynı mailbox adımında bekletilen komut olamaz, kilit kaldırılması yeterli
+            fenced.remove(roomCode);
+            throw e;
+        }
+    }
+
+    private void send(HttpRequest request, String roomCode, Room room, String owner, CompletableFuture<Void> done) {
+        http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, error) -> {
+            boolean accepted = false;
+            if (error != null) {
+                log.warn("Oda devredilemedi: {} → {} ({})", roomCode, owner, error.getMessage());
+            } else if (response.statusCode() / 100 != 2) {
+                log.warn("Oda devri reddedildi: {} → {} ({})", roomCode, owner, response.statusCode());
+            } else {
+                accepted = true;
+            }
+            boolean transferred = accepted;
+            inMailbox(roomCode, () -> completeTransfer(room, owner, transferred, done));
+        });
+    }
+
+    // odanın mailbox'ında çalışır
+    private void completeTransfer(Room room, String owner, boolean transferred, CompletableFuture<Void> done) {
+        String roomCode = room.getRoomCode();
+        List<HeldCommand> held = fenced.remove(roomCode);
+        try {
+            if (transferred && roomService.getRoom(roomCode) == room) {
+                // bekleyen komutlar oda silinmeden iletilir; silindikten sonra gelenler peer kuyruğunda arkalarına düşer
+                for (HeldCommand command : held) {
+                    forwardTo(owner, command.remote().get());
+                }
+                roomService.removeRoom(roomCode);
+                roomExecutor.remove(roomCode);
+                roomsHandedOff.increment();
+                log.debug("Oda devredildi: {} → {} ({} bekleyen komut)", roomCode, owner, held.size());
+            } else {
+                // devir olmadı (ya da oda bu arada değişti): komutlar geliş sırasıyla burada uygulanır
+                for (HeldCommand command : held) {
+                    try {
+                        command.local().run();
+                    } catch (RuntimeException e) {
+                        log.error("Bekletilen oda komutu başarısız oldu: {}", roomCode, e);
+                    }
+                }
+            }
+        } finally {
+            done.complete(null);
+        }
+    }
+
+    /**
+     * Devrin mailbox adımını sıraya koyar; mailbox doluysa kısa bir süre sonra tekrar dener. Bu adım
+     * atlanamaz, yoksa oda kilitli kalır.
+     */
+    private void inMailbox(String roomCode, Runnable step) {
+        if (!roomExecutor.execute(roomCode, step)) {
+            CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS).execute(() -> inMailbox(roomCode, step));
+        }
+    }
+
+    private void forwardTo(String owner, ClusterEnvelope envelope) {
+        Peer peer = peers.get(owner);
+        if (peer != null && peer.offer(envelope)) {
+            commandsForwarded.increment();
+        } else {
+            forwardsFailed.increment();
+            log.debug("Bekletilen komut yeni sahibe iletilemedi: {} {} ({})", envelope.getType(), envelope.getRoomCode(), owner);
+        }
+    }
+
+    private HttpResponse<byte[]> post(String url, Object body) throws IOException, InterruptedException {
+        return http.send(postRequest(url, body), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private HttpRequest postRequest(String url, Object body) throws IOException {
+        return request(url)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String url) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(requestTimeout);
+        if (secret.length > 0) {
+            builder.header(TOKEN_HEADER, new String(secret, StandardCharsets.UTF_8));
+        }
+        return builder;
+    }
+
+    private String localHost() {
+        if (!serverAddress.isBlank() && !serverAddress.equals("0.0.0.0")) {
+            return serverAddress;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostAddress();
+        } catch (UnknownHostException e) {
+            return "127.0.0.1";
+        }
+    }
+
+    private static String trimSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    /**
+     * Bir peer'e giden mesaj kuyruğu. Kuyruğu aynı anda tek thread boşaltır; mesajlar
+     * gönderildiği sırayla ve toplu olarak iletilir. Ulaşılamayan peer'in mesajları düşer,
+     * istemciler versiyon boşluğunu görüp snapshot ister.
+     */
+    private final class Peer {
+        private final String url;
+        private final Queue<ClusterEnvelope> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile int failures;
+
+        private Peer(String url) {
+            this.url = url;
+        }
+
+        /**
+         * @return kuyruk doluysa false, mesaj düşer
+         */
+        private boolean offer(ClusterEnvelope envelope) {
+            if (size.incrementAndGet() > queueCapacity) {
+                size.decrementAndGet();
+                messagesDropped.increment();
+                return false;
+            }
+            queue.offer(envelope);
+            schedule();
+            return true;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // node kapanıyor
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            List<ClusterEnvelope> batch = new ArrayList<>(Math.min(size.get(), SEND_BATCH));
+            ClusterEnvelope envelope;
+            while (batch.size() < SEND_BATCH && (envelope = queue.poll()) != null) {
+                size.decrementAndGet();
+                batch.add(envelope);
+            }
+
+            try {
+                HttpResponse<byte[]> response = post(url + INTERNAL_PATH + "/messages", batch);
+                if (response.statusCode() / 100 != 2) {
+                    messagesDropped.add(batch.size());
+                }
+            } catch (IOException e) {
+                messagesDropped.add(batch.size());
+                log.debug("Cluster mesajları gönderilemedi: {} ({})", url, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                messagesDropped.add(batch.size());
+            }
+
+            scheduled.set(false);
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+
+    private record HeldCommand(Supplier<ClusterEnvelope> remote, Runnable local) {
+    }
+}
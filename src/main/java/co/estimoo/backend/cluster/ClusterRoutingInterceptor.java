@@ -0,0 +1,62 @@
+package co.estimoo.backend.cluster;
+
+import co.estimoo.backend.service.RoomService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+/**
+ * Cluster modunda /api/rooms/{roomCode}/** okumalarını odanın sahibi olan node'a aktarır.
+ * İstemci hangi node'a düşerse düşsün aynı cevabı alır; RoomRestResource değişmez.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClusterRoutingInterceptor implements HandlerInterceptor {
+
+    private final ClusterNode clusterNode;
+    private final RoomService roomService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException {
+        if (!clusterNode.isEnabled() || request.getHeader(ClusterNode.FORWARDED_HEADER) != null) return true;
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) return true;
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String roomCode = variables != null ? variables.get("roomCode") : null;
+        if (roomCode == null || roomService.getRoom(roomCode) != null) return true;
+
+        String owner = clusterNode.remoteOwnerOf(roomCode);
+        if (owner == null) return true;
+
+        String pathAndQuery = request.getRequestURI() + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+        try {
+            HttpResponse<byte[]> proxied = clusterNode.proxy(owner, request.getMethod(), pathAndQuery,
+                    request.getHeader(HttpHeaders.IF_NONE_MATCH));
+            response.setStatus(proxied.statusCode());
+            proxied.headers().firstValue(HttpHeaders.CONTENT_TYPE).ifPresent(response::setContentType);
+            // sahibin versiyon ETag'i aynen döner; istemci hangi node'a düşerse düşsün 304 alabilir
+            proxied.headers().firstValue(HttpHeaders.ETAG).ifPresent(etag -> response.setHeader(HttpHeaders.ETAG, etag));
+            proxied.headers().firstValue(HttpHeaders.CACHE_CONTROL).ifPresent(value -> response.setHeader(HttpHeaders.CACHE_CONTROL, value));
+            response.getOutputStream().write(proxied.body());
+        } catch (IOException e) {
+            log.warn("İstek oda sahibine aktarılamadı: {} ({})", roomCode, owner);
+            response.sendError(HttpStatus.BAD_GATEWAY.value());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+        }
+        return false;
+    }
+}
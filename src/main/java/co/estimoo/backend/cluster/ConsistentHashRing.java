@@ -0,0 +1,85 @@
+package co.estimoo.backend.cluster;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * roomCode → node eşlemesi için değişmez consistent hash halkası. Her node halkaya
+ * {@code virtualNodes} nokta olarak eklenir; bir node eklenip çıktığında sadece
+ * o node'un aralığındaki odalar yer değiştirir.
+ * <p>
+ * Halka her değişiklikte sıralı node kümesinden yeniden kurulur; aynı üyeleri gören
+ * tüm node'lar ekleme sırasından bağımsız olarak aynı sahipliği hesaplar.
+ */
+public final class ConsistentHashRing {
+
+    private final int virtualNodes;
+    private final Set<String> nodes;
+    private final NavigableMap<Long, String> points;
+
+    public ConsistentHashRing(int virtualNodes) {
+        this(virtualNodes, Set.of());
+    }
+
+    private ConsistentHashRing(int virtualNodes, Set<String> nodes) {
+        this.virtualNodes = virtualNodes;
+        this.nodes = Collections.unmodifiableSet(new TreeSet<>(nodes));
+
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // çakışmada sözlük sırasında küçük node kazanır, sonuç deterministik kalır
+                ring.merge(hash(node + "#" + i), node, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+        this.points = ring;
+    }
+
+    public ConsistentHashRing withNode(String node) {
+        if (nodes.contains(node)) return this;
+        Set<String> updated = new TreeSet<>(nodes);
+        updated.add(node);
+        return new ConsistentHashRing(virtualNodes, updated);
+    }
+
+    public ConsistentHashRing withoutNode(String node) {
+        if (!nodes.contains(node)) return this;
+        Set<String> updated = new TreeSet<>(nodes);
+        updated.remove(node);
+        return new ConsistentHashRing(virtualNodes, updated);
+    }
+
+    /**
+     * @return anahtarın sahibi olan node ya da halka boşsa null
+     */
+    public String ownerOf(String key) {
+        if (points.isEmpty()) return null;
+        Map.Entry<Long, String> entry = points.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : points.firstEntry().getValue();
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * FNV-1a üzerine murmur3 fmix64; kısa oda kodlarında da halkaya dengeli dağılır.
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe2ec53a9L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
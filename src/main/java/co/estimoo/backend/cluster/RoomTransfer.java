@@ -0,0 +1,67 @@
+package co.estimoo.backend.cluster;
+
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import co.estimoo.backend.model.VoteValue;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sahipliği değişen odanın yeni sahibine taşınan tam durumu.
+ * Versiyon ve katılımcı sayacı da taşınır; istemciler delta akışını kesintisiz görür.
+ */
+@Data
+@NoArgsConstructor
+public class RoomTransfer {
+    private String roomCode;
+    private String roomName;
+    private boolean votesRevealed;
+    private long version;
+    private int lastParticipantId;
+    private LocalDateTime lastActivity;
+    private List<Participant> participants = new ArrayList<>();
+
+    public static RoomTransfer from(Room room) {
+        RoomTransfer transfer = new RoomTransfer();
+        transfer.setRoomCode(room.getRoomCode());
+        transfer.setRoomName(room.getRoomName());
+        transfer.setVotesRevealed(room.isVotesRevealed());
+        transfer.setVersion(room.getVersion());
+        transfer.setLastParticipantId(room.getLastParticipantId());
+        transfer.setLastActivity(room.getLastActivity());
+        room.getUsers().values().forEach(user -> transfer.getParticipants().add(new Participant(
+                user.getSessionId(), user.getNickname(),
+                user.getVote() != null ? user.getVote().getLabel() : null,
+                user.getParticipantId())));
+        return transfer;
+    }
+
+    public Room toRoom() {
+        Room room = new Room();
+        room.setRoomCode(roomCode);
+        room.setRoomName(roomName);
+        room.setVotesRevealed(votesRevealed);
+        room.setLastActivity(lastActivity != null ? lastActivity : LocalDateTime.now());
+        room.restoreCounters(version, lastParticipantId);
+        participants.forEach(participant -> room.getUsers().put(participant.getSessionId(), new UserSession(
+                participant.getSessionId(), participant.getNickname(),
+                participant.getVote() != null ? VoteValue.fromLabel(participant.getVote()) : null,
+                participant.getParticipantId())));
+        return room;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Participant {
+        private String sessionId;
+        private String nickname;
+        private String vote;
+        private int participantId;
+    }
+}
@@ -0,0 +1,20 @@
+package co.estimoo.backend.config;
+
+import co.estimoo.backend.cluster.ClusterRoutingInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class ClusterWebConfig implements WebMvcConfigurer {
+
+    private final ClusterRoutingInterceptor clusterRoutingInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // cluster kapalıyken interceptor isteği olduğu gibi geçirir
+        registry.addInterceptor(clusterRoutingInterceptor).addPathPatterns("/api/rooms/*", "/api/rooms/*/**");
+    }
+}
@@ -0,0 +1,44 @@
+package co.estimoo.backend.config;
+
+import co.estimoo.backend.raw.RawRoomSocketHandler;
+import co.estimoo.backend.resume.ReconnectHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * SockJS ve STOMP'suz ham oda uç noktası ({@code /ws/raw?token=...}). STOMP uç noktasıyla aynı
+ * token, origin ve permessage-deflate ayarlarını kullanır.
+ */
+@Configuration
+@EnableWebSocket
+public class RawWebSocketConfig implements WebSocketConfigurer {
+
+    @Value("${spring.web.cors.allowed-origins:http://localhost:3000,http://localhost:5173,https://estimoo.co,https://www.estimoo.co}")
+    private String allowedOrigins;
+
+    @Value("${estimoo.ws.permessage-deflate.enabled:true}")
+    private boolean permessageDeflate;
+
+    @Value("${estimoo.ws.raw.path:/ws/raw}")
+    private String path;
+
+    private final RawRoomSocketHandler rawRoomSocketHandler;
+    private final ReconnectHints reconnectHints;
+
+    public RawWebSocketConfig(RawRoomSocketHandler rawRoomSocketHandler, ReconnectHints reconnectHints) {
+        this.rawRoomSocketHandler = rawRoomSocketHandler;
+        this.reconnectHints = reconnectHints;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // kapanışta STOMP bağlantılarıyla aynı yeniden bağlanma önerisini alır
+        registry.addHandler(reconnectHints.decorate(rawRoomSocketHandler), path)
+                .setAllowedOriginPatterns(allowedOrigins.split(","))
+                .setHandshakeHandler(new RoomHandshakeHandler(permessageDeflate))
+                .addInterceptors(new SessionHandshakeInterceptor());
+    }
+}
@@ -0,0 +1,111 @@
+package co.estimoo.backend.config;
+
+import co.estimoo.backend.dto.RoomBinaryCodec;
+import co.estimoo.backend.dto.RoomDeltaMessage;
+import co.estimoo.backend.dto.RoomStateMessage;
+import co.estimoo.backend.dto.RoomWireFormat;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.util.MimeType;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link RoomStateMessage} ve {@link RoomDeltaMessage} için {@link RoomBinaryCodec} formatı.
+ * Sadece content-type açıkça bu format olduğunda devreye girer; JSON varsayılan kalır.
+ * <p>
+ * İstemci formatı SUBSCRIBE frame'inin {@code accept} (ya da {@code content-type}) header'ıyla seçer.
+ * SockJS binary frame taşıyamadığından ikili format sadece ham WebSocket ({@code /ws/websocket})
+ * bağlantılarında verilir; SockJS istemcisi istese de JSON alır.
+ */
+public class RoomBinaryMessageConverter extends AbstractMessageConverter {
+
+    /**
+     * Handshake sırasında oturum özelliklerine yazılır; bağlantı binary frame taşıyabiliyorsa true.
+     */
+    public static final String BINARY_CAPABLE_ATTRIBUTE = "binaryFrames";
+
+    /**
+     * Handshake'te {@code encoding=deflate} istenmişse true; oda payload'ları eşiği aşınca
+     * paylaşılan DEFLATE kopyasıyla gönderilir.
+     */
+    public static final String DEFLATE_ATTRIBUTE = "deflateFrames";
+
+    private static final List<String> NEGOTIATION_HEADERS = List.of("accept", "content-type");
+
+    public RoomBinaryMessageConverter() {
+        super(RoomBinaryCodec.MIME_TYPE);
+        // content-type'sız mesajlar JSON converter'a kalsın
+        setStrictContentTypeMatch(true);
+    }
+
+    /**
+     * Abonelik (ya da @SubscribeMapping) mesajı ikili formatı istiyor ve bağlantı taşıyabiliyorsa true.
+     */
+    public static boolean isRequested(Message<?> message) {
+        return isRequested(message.getHeaders());
+    }
+
+    /**
+     * Aboneliğin oda mesajlarını hangi formatta alacağı: SUBSCRIBE'daki {@code accept} ve
+     * handshake'teki sıkıştırma tercihi.
+     */
+    public static RoomWireFormat requestedFormat(MessageHeaders headers) {
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(headers);
+        boolean deflate = attributes != null && Boolean.TRUE.equals(attributes.get(DEFLATE_ATTRIBUTE));
+        return RoomWireFormat.of(isRequested(headers), deflate);
+    }
+
+    public static boolean isRequested(MessageHeaders headers) {
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(headers);
+        if (attributes == null || !Boolean.TRUE.equals(attributes.get(BINARY_CAPABLE_ATTRIBUTE))) {
+            return false;
+        }
+        if (!(headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS) instanceof Map<?, ?> nativeHeaders)) {
+            return false;
+        }
+        for (String header : NEGOTIATION_HEADERS) {
+            if (!(nativeHeaders.get(header) instanceof List<?> values)) continue;
+            for (Object value : values) {
+                for (String candidate : String.valueOf(value).split(",")) {
+                    if (matches(candidate.trim())) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return RoomStateMessage.class == clazz || RoomDeltaMessage.class == clazz;
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        if (!(message.getPayload() instanceof byte[] payload)) return null;
+        Object decoded = RoomBinaryCodec.decode(payload);
+        return targetClass.isInstance(decoded) ? decoded : null;
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        if (payload instanceof RoomStateMessage state) return RoomBinaryCodec.encode(state);
+        if (payload instanceof RoomDeltaMessage delta) return RoomBinaryCodec.encode(delta);
+        return null;
+    }
+
+    private static boolean matches(String value) {
+        if (value.isEmpty()) return false;
+        try {
+            MimeType mimeType = MimeType.valueOf(value);
+            return RoomBinaryCodec.MIME_TYPE.equalsTypeAndSubtype(mimeType)
+                    && RoomBinaryCodec.MIME_TYPE.getParameter("format").equals(mimeType.getParameter("format"));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package co.estimoo.backend.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.websocket.server.ServerEndpointConfig;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.server.standard.StandardWebSocketUpgradeStrategy;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * permessage-deflate (RFC 7692) müzakeresini yönetir. Tomcat eklentiyi bağlantı başına tek bir
+ * deflater ile (context takeover) uygular ve her frame'i sıkıştırır.
+ * <p>
+ * Eklenti kapatıldığında ya da istemci {@code encoding=deflate} ile uygulama seviyesinde paylaşılan
+ * sıkıştırmayı seçtiğinde teklif reddedilir; aynı payload iki kez sıkıştırılmaz.
+ */
+public class RoomHandshakeHandler extends DefaultHandshakeHandler {
+
+    static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private final boolean permessageDeflate;
+
+    public RoomHandshakeHandler(boolean permessageDeflate) {
+        super(new UpgradeStrategy(permessageDeflate));
+        this.permessageDeflate = permessageDeflate;
+    }
+
+    @Override
+    protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                                                                 List<WebSocketExtension> requestedExtensions,
+                                                                 List<WebSocketExtension> supportedExtensions) {
+        List<WebSocketExtension> accepted = super.filterRequestedExtensions(request, requestedExtensions, supportedExtensions);
+        if (acceptsPermessageDeflate(permessageDeflate, request)) {
+            return accepted;
+        }
+        return accepted.stream()
+                .filter(extension -> !PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName()))
+                .toList();
+    }
+
+    private static boolean acceptsPermessageDeflate(boolean enabled, ServerHttpRequest request) {
+        return enabled && !SessionHandshakeInterceptor.requestsSharedDeflate(request);
+    }
+
+    /**
+     * Tomcat, Spring'in seçtiği eklenti listesi boşsa kendi kurulu eklentileriyle yeniden müzakere eder;
+     * bu yüzden reddedilen teklif isteğin header'ından da gizlenir.
+     */
+    private static final class UpgradeStrategy extends StandardWebSocketUpgradeStrategy {
+
+        private final boolean permessageDeflate;
+
+        private UpgradeStrategy(boolean permessageDeflate) {
+            this.permessageDeflate = permessageDeflate;
+        }
+
+        @Override
+        protected void upgradeHttpToWebSocket(HttpServletRequest request, HttpServletResponse response,
+                                              ServerEndpointConfig endpointConfig, Map<String, String> pathParams) throws Exception {
+            if (!acceptsPermessageDeflate(permessageDeflate, new ServletServerHttpRequest(request))) {
+                request = new WithoutExtensionOffer(request);
+            }
+            super.upgradeHttpToWebSocket(request, response, endpointConfig, pathParams);
+        }
+    }
+
+    private static final class WithoutExtensionOffer extends HttpServletRequestWrapper {
+
+        private WithoutExtensionOffer(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isExtensionHeader(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isExtensionHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        private static boolean isExtensionHeader(String name) {
+            return "Sec-WebSocket-Extensions".equalsIgnoreCase(name);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package co.estimoo.backend.config;
+
+import co.estimoo.backend.dto.RoomWireFormat;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static co.estimoo.backend.service.RoomBroadcaster.ROOM_TOPIC_PREFIX;
+
+/**
+ * SimpleBroker için oda indeksli abonelik kaydı. {@code /topic/room/{roomCode}} abonelikleri
+ * doğrudan {@code roomCode → oturumlar} haritasında tutulur; yayın başına arama tek bir
+ * hash erişimidir ve abone listesi her yayında yeniden kurulmaz, değiştiğinde bir kez kopyalanır.
+ * Diğer hedefler (user kuyrukları, pattern abonelikleri) {@link DefaultSubscriptionRegistry}'ye devredilir.
+ */
+@Component
+public class RoomSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+    private static final MultiValueMap<String, String> NO_SUBSCRIBERS =
+            CollectionUtils.unmodifiableMultiValueMap(new LinkedMultiValueMap<>());
+
+    private final DefaultSubscriptionRegistry fallback = new DefaultSubscriptionRegistry();
+
+    // roomCode → o odanın aboneleri
+    private final Map<String, RoomSubscribers> rooms = new ConcurrentHashMap<>();
+
+    // sessionId → (subscriptionId → destination); unsubscribe ve disconnect temizliği için
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    // sessionId → (subscriptionId → JSON dışı wire formatı); giden mesaj başına bakıldığından ayrı tutulur
+    private final Map<String, Map<String, RoomWireFormat>> wireFormats = new ConcurrentHashMap<>();
+
+    // oda yayınlarından geçici olarak çıkarılan oturumlar
+    private volatile Predicate<String> excludedSessions = sessionId -> false;
+
+    // Fallback'teki wildcard abonelik sayısı; sıfırken oda yayınlarında fallback'e hiç bakılmaz
+    private final AtomicInteger patternSubscriptions = new AtomicInteger();
+
+    @Override
+    protected void addSubscriptionInternal(String sessionId, String subscriptionId, String destination, Message<?> message) {
+        sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, destination);
+
+        String roomCode = roomCodeOf(destination);
+        if (roomCode == null) {
+            if (isPattern(destination)) {
+                patternSubscriptions.incrementAndGet();
+            }
+            fallback.registerSubscription(message);
+            return;
+        }
+        RoomWireFormat format = RoomBinaryMessageConverter.requestedFormat(message.getHeaders());
+        if (format != RoomWireFormat.JSON) {
+            wireFormats.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, format);
+        }
+        rooms.compute(roomCode, (code, subscribers) -> {
+            RoomSubscribers result = subscribers != null ? subscribers : new RoomSubscribers();
+            result.add(sessionId, subscriptionId, format);
+            return result;
+        });
+    }
+
+    @Override
+    protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+        Map<String, String> subscriptions = sessions.get(sessionId);
+        String destination = subscriptions != null ? subscriptions.remove(subscriptionId) : null;
+        if (destination == null) {
+            fallback.unregisterSubscription(message);
+            return;
+        }
+        if (subscriptions.isEmpty()) {
+            sessions.remove(sessionId, subscriptions);
+        }
+
+        String roomCode = roomCodeOf(destination);
+        if (roomCode == null) {
+            if (isPattern(destination)) {
+                patternSubscriptions.decrementAndGet();
+            }
+            fallback.unregisterSubscription(message);
+        } else {
+            removeFromRoom(roomCode, sessionId, subscriptionId);
+        }
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(String sessionId) {
+        wireFormats.remove(sessionId);
+        Map<String, String> subscriptions = sessions.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.forEach((subscriptionId, destination) -> {
+                String roomCode = roomCodeOf(destination);
+                if (roomCode != null) {
+                    removeFromRoom(roomCode, sessionId, subscriptionId);
+                } else if (isPattern(destination)) {
+                    patternSubscriptions.decrementAndGet();
+                }
+            });
+        }
+        fallback.unregisterAllSubscriptions(sessionId);
+    }
+
+    @Override
+    protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+        String roomCode = roomCodeOf(destination);
+        if (roomCode == null) {
+            return fallback.findSubscriptions(message);
+        }
+
+        RoomSubscribers subscribers = rooms.get(roomCode);
+        MultiValueMap<String, String> result = subscribers != null ? withoutExcluded(subscribers.snapshot) : null;
+        if (patternSubscriptions.get() == 0) {
+            return result != null ? result : NO_SUBSCRIBERS;
+        }
+
+        // Nadir durum: /topic/room/* gibi bir pattern abonesi de var
+        MultiValueMap<String, String> merged = new LinkedMultiValueMap<>();
+        if (result != null) {
+            merged.addAll(result);
+        }
+        fallback.findSubscriptions(message).forEach(merged::addAll);
+        return merged;
+    }
+
+    /**
+     * Oda yayınlarını geçici olarak almayacak oturumlar (ör. yazımı takılmış yavaş istemciler).
+     * Yayın başına her abone için sorulur; hızlı olmalıdır.
+     */
+    public void setExcludedSessions(Predicate<String> excludedSessions) {
+        this.excludedSessions = excludedSessions;
+    }
+
+    /**
+     * Oturumun oda topic'i abonelikleri (subscriptionId → destination).
+     */
+    public Map<String, String> getRoomSubscriptions(String sessionId) {
+        Map<String, String> subscriptions = sessions.get(sessionId);
+        if (subscriptions == null) return Map.of();
+        Map<String, String> result = new LinkedHashMap<>();
+        subscriptions.forEach((subscriptionId, destination) -> {
+            if (roomCodeOf(destination) != null) result.put(subscriptionId, destination);
+        });
+        return result;
+    }
+
+    /**
+     * Odanın topic'ine abone olan oturum sayısı.
+     */
+    public int getSubscriberCount(String roomCode) {
+        RoomSubscribers subscribers = rooms.get(roomCode);
+        return subscribers != null ? subscribers.snapshot.size() : 0;
+    }
+
+    /**
+     * Odanın abonelerinin istediği wire formatları; yayın sadece bunlara çevrilir.
+     */
+    public Set<RoomWireFormat> getWireFormats(String roomCode) {
+        RoomSubscribers subscribers = rooms.get(roomCode);
+        return subscribers != null ? subscribers.formats : Set.of();
+    }
+
+    public RoomWireFormat getWireFormat(String sessionId, String subscriptionId) {
+        Map<String, RoomWireFormat> formats = wireFormats.get(sessionId);
+        RoomWireFormat format = formats != null ? formats.get(subscriptionId) : null;
+        return format != null ? format : RoomWireFormat.JSON;
+    }
+
+    /**
+     * En az bir abonesi olan oda sayısı.
+     */
+    public int getSubscribedRoomCount() {
+        return rooms.size();
+    }
+
+    /**
+     * Hariç tutulan oturum yoksa aynı snapshot döner; varsa onlarsız bir kopya.
+     */
+    private MultiValueMap<String, String> withoutExcluded(MultiValueMap<String, String> snapshot) {
+        Predicate<String> excluded = excludedSessions;
+        MultiValueMap<String, String> filtered = null;
+        for (String sessionId : snapshot.keySet()) {
+            if (!excluded.test(sessionId)) continue;
+            if (filtered == null) filtered = new LinkedMultiValueMap<>(snapshot);
+            filtered.remove(sessionId);
+        }
+        return filtered != null ? filtered : snapshot;
+    }
+
+    private void removeFromRoom(String roomCode, String sessionId, String subscriptionId) {
+        Map<String, RoomWireFormat> formats = wireFormats.get(sessionId);
+        if (formats != null && formats.remove(subscriptionId) != null && formats.isEmpty()) {
+            wireFormats.remove(sessionId, formats);
+        }
+        rooms.computeIfPresent(roomCode, (code, subscribers) ->
+                subscribers.remove(sessionId, subscriptionId) ? subscribers : null);
+    }
+
+    /**
+     * {@code /topic/room/ABC123} → {@code ABC123}; oda topic'i değilse null.
+     */
+    static String roomCodeOf(String destination) {
+        if (!destination.startsWith(ROOM_TOPIC_PREFIX) || destination.length() == ROOM_TOPIC_PREFIX.length()) {
+            return null;
+        }
+        String roomCode = destination.substring(ROOM_TOPIC_PREFIX.length());
+        return roomCode.indexOf('/') < 0 && !isPattern(roomCode) ? roomCode : null;
+    }
+
+    private static boolean isPattern(String destination) {
+        return destination.indexOf('*') >= 0 || destination.indexOf('?') >= 0 || destination.indexOf('{') >= 0;
+    }
+
+    /**
+     * Bir odanın aboneleri. Değişiklikler {@code rooms.compute} içinde yapılır;
+     * yayın tarafı sadece değişmez {@link #snapshot} referansını okur.
+     */
+    private static final class RoomSubscribers {
+        // sessionId → (subscriptionId → wire formatı)
+        private final Map<String, Map<String, RoomWireFormat>> bySession = new LinkedHashMap<>();
+        private volatile MultiValueMap<String, String> snapshot = NO_SUBSCRIBERS;
+        private volatile Set<RoomWireFormat> formats = Set.of();
+
+        private void add(String sessionId, String subscriptionId, RoomWireFormat format) {
+            bySession.computeIfAbsent(sessionId, id -> new LinkedHashMap<>()).put(subscriptionId, format);
+            rebuild();
+        }
+
+        /**
+         * @return oda hâlâ en az bir aboneye sahipse true
+         */
+        private boolean remove(String sessionId, String subscriptionId) {
+            Map<String, RoomWireFormat> subscriptionIds = bySession.get(sessionId);
+            if (subscriptionIds != null && subscriptionIds.remove(subscriptionId) != null) {
+                if (subscriptionIds.isEmpty()) {
+                    bySession.remove(sessionId);
+                }
+                rebuild();
+            }
+            return !bySession.isEmpty();
+        }
+
+        private void rebuild() {
+            LinkedMultiValueMap<String, String> copy = new LinkedMultiValueMap<>(bySession.size());
+            EnumSet<RoomWireFormat> used = EnumSet.noneOf(RoomWireFormat.class);
+            bySession.forEach((sessionId, subscriptionIds) -> {
+                copy.put(sessionId, List.copyOf(subscriptionIds.keySet()));
+                used.addAll(subscriptionIds.values());
+            });
+            snapshot = CollectionUtils.unmodifiableMultiValueMap(copy);
+            formats = Collections.unmodifiableSet(used);
+        }
+    }
+}
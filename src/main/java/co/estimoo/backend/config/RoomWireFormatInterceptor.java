@@ -0,0 +1,55 @@
+package co.estimoo.backend.config;
+
+import co.estimoo.backend.dto.RoomWireFormat;
+import co.estimoo.backend.service.RoomBroadcaster;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * Broker'ın oda abonelerine dağıttığı delta mesajında, JSON dışında bir {@link RoomWireFormat}
+ * isteyen aboneliğe yayıncının o format için hazırladığı payload'ı koyar. Payload'lar yayın başına
+ * bir kez üretilir; abone başına sadece header kopyalanır. Sıkıştırılmış varyant yoksa (payload
+ * eşiğin altında) sıkıştırılmamış karşılığı gönderilir.
+ */
+@RequiredArgsConstructor
+public class RoomWireFormatInterceptor implements ChannelInterceptor {
+
+    private final RoomSubscriptionRegistry subscriptionRegistry;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders());
+        if (sessionId == null || subscriptionId == null) {
+            return message;
+        }
+        RoomWireFormat format = subscriptionRegistry.getWireFormat(sessionId, subscriptionId);
+        if (format == RoomWireFormat.JSON) {
+            return message;
+        }
+
+        byte[] payload = variant(message, format);
+        if (payload == null && format.isDeflated()) {
+            format = format.plain();
+            payload = format == RoomWireFormat.JSON ? null : variant(message, format);
+        }
+        if (payload == null) {
+            return message;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setContentType(format.getContentType());
+        for (RoomWireFormat each : RoomWireFormat.values()) {
+            accessor.removeHeader(RoomBroadcaster.payloadHeader(each));
+        }
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private static byte[] variant(Message<?> message, RoomWireFormat format) {
+        return message.getHeaders().get(RoomBroadcaster.payloadHeader(format)) instanceof byte[] payload ? payload : null;
+    }
+}
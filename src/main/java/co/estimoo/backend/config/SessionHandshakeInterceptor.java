@@ -14,12 +14,29 @@ public class SessionHandshakeInterceptor implements HandshakeInterceptor {
         var uri = request.getURI().toString(); // ws://localhost:8080/ws?token=1234abcd
         if (uri.contains("token=")) {
             String token = uri.substring(uri.indexOf("token=") + 6);
-            attributes.put("sessionId", token); // ws bağlanınca kullanıcıya ait ID
+            int end = token.indexOf('&');
+            attributes.put("sessionId", end < 0 ? token : token.substring(0, end)); // ws bağlanınca kullanıcıya ait ID
         }
+        // SockJS transport'ları sadece metin taşır; binary frame yalnızca ham /ws/websocket bağlantısında mümkün
+        attributes.put(RoomBinaryMessageConverter.BINARY_CAPABLE_ATTRIBUTE, isRawWebSocket(request));
+        attributes.put(RoomBinaryMessageConverter.DEFLATE_ATTRIBUTE, requestsSharedDeflate(request));
         return true;
     }
 
     @Override
     public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response, WebSocketHandler wsHandler, Exception exception) {
     }
+
+    static boolean isRawWebSocket(ServerHttpRequest request) {
+        return request.getURI().getPath().endsWith("/ws/websocket");
+    }
+
+    /**
+     * {@code ?encoding=deflate}: oda payload'ları uygulama seviyesinde, yayın başına bir kez sıkıştırılır.
+     * Sıkıştırılmış payload binary frame gerektirdiğinden sadece ham WebSocket'te geçerlidir.
+     */
+    static boolean requestsSharedDeflate(ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        return isRawWebSocket(request) && query != null && ("&" + query + "&").contains("&encoding=deflate&");
+    }
 }
@@ -1,11 +1,29 @@
 package co.estimoo.backend.config;
 
+import co.estimoo.backend.dto.RoomWireFormat;
+import co.estimoo.backend.flow.InboundRateLimiter;
+import co.estimoo.backend.flow.SlowConsumerGuard;
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.resume.ReconnectHints;
+import co.estimoo.backend.raw.RawRoomSubscriptions;
+import co.estimoo.backend.service.RoomBroadcaster;
+import co.estimoo.backend.service.RoomService;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.*;
 
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 
 @Configuration
 @EnableWebSocketMessageBroker
@@ -14,18 +32,118 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Value("${spring.web.cors.allowed-origins:http://localhost:3000,http://localhost:5173,https://estimoo.co,https://www.estimoo.co}")
     private String allowedOrigins;
 
+    // Tomcat'in bağlantı başına permessage-deflate'i; ?encoding=deflate ile bağlananlarda her zaman kapalı
+    @Value("${estimoo.ws.permessage-deflate.enabled:true}")
+    private boolean permessageDeflate;
+
+    // Tek bir yazımın süresi ve oturum başına tampon; aşan oturum Spring tarafından kapatılır
+    @Value("${estimoo.ws.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs;
+
+    @Value("${estimoo.ws.send-buffer-limit-kb:512}")
+    private int sendBufferLimitKb;
+
+    private final RoomSubscriptionRegistry roomSubscriptionRegistry;
+    private final InboundRateLimiter rateLimiter;
+    private final SlowConsumerGuard slowConsumerGuard;
+    private final ReconnectHints reconnectHints;
+
+    public WebSocketConfig(RoomSubscriptionRegistry roomSubscriptionRegistry,
+                           InboundRateLimiter rateLimiter,
+                           SlowConsumerGuard slowConsumerGuard,
+                           ReconnectHints reconnectHints) {
+        this.roomSubscriptionRegistry = roomSubscriptionRegistry;
+        this.rateLimiter = rateLimiter;
+        this.slowConsumerGuard = slowConsumerGuard;
+        this.reconnectHints = reconnectHints;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic", "/queue"); // mesaj yayını yapılacak alan
         config.setApplicationDestinationPrefixes("/app"); // client → server mesaj prefix
         config.setUserDestinationPrefix("/user"); // bireysel cevaplar
+        // Aynı oturuma giden deltalar sırayla yazılır; outbound kanal virtual thread'lerde de olsa versiyon sırası bozulmaz
+        config.setPreservePublishOrder(true);
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns(allowedOrigins.split(","))
+                .setHandshakeHandler(new RoomHandshakeHandler(permessageDeflate))
                 .addInterceptors(new SessionHandshakeInterceptor())
                 .withSockJS();
+        // Bir istemcinin vote/unvote mesajları oda mailbox'ına gönderdiği sırayla ulaşır
+        registry.setPreserveReceiveOrder(true);
+    }
+
+    /**
+     * İkili oda formatı, SUBSCRIBE'da {@code accept: application/octet-stream;format=estimoo-room}
+     * ile istenir. JSON converter'ları korunur (true döner).
+     */
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        messageConverters.add(new RoomBinaryMessageConverter());
+        return true;
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(sendTimeLimitMs)
+                .setSendBufferSizeLimit(sendBufferLimitKb * 1024)
+                .addDecoratorFactory(slowConsumerGuard)
+                .addDecoratorFactory(reconnectHints);
+    }
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // sınırı aşan komut converter'a ve oda mailbox'ına ulaşmadan düşer
+        registration.interceptors(rateLimiter);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(new RoomWireFormatInterceptor(roomSubscriptionRegistry), slowConsumerGuard);
+    }
+
+    /**
+     * SimpleBroker'ın genel abonelik kaydını oda indeksli kayıtla değiştirir.
+     * Broker başlamadan (lifecycle start) önce çalışır; istemci tarafında değişiklik gerekmez.
+     */
+    @Bean
+    public SmartInitializingSingleton roomSubscriptionRegistryInstaller(
+            @Qualifier("simpleBrokerMessageHandler") AbstractBrokerMessageHandler brokerHandler,
+            RoomSubscriptionRegistry roomSubscriptionRegistry,
+            RoomBroadcaster roomBroadcaster,
+            RawRoomSubscriptions rawRoomSubscriptions,
+            RoomService roomService) {
+        return () -> {
+            if (brokerHandler instanceof SimpleBrokerMessageHandler simpleBroker) {
+                simpleBroker.setSubscriptionRegistry(roomSubscriptionRegistry);
+                // yazımı takılan oturuma yeni delta kuyruklanmaz; takılma bitince güncel versiyonla resync gider
+                roomSubscriptionRegistry.setExcludedSessions(slowConsumerGuard::isSlow);
+                slowConsumerGuard.setResync(sessionId -> roomSubscriptionRegistry.getRoomSubscriptions(sessionId)
+                        .forEach((subscriptionId, destination) -> {
+                            Room room = roomService.getRoom(destination.substring(RoomBroadcaster.ROOM_TOPIC_PREFIX.length()));
+                            // başka node'daki odada istemci bir sonraki relay deltasında boşluğu görür
+                            if (room != null) {
+                                roomBroadcaster.sendResync(room, sessionId, subscriptionId, destination,
+                                        roomSubscriptionRegistry.getWireFormat(sessionId, subscriptionId));
+                            }
+                        }));
+                // ikili ve sıkıştırılmış payload'lar sadece o formatta abonesi olan odalar için üretilir;
+                // ham WebSocket bağlantıları ikili deltayı alır
+                roomBroadcaster.setAudience(roomCode -> {
+                    Set<RoomWireFormat> formats = roomSubscriptionRegistry.getWireFormats(roomCode);
+                    if (!rawRoomSubscriptions.hasSubscribers(roomCode) || formats.contains(RoomWireFormat.BINARY)) {
+                        return formats;
+                    }
+                    Set<RoomWireFormat> withBinary = EnumSet.of(RoomWireFormat.BINARY);
+                    withBinary.addAll(formats);
+                    return withBinary;
+                });
+            }
+        };
     }
 }
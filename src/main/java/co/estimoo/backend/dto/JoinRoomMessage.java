@@ -6,4 +6,6 @@ import lombok.Data;
 public class JoinRoomMessage {
     private String roomCode;
     private String nickname;
+    // yeniden bağlanan istemcinin son aldığı token; geçerliyse katılım yayın üretmeden devam ettirilir
+    private String resumeToken;
 }
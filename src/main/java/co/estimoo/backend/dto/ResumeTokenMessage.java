@@ -0,0 +1,16 @@
+package co.estimoo.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * {@code /user/queue/resume} üzerinden gönderilen resume token'ı; istemci oda başına son aldığını saklar.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumeTokenMessage {
+    private String roomCode;
+    private String token;
+}
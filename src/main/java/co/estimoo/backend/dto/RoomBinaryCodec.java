@@ -0,0 +1,250 @@
+package co.estimoo.backend.dto;
+
+import co.estimoo.backend.model.VoteValue;
+import org.springframework.util.MimeType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Oda mesajlarının JSON'a alternatif kompakt ikili formatı.
+ * <pre>
+ * state   = [byte 1][byte flags][varint version][varint kullanıcı sayısı] kullanıcı* stats?
+ * user    = [varint participantId][string nickname][byte oy]
+ * delta   = [byte 2][byte flags][varint baseVersion][varint version][varint değişiklik sayısı] change* stats?
+ * change  = [byte ChangeType ordinal][varint participantId][string nickname][byte oy]
+ * stats   = [varint katılımcı sayısı][varint dolu kova sayısı] ([byte VoteValue ordinal][varint oy sayısı])*
+ * flags   = bit0: votesRevealed, bit1: stats var (ortalama vb. histogramdan {@link VoteStats#of} ile üretilir)
+ * string  = [varint bayt sayısı + 1, 0 = null][UTF-8]
+ * oy      = 0: yok, 1: verildi ama gizli, 2 + VoteValue ordinal: açık oy
+ * varint  = işaretsiz LEB128
+ * </pre>
+ * Enum sıraları formatın parçasıdır; yeni değerler sona eklenmelidir.
+ */
+public final class RoomBinaryCodec {
+
+    /**
+     * STOMP content-type/accept değeri. Alt tipin octet-stream olması, Spring'in ham WebSocket'te
+     * payload'ı binary frame olarak göndermesi için gereklidir.
+     */
+    public static final MimeType MIME_TYPE = new MimeType("application", "octet-stream",
+            Map.of("format", "estimoo-room"));
+
+    static final byte STATE = 1;
+    static final byte DELTA = 2;
+
+    private static final int REVEALED_FLAG = 1;
+    private static final int STATS_FLAG = 2;
+    private static final int NO_VOTE = 0;
+    private static final int HIDDEN_VOTE = 1;
+    private static final int VOTE_OFFSET = 2;
+
+    private static final VoteValue[] VOTES = VoteValue.values();
+    private static final RoomDeltaMessage.ChangeType[] CHANGE_TYPES = RoomDeltaMessage.ChangeType.values();
+
+    private RoomBinaryCodec() {
+    }
+
+    public static byte[] encode(RoomStateMessage state) {
+        List<RoomStateMessage.UserVoteInfo> users = state.getUsers() != null ? state.getUsers() : List.of();
+        Writer out = new Writer(16 + users.size() * 16);
+        out.put(STATE);
+        out.put(flags(state.isVotesRevealed(), state.getStats()));
+        out.putVarLong(state.getVersion());
+        out.putVarLong(users.size());
+        for (RoomStateMessage.UserVoteInfo user : users) {
+            out.putVarLong(user.getParticipantId());
+            out.putString(user.getNickname());
+            out.put(user.getVote() != null ? voteByte(user.getVote()) : user.isVoted() ? HIDDEN_VOTE : NO_VOTE);
+        }
+        putStats(out, state.getStats());
+        return out.toByteArray();
+    }
+
+    public static byte[] encode(RoomDeltaMessage delta) {
+        List<RoomDeltaMessage.Change> changes = delta.getChanges() != null ? delta.getChanges() : List.of();
+        Writer out = new Writer(24 + changes.size() * 8);
+        out.put(DELTA);
+        out.put(flags(delta.isVotesRevealed(), delta.getStats()));
+        out.putVarLong(delta.getBaseVersion());
+        out.putVarLong(delta.getVersion());
+        out.putVarLong(changes.size());
+        for (RoomDeltaMessage.Change change : changes) {
+            out.put(change.getType().ordinal());
+            out.putVarLong(change.getParticipantId());
+            out.putString(change.getNickname());
+            out.put(change.getVote() != null ? voteByte(change.getVote()) : NO_VOTE);
+        }
+        putStats(out, delta.getStats());
+        return out.toByteArray();
+    }
+
+    /**
+     * @return {@link RoomStateMessage} ya da {@link RoomDeltaMessage}
+     * @throws IllegalArgumentException payload bu formatta değilse
+     */
+    public static Object decode(byte[] payload) {
+        Reader in = new Reader(payload);
+        try {
+            byte kind = in.get();
+            int flags = in.get();
+            boolean revealed = (flags & REVEALED_FLAG) != 0;
+            boolean stats = (flags & STATS_FLAG) != 0;
+            if (kind == STATE) {
+                RoomStateMessage state = new RoomStateMessage();
+                state.setVotesRevealed(revealed);
+                state.setVersion(in.getVarLong());
+                int count = (int) in.getVarLong();
+                List<RoomStateMessage.UserVoteInfo> users = new ArrayList<>(Math.min(count, payload.length));
+                for (int i = 0; i < count; i++) {
+                    RoomStateMessage.UserVoteInfo user = new RoomStateMessage.UserVoteInfo();
+                    user.setParticipantId((int) in.getVarLong());
+                    user.setNickname(in.getString());
+                    int vote = in.get() & 0xff;
+                    user.setVoted(vote != NO_VOTE);
+                    user.setVote(voteLabel(vote));
+                    users.add(user);
+                }
+                state.setUsers(users);
+                if (stats) state.setStats(getStats(in));
+                return state;
+            }
+            if (kind == DELTA) {
+                RoomDeltaMessage delta = new RoomDeltaMessage();
+                delta.setVotesRevealed(revealed);
+                delta.setBaseVersion(in.getVarLong());
+                delta.setVersion(in.getVarLong());
+                int count = (int) in.getVarLong();
+                List<RoomDeltaMessage.Change> changes = new ArrayList<>(Math.min(count, payload.length));
+                for (int i = 0; i < count; i++) {
+                    RoomDeltaMessage.ChangeType type = CHANGE_TYPES[in.get()];
+                    int participantId = (int) in.getVarLong();
+                    String nickname = in.getString();
+                    changes.add(new RoomDeltaMessage.Change(type, participantId, nickname, voteLabel(in.get() & 0xff)));
+                }
+                delta.setChanges(changes);
+                if (stats) delta.setStats(getStats(in));
+                return delta;
+            }
+            throw new IllegalArgumentException("Bilinmeyen mesaj türü: " + kind);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Eksik ya da bozuk ikili oda mesajı", e);
+        }
+    }
+
+    private static int flags(boolean revealed, VoteStats stats) {
+        return (revealed ? REVEALED_FLAG : 0) | (stats != null ? STATS_FLAG : 0);
+    }
+
+    private static void putStats(Writer out, VoteStats stats) {
+        if (stats == null) return;
+        Map<String, Integer> distribution = stats.getDistribution() != null ? stats.getDistribution() : Map.of();
+        out.putVarLong(stats.getParticipants());
+        out.putVarLong(distribution.size());
+        distribution.forEach((label, count) -> {
+            out.put(VoteValue.fromLabel(label).ordinal());
+            out.putVarLong(count);
+        });
+    }
+
+    private static VoteStats getStats(Reader in) {
+        int participants = (int) in.getVarLong();
+        int buckets = (int) in.getVarLong();
+        int[] histogram = new int[VOTES.length];
+        for (int i = 0; i < buckets; i++) {
+            histogram[in.get()] = (int) in.getVarLong();
+        }
+        return VoteStats.of(histogram, participants);
+    }
+
+    private static int voteByte(String label) {
+        return VOTE_OFFSET + VoteValue.fromLabel(label).ordinal();
+    }
+
+    private static String voteLabel(int vote) {
+        return vote >= VOTE_OFFSET ? VOTES[vote - VOTE_OFFSET].getLabel() : null;
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int position;
+
+        private Writer(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        private void put(int value) {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        private void putVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void putString(String value) {
+            if (value == null) {
+                putVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarLong(bytes.length + 1L);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void ensure(int bytes) {
+            if (position + bytes > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        private Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private byte get() {
+            return buffer[position++];
+        }
+
+        private long getVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return value;
+            }
+            throw new IllegalArgumentException("Varint çok uzun");
+        }
+
+        private String getString() {
+            long length = getVarLong();
+            if (length == 0) return null;
+            int bytes = (int) (length - 1);
+            if (bytes < 0 || bytes > buffer.length - position) {
+                throw new IllegalArgumentException("Geçersiz string uzunluğu: " + bytes);
+            }
+            String value = new String(buffer, position, bytes, StandardCharsets.UTF_8);
+            position += bytes;
+            return value;
+        }
+    }
+}
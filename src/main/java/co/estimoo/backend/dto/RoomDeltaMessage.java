@@ -0,0 +1,43 @@
+package co.estimoo.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Oda durumundaki değişikliği taşır. İstemci baseVersion'ı kendi versiyonuyla
+ * eşleşiyorsa değişiklikleri uygular, eşleşmiyorsa yeni bir snapshot ister.
+ */
+@Data
+public class RoomDeltaMessage {
+    private long baseVersion;
+    private long version;
+    private boolean votesRevealed;
+    private List<Change> changes;
+    // oylar açıkken odanın güncel istatistikleri; istemci öncekinin yerine koyar
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private VoteStats stats;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Change {
+        private ChangeType type;
+        private int participantId;
+        private String nickname;
+        private String vote;
+    }
+
+    public enum ChangeType {
+        JOINED,   // participantId + nickname, oy yok
+        VOTED,    // participantId, oy değeri gizli
+        UNVOTED,  // participantId
+        LEFT,     // participantId, bağlantısı kapandı ya da odadan ayrıldı
+        REVEALED, // participantId + vote, sadece oy verenler için
+        RESET     // tüm oylar temizlendi
+    }
+}
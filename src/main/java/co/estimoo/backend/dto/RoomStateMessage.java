@@ -1,5 +1,6 @@
 package co.estimoo.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
 import java.util.List;
@@ -8,10 +9,16 @@ import java.util.List;
 public class RoomStateMessage {
     private List<UserVoteInfo> users;
     private boolean votesRevealed;
+    private long version;
+    // sadece oylar açıkken
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private VoteStats stats;
 
     @Data
     public static class UserVoteInfo {
+        private int participantId;
         private String nickname;
+        private boolean voted;
         private String vote;
     }
-}
\ No newline at end of file
+}
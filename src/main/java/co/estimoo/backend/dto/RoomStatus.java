@@ -0,0 +1,42 @@
+package co.estimoo.backend.dto;
+
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.VoteTally;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Toplu oda sorgusunun bir satırı. Oda yoksa sadece {@code roomCode} ve {@code exists=false} yazılır.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RoomStatus {
+    private String roomCode;
+    private boolean exists;
+    private String roomName;
+    private Integer participants;
+    private Integer voted;
+    private Boolean votesRevealed;
+    private LocalDateTime lastActivity;
+
+    public static RoomStatus of(Room room) {
+        VoteTally tally = room.getTally();
+        RoomStatus status = new RoomStatus();
+        status.roomCode = room.getRoomCode();
+        status.exists = true;
+        status.roomName = room.getRoomName();
+        status.participants = tally.getParticipants();
+        status.voted = tally.getVoted();
+        status.votesRevealed = room.isVotesRevealed();
+        status.lastActivity = room.getLastActivity();
+        return status;
+    }
+
+    public static RoomStatus missing(String roomCode) {
+        RoomStatus status = new RoomStatus();
+        status.roomCode = roomCode;
+        return status;
+    }
+}
@@ -0,0 +1,33 @@
+package co.estimoo.backend.dto;
+
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.VoteTally;
+import lombok.Data;
+
+/**
+ * {@code GET /api/rooms/{roomCode}} yanıtı: odanın kimliği ve sayaçları. Katılımcı listesi (ve session id'ler)
+ * taşınmaz, o {@code /state} ya da WebSocket snapshot'ındadır. Tüm alanlar oda versiyonuyla birlikte değişir;
+ * yanıtın ETag'i oda kimliği ve versiyondur.
+ */
+@Data
+public class RoomSummary {
+    private String roomCode;
+    private String roomName;
+    private boolean votesRevealed;
+    private long version;
+    private int participants;
+    private int voted;
+
+    public static RoomSummary of(Room room) {
+        RoomSummary summary = new RoomSummary();
+        // önce versiyon okunur: yarışta alanlar versiyondan yeni olabilir, eski olamaz (ETag yanlış 304 vermez)
+        summary.version = room.getVersion();
+        summary.roomCode = room.getRoomCode();
+        summary.roomName = room.getRoomName();
+        summary.votesRevealed = room.isVotesRevealed();
+        VoteTally tally = room.getTally();
+        summary.participants = tally.getParticipants();
+        summary.voted = tally.getVoted();
+        return summary;
+    }
+}
@@ -0,0 +1,52 @@
+package co.estimoo.backend.dto;
+
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Map;
+
+/**
+ * Oda mesajlarının bir aboneliğe hangi kodlamayla gideceği.
+ * <p>
+ * DEFLATE varyantları, raw DEFLATE (RFC 1951) ile sıkıştırılmış JSON ya da {@link RoomBinaryCodec}
+ * payload'ıdır. Binary frame taşınabilsin diye content-type octet-stream'dir; asıl format
+ * {@code format} parametresinde yazılır.
+ */
+public enum RoomWireFormat {
+    JSON(MimeTypeUtils.APPLICATION_JSON),
+    BINARY(RoomBinaryCodec.MIME_TYPE),
+    JSON_DEFLATE(new MimeType("application", "octet-stream", Map.of("format", "json", "encoding", "deflate"))),
+    BINARY_DEFLATE(new MimeType("application", "octet-stream", Map.of("format", "estimoo-room", "encoding", "deflate")));
+
+    private final MimeType contentType;
+
+    RoomWireFormat(MimeType contentType) {
+        this.contentType = contentType;
+    }
+
+    public static RoomWireFormat of(boolean binary, boolean deflate) {
+        if (binary) {
+            return deflate ? BINARY_DEFLATE : BINARY;
+        }
+        return deflate ? JSON_DEFLATE : JSON;
+    }
+
+    public MimeType getContentType() {
+        return contentType;
+    }
+
+    public boolean isBinary() {
+        return this == BINARY || this == BINARY_DEFLATE;
+    }
+
+    public boolean isDeflated() {
+        return this == JSON_DEFLATE || this == BINARY_DEFLATE;
+    }
+
+    /**
+     * Sıkıştırılmamış karşılığı; payload eşiğin altında kaldığında bu format gönderilir.
+     */
+    public RoomWireFormat plain() {
+        return isBinary() ? BINARY : JSON;
+    }
+}
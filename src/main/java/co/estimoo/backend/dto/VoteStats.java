@@ -0,0 +1,100 @@
+package co.estimoo.backend.dto;
+
+import co.estimoo.backend.model.VoteValue;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Açılan oyların özeti. Tamamı {@link VoteValue} sırasıyla indekslenen histogramdan hesaplanır;
+ * ikili formatta sadece histogram taşınır, alıcı aynı değerleri buradan üretir.
+ * <p>
+ * Ortalama, medyan, mod ve aralık sadece sayısal oylar üzerindendir ({@code ?} ve {@code ☕} hariç);
+ * sayısal oy yoksa null kalır. Uzlaşı, oy veren herkesin aynı kartı seçmesidir.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class VoteStats {
+
+    private static final VoteValue[] VOTES = VoteValue.values();
+
+    // sayısal oylar puana göre artan sırada
+    private static final VoteValue[] NUMERIC = Arrays.stream(VOTES)
+            .filter(VoteValue::isNumeric)
+            .sorted(Comparator.comparingInt(VoteValue::getPoints))
+            .toArray(VoteValue[]::new);
+
+    private int voted;
+    private int participants;
+    private Double mean;
+    private Double median;
+    // en çok verilen sayısal oy; eşitlikte büyük olan (tahminde temkinli taraf)
+    private String mode;
+    // en büyük ve en küçük sayısal oy arasındaki fark
+    private Integer spread;
+    private boolean consensus;
+    // oy etiketi → sayısı, sadece verilmiş oylar
+    private Map<String, Integer> distribution;
+
+    /**
+     * @param histogram    {@link VoteValue} ordinal'ı → oy sayısı
+     * @param participants odadaki katılımcı sayısı
+     */
+    public static VoteStats of(int[] histogram, int participants) {
+        VoteStats stats = new VoteStats();
+        stats.participants = participants;
+        stats.distribution = new LinkedHashMap<>();
+
+        int voted = 0;
+        int max = 0;
+        for (VoteValue vote : VOTES) {
+            int count = histogram[vote.ordinal()];
+            if (count == 0) continue;
+            voted += count;
+            max = Math.max(max, count);
+            stats.distribution.put(vote.getLabel(), count);
+        }
+        stats.voted = voted;
+        stats.consensus = voted > 0 && max == voted;
+
+        int numeric = 0;
+        long sum = 0;
+        int modeCount = 0;
+        VoteValue mode = null;
+        VoteValue min = null;
+        VoteValue maxVote = null;
+        for (VoteValue vote : NUMERIC) {
+            int count = histogram[vote.ordinal()];
+            if (count == 0) continue;
+            numeric += count;
+            sum += (long) count * vote.getPoints();
+            if (count >= modeCount) {
+                modeCount = count;
+                mode = vote;
+            }
+            if (min == null) min = vote;
+            maxVote = vote;
+        }
+        if (numeric == 0) return stats;
+
+        stats.mean = (double) sum / numeric;
+        stats.median = (pointsAt(histogram, (numeric - 1) / 2) + pointsAt(histogram, numeric / 2)) / 2.0;
+        stats.mode = mode.getLabel();
+        stats.spread = maxVote.getPoints() - min.getPoints();
+        return stats;
+    }
+
+    // sıralı sayısal oylar içinde index'inci oyun puanı
+    private static int pointsAt(int[] histogram, int index) {
+        int seen = 0;
+        for (VoteValue vote : NUMERIC) {
+            seen += histogram[vote.ordinal()];
+            if (index < seen) return vote.getPoints();
+        }
+        throw new IllegalArgumentException("Histogramda " + index + ". sayısal oy yok");
+    }
+}
@@ -0,0 +1,183 @@
+package co.estimoo.backend.flow;
+
+import co.estimoo.backend.service.RoomService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gelen oda komutlarının hız sınırı. Her bağlantının ve her odanın kendi token bucket'ı vardır;
+ * sınırı aşan komut oda mailbox'ına hiç ulaşmadan düşer. Böylece tek bir sekmenin vote spam'i
+ * her seferinde tüm odaya yayın üretemez, kalabalık bir oda da diğer odaların kapasitesini tüketemez.
+ * <p>
+ * STOMP tarafında inbound kanal interceptor'ıdır ve sadece {@code /app/**} SEND frame'lerine bakar
+ * (CONNECT, SUBSCRIBE ve heartbeat'ler sınırlanmaz). Oda kodu JSON payload'ın {@code roomCode}
+ * alanından, tüm mesaj ayrıştırılmadan okunur. Ham WebSocket bağlantıları {@link #tryAcquire} ile
+ * aynı kovaları kullanır.
+ * <p>
+ * Oda kovası sadece bu node'da kayıtlı odalar için açılır; uydurma kodlarla kova haritası şişirilemez.
+ * Başka node'daki odaya giden komutlar burada sadece bağlantı kovasından geçer.
+ */
+@Component
+public class InboundRateLimiter implements ChannelInterceptor {
+
+    private static final String APP_PREFIX = "/app/";
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final RoomService roomService;
+    private final boolean enabled;
+    private final RateLimitPolicy sessionPolicy;
+    private final RateLimitPolicy roomPolicy;
+
+    // bağlantı (STOMP oturumu ya da ham WebSocket) → kova
+    private final Map<String, TokenBucket> sessions = new ConcurrentHashMap<>();
+
+    // roomCode → kova
+    private final Map<String, TokenBucket> rooms = new ConcurrentHashMap<>();
+
+    private final LongAdder throttledBySession = new LongAdder();
+    private final LongAdder throttledByRoom = new LongAdder();
+
+    @Autowired
+    public InboundRateLimiter(RoomService roomService,
+                              @Value("${estimoo.ws.rate-limit.enabled:true}") boolean enabled,
+                              @Value("${estimoo.ws.rate-limit.session.burst:20}") int sessionBurst,
+                              @Value("${estimoo.ws.rate-limit.session.per-second:10}") double sessionPerSecond,
+                              @Value("${estimoo.ws.rate-limit.room.burst:200}") int roomBurst,
+                              @Value("${estimoo.ws.rate-limit.room.per-second:100}") double roomPerSecond) {
+        this(roomService, enabled, new RateLimitPolicy(sessionBurst, sessionPerSecond), new RateLimitPolicy(roomBurst, roomPerSecond));
+    }
+
+    public InboundRateLimiter(RoomService roomService, boolean enabled, RateLimitPolicy sessionPolicy, RateLimitPolicy roomPolicy) {
+        this.roomService = roomService;
+        this.enabled = enabled;
+        this.sessionPolicy = sessionPolicy;
+        this.roomPolicy = roomPolicy;
+    }
+
+    /**
+     * @return sınırı aşan komut için null (mesaj düşer)
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!enabled) return message;
+
+        MessageHeaders headers = message.getHeaders();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                || destination == null || !destination.startsWith(APP_PREFIX)) {
+            return message;
+        }
+        return tryAcquire(SimpMessageHeaderAccessor.getSessionId(headers), roomCodeOf(message.getPayload())) ? message : null;
+    }
+
+    /**
+     * Bağlantının ve odanın kovasından birer token alır. Oda kovası reddederse bağlantının token'ı geri konur;
+     * kalabalık odada düşen komutlar bağlantının kendi hakkından yemez.
+     *
+     * @param connectionId STOMP oturum id'si ya da ham WebSocket oturum id'si; null ise sadece oda sınırlanır
+     * @param roomCode     komutun odası; null ise ya da oda bu node'da yoksa sadece bağlantı sınırlanır
+     * @return komut işlenebilirse true
+     */
+    public boolean tryAcquire(String connectionId, String roomCode) {
+        return tryAcquire(connectionId, roomCode, System.nanoTime());
+    }
+
+    boolean tryAcquire(String connectionId, String roomCode, long now) {
+        if (!enabled) return true;
+        TokenBucket session = connectionId != null ? sessions.computeIfAbsent(connectionId, id -> new TokenBucket(sessionPolicy, now)) : null;
+        if (session != null && !session.tryAcquire(now)) {
+            throttledBySession.increment();
+            return false;
+        }
+        TokenBucket room = roomBucket(roomCode, now);
+        if (room != null && !room.tryAcquire(now)) {
+            if (session != null) session.refund();
+            throttledByRoom.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private TokenBucket roomBucket(String roomCode, long now) {
+        if (roomCode == null) return null;
+        TokenBucket bucket = rooms.get(roomCode);
+        if (bucket != null || roomService.getRoom(roomCode) == null) return bucket;
+        return rooms.computeIfAbsent(roomCode, code -> new TokenBucket(roomPolicy, now));
+    }
+
+    public void release(String connectionId) {
+        sessions.remove(connectionId);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        release(event.getSessionId());
+    }
+
+    /**
+     * Yeniden dolmuş kovaları siler; silinen kova ilk komutta dolu olarak yeniden oluşur.
+     * Silme sırasında o kovadan token alan komut en fazla bir fazladan geçiş demektir.
+     */
+    @Scheduled(fixedDelayString = "${estimoo.ws.rate-limit.sweep-ms:60000}")
+    public void sweep() {
+        sweep(System.nanoTime());
+    }
+
+    void sweep(long now) {
+        sessions.values().removeIf(bucket -> bucket.isFull(now));
+        rooms.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    public long getThrottledBySession() {
+        return throttledBySession.sum();
+    }
+
+    public long getThrottledByRoom() {
+        return throttledByRoom.sum();
+    }
+
+    public int getTrackedBuckets() {
+        return sessions.size() + rooms.size();
+    }
+
+    /**
+     * Üst seviye JSON nesnesindeki {@code roomCode} alanı; iç içe alanlar atlanır, alan bulununca okuma durur.
+     *
+     * @return payload JSON nesnesi değilse ya da alan yoksa null
+     */
+    static String roomCodeOf(Object payload) {
+        if (!(payload instanceof byte[] json)) return null;
+        try (JsonParser parser = JSON.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) return null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("roomCode".equals(field)) {
+                    return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            // bozuk payload'ı converter zaten reddeder; sadece bağlantı kovası uygulanır
+        }
+        return null;
+    }
+}
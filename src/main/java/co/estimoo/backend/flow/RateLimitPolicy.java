@@ -0,0 +1,13 @@
+package co.estimoo.backend.flow;
+
+/**
+ * Token bucket ayarı: en fazla {@code burst} komut art arda geçer, sonrası saniyede {@code perSecond} komut.
+ */
+public record RateLimitPolicy(int burst, double perSecond) {
+
+    public RateLimitPolicy {
+        if (burst < 1 || perSecond <= 0) {
+            throw new IllegalArgumentException("burst en az 1, perSecond pozitif olmalı: " + burst + "/" + perSecond);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package co.estimoo.backend.flow;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * STOMP oturumlarında yavaş istemci tespiti.
+ * <p>
+ * {@code preservePublishOrder} açık olduğundan bir oturuma giden mesajlar tek tek yazılır; sıradakiler
+ * Spring'in oturum başına sınırsız kuyruğunda bekler ve {@code ConcurrentWebSocketSessionDecorator}'ın
+ * tampon sınırı hiç dolmaz. Bu yüzden gecikme tampon boyutundan değil, outbound kanalda süren yazımın
+ * yaşından anlaşılır: bir yazım {@code max-send-ms}'den uzun sürüyorsa oturum yavaştır.
+ * <p>
+ * Tespit, yayın sırasında abonelik kaydı oturumu sorduğunda yapılır ({@link #isSlow}) ve yavaş oturuma
+ * yeni delta kuyruklanmaz; böylece oturum başına bekleyen mesaj sayısı sınırlı kalır. Sonrası politikaya bağlıdır:
+ * <ul>
+ *   <li>{@link Policy#SNAPSHOT}: takılan yazım bitene kadar deltalar atlanır, bitince oturuma {@link #setResync resync}
+ *       gönderilir; istemci versiyon boşluğunu görüp snapshot ister.</li>
+ *   <li>{@link Policy#DISCONNECT}: bağlantı {@link CloseStatus#SESSION_NOT_RELIABLE} ile kapatılır; istemci
+ *       yeniden bağlanıp snapshot alır.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class SlowConsumerGuard implements ExecutorChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    public enum Policy {
+        SNAPSHOT, DISCONNECT
+    }
+
+    private final Policy policy;
+    private final long maxSendNanos;
+
+    // WebSocket oturum id (STOMP oturum id'siyle aynı) → bağlantı; DISCONNECT politikası için
+    private final Map<String, WebSocketSession> sockets = new ConcurrentHashMap<>();
+
+    // oturum id → gönderim durumu; ilk gönderimde oluşur, bağlantı kapanınca silinir
+    private final Map<String, SendState> states = new ConcurrentHashMap<>();
+
+    // yavaşlığı geçen oturuma resync gönderir (oturum id)
+    private volatile Consumer<String> resync = sessionId -> {
+    };
+
+    private final LongAdder detected = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+    private final LongAdder deltasSkipped = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    // lagging bayrağı true olan oturumlar; bayrak her değiştiğinde state kilidi altında güncellenir
+    private final AtomicInteger slowSessions = new AtomicInteger();
+
+    @Autowired
+    public SlowConsumerGuard(@Value("${estimoo.ws.slow-consumer.policy:snapshot}") String policy,
+                             @Value("${estimoo.ws.slow-consumer.max-send-ms:2000}") long maxSendMs) {
+        this(Policy.valueOf(policy.trim().toUpperCase(Locale.ROOT)), maxSendMs);
+    }
+
+    public SlowConsumerGuard(Policy policy, long maxSendMs) {
+        this.policy = policy;
+        this.maxSendNanos = TimeUnit.MILLISECONDS.toNanos(maxSendMs);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                sockets.put(session.getId(), session);
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sockets.remove(session.getId());
+                SendState state = states.remove(session.getId());
+                if (state != null) {
+                    synchronized (state) {
+                        state.closed = true;
+                        if (state.lagging) {
+                            state.lagging = false;
+                            slowSessions.decrementAndGet();
+                        }
+                    }
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (sessionId != null && sockets.containsKey(sessionId)) {
+            states.computeIfAbsent(sessionId, id -> new SendState()).sendStartedAt = System.nanoTime();
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SendState state = sessionId != null ? states.get(sessionId) : null;
+        if (state == null) return;
+
+        synchronized (state) {
+            state.sendStartedAt = 0;
+            // DISCONNECT politikasında oturum kapanana kadar yavaş sayılır
+            if (!state.lagging || policy != Policy.SNAPSHOT) return;
+            state.lagging = false;
+            slowSessions.decrementAndGet();
+        }
+        resyncs.increment();
+        resync.accept(sessionId);
+    }
+
+    /**
+     * Yayın sırasında oturuma delta kuyruklanıp kuyruklanmayacağını söyler; süren yazım sınırı aştıysa
+     * politikayı uygular.
+     *
+     * @return oturum bu yayını atlamalıysa true
+     */
+    public boolean isSlow(String sessionId) {
+        return isSlow(sessionId, System.nanoTime());
+    }
+
+    boolean isSlow(String sessionId, long now) {
+        SendState state = states.get(sessionId);
+        if (state == null) return false;
+        if (state.lagging) {
+            deltasSkipped.increment();
+            return true;
+        }
+        if (!overdue(state, now)) return false;
+
+        synchronized (state) {
+            // yazım arada bittiyse ya da bağlantı kapandıysa delta normal kuyruklanır
+            if (!state.lagging) {
+                if (state.closed || !overdue(state, now)) return false;
+                state.lagging = true;
+                slowSessions.incrementAndGet();
+                detected.increment();
+                if (policy == Policy.DISCONNECT) disconnect(sessionId);
+            }
+        }
+        deltasSkipped.increment();
+        return true;
+    }
+
+    private boolean overdue(SendState state, long now) {
+        long started = state.sendStartedAt;
+        return started != 0 && now - started > maxSendNanos;
+    }
+
+    public void setResync(Consumer<String> resync) {
+        this.resync = resync;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Şu an delta almayan (yazımı takılmış) oturum sayısı.
+     */
+    public int getSlowSessions() {
+        return slowSessions.get();
+    }
+
+    public long getDetected() {
+        return detected.sum();
+    }
+
+    public long getDisconnected() {
+        return disconnected.sum();
+    }
+
+    public long getDeltasSkipped() {
+        return deltasSkipped.sum();
+    }
+
+    public long getResyncs() {
+        return resyncs.sum();
+    }
+
+    private void disconnect(String sessionId) {
+        WebSocketSession session = sockets.get(sessionId);
+        if (session == null) return;
+        disconnected.increment();
+        // takılan yazım Tomcat'in kilidini tutuyor olabilir; kapatma yayın thread'ini bekletmez
+        Thread.ofVirtual().name("slow-consumer-close").start(() -> {
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                log.debug("Yavaş oturum kapatılamadı: {}", sessionId, e);
+            }
+        });
+    }
+
+    private static final class SendState {
+        // sürmekte olan yazımın başlangıcı (System.nanoTime); 0 ise yazım yok
+        private volatile long sendStartedAt;
+        private volatile boolean lagging;
+        // bağlantı kapandı; artık yavaş sayılmaz
+        private boolean closed;
+    }
+}
@@ -0,0 +1,48 @@
+package co.estimoo.backend.flow;
+
+/**
+ * Tek bir bağlantının ya da odanın token bucket'ı. Dolum ayrı bir zamanlayıcıyla değil,
+ * her çağrıda geçen süreden hesaplanır.
+ */
+final class TokenBucket {
+
+    private final double burst;
+    private final double perNano;
+    private double tokens;
+    private long updated;
+
+    TokenBucket(RateLimitPolicy policy, long now) {
+        this.burst = policy.burst();
+        this.perNano = policy.perSecond() / 1_000_000_000d;
+        this.tokens = burst;
+        this.updated = now;
+    }
+
+    synchronized boolean tryAcquire(long now) {
+        refill(now);
+        if (tokens < 1) return false;
+        tokens--;
+        return true;
+    }
+
+    /**
+     * Alınmış bir token'ı geri koyar; komut başka bir kovaya takılıp düştüğünde kullanılır.
+     */
+    synchronized void refund() {
+        tokens = Math.min(burst, tokens + 1);
+    }
+
+    /**
+     * @return kova yeniden dolduysa (son komuttan beri yeterince zaman geçti) true; silinmesi bir şey değiştirmez
+     */
+    synchronized boolean isFull(long now) {
+        refill(now);
+        return tokens >= burst;
+    }
+
+    private void refill(long now) {
+        if (now <= updated) return;
+        tokens = Math.min(burst, tokens + (now - updated) * perNano);
+        updated = now;
+    }
+}
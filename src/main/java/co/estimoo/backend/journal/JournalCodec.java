@@ -0,0 +1,182 @@
+package co.estimoo.backend.journal;
+
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import co.estimoo.backend.model.VoteValue;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Journal kayıtlarının ikili formatı.
+ * <pre>
+ * kayıt   = [int uzunluk][int crc32c(payload)][payload]
+ * payload = [byte tip][string roomCode][tipe göre alanlar]
+ * string  = [short bayt sayısı, -1 = null][UTF-8]
+ * </pre>
+ * Uzunluğu 0 olan kayıt segmentin yazılmış kısmının sonudur (map edilen dosya sıfırla başlar).
+ */
+final class JournalCodec {
+
+    static final int HEADER_BYTES = 8;
+
+    static final byte CREATED = 1;
+    static final byte JOINED = 2;
+    static final byte VOTED = 3;
+    static final byte REVEALED = 4;
+    static final byte RESET = 5;
+    static final byte REMOVED = 6;
+    static final byte ROOM = 7;
+    static final byte LEFT = 8;
+
+    private static final int MAX_STRING_BYTES = Short.MAX_VALUE;
+    private static final VoteValue[] VOTES = VoteValue.values();
+
+    private JournalCodec() {
+    }
+
+    /**
+     * Olayı payload olarak yazar.
+     *
+     * @throws java.nio.BufferOverflowException buffer yetmezse; çağıran büyütüp tekrar dener
+     */
+    static void encode(JournalEvent event, ByteBuffer out) {
+        out.put(event.type());
+        putString(out, event.roomCode());
+        switch (event.type()) {
+            case CREATED -> putString(out, event.room().getRoomName());
+            case JOINED -> {
+                putString(out, event.sessionId());
+                putString(out, event.nickname());
+                out.putInt(event.participantId());
+            }
+            case VOTED -> {
+                putString(out, event.sessionId());
+                out.put((byte) event.vote());
+            }
+            case LEFT -> putString(out, event.sessionId());
+            case ROOM -> encodeRoom(event.room(), out);
+            default -> {
+                // REVEALED, RESET, REMOVED sadece oda kodunu taşır
+            }
+        }
+    }
+
+    /**
+     * Tek bir payload'ı oda haritasına uygular. Olaylar sonuç durumunu taşıdığından
+     * snapshot'ın zaten içerdiği bir olayın tekrar uygulanması durumu değiştirmez.
+     */
+    static void apply(ByteBuffer payload, Map<String, Room> rooms) {
+        byte type = payload.get();
+        String roomCode = getString(payload);
+
+        if (type == CREATED) {
+            Room room = new Room();
+            room.setRoomCode(roomCode);
+            room.setRoomName(getString(payload));
+            rooms.putIfAbsent(roomCode, room);
+            return;
+        }
+        if (type == ROOM) {
+            rooms.put(roomCode, decodeRoom(roomCode, payload));
+            return;
+        }
+        if (type == REMOVED) {
+            rooms.remove(roomCode);
+            return;
+        }
+
+        Room room = rooms.get(roomCode);
+        if (room == null) return; // oda kayıt sırasında zaten silinmiş
+
+        switch (type) {
+            case JOINED -> {
+                String sessionId = getString(payload);
+                String nickname = getString(payload);
+                int participantId = payload.getInt();
+                room.getUsers().put(sessionId, new UserSession(sessionId, nickname, null, participantId));
+                room.restoreCounters(room.getVersion() + 1, Math.max(room.getLastParticipantId(), participantId));
+                return;
+            }
+            case VOTED -> {
+                UserSession user = room.getUsers().get(getString(payload));
+                byte vote = payload.get();
+                if (user != null) {
+                    user.setVote(vote < 0 ? null : VOTES[vote]);
+                }
+            }
+            case LEFT -> room.getUsers().remove(getString(payload));
+            case REVEALED -> room.setVotesRevealed(true);
+            case RESET -> {
+                room.clearVotes();
+                room.setVotesRevealed(false);
+            }
+            default -> throw new IllegalArgumentException("Bilinmeyen journal kaydı: " + type);
+        }
+        room.nextVersion();
+    }
+
+    static int voteOrdinal(VoteValue vote) {
+        return vote != null ? vote.ordinal() : -1;
+    }
+
+    private static void encodeRoom(Room room, ByteBuffer out) {
+        putString(out, room.getRoomName());
+        out.put((byte) (room.isVotesRevealed() ? 1 : 0));
+        out.putLong(room.getVersion());
+        out.putInt(room.getLastParticipantId());
+        // kullanıcı sayısı yazarken değişebilir; sayı sonradan yerine yazılır
+        int countPosition = out.position();
+        out.putInt(0);
+        int count = 0;
+        for (UserSession user : room.getUsers().values()) {
+            putString(out, user.getSessionId());
+            putString(out, user.getNickname());
+            out.putInt(user.getParticipantId());
+            out.put((byte) voteOrdinal(user.getVote()));
+            count++;
+        }
+        out.putInt(countPosition, count);
+    }
+
+    private static Room decodeRoom(String roomCode, ByteBuffer in) {
+        Room room = new Room();
+        room.setRoomCode(roomCode);
+        room.setRoomName(getString(in));
+        room.setVotesRevealed(in.get() == 1);
+        long version = in.getLong();
+        int lastParticipantId = in.getInt();
+        int count = in.getInt();
+        for (int i = 0; i < count; i++) {
+            String sessionId = getString(in);
+            String nickname = getString(in);
+            int participantId = in.getInt();
+            byte vote = in.get();
+            room.getUsers().put(sessionId, new UserSession(sessionId, nickname, vote < 0 ? null : VOTES[vote], participantId));
+        }
+        room.restoreCounters(version, lastParticipantId);
+        return room;
+    }
+
+    private static void putString(ByteBuffer out, String value) {
+        if (value == null) {
+            out.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_STRING_BYTES);
+        out.putShort((short) length);
+        out.put(bytes, 0, length);
+    }
+
+    private static String getString(ByteBuffer in) {
+        short length = in.getShort();
+        if (length < 0) return null;
+        if (length > in.remaining()) throw new BufferUnderflowException();
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,22 @@
+package co.estimoo.backend.journal;
+
+import co.estimoo.backend.model.Room;
+
+/**
+ * Yazar thread'e devredilen olay. Üretici tarafta sadece alanlar kopyalanır,
+ * kodlama ve disk işi yazar thread'de yapılır.
+ *
+ * @param room CREATED ve ROOM kayıtlarında odanın kendisi, yazılırken okunur
+ * @param vote VOTED kaydında oyun ordinal'i, oy geri alındıysa -1
+ */
+record JournalEvent(byte type, String roomCode, Room room, String sessionId, String nickname,
+                    int participantId, int vote) {
+
+    static JournalEvent of(byte type, String roomCode) {
+        return new JournalEvent(type, roomCode, null, null, null, 0, -1);
+    }
+
+    static JournalEvent room(byte type, Room room) {
+        return new JournalEvent(type, room.getRoomCode(), room, null, null, 0, -1);
+    }
+}
@@ -0,0 +1,501 @@
+package co.estimoo.backend.journal;
+
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import co.estimoo.backend.service.RoomEventLog;
+import co.estimoo.backend.service.RoomService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Oda mutasyonlarını memory-mapped segment dosyalarına ekleyen journal. Açıksa uygulama
+ * yeniden başladığında son snapshot ve sonrasındaki segmentler okunarak odalar geri yüklenir.
+ * <p>
+ * Üretici taraf (oda thread'leri) olayı sadece kuyruğa ekler; kodlama, yazma ve fsync tek bir
+ * yazar thread'de yapılır. Yazar kuyrukta biriken her şeyi tek seferde yazıp bir kez
+ * {@code force} eder (group commit), boştayken {@code flush-interval-ms} kadar bekler.
+ * Bu yüzden dayanıklılık asenkrondur: çökmede en fazla son flush aralığındaki olaylar kaybolur.
+ * <p>
+ * Dosyalar: {@code segment-N.journal} sırayla eklenen kayıtlar, {@code snapshot-N.snapshot}
+ * N numaralı segment açılmadan önceki tüm odaların tam durumu. Snapshot yazılınca N'den
+ * küçük segment ve snapshot'lar silinir.
+ */
+@Slf4j
+@Service
+public class RoomJournal implements RoomEventLog {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+
+    // Son snapshot'tan bu yana bu kadar segment dolduysa süre beklenmeden snapshot alınır
+    private static final int SEGMENTS_PER_SNAPSHOT = 4;
+    private static final int MIN_SEGMENT_SIZE = 1 << 20;
+
+    private final RoomService roomService;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushIntervalNanos;
+    private final long snapshotIntervalNanos;
+
+    private final Queue<JournalEvent> queue = new ConcurrentLinkedQueue<>();
+    private final LongAdder enqueued = new LongAdder();
+
+    // Aşağıdaki alanlar başlangıçtan sonra sadece yazar thread'de değişir
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer scratch = ByteBuffer.allocate(64 * 1024);
+    private Segment segment;
+    private long nextSequence;
+    private long nextSnapshotAt;
+    private int segmentsSinceSnapshot;
+
+    private volatile boolean running;
+    private volatile CompletableFuture<Void> snapshotRequest;
+    private Thread writer;
+
+    @Getter
+    private volatile long written;
+    @Getter
+    private volatile long flushes;
+    @Getter
+    private volatile long snapshots;
+    @Getter
+    private volatile long recoveredRooms;
+    @Getter
+    private volatile long recoveredRecords;
+    @Getter
+    private volatile long recoveryMillis;
+
+    @Autowired
+    public RoomJournal(RoomService roomService,
+                       @Value("${estimoo.journal.enabled:false}") boolean enabled,
+                       @Value("${estimoo.journal.dir:./data/journal}") String directory,
+                       @Value("${estimoo.journal.segment-size-mb:64}") int segmentSizeMb,
+                       @Value("${estimoo.journal.flush-interval-ms:5}") long flushIntervalMs,
+                       @Value("${estimoo.journal.snapshot-interval-ms:300000}") long snapshotIntervalMs) {
+        this(roomService, enabled, Paths.get(directory), segmentSizeMb << 20, flushIntervalMs, snapshotIntervalMs);
+    }
+
+    /**
+     * @param segmentSize bayt olarak segment boyutu; testler küçük segmentlerle çalışabilir
+     */
+    public RoomJournal(RoomService roomService, boolean enabled, Path directory, int segmentSize,
+                       long flushIntervalMs, long snapshotIntervalMs) {
+        this.roomService = roomService;
+        this.enabled = enabled;
+        this.directory = directory;
+        this.segmentSize = Math.max(segmentSize, MIN_SEGMENT_SIZE);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(flushIntervalMs, 1));
+        this.snapshotIntervalNanos = TimeUnit.MILLISECONDS.toNanos(snapshotIntervalMs);
+    }
+
+    /**
+     * Diskteki durumu geri yükler, yeni bir segment açar ve yazar thread'i başlatır.
+     * Odalar geri yüklenene kadar RoomService olayları journal'a yazmaz.
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) return;
+
+        recover();
+        roomService.setEventLog(this);
+
+        // ilk segment açılır ve geri yüklenen durum hemen snapshot'a yazılır, eski segmentler bir daha okunmaz
+        writeSnapshot();
+
+        running = true;
+        writer = new Thread(this::runWriter, "room-journal");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("Journal açıldı: {} ({} oda geri yüklendi, {} ms)", directory.toAbsolutePath(), recoveredRooms, recoveryMillis);
+    }
+
+    /**
+     * Son geçerli snapshot'ı ve ondan sonraki segmentleri RoomService'e uygular.
+     * Segment sonundaki yarım ya da bozuk kayıtta o segmentin okunması durur.
+     *
+     * @return geri yüklenen oda sayısı
+     */
+    public int recover() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        Map<String, Room> rooms = roomService.getRooms();
+
+        TreeMap<Long, Path> snapshotFiles = list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        TreeMap<Long, Path> segmentFiles = list(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+
+        long records = 0;
+        long replayFrom = 0;
+        for (Map.Entry<Long, Path> snapshot : snapshotFiles.descendingMap().entrySet()) {
+            try {
+                records += replay(snapshot.getValue(), rooms);
+                replayFrom = snapshot.getKey();
+                break;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Snapshot okunamadı, bir öncekine dönülüyor: {}", snapshot.getValue(), e);
+                rooms.clear();
+                records = 0;
+            }
+        }
+        for (Path file : segmentFiles.tailMap(replayFrom).values()) {
+            records += replay(file, rooms);
+        }
+
+        long last = Math.max(snapshotFiles.isEmpty() ? -1 : snapshotFiles.lastKey(),
+                segmentFiles.isEmpty() ? -1 : segmentFiles.lastKey());
+        nextSequence = last + 1;
+        roomService.recountRooms();
+
+        recoveredRooms = rooms.size();
+        recoveredRecords = records;
+        recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return rooms.size();
+    }
+
+    /**
+     * Yazar thread'den bir sonraki turda snapshot almasını ister.
+     */
+    public CompletableFuture<Void> requestSnapshot() {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Journal çalışmıyor"));
+        }
+        CompletableFuture<Void> request = new CompletableFuture<>();
+        snapshotRequest = request;
+        LockSupport.unpark(writer);
+        return request;
+    }
+
+    /**
+     * Kuyruktaki olayları yazar, diske indirir ve yazar thread'i durdurur.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (!running) return;
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+        segment.close();
+        log.info("Journal kapatıldı: {} kayıt yazıldı", written);
+    }
+
+    /**
+     * Henüz yazılmamış olay sayısı.
+     */
+    public long getBacklog() {
+        return enqueued.sum() - written;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void roomCreated(Room room) {
+        append(JournalEvent.room(JournalCodec.CREATED, room));
+    }
+
+    @Override
+    public void participantJoined(Room room, UserSession user) {
+        append(new JournalEvent(JournalCodec.JOINED, room.getRoomCode(), null,
+                user.getSessionId(), user.getNickname(), user.getParticipantId(), -1));
+    }
+
+    @Override
+    public void participantLeft(Room room, UserSession user) {
+        append(new JournalEvent(JournalCodec.LEFT, room.getRoomCode(), null,
+                user.getSessionId(), null, 0, -1));
+    }
+
+    @Override
+    public void voteChanged(Room room, UserSession user) {
+        append(new JournalEvent(JournalCodec.VOTED, room.getRoomCode(), null,
+                user.getSessionId(), null, 0, JournalCodec.voteOrdinal(user.getVote())));
+    }
+
+    @Override
+    public void votesRevealed(Room room) {
+        append(JournalEvent.of(JournalCodec.REVEALED, room.getRoomCode()));
+    }
+
+    @Override
+    public void votesReset(Room room) {
+        append(JournalEvent.of(JournalCodec.RESET, room.getRoomCode()));
+    }
+
+    @Override
+    public void roomRestored(Room room) {
+        append(JournalEvent.room(JournalCodec.ROOM, room));
+    }
+
+    @Override
+    public void roomRemoved(String roomCode) {
+        append(JournalEvent.of(JournalCodec.REMOVED, roomCode));
+    }
+
+    private void append(JournalEvent event) {
+        // yazar thread uyandırılmaz; en geç bir flush aralığı sonra kuyruğu kendisi boşaltır
+        queue.offer(event);
+        enqueued.increment();
+    }
+
+    private void runWriter() {
+        nextSnapshotAt = System.nanoTime() + snapshotIntervalNanos;
+        while (true) {
+            boolean stopping = !running;
+            try {
+                int count = drain();
+                if (stopping) return;
+
+                CompletableFuture<Void> request = snapshotRequest;
+                if (request != null || System.nanoTime() >= nextSnapshotAt || segmentsSinceSnapshot >= SEGMENTS_PER_SNAPSHOT) {
+                    snapshotRequest = null;
+                    writeSnapshot();
+                    if (request != null) request.complete(null);
+                }
+                if (count == 0) {
+                    LockSupport.parkNanos(flushIntervalNanos);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Journal yazılamadı", e);
+                if (stopping) return;
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+    }
+
+    /**
+     * Kuyruktaki tüm olayları segmente yazar ve tek bir force ile diske indirir.
+     */
+    private int drain() throws IOException {
+        int count = 0;
+        JournalEvent event;
+        while ((event = queue.poll()) != null) {
+            ByteBuffer payload = encode(event);
+            if (!segment.append(payload, checksum(payload))) {
+                roll();
+                if (!segment.append(payload, checksum(payload))) {
+                    log.error("Journal kaydı segmentten büyük, atlandı: {}", event.roomCode());
+                }
+            }
+            count++;
+        }
+        if (count > 0) {
+            segment.force();
+            written += count;
+            flushes++;
+        }
+        return count;
+    }
+
+    /**
+     * Tüm odaları geçici dosyaya yazıp atomik olarak snapshot adına taşır. Önce yeni bir segment
+     * açılır; snapshot'tan sonraki olaylar o segmentte olduğundan eski dosyalar silinebilir.
+     */
+    private void writeSnapshot() throws IOException {
+        roll();
+        long sequence = segment.sequence;
+        Path tmp = directory.resolve(SNAPSHOT_PREFIX + sequence + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer out = ByteBuffer.allocate(1 << 20);
+            for (Room room : roomService.getRooms().values()) {
+                ByteBuffer payload = encode(JournalEvent.room(JournalCodec.ROOM, room));
+                if (out.remaining() < JournalCodec.HEADER_BYTES + payload.remaining()) {
+                    writeFully(channel, out);
+                    if (out.capacity() < JournalCodec.HEADER_BYTES + payload.remaining()) {
+                        out = ByteBuffer.allocate(JournalCodec.HEADER_BYTES + payload.remaining());
+                    }
+                }
+                out.putInt(payload.remaining()).putInt(checksum(payload)).put(payload);
+            }
+            writeFully(channel, out);
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, sequence, SNAPSHOT_SUFFIX)),
+                StandardCopyOption.ATOMIC_MOVE);
+
+        for (Path old : list(SEGMENT_PREFIX, SEGMENT_SUFFIX).headMap(sequence).values()) {
+            Files.deleteIfExists(old);
+        }
+        for (Path old : list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX).headMap(sequence).values()) {
+            Files.deleteIfExists(old);
+        }
+        segmentsSinceSnapshot = 0;
+        nextSnapshotAt = System.nanoTime() + snapshotIntervalNanos;
+        snapshots++;
+    }
+
+    private void roll() throws IOException {
+        if (segment != null) {
+            segment.force();
+            segment.close();
+            segmentsSinceSnapshot++;
+        }
+        segment = Segment.create(segmentPath(nextSequence++), segmentSize);
+    }
+
+    private ByteBuffer encode(JournalEvent event) {
+        while (true) {
+            scratch.clear();
+            try {
+                JournalCodec.encode(event, scratch);
+                return scratch.flip();
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    private int checksum(ByteBuffer payload) {
+        crc.reset();
+        crc.update(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Dosyadaki kayıtları sırayla uygular.
+     *
+     * @return uygulanan kayıt sayısı
+     */
+    private int replay(Path file, Map<String, Room> rooms) throws IOException {
+        MappedByteBuffer records;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        CRC32C check = new CRC32C();
+        byte[] buffer = new byte[4096];
+        int count = 0;
+        while (records.remaining() >= JournalCodec.HEADER_BYTES) {
+            int length = records.getInt();
+            if (length <= 0 || length > records.remaining() - 4) break; // yazılmış kısmın sonu
+            int expected = records.getInt();
+
+            if (buffer.length < length) buffer = new byte[Math.max(length, buffer.length * 2)];
+            records.get(buffer, 0, length);
+            check.reset();
+            check.update(buffer, 0, length);
+            if ((int) check.getValue() != expected) {
+                log.warn("Journal kaydı bozuk, dosyanın geri kalanı atlandı: {} (kayıt {})", file.getFileName(), count);
+                break;
+            }
+            try {
+                JournalCodec.apply(ByteBuffer.wrap(buffer, 0, length), rooms);
+                count++;
+            } catch (RuntimeException e) {
+                log.warn("Journal kaydı uygulanamadı, atlandı: {} (kayıt {})", file.getFileName(), count, e);
+            }
+        }
+        return count;
+    }
+
+    private TreeMap<Long, Path> list(String prefix, String suffix) throws IOException {
+        TreeMap<Long, Path> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (name.startsWith(prefix) && name.endsWith(suffix)) {
+                    try {
+                        files.put(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())), path);
+                    } catch (NumberFormatException e) {
+                        log.warn("Journal dizininde tanınmayan dosya: {}", name);
+                    }
+                }
+            });
+        }
+        return files;
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * Dosyanın tamamı map edilmiş bir segment. Yeni dosya sıfırlarla dolu olduğundan
+     * yazılan son kaydın arkası okuyucu için her zaman sondur.
+     */
+    private static final class Segment {
+
+        final long sequence;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int forcedTo;
+
+        private Segment(long sequence, FileChannel channel, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment create(Path path, int size) throws IOException {
+            String name = path.getFileName().toString();
+            long sequence = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            return new Segment(sequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        /**
+         * @return yer yoksa false, kayıt yazılmaz
+         */
+        boolean append(ByteBuffer payload, int checksum) {
+            if (buffer.remaining() < JournalCodec.HEADER_BYTES + payload.remaining()) return false;
+            buffer.putInt(payload.remaining()).putInt(checksum).put(payload.duplicate());
+            return true;
+        }
+
+        void force() {
+            int position = buffer.position();
+            if (position > forcedTo) {
+                buffer.force(forcedTo, position - forcedTo);
+                forcedTo = position;
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package co.estimoo.backend.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator classpath'teyse histogramları Micrometer'a {@code estimoo.latency} adıyla açar.
+ * Kayıt iki kez yapılmaz; gauge'lar okunurken histogramdan hesaplanır.
+ */
+@Component
+@ConditionalOnClass(name = "org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration")
+@RequiredArgsConstructor
+public class LatencyMeterBinder implements MeterBinder {
+
+    private static final double[] PERCENTILES = {50, 90, 99};
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final LatencyMetrics latencyMetrics;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (LatencyMetrics.Stage stage : LatencyMetrics.Stage.values()) {
+            LatencyHistogram histogram = latencyMetrics.histogram(stage);
+            for (double percentile : PERCENTILES) {
+                Gauge.builder("estimoo.latency", histogram, h -> h.snapshot().valueAt(percentile) / NANOS_PER_SECOND)
+                        .tag("stage", stage.getKey())
+                        .tag("quantile", String.valueOf(percentile / 100))
+                        .baseUnit("seconds")
+                        .register(registry);
+            }
+            Gauge.builder("estimoo.latency.max", histogram, h -> h.snapshot().getMax() / NANOS_PER_SECOND)
+                    .tag("stage", stage.getKey())
+                    .baseUnit("seconds")
+                    .register(registry);
+            FunctionCounter.builder("estimoo.latency.count", histogram, h -> h.snapshot().getCount())
+                    .tag("stage", stage.getKey())
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package co.estimoo.backend.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Oda komutlarının ve yayınların aşama bazında süre histogramları.
+ * <ul>
+ *   <li>handler.*: komutun oda mailbox'ında uygulanması (yayın hariç)</li>
+ *   <li>broadcast.serialize: delta mesajının JSON'a çevrilmesi</li>
+ *   <li>broadcast.dispatch: hazır byte[] mesajın broker'a verilip abonelere dağıtılması</li>
+ *   <li>broadcast.compress: eşiği aşan payload'ın paylaşılan DEFLATE kopyasının üretilmesi</li>
+ * </ul>
+ */
+@Component
+public class LatencyMetrics {
+
+    public enum Stage {
+        JOIN("handler.join"),
+        VOTE("handler.vote"),
+        REVEAL("handler.reveal"),
+        RESET("handler.reset"),
+        SERIALIZE("broadcast.serialize"),
+        DISPATCH("broadcast.dispatch"),
+        COMPRESS("broadcast.compress");
+
+        private final String key;
+
+        Stage(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+
+    public LatencyMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * @param startNanos aşamanın başında alınan {@link System#nanoTime()}
+     */
+    public void record(Stage stage, long startNanos) {
+        histograms[stage.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    public LatencyHistogram histogram(Stage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    public Map<Stage, LatencyHistogram.Snapshot> snapshot() {
+        Map<Stage, LatencyHistogram.Snapshot> snapshots = new EnumMap<>(Stage.class);
+        for (Stage stage : STAGES) {
+            snapshots.put(stage, histograms[stage.ordinal()].snapshot());
+        }
+        return snapshots;
+    }
+}
@@ -1,16 +1,158 @@
 package co.estimoo.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Data
 public class Room {
     private String roomCode;
     private String roomName;
-    private Map<String, UserSession> users = new ConcurrentHashMap<>();
-    private boolean votesRevealed = false;
-    private LocalDateTime lastActivity = LocalDateTime.now();
-}
\ No newline at end of file
+    private volatile boolean votesRevealed = false;
+
+    // Katılımcılar paralel dizilerde; getUsers() map görünümü verir, oy histogramını da tutar
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final RoomRoster roster = new RoomRoster();
+
+    // Son aktivitenin System.nanoTime() değeri; oy/reveal/reset sırasında nesne üretmeden güncellenir
+    @JsonIgnore
+    private volatile long lastActivityNanos = System.nanoTime();
+
+    // Her durum değişikliğinde bir artar, delta yayınları bu numarayla sıralanır
+    @Setter(AccessLevel.NONE)
+    private volatile long version = 0;
+
+    // Katılımcılara oda içinde sabit bir numara verir (nickname tekil değil); oda kilidiyle artar
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private int participantSequence;
+
+    // Her reset'te yenilenen rastgele tur kimliği; resume token'ındaki oyun hâlâ bu tura ait olduğunu gösterir.
+    // Devirde ve journal'da taşınmaz: başka node'da ya da yeniden başlatmadan sonra eski token'ın oyu geri yüklenmez
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private volatile long roundId = ThreadLocalRandom.current().nextLong();
+
+    // Oda açılırken bir kez üretilir; ETag versiyonla birlikte bunu taşır, aynı kod yeniden verilen odada
+    // eski ETag eşleşmez. Devirde ve journal'da taşınmaz, o durumda istemci bir kez tam yanıt alır
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final long instanceId = ThreadLocalRandom.current().nextLong();
+
+    // Güncel versiyonun serialize edilmiş hali, her versiyon artışında temizlenir
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final RoomPayloadCache payloadCache = new RoomPayloadCache();
+
+    // Açılıp sıfırlanan turların oyları; devirde ve journal'da taşınmaz, oda bu node'da yaşadıkça tutulur
+    @JsonIgnore
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private final RoundHistory history = new RoundHistory();
+
+    /**
+     * {@code sessionId → UserSession} görünümü. Dönen {@link UserSession}'lara yapılan yazmalar odaya yansır;
+     * yineleme o anki kopyanın üzerindedir.
+     */
+    public Map<String, UserSession> getUsers() {
+        return roster.asMap();
+    }
+
+    public void setUsers(Map<String, UserSession> users) {
+        roster.clear();
+        users.forEach((sessionId, user) -> roster.put(sessionId, user.getNickname(), user.getVote(), user.getParticipantId()));
+    }
+
+    /**
+     * Oy histogramı ve oy veren/katılımcı sayıları; kullanıcılar taranmadan okunur.
+     */
+    @JsonIgnore
+    public VoteTally getTally() {
+        return roster;
+    }
+
+    /**
+     * Tüm oyları siler (reset).
+     */
+    public void clearVotes() {
+        roster.clearVotes();
+        roundId = ThreadLocalRandom.current().nextLong();
+    }
+
+    /**
+     * Güncel oyları tamamlanmış tur olarak geçmişe yazar; oylar silinmez. Maliyet katılımcı sayısıyla doğrusaldır.
+     *
+     * @param capacity geçmişin tutacağı en fazla tur sayısı; 0 geçmişi kapatır
+     */
+    public void archiveRound(long completedAtMillis, int capacity) {
+        if (capacity <= 0) return;
+        history.record(completedAtMillis, roster.packVotes(), capacity);
+    }
+
+    /**
+     * Oda versiyonunu bir artırır ve önbellekteki payload'ı geçersiz kılar.
+     *
+     * @return yeni versiyon
+     */
+    public synchronized long nextVersion() {
+        payloadCache.invalidate();
+        return ++version;
+    }
+
+    /**
+     * Odayı şu an aktif olarak işaretler; inaktiflik süresi buradan yeniden başlar.
+     */
+    public void touch() {
+        lastActivityNanos = System.nanoTime();
+    }
+
+    /**
+     * Son aktivitenin duvar saati karşılığı (JSON ve node'lar arası devir için).
+     */
+    public LocalDateTime getLastActivity() {
+        return LocalDateTime.now().minusNanos(System.nanoTime() - lastActivityNanos);
+    }
+
+    public void setLastActivity(LocalDateTime lastActivity) {
+        lastActivityNanos = System.nanoTime() - Duration.between(lastActivity, LocalDateTime.now()).toNanos();
+    }
+
+    public synchronized int nextParticipantId() {
+        return ++participantSequence;
+    }
+
+    @JsonIgnore
+    public synchronized int getLastParticipantId() {
+        return participantSequence;
+    }
+
+    /**
+     * Başka bir node'dan devralınan odanın versiyon ve katılımcı sayaçlarını ayarlar.
+     */
+    public synchronized void restoreCounters(long version, int lastParticipantId) {
+        payloadCache.invalidate();
+        this.version = version;
+        participantSequence = lastParticipantId;
+    }
+}
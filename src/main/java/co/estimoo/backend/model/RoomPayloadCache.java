@@ -0,0 +1,48 @@
+package co.estimoo.backend.model;
+
+import co.estimoo.backend.dto.RoomWireFormat;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Odanın serialize edilmiş durumunu versiyon bazında saklar.
+ * Aynı versiyon için tüm aboneler ve REST istekleri aynı byte dizisini kullanır;
+ * versiyon değişince eski kayıt geçersiz olur. Dizi ilk kayıtta ayrılır, hiç okunmayan odada yer tutmaz.
+ */
+public class RoomPayloadCache {
+
+    // oylar açılmadan önce (sadece kimin oy verdiği) ve sonra, her wire formatı için birer kayıt
+    private static final int VIEW_COUNT = RoomWireFormat.values().length * 2;
+
+    private volatile AtomicReferenceArray<Entry> entries;
+
+    /**
+     * @return verilen versiyon için kayıtlı payload ya da null
+     */
+    public byte[] get(RoomWireFormat format, boolean revealed, long version) {
+        AtomicReferenceArray<Entry> current = entries;
+        Entry entry = current != null ? current.get(index(format, revealed)) : null;
+        return entry != null && entry.version == version ? entry.payload : null;
+    }
+
+    public void put(RoomWireFormat format, boolean revealed, long version, byte[] payload) {
+        AtomicReferenceArray<Entry> current = entries;
+        if (current == null) {
+            // yarışan iki put'tan birinin kaydı kaybolabilir; sonuç sadece bir önbellek ıskası
+            current = new AtomicReferenceArray<>(VIEW_COUNT);
+            entries = current;
+        }
+        current.set(index(format, revealed), new Entry(version, payload));
+    }
+
+    public void invalidate() {
+        entries = null;
+    }
+
+    private static int index(RoomWireFormat format, boolean revealed) {
+        return format.ordinal() * 2 + (revealed ? 1 : 0);
+    }
+
+    private record Entry(long version, byte[] payload) {
+    }
+}
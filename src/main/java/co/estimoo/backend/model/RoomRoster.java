@@ -0,0 +1,413 @@
+package co.estimoo.backend.model;
+
+import co.estimoo.backend.dto.VoteStats;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Odanın katılımcıları; katılımcı başına nesne ya da hash tablosu düğümü tutmayan paralel diziler.
+ * <pre>
+ * slot i = sessionIds[i], hashes[i], nicknames[i], participantIds[i], votes[i]
+ * </pre>
+ * Oy tek baytta {@link VoteValue} ordinal'ıdır, {@link #NO_VOTE} oy yok demektir. Slotlar katılım
+ * sırasındadır, çıkışta arkadakiler kaydırılır. Arama hash dizisinde doğrusal taramadır; oda başına
+ * birkaç on kişide bir hash tablosundan hem hızlı hem küçüktür. Boş oda dizi ayırmaz.
+ * <p>
+ * Oy histogramı ve oy veren sayısı her mutasyonda O(1) güncellenir, {@link VoteTally} olarak okunur.
+ * <p>
+ * Yazmalar oda mailbox'ından gelir; REST ve yayın thread'leri de okuyabildiğinden metodlar bu nesnenin
+ * kilidini alır (tek thread'de kilit maliyeti ihmal edilebilir).
+ */
+public final class RoomRoster implements VoteTally {
+
+    public static final byte NO_VOTE = -1;
+
+    private static final VoteValue[] VOTES = VoteValue.values();
+    private static final int FIRST_CAPACITY = 4;
+
+    // boş odalar ortak boş dizileri kullanır
+    private static final String[] NO_STRINGS = new String[0];
+    private static final int[] NO_INTS = new int[0];
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private String[] sessionIds = NO_STRINGS;
+    private int[] hashes = NO_INTS;
+    private String[] nicknames = NO_STRINGS;
+    private int[] participantIds = NO_INTS;
+    private byte[] votes = NO_BYTES;
+    private int size;
+
+    // VoteValue ordinal'ı → oy sayısı; ilk oyda ayrılır
+    private int[] histogram;
+    private int voted;
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean contains(String sessionId) {
+        return indexOf(sessionId) >= 0;
+    }
+
+    /**
+     * @return katılımcının odadaki kaydını okuyup yazan görünümü, yoksa null
+     */
+    public synchronized UserSession get(String sessionId) {
+        int slot = indexOf(sessionId);
+        return slot < 0 ? null : view(slot);
+    }
+
+    /**
+     * Katılımcıyı ekler ya da aynı oturumun kaydını değiştirir (slotu korunur).
+     *
+     * @return önceki kaydın kopyası, yoksa null
+     */
+    public synchronized UserSession put(String sessionId, String nickname, VoteValue vote, int participantId) {
+        int slot = indexOf(sessionId);
+        UserSession previous = null;
+        if (slot >= 0) {
+            previous = copy(slot);
+            count(votes[slot], -1);
+        } else {
+            slot = size++;
+            ensureCapacity(size);
+            sessionIds[slot] = sessionId;
+            hashes[slot] = sessionId.hashCode();
+        }
+        nicknames[slot] = nickname;
+        participantIds[slot] = participantId;
+        votes[slot] = ordinal(vote);
+        count(votes[slot], 1);
+        return previous;
+    }
+
+    /**
+     * @return çıkarılan kaydın kopyası, yoksa null
+     */
+    public synchronized UserSession remove(String sessionId) {
+        int slot = indexOf(sessionId);
+        if (slot < 0) return null;
+
+        UserSession removed = copy(slot);
+        removeSlot(slot);
+        return removed;
+    }
+
+    /**
+     * Katılımcının oturum kimliğini değiştirir; slotu, oyu ve sırası korunur. Yeni kimlikte başka bir
+     * katılımcı varsa {@link #put} gibi onun yerine geçer.
+     *
+     * @return eski kimlikte katılımcı yoksa false
+     */
+    public synchronized boolean rekey(String sessionId, String newSessionId) {
+        Objects.requireNonNull(newSessionId, "sessionId");
+        int slot = indexOf(sessionId);
+        if (slot < 0) return false;
+        int replaced = indexOf(newSessionId);
+        if (replaced == slot) return true;
+        if (replaced >= 0) {
+            removeSlot(replaced);
+            if (replaced < slot) slot--;
+        }
+        sessionIds[slot] = newSessionId;
+        hashes[slot] = newSessionId.hashCode();
+        return true;
+    }
+
+    /**
+     * @return oturum odada değilse false
+     */
+    public synchronized boolean setVote(String sessionId, VoteValue vote) {
+        int slot = indexOf(sessionId);
+        if (slot < 0) return false;
+        count(votes[slot], -1);
+        votes[slot] = ordinal(vote);
+        count(votes[slot], 1);
+        return true;
+    }
+
+    public synchronized void clearVotes() {
+        Arrays.fill(votes, 0, size, NO_VOTE);
+        histogram = null;
+        voted = 0;
+    }
+
+    /**
+     * @return oy verenlerin {@link RoundHistory#pack} ile paketlenmiş oyları, katılım sırasıyla
+     */
+    public synchronized int[] packVotes() {
+        int[] packed = new int[voted];
+        int next = 0;
+        for (int slot = 0; slot < size; slot++) {
+            if (votes[slot] != NO_VOTE) packed[next++] = RoundHistory.pack(participantIds[slot], VOTES[votes[slot]]);
+        }
+        return packed;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(sessionIds, 0, size, null);
+        Arrays.fill(nicknames, 0, size, null);
+        size = 0;
+        histogram = null;
+        voted = 0;
+    }
+
+    /**
+     * @return katılım sırasıyla görünümler; liste bir kopyadır, sonraki değişiklikleri içermez
+     */
+    public synchronized List<UserSession> list() {
+        List<UserSession> users = new ArrayList<>(size);
+        for (int slot = 0; slot < size; slot++) {
+            users.add(view(slot));
+        }
+        return users;
+    }
+
+    /**
+     * {@code sessionId → UserSession} görünümü; {@link Room#getUsers()} bununla eski map API'sini korur.
+     * Yineleme o anki kopyanın üzerindedir, eşzamanlı değişiklikte hata vermez.
+     */
+    public Map<String, UserSession> asMap() {
+        return new Users();
+    }
+
+    @Override
+    public synchronized int getVoted() {
+        return voted;
+    }
+
+    @Override
+    public synchronized int getParticipants() {
+        return size;
+    }
+
+    @Override
+    public synchronized int count(VoteValue vote) {
+        return histogram != null ? histogram[vote.ordinal()] : 0;
+    }
+
+    @Override
+    public synchronized boolean isComplete() {
+        return size > 0 && voted == size;
+    }
+
+    @Override
+    public synchronized VoteStats stats() {
+        return VoteStats.of(histogram != null ? histogram : new int[VOTES.length], size);
+    }
+
+    private int indexOf(String sessionId) {
+        if (sessionId == null) return -1;
+        int hash = sessionId.hashCode();
+        for (int slot = 0; slot < size; slot++) {
+            if (hashes[slot] == hash && sessionId.equals(sessionIds[slot])) return slot;
+        }
+        return -1;
+    }
+
+    private void removeSlot(int slot) {
+        count(votes[slot], -1);
+        int tail = size - slot - 1;
+        System.arraycopy(sessionIds, slot + 1, sessionIds, slot, tail);
+        System.arraycopy(hashes, slot + 1, hashes, slot, tail);
+        System.arraycopy(nicknames, slot + 1, nicknames, slot, tail);
+        System.arraycopy(participantIds, slot + 1, participantIds, slot, tail);
+        System.arraycopy(votes, slot + 1, votes, slot, tail);
+        size--;
+        sessionIds[size] = null;
+        nicknames[size] = null;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= sessionIds.length) return;
+        int capacity = Math.max(FIRST_CAPACITY, Math.max(required, sessionIds.length * 2));
+        sessionIds = Arrays.copyOf(sessionIds, capacity);
+        hashes = Arrays.copyOf(hashes, capacity);
+        nicknames = Arrays.copyOf(nicknames, capacity);
+        participantIds = Arrays.copyOf(participantIds, capacity);
+        votes = Arrays.copyOf(votes, capacity);
+    }
+
+    private void count(byte vote, int delta) {
+        if (vote == NO_VOTE) return;
+        if (histogram == null) histogram = new int[VOTES.length];
+        histogram[vote] += delta;
+        voted += delta;
+    }
+
+    private UserSession view(int slot) {
+        return new Entry(this, slot, sessionIds[slot], nicknames[slot], vote(slot), participantIds[slot]);
+    }
+
+    private UserSession copy(int slot) {
+        return new UserSession(sessionIds[slot], nicknames[slot], vote(slot), participantIds[slot]);
+    }
+
+    private VoteValue vote(int slot) {
+        return votes[slot] == NO_VOTE ? null : VOTES[votes[slot]];
+    }
+
+    private static byte ordinal(VoteValue vote) {
+        return vote == null ? NO_VOTE : (byte) vote.ordinal();
+    }
+
+    /**
+     * Slotun canlı görünümü; okumalar ve yazmalar dizilere gider. Slot kaydıysa oturum kimliğiyle yeniden
+     * bulunur; kimliği değiştirmek kaydı {@link #rekey} ile yeni anahtara taşır. Katılımcı odadan çıktıysa
+     * görünüm son bilinen değerlerle bağımsız bir nesne gibi davranır.
+     */
+    private static final class Entry extends UserSession {
+        private final RoomRoster roster;
+        private final int slot;
+
+        private Entry(RoomRoster roster, int slot, String sessionId, String nickname, VoteValue vote, int participantId) {
+            super(sessionId, nickname, vote, participantId);
+            this.roster = roster;
+            this.slot = slot;
+        }
+
+        @Override
+        public VoteValue getVote() {
+            synchronized (roster) {
+                int current = current();
+                return current < 0 ? super.getVote() : roster.vote(current);
+            }
+        }
+
+        @Override
+        public String getNickname() {
+            synchronized (roster) {
+                int current = current();
+                return current < 0 ? super.getNickname() : roster.nicknames[current];
+            }
+        }
+
+        @Override
+        public int getParticipantId() {
+            synchronized (roster) {
+                int current = current();
+                return current < 0 ? super.getParticipantId() : roster.participantIds[current];
+            }
+        }
+
+        @Override
+        public void setVote(VoteValue vote) {
+            super.setVote(vote);
+            synchronized (roster) {
+                int current = current();
+                if (current < 0) return;
+                roster.count(roster.votes[current], -1);
+                roster.votes[current] = ordinal(vote);
+                roster.count(roster.votes[current], 1);
+            }
+        }
+
+        @Override
+        public void setNickname(String nickname) {
+            super.setNickname(nickname);
+            synchronized (roster) {
+                int current = current();
+                if (current >= 0) roster.nicknames[current] = nickname;
+            }
+        }
+
+        @Override
+        public void setParticipantId(int participantId) {
+            super.setParticipantId(participantId);
+            synchronized (roster) {
+                int current = current();
+                if (current >= 0) roster.participantIds[current] = participantId;
+            }
+        }
+
+        @Override
+        public void setSessionId(String sessionId) {
+            synchronized (roster) {
+                roster.rekey(getSessionId(), sessionId);
+                super.setSessionId(sessionId);
+            }
+        }
+
+        private int current() {
+            String sessionId = getSessionId();
+            return slot < roster.size && sessionId.equals(roster.sessionIds[slot]) ? slot : roster.indexOf(sessionId);
+        }
+    }
+
+    private final class Users extends AbstractMap<String, UserSession> {
+
+        @Override
+        public int size() {
+            return RoomRoster.this.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String sessionId && contains(sessionId);
+        }
+
+        @Override
+        public UserSession get(Object key) {
+            return key instanceof String sessionId ? RoomRoster.this.get(sessionId) : null;
+        }
+
+        @Override
+        public UserSession put(String sessionId, UserSession user) {
+            return RoomRoster.this.put(sessionId, user.getNickname(), user.getVote(), user.getParticipantId());
+        }
+
+        @Override
+        public UserSession remove(Object key) {
+            return key instanceof String sessionId ? RoomRoster.this.remove(sessionId) : null;
+        }
+
+        @Override
+        public void clear() {
+            RoomRoster.this.clear();
+        }
+
+        @Override
+        public Set<Map.Entry<String, UserSession>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<String, UserSession>> iterator() {
+                    Iterator<UserSession> users = list().iterator();
+                    return new Iterator<>() {
+                        private UserSession last;
+
+                        @Override
+                        public boolean hasNext() {
+                            return users.hasNext();
+                        }
+
+                        @Override
+                        public Map.Entry<String, UserSession> next() {
+                            last = users.next();
+                            return Map.entry(last.getSessionId(), last);
+                        }
+
+                        @Override
+                        public void remove() {
+                            if (last == null) throw new IllegalStateException();
+                            RoomRoster.this.remove(last.getSessionId());
+                            last = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return RoomRoster.this.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package co.estimoo.backend.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Odanın tamamlanmış (açılıp sıfırlanmış) turları; sabit kapasiteli bir halka tampon. Kapasite dolunca
+ * en eski tur üzerine yazılır, oda başına bellek {@code kapasite × oy veren sayısı × 4 bayt} ile sınırlıdır.
+ * <pre>
+ * tur = completedAt (epoch ms) + int[] { participantId << 8 | VoteValue ordinal, ... }
+ * </pre>
+ * Oy vermeyenler kaydedilmez. Tampon ilk turda ayrılır; hiç tur tamamlamamış oda dizi tutmaz.
+ * <p>
+ * Yazma oda mailbox'ından, okuma REST thread'lerinden gelir; metodlar bu nesnenin kilidini alır.
+ * Tur dizileri yazıldıktan sonra değişmez, {@link #snapshot()} onları kopyalamadan paylaşır.
+ */
+public final class RoundHistory {
+
+    private static final VoteValue[] VOTES = VoteValue.values();
+    private static final int ORDINAL_BITS = 8;
+    private static final int ORDINAL_MASK = (1 << ORDINAL_BITS) - 1;
+    private static final int[] NO_VOTES = new int[0];
+
+    private long[] completedAt;
+    private int[][] votes;
+    // bir sonraki yazılacak slot
+    private int head;
+    private int size;
+    // oda açıldığından beri tamamlanan tur sayısı; tur numaraları tampon dönse de sabit kalır
+    private long completed;
+
+    /**
+     * Bir oyu tek int'e paketler.
+     */
+    public static int pack(int participantId, VoteValue vote) {
+        return participantId << ORDINAL_BITS | vote.ordinal();
+    }
+
+    /**
+     * Turu tampona ekler, tampon doluysa en eski turun yerine yazar.
+     *
+     * @param packedVotes {@link #pack} ile paketlenmiş oylar; tampon diziyi sahiplenir
+     * @param capacity    tampon ilk kez ayrılırken kullanılır; 0 ya da negatifse geçmiş tutulmaz
+     */
+    public synchronized void record(long completedAtMillis, int[] packedVotes, int capacity) {
+        if (completedAt == null) {
+            if (capacity <= 0) return;
+            completedAt = new long[capacity];
+            votes = new int[capacity][];
+        }
+        completedAt[head] = completedAtMillis;
+        votes[head] = packedVotes.length == 0 ? NO_VOTES : packedVotes;
+        head = (head + 1) % completedAt.length;
+        if (size < completedAt.length) size++;
+        completed++;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return eskiden yeniye turlar; liste bir kopyadır, sonraki turları içermez
+     */
+    public synchronized List<Round> snapshot() {
+        List<Round> rounds = new ArrayList<>(size);
+        int first = size < capacity() ? 0 : head;
+        for (int i = 0; i < size; i++) {
+            int slot = (first + i) % completedAt.length;
+            rounds.add(new Round(completed - size + i + 1, completedAt[slot], votes[slot]));
+        }
+        return rounds;
+    }
+
+    private int capacity() {
+        return completedAt != null ? completedAt.length : 0;
+    }
+
+    /**
+     * Tamamlanmış bir tur. {@code number} odadaki tur sırasıdır (1'den başlar).
+     */
+    public record Round(long number, long completedAt, int[] packedVotes) {
+
+        public int voteCount() {
+            return packedVotes.length;
+        }
+
+        public int participantId(int index) {
+            return packedVotes[index] >>> ORDINAL_BITS;
+        }
+
+        public VoteValue vote(int index) {
+            return VOTES[packedVotes[index] & ORDINAL_MASK];
+        }
+    }
+}
@@ -8,5 +8,10 @@ import lombok.Data;
 public class UserSession {
     private String sessionId;
     private String nickname;
-    private VoteValue vote;
+    private volatile VoteValue vote; // oda thread'i yazar, REST/snapshot okuyabilir
+    private int participantId; // delta mesajlarında kullanıcıyı tanımlar
+
+    public UserSession(String sessionId, String nickname, VoteValue vote) {
+        this(sessionId, nickname, vote, 0);
+    }
 }
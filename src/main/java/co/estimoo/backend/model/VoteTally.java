@@ -0,0 +1,24 @@
+package co.estimoo.backend.model;
+
+import co.estimoo.backend.dto.VoteStats;
+
+/**
+ * Odanın oy dağılımı: {@link VoteValue} ordinal'ıyla indekslenen histogram, oy veren ve katılımcı sayısı.
+ * {@link RoomRoster} katılım, çıkış, oy ve sıfırlamada O(1) günceller; "herkes oy verdi mi" ve reveal
+ * istatistikleri kullanıcılar taranmadan buradan okunur.
+ */
+public interface VoteTally {
+
+    int getVoted();
+
+    int getParticipants();
+
+    int count(VoteValue vote);
+
+    /**
+     * @return odada en az bir katılımcı var ve hepsi oy verdiyse true
+     */
+    boolean isComplete();
+
+    VoteStats stats();
+}
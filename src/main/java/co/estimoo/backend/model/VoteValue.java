@@ -1,27 +1,38 @@
 package co.estimoo.backend.model;
 
 public enum VoteValue {
-    ZERO("0"),
-    ONE("1"),
-    TWO("2"),
-    THREE("3"),
-    FIVE("5"),
-    EIGHT("8"),
-    THIRTEEN("13"),
-    TWENTY_ONE("21"),
-    QUESTION("?"),
-    COFFEE("☕");
+    ZERO("0", 0),
+    ONE("1", 1),
+    TWO("2", 2),
+    THREE("3", 3),
+    FIVE("5", 5),
+    EIGHT("8", 8),
+    THIRTEEN("13", 13),
+    TWENTY_ONE("21", 21),
+    QUESTION("?", -1),
+    COFFEE("☕", -1);
 
     private final String label;
+    // istatistiklerde kullanılan sayısal değer; sayısal olmayan oylarda -1
+    private final int points;
 
-    VoteValue(String label) {
+    VoteValue(String label, int points) {
         this.label = label;
+        this.points = points;
     }
 
     public String getLabel() {
         return label;
     }
 
+    public int getPoints() {
+        return points;
+    }
+
+    public boolean isNumeric() {
+        return points >= 0;
+    }
+
     public static VoteValue fromLabel(String input) {
         for (VoteValue value : values()) {
             if (value.label.equals(input)) {
@@ -30,4 +41,4 @@ public enum VoteValue {
         }
         throw new IllegalArgumentException("Invalid vote value: " + input);
     }
-}
\ No newline at end of file
+}
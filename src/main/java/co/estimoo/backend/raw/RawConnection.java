@@ -0,0 +1,71 @@
+package co.estimoo.backend.raw;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.io.IOException;
+
+/**
+ * Ham WebSocket bağlantısı ve izlediği oda.
+ * Oturum, farklı thread'lerden (oda mailbox'ı, broker, cluster cevabı) yazılabilmesi için
+ * {@link org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator} ile sarılmış olmalıdır.
+ */
+@Slf4j
+final class RawConnection {
+
+    private final WebSocketSession session;
+
+    // handshake'teki token
+    @Getter
+    private final String sessionId;
+
+    // izlenen oda; sadece RawRoomSubscriptions değiştirir
+    @Getter
+    private volatile String roomCode;
+
+    RawConnection(WebSocketSession session, String sessionId) {
+        this.session = session;
+        this.sessionId = sessionId;
+    }
+
+    String getId() {
+        return session.getId();
+    }
+
+    void setRoomCode(String roomCode) {
+        this.roomCode = roomCode;
+    }
+
+    /**
+     * Frame'i gönderir; dizi bağlantılar arasında paylaşılabilir, değiştirilmez.
+     *
+     * @return bağlantı kapalıysa ya da yazılamadıysa false
+     */
+    boolean send(byte[] frame) {
+        if (!session.isOpen()) return false;
+        try {
+            session.sendMessage(new BinaryMessage(frame));
+            return true;
+        } catch (SessionLimitExceededException e) {
+            // decorator bağlantıyı zaten kapattı; istemci yeniden bağlanıp snapshot alır
+            log.debug("Ham bağlantı yavaş kaldı, kapatıldı: {}", session.getId());
+            return false;
+        } catch (IOException e) {
+            log.debug("Ham bağlantıya yazılamadı: {}", session.getId(), e);
+            close(CloseStatus.SESSION_NOT_RELIABLE);
+            return false;
+        }
+    }
+
+    void close(CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.debug("Ham bağlantı kapatılamadı: {}", session.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package co.estimoo.backend.raw;
+
+import co.estimoo.backend.dto.RoomBinaryCodec;
+import co.estimoo.backend.model.VoteValue;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Ham WebSocket uç noktasının mesaj formatı. Her binary frame tek bir mesajdır ve ilk baytı
+ * opcode'dur; STOMP komut/başlık satırları ve SockJS zarfı yoktur.
+ * <pre>
+ * istemci → sunucu
+ *   0x01 JOIN        [string roomCode][string nickname]   odaya abone de yapar
+ *   0x02 VOTE        [string roomCode][byte VoteValue ordinal]
+ *   0x03 REVEAL      [string roomCode]
+ *   0x04 RESET       [string roomCode]
+ *   0x05 SUBSCRIBE   [string roomCode]                    STATE ile cevaplanır
+ *   0x06 UNSUBSCRIBE [string roomCode]
+ * sunucu → istemci
+ *   0x01 STATE, 0x02 DELTA   {@link RoomBinaryCodec} payload'ı aynen (ilk baytı zaten türüdür)
+ *   0x7F ERROR       [string mesaj]
+ * string = [byte bayt sayısı][UTF-8]
+ * </pre>
+ * Bir bağlantı tek bir odayı izler, bu yüzden sunucu mesajlarında oda kodu yoktur; başka bir
+ * odaya JOIN ya da SUBSCRIBE önceki aboneliği bırakır.
+ */
+public final class RawRoomProtocol {
+
+    public static final byte JOIN = 0x01;
+    public static final byte VOTE = 0x02;
+    public static final byte REVEAL = 0x03;
+    public static final byte RESET = 0x04;
+    public static final byte SUBSCRIBE = 0x05;
+    public static final byte UNSUBSCRIBE = 0x06;
+
+    public static final byte ERROR = 0x7F;
+
+    private static final int MAX_STRING_BYTES = 255;
+    private static final VoteValue[] VOTES = VoteValue.values();
+
+    private RawRoomProtocol() {
+    }
+
+    /**
+     * İstemci komutu. {@code nickname} sadece JOIN'de, {@code vote} sadece VOTE'ta doludur.
+     */
+    public record Command(byte opcode, String roomCode, String nickname, VoteValue vote) {
+    }
+
+    /**
+     * @throws IllegalArgumentException frame bu formatta değilse
+     */
+    public static Command decode(ByteBuffer frame) {
+        try {
+            byte opcode = frame.get();
+            String roomCode = getString(frame);
+            if (roomCode.isEmpty()) throw new IllegalArgumentException("Oda kodu boş");
+            Command command = switch (opcode) {
+                case JOIN -> new Command(opcode, roomCode, getString(frame), null);
+                case VOTE -> {
+                    int vote = frame.get() & 0xff;
+                    if (vote >= VOTES.length) throw new IllegalArgumentException("Geçersiz oy: " + vote);
+                    yield new Command(opcode, roomCode, null, VOTES[vote]);
+                }
+                case REVEAL, RESET, SUBSCRIBE, UNSUBSCRIBE -> new Command(opcode, roomCode, null, null);
+                default -> throw new IllegalArgumentException("Bilinmeyen opcode: " + opcode);
+            };
+            if (frame.hasRemaining()) throw new IllegalArgumentException("Frame sonunda fazla bayt var");
+            return command;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Eksik frame", e);
+        }
+    }
+
+    public static byte[] join(String roomCode, String nickname) {
+        return encode(JOIN, roomCode, nickname, -1);
+    }
+
+    public static byte[] vote(String roomCode, VoteValue vote) {
+        return encode(VOTE, roomCode, null, vote.ordinal());
+    }
+
+    /**
+     * Sadece oda kodu taşıyan komutlar: REVEAL, RESET, SUBSCRIBE, UNSUBSCRIBE.
+     */
+    public static byte[] command(byte opcode, String roomCode) {
+        return encode(opcode, roomCode, null, -1);
+    }
+
+    public static byte[] error(String message) {
+        byte[] text = truncate(message);
+        ByteBuffer frame = ByteBuffer.allocate(2 + text.length);
+        frame.put(ERROR).put((byte) text.length).put(text);
+        return frame.array();
+    }
+
+    private static byte[] encode(byte opcode, String roomCode, String nickname, int vote) {
+        byte[] code = bytes(roomCode);
+        byte[] name = nickname != null ? bytes(nickname) : null;
+        ByteBuffer frame = ByteBuffer.allocate(2 + code.length + (name != null ? 1 + name.length : 0) + (vote >= 0 ? 1 : 0));
+        frame.put(opcode).put((byte) code.length).put(code);
+        if (name != null) frame.put((byte) name.length).put(name);
+        if (vote >= 0) frame.put((byte) vote);
+        return frame.array();
+    }
+
+    private static byte[] bytes(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException("String " + MAX_STRING_BYTES + " baytı aşıyor");
+        }
+        return bytes;
+    }
+
+    // hata mesajı kesilebilir; UTF-8 karakterin ortasından bölünmesi istemcide tek bir bozuk karakter bırakır
+    private static byte[] truncate(String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        return bytes.length > MAX_STRING_BYTES ? Arrays.copyOf(bytes, MAX_STRING_BYTES) : bytes;
+    }
+
+    private static String getString(ByteBuffer frame) {
+        int length = frame.get() & 0xff;
+        if (length > frame.remaining()) throw new IllegalArgumentException("Geçersiz string uzunluğu: " + length);
+        byte[] bytes = new byte[length];
+        frame.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
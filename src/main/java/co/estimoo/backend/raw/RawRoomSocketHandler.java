@@ -0,0 +1,175 @@
+package co.estimoo.backend.raw;
+
+import co.estimoo.backend.cluster.ClusterNode;
+import co.estimoo.backend.dto.JoinRoomMessage;
+import co.estimoo.backend.dto.ResetMessage;
+import co.estimoo.backend.dto.RevealMessage;
+import co.estimoo.backend.dto.RoomWireFormat;
+import co.estimoo.backend.dto.VoteMessage;
+import co.estimoo.backend.flow.InboundRateLimiter;
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.raw.RawRoomProtocol.Command;
+import co.estimoo.backend.resource.RoomWsController;
+import co.estimoo.backend.service.RoomBroadcaster;
+import co.estimoo.backend.service.RoomCommandExecutor;
+import co.estimoo.backend.service.RoomPresenceTracker;
+import co.estimoo.backend.service.RoomService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link RawRoomProtocol} konuşan ham WebSocket uç noktası.
+ * <p>
+ * SockJS bilgi isteği ve STOMP CONNECT/CONNECTED turu olmadığından bağlantı tek handshake'le
+ * kullanılabilir olur; mesajlar başlık ayrıştırması ve converter zinciri olmadan doğrudan
+ * {@link RoomWsController}'ın komutlarına gider. Böylece cluster yönlendirmesi, presence ve yayın
+ * STOMP istemcileriyle aynıdır; iki tür istemci aynı odada birbirini görür.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RawRoomSocketHandler extends BinaryWebSocketHandler {
+
+    // STOMP tarafıyla aynı gönderim sınırları; burada yazımlar sıralanmadığından tampon gerçekten dolar
+    // ve aşan bağlantı kapatılır (istemci yeniden bağlanıp snapshot alır)
+    @Value("${estimoo.ws.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs = 10_000;
+
+    @Value("${estimoo.ws.send-buffer-limit-kb:512}")
+    private int sendBufferLimitKb = 512;
+
+    private final RoomWsController controller;
+    private final RoomService roomService;
+    private final RoomBroadcaster broadcaster;
+    private final RoomCommandExecutor roomExecutor;
+    private final ClusterNode cluster;
+    private final RoomPresenceTracker presence;
+    private final RawRoomSubscriptions subscriptions;
+    private final InboundRateLimiter rateLimiter;
+
+    // WebSocket oturum id → bağlantı
+    private final Map<String, RawConnection> connections = new ConcurrentHashMap<>();
+
+    private final LongAdder commandsReceived = new LongAdder();
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        if (!(session.getAttributes().get("sessionId") instanceof String sessionId)) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("token gerekli"));
+            return;
+        }
+        RawConnection connection = new RawConnection(
+                new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, sendBufferLimitKb * 1024), sessionId);
+        connections.put(session.getId(), connection);
+        presence.connected(sessionId);
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+        RawConnection connection = connections.get(session.getId());
+        if (connection == null) return;
+
+        Command command;
+        try {
+            command = RawRoomProtocol.decode(message.getPayload());
+        } catch (IllegalArgumentException e) {
+            log.debug("Ham bağlantıdan bozuk frame: {} ({})", session.getId(), e.getMessage());
+            connection.close(CloseStatus.BAD_DATA);
+            return;
+        }
+        commandsReceived.increment();
+
+        String roomCode = command.roomCode();
+        if (!rateLimiter.tryAcquire(session.getId(), roomCode)) return;
+
+        Map<String, Object> attributes = session.getAttributes();
+        switch (command.opcode()) {
+            case RawRoomProtocol.JOIN -> {
+                // snapshot join'den önce mailbox'a girer; istemci STATE'in ardından kendi JOINED deltasını alır
+                subscribe(connection, roomCode);
+                JoinRoomMessage join = new JoinRoomMessage();
+                join.setRoomCode(roomCode);
+                join.setNickname(command.nickname());
+                controller.joinRoom(join, attributes);
+            }
+            case RawRoomProtocol.VOTE -> {
+                VoteMessage vote = new VoteMessage();
+                vote.setRoomCode(roomCode);
+                vote.setVote(command.vote().getLabel());
+                controller.vote(vote, attributes);
+            }
+            case RawRoomProtocol.REVEAL -> {
+                RevealMessage reveal = new RevealMessage();
+                reveal.setRoomCode(roomCode);
+                controller.revealVotes(reveal);
+            }
+            case RawRoomProtocol.RESET -> {
+                ResetMessage reset = new ResetMessage();
+                reset.setRoomCode(roomCode);
+                controller.resetVotes(reset);
+            }
+            case RawRoomProtocol.SUBSCRIBE -> subscribe(connection, roomCode);
+            case RawRoomProtocol.UNSUBSCRIBE -> {
+                if (roomCode.equals(connection.getRoomCode())) unsubscribe(connection);
+            }
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        rateLimiter.release(session.getId());
+        RawConnection connection = connections.remove(session.getId());
+        if (connection == null) return;
+        subscriptions.remove(connection);
+        // presence bağlantının aboneliklerini kendi indeksinden bulur
+        presence.disconnected(connection.getId(), connection.getSessionId());
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    public long getCommandsReceived() {
+        return commandsReceived.sum();
+    }
+
+    private void subscribe(RawConnection connection, String roomCode) {
+        if (roomCode.equals(connection.getRoomCode())) return;
+        if (connection.getRoomCode() != null) unsubscribe(connection);
+
+        // abonelik snapshot'tan önce eklenir; arada yayınlanan delta snapshot versiyonunda zaten vardır
+        subscriptions.add(connection, roomCode);
+        // bağlantı başına tek oda olduğundan abonelik kimliği oda kodudur
+        presence.subscribed(connection.getId(), roomCode, connection.getSessionId(), roomCode);
+        sendSnapshot(connection, roomCode);
+    }
+
+    private void unsubscribe(RawConnection connection) {
+        String roomCode = subscriptions.remove(connection);
+        if (roomCode != null) presence.unsubscribed(connection.getId(), roomCode, connection.getSessionId());
+    }
+
+    private void sendSnapshot(RawConnection connection, String roomCode) {
+        Room room = roomService.getRoom(roomCode);
+        if (room == null) {
+            cluster.fetchSnapshot(roomCode).thenAccept(payload -> connection.send(payload != null
+                    ? broadcaster.toBinarySnapshot(payload)
+                    : RawRoomProtocol.error("Oda bulunamadı: " + roomCode)));
+            return;
+        }
+        roomExecutor.execute(roomCode, () -> connection.send(broadcaster.encodedSnapshot(room, RoomWireFormat.BINARY)));
+    }
+}
@@ -0,0 +1,130 @@
+package co.estimoo.backend.raw;
+
+import co.estimoo.backend.dto.RoomBinaryCodec;
+import co.estimoo.backend.dto.RoomDeltaMessage;
+import co.estimoo.backend.dto.RoomWireFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static co.estimoo.backend.service.RoomBroadcaster.ROOM_TOPIC_PREFIX;
+import static co.estimoo.backend.service.RoomBroadcaster.payloadHeader;
+
+/**
+ * Ham WebSocket bağlantılarının oda abonelikleri ve bu bağlantılara delta dağıtımı.
+ * <p>
+ * Broker kanalına SimpleBroker'ın yanında ikinci bir abone olarak bağlanır; {@code /topic/room/{roomCode}}
+ * mesajları (yerel yayınlar ve başka node'dan aktarılan deltalar) STOMP abonelerine nasıl gidiyorsa
+ * ham bağlantılara da aynı sırayla gider. Yerel yayınlarda ikili delta {@link co.estimoo.backend.service.RoomBroadcaster}
+ * tarafından zaten hazırlanmıştır; aktarılan deltalar JSON'dan oda başına bir kez çevrilir.
+ */
+@Slf4j
+@Component
+public class RawRoomSubscriptions implements MessageHandler {
+
+    private final ObjectMapper objectMapper;
+
+    // roomCode → odayı izleyen ham bağlantılar
+    private final Map<String, Set<RawConnection>> rooms = new ConcurrentHashMap<>();
+
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder deltasTranscoded = new LongAdder();
+
+    @Autowired
+    public RawRoomSubscriptions(ObjectMapper objectMapper,
+                                @Qualifier("brokerChannel") SubscribableChannel brokerChannel) {
+        this(objectMapper);
+        brokerChannel.subscribe(this);
+    }
+
+    public RawRoomSubscriptions(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    void add(RawConnection connection, String roomCode) {
+        connection.setRoomCode(roomCode);
+        // ekleme ve boşalan setin kaldırılması aynı compute içinde; eklenen bağlantı silinmiş sete düşmez
+        rooms.compute(roomCode, (code, connections) -> {
+            if (connections == null) connections = ConcurrentHashMap.newKeySet();
+            connections.add(connection);
+            return connections;
+        });
+    }
+
+    /**
+     * @return bağlantının bıraktığı oda, izlediği oda yoksa null
+     */
+    String remove(RawConnection connection) {
+        String roomCode = connection.getRoomCode();
+        if (roomCode == null) return null;
+        connection.setRoomCode(null);
+        rooms.computeIfPresent(roomCode, (code, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+        return roomCode;
+    }
+
+    public boolean hasSubscribers(String roomCode) {
+        return rooms.containsKey(roomCode);
+    }
+
+    public int getSubscribedRoomCount() {
+        return rooms.size();
+    }
+
+    public long getFramesSent() {
+        return framesSent.sum();
+    }
+
+    public long getDeltasTranscoded() {
+        return deltasTranscoded.sum();
+    }
+
+    @Override
+    public void handleMessage(Message<?> message) {
+        MessageHeaders headers = message.getHeaders();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (destination == null || !destination.startsWith(ROOM_TOPIC_PREFIX)) return;
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        if (type != null && type != SimpMessageType.MESSAGE) return;
+
+        Set<RawConnection> connections = rooms.get(destination.substring(ROOM_TOPIC_PREFIX.length()));
+        if (connections == null) return;
+
+        byte[] frame = binaryDelta(message);
+        if (frame == null) return;
+        for (RawConnection connection : connections) {
+            if (connection.send(frame)) framesSent.increment();
+        }
+    }
+
+    private byte[] binaryDelta(Message<?> message) {
+        if (message.getHeaders().get(payloadHeader(RoomWireFormat.BINARY)) instanceof byte[] binary) {
+            return binary;
+        }
+        if (!(message.getPayload() instanceof byte[] json)) return null;
+        try {
+            byte[] binary = RoomBinaryCodec.encode(objectMapper.readValue(json, RoomDeltaMessage.class));
+            deltasTranscoded.increment();
+            return binary;
+        } catch (IOException e) {
+            log.warn("Oda deltası ikili formata çevrilemedi: {}", SimpMessageHeaderAccessor.getDestination(message.getHeaders()), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package co.estimoo.backend.resource;
+
+import co.estimoo.backend.cluster.ClusterEnvelope;
+import co.estimoo.backend.cluster.ClusterNode;
+import co.estimoo.backend.cluster.RoomTransfer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Node'lar arası uçlar. Sadece cluster modunda açıktır ve nginx üzerinden dışarı verilmez;
+ * estimoo.cluster.secret tanımlıysa istekler X-Cluster-Token başlığını taşımalıdır.
+ */
+@RestController
+@RequestMapping(ClusterNode.INTERNAL_PATH)
+@RequiredArgsConstructor
+@Slf4j
+public class ClusterController {
+
+    private final ClusterNode clusterNode;
+    private final RoomWsController roomWsController;
+
+    @PostMapping("/join")
+    public ResponseEntity<List<String>> join(@RequestHeader(value = ClusterNode.TOKEN_HEADER, required = false) String token,
+                                             @RequestBody Map<String, String> request) {
+        HttpStatus rejected = reject(token);
+        if (rejected != null) return ResponseEntity.status(rejected).build();
+
+        return ResponseEntity.ok(clusterNode.onJoin(request.get("url")));
+    }
+
+    @PostMapping("/leave")
+    public ResponseEntity<Void> leave(@RequestHeader(value = ClusterNode.TOKEN_HEADER, required = false) String token,
+                                      @RequestBody Map<String, String> request) {
+        HttpStatus rejected = reject(token);
+        if (rejected != null) return ResponseEntity.status(rejected).build();
+
+        clusterNode.onLeave(request.get("url"));
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Bir peer'in sıralı mesaj grubu: oda sahibine iletilen komutlar ve sahibin yayınladığı deltalar.
+     */
+    @PostMapping("/messages")
+    public ResponseEntity<Void> messages(@RequestHeader(value = ClusterNode.TOKEN_HEADER, required = false) String token,
+                                         @RequestBody List<ClusterEnvelope> envelopes) {
+        HttpStatus rejected = reject(token);
+        if (rejected != null) return ResponseEntity.status(rejected).build();
+
+        for (ClusterEnvelope envelope : envelopes) {
+            try {
+                if (envelope.getType() == ClusterEnvelope.Type.DELTA) {
+                    clusterNode.deliverDelta(envelope);
+                } else {
+                    roomWsController.applyForwarded(envelope);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Cluster mesajı işlenemedi: {} {}", envelope.getType(), envelope.getRoomCode(), e);
+            }
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/rooms")
+    public ResponseEntity<Void> transferRoom(@RequestHeader(value = ClusterNode.TOKEN_HEADER, required = false) String token,
+                                             @RequestBody RoomTransfer transfer) {
+        HttpStatus rejected = reject(token);
+        if (rejected != null) return ResponseEntity.status(rejected).build();
+
+        clusterNode.acceptTransfer(transfer);
+        return ResponseEntity.noContent().build();
+    }
+
+    private HttpStatus reject(String token) {
+        if (!clusterNode.isEnabled()) return HttpStatus.NOT_FOUND;
+        if (!clusterNode.isAuthorized(token)) return HttpStatus.FORBIDDEN;
+        return null;
+    }
+}
@@ -1,15 +1,31 @@
 package co.estimoo.backend.resource;
 
+import co.estimoo.backend.cluster.ClusterNode;
+import co.estimoo.backend.flow.InboundRateLimiter;
+import co.estimoo.backend.flow.SlowConsumerGuard;
+import co.estimoo.backend.journal.RoomJournal;
+import co.estimoo.backend.metrics.LatencyHistogram;
+import co.estimoo.backend.metrics.LatencyMetrics;
+import co.estimoo.backend.config.RoomSubscriptionRegistry;
+import co.estimoo.backend.raw.RawRoomSocketHandler;
+import co.estimoo.backend.raw.RawRoomSubscriptions;
+import co.estimoo.backend.resume.SessionResumption;
+import co.estimoo.backend.service.RoomBroadcaster;
+import co.estimoo.backend.service.RoomCommandExecutor;
+import co.estimoo.backend.service.RoomPayloadCompressor;
+import co.estimoo.backend.service.RoomPresenceTracker;
 import co.estimoo.backend.service.RoomService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.lang.management.ManagementFactory;
-import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -19,43 +35,140 @@ import java.util.Map;
 public class HealthController {
 
     private final RoomService roomService;
+    private final RoomBroadcaster roomBroadcaster;
+    private final RoomCommandExecutor roomExecutor;
+    private final RoomSubscriptionRegistry subscriptionRegistry;
+    private final ClusterNode clusterNode;
+    private final RoomJournal roomJournal;
+    private final LatencyMetrics latencyMetrics;
+    private final RoomPresenceTracker presenceTracker;
+    private final RoomPayloadCompressor payloadCompressor;
+    private final RawRoomSocketHandler rawSocketHandler;
+    private final RawRoomSubscriptions rawSubscriptions;
+    private final InboundRateLimiter rateLimiter;
+    private final SlowConsumerGuard slowConsumerGuard;
+    private final SessionResumption resumption;
 
     @GetMapping
     public Map<String, Object> health() {
-        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
-        long usedMemory = memoryBean.getHeapMemoryUsage().getUsed();
-        long maxMemory = memoryBean.getHeapMemoryUsage().getMax();
-        
-        int totalUsers = roomService.getRooms().values().stream()
-                .mapToInt(room -> room.getUsers().size())
-                .sum();
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        long usedMemory = heap.getUsed();
+        long maxMemory = heap.getMax();
+        long activeRooms = roomService.getRoomCount();
+        long totalUsers = roomService.getUserCount();
 
         Map<String, Object> health = new HashMap<>();
         health.put("status", "UP");
-        health.put("activeRooms", roomService.getRooms().size());
+        health.put("activeRooms", activeRooms);
         health.put("totalUsers", totalUsers);
         health.put("memoryUsageMB", usedMemory / (1024 * 1024));
         health.put("maxMemoryMB", maxMemory / (1024 * 1024));
         health.put("memoryUsagePercent", (double) usedMemory / maxMemory * 100);
         health.put("uptime", ManagementFactory.getRuntimeMXBean().getUptime() / 1000);
-        
-        log.info("Health check - Rooms: {}, Users: {}, Memory: {}MB/{}MB ({}%)", 
-                roomService.getRooms().size(), totalUsers, 
-                usedMemory / (1024 * 1024), maxMemory / (1024 * 1024),
-                String.format("%.1f", (double) usedMemory / maxMemory * 100));
-        
+        health.put("liveThreads", ManagementFactory.getThreadMXBean().getThreadCount());
+
+        // Docker HEALTHCHECK ve izleme bu ucu sürekli çağırır, her istek loglanmaz
+        log.debug("Health check - Rooms: {}, Users: {}, Memory: {}MB/{}MB",
+                activeRooms, totalUsers, usedMemory / (1024 * 1024), maxMemory / (1024 * 1024));
+
         return health;
     }
 
     @GetMapping("/metrics")
     public Map<String, Object> metrics() {
+        long rooms = roomService.getRoomCount();
+        long users = roomService.getUserCount();
+
         Map<String, Object> metrics = new HashMap<>();
-        metrics.put("rooms", roomService.getRooms().size());
-        metrics.put("users", roomService.getRooms().values().stream()
-                .mapToInt(room -> room.getUsers().size()).sum());
-        metrics.put("avgUsersPerRoom", roomService.getRooms().isEmpty() ? 0 : 
-                (double) roomService.getRooms().values().stream()
-                        .mapToInt(room -> room.getUsers().size()).sum() / roomService.getRooms().size());
+        metrics.put("rooms", rooms);
+        metrics.put("users", users);
+        metrics.put("avgUsersPerRoom", rooms == 0 ? 0 : (double) users / rooms);
+        metrics.put("votesCast", roomService.getVotesCast());
+        metrics.put("reveals", roomService.getReveals());
+        metrics.put("broadcastsSent", roomBroadcaster.getBroadcastsSent());
+        metrics.put("broadcastsCoalesced", roomBroadcaster.getBroadcastsCoalesced());
+        metrics.put("snapshotsEncoded", roomBroadcaster.getSnapshotsEncoded());
+        metrics.put("snapshotCacheHits", roomBroadcaster.getSnapshotCacheHits());
+        metrics.put("roomCommandsProcessed", roomExecutor.getProcessed());
+        metrics.put("roomCommandsQueued", roomExecutor.getQueuedCommands());
+        metrics.put("roomCommandsRejected", roomExecutor.getRejected());
+        metrics.put("roomCommandsFailed", roomExecutor.getFailed());
+        metrics.put("roomMailboxMaxDepth", roomExecutor.getMaxDepth());
+        metrics.put("subscribedRooms", subscriptionRegistry.getSubscribedRoomCount());
+        metrics.put("trackedSessions", presenceTracker.getTrackedSessions());
+        metrics.put("participantsLeft", presenceTracker.getParticipantsLeft());
+        metrics.put("payloadsCompressed", payloadCompressor.getCompressed());
+        metrics.put("payloadsBelowCompressionThreshold", payloadCompressor.getSkipped());
+        metrics.put("compressionBytesIn", payloadCompressor.getBytesIn());
+        metrics.put("compressionBytesOut", payloadCompressor.getBytesOut());
+        metrics.put("compressionRatio", payloadCompressor.getRatio());
+        metrics.put("compressionCpuMillis", payloadCompressor.getCompressNanos() / 1_000_000);
+        metrics.put("rawConnections", rawSocketHandler.getConnectionCount());
+        metrics.put("rawCommandsReceived", rawSocketHandler.getCommandsReceived());
+        metrics.put("rawSubscribedRooms", rawSubscriptions.getSubscribedRoomCount());
+        metrics.put("rawFramesSent", rawSubscriptions.getFramesSent());
+        metrics.put("rawDeltasTranscoded", rawSubscriptions.getDeltasTranscoded());
+        metrics.put("rateLimitedBySession", rateLimiter.getThrottledBySession());
+        metrics.put("rateLimitedByRoom", rateLimiter.getThrottledByRoom());
+        metrics.put("slowConsumers", slowConsumerGuard.getSlowSessions());
+        metrics.put("slowConsumersDetected", slowConsumerGuard.getDetected());
+        metrics.put("slowConsumersDisconnected", slowConsumerGuard.getDisconnected());
+        metrics.put("slowConsumerDeltasSkipped", slowConsumerGuard.getDeltasSkipped());
+        metrics.put("slowConsumerResyncs", slowConsumerGuard.getResyncs());
+        metrics.put("resumeTokensIssued", resumption.getIssued());
+        metrics.put("resumeTokensRejected", resumption.getRejected());
+        metrics.put("sessionsResumed", resumption.getResumed());
+        metrics.put("sessionsRestored", resumption.getRestored());
+        if (clusterNode.isEnabled()) {
+            metrics.put("clusterMembers", clusterNode.getMembers());
+            metrics.put("clusterCommandsForwarded", clusterNode.getCommandsForwarded());
+            metrics.put("clusterForwardsFailed", clusterNode.getForwardsFailed());
+            metrics.put("clusterDeltasRelayed", clusterNode.getDeltasRelayed());
+            metrics.put("clusterMessagesDropped", clusterNode.getMessagesDropped());
+            metrics.put("clusterRoomsHandedOff", clusterNode.getRoomsHandedOff());
+            metrics.put("clusterRoomsReceived", clusterNode.getRoomsReceived());
+        }
+        if (roomJournal.isEnabled()) {
+            metrics.put("journalRecordsWritten", roomJournal.getWritten());
+            metrics.put("journalBacklog", roomJournal.getBacklog());
+            metrics.put("journalFlushes", roomJournal.getFlushes());
+            metrics.put("journalSnapshots", roomJournal.getSnapshots());
+            metrics.put("journalRecoveredRooms", roomJournal.getRecoveredRooms());
+            metrics.put("journalRecoveryMillis", roomJournal.getRecoveryMillis());
+        }
         return metrics;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Aşama bazında gecikme yüzdelikleri (mikrosaniye), uygulama açıldığından beri.
+     */
+    @GetMapping("/latency")
+    public Map<String, Object> latency() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        latencyMetrics.snapshot().forEach((stage, snapshot) -> result.put(stage.getKey(), summary(snapshot)));
+        return result;
+    }
+
+    @GetMapping("/rooms/{roomCode}/subscribers")
+    public Map<String, Object> subscribers(@PathVariable String roomCode) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("roomCode", roomCode);
+        result.put("subscribers", subscriptionRegistry.getSubscriberCount(roomCode));
+        return result;
+    }
+
+    private static Map<String, Object> summary(LatencyHistogram.Snapshot snapshot) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", snapshot.getCount());
+        summary.put("p50Us", micros(snapshot.valueAt(50)));
+        summary.put("p90Us", micros(snapshot.valueAt(90)));
+        summary.put("p99Us", micros(snapshot.valueAt(99)));
+        summary.put("maxUs", micros(snapshot.getMax()));
+        summary.put("meanUs", micros(snapshot.getMean()));
+        return summary;
+    }
+
+    private static double micros(double nanos) {
+        return Math.round(nanos / 100) / 10.0;
+    }
+}
@@ -1,18 +1,56 @@
 package co.estimoo.backend.resource;
 
+import co.estimoo.backend.cluster.ClusterNode;
 import co.estimoo.backend.dto.RoomCreateRequest;
+import co.estimoo.backend.dto.RoomStatus;
+import co.estimoo.backend.dto.RoomSummary;
 import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.RoundHistory;
+import co.estimoo.backend.service.RoomBroadcaster;
 import co.estimoo.backend.service.RoomService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+@Slf4j
 @RestController
 @RequestMapping("/api/rooms")
 @RequiredArgsConstructor
 public class RoomRestResource {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
     private final RoomService roomService;
+    private final RoomBroadcaster roomBroadcaster;
+    private final ClusterNode clusterNode;
+    private final ObjectMapper objectMapper;
+
+    // toplu isteklerde en fazla bu kadar oda; fazlası 400 döner
+    @Value("${estimoo.rooms.batch.max-size:1000}")
+    private int maxBatchSize = 1000;
 
     @PostMapping
     public ResponseEntity<Room> createRoom(@RequestBody RoomCreateRequest request) {
@@ -24,12 +62,68 @@ public class RoomRestResource {
         }
     }
 
+    /**
+     * Her isim için bir oda açar; yanıt açılan odaların özetleridir (istek sırasıyla). Odaların hepsi yanıt
+     * yazılmaya başlamadan açılır, yazım sırasında kopan bağlantı yarım bir oluşturma bırakmaz. Liste önce
+     * bütünüyle doğrulanır; oluşturma yarıda başarısız olursa o ana kadar açılan odalar silinir.
+     */
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> createRooms(@RequestBody List<RoomCreateRequest> requests) {
+        if (requests.size() > maxBatchSize || requests.contains(null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<Room> rooms = new ArrayList<>(requests.size());
+        try {
+            for (RoomCreateRequest request : requests) {
+                rooms.add(roomService.createRoom(request.getRoomName()));
+            }
+        } catch (RuntimeException e) {
+            log.error("Toplu oda oluşturma {}/{} odada başarısız oldu, açılan odalar siliniyor", rooms.size(), requests.size(), e);
+            for (Room room : rooms) {
+                roomService.removeRoom(room.getRoomCode());
+            }
+            return ResponseEntity.internalServerError().build();
+        }
+        return ResponseEntity.ok().body(statuses(rooms, RoomStatus::of));
+    }
+
+    /**
+     * Verilen oda kodlarının özetleri, istek sırasıyla. Olmayan oda {@code exists=false} satırıyla döner.
+     * Cluster modunda başka node'lara ait odalar her sahipten tek bir toplu istekle alınır.
+     */
+    @PostMapping(value = "/batch/status", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getRoomStatuses(
+            @RequestBody List<String> roomCodes,
+            @RequestHeader(value = ClusterNode.FORWARDED_HEADER, required = false) String forwarded) {
+        if (roomCodes.size() > maxBatchSize || roomCodes.contains(null)) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            // yönlendirilmiş istek tekrar yönlendirilmez; halkalar farklıysa oda yok sayılır
+            Map<String, RoomStatus> remote = clusterNode.isEnabled() && forwarded == null
+                    ? clusterNode.fetchStatuses(roomCodes.stream().filter(code -> roomService.getRoom(code) == null).toList())
+                    : Map.of();
+            return ResponseEntity.ok().body(statuses(roomCodes, code -> {
+                Room room = roomService.getRoom(code);
+                if (room != null) return RoomStatus.of(room);
+                return Objects.requireNonNullElseGet(remote.get(code), () -> RoomStatus.missing(code));
+            }));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Odanın özeti. ETag oda kimliği ve versiyonudur; {@code If-None-Match} güncel versiyonu taşıyorsa Spring gövdeyi
+     * serialize etmeden 304 döner, yoklayan istemci sadece header'lar kadar trafik üretir.
+     */
     @GetMapping("/{roomCode}")
-    public ResponseEntity<Room> getRoom(@PathVariable String roomCode) {
+    public ResponseEntity<RoomSummary> getRoom(@PathVariable String roomCode) {
         try {
             Room room = roomService.getRoom(roomCode);
             if (room != null) {
-                return ResponseEntity.ok(room);
+                RoomSummary summary = RoomSummary.of(room);
+                return versioned(room, summary.getVersion()).body(summary);
             } else {
                 return ResponseEntity.notFound().build();
             }
@@ -38,12 +132,18 @@ public class RoomRestResource {
         }
     }
 
-    @GetMapping("/{roomCode}/exists")
-    public ResponseEntity<Room> roomExists(@PathVariable String roomCode) {
+    /**
+     * WebSocket snapshot'ı ile aynı içerik; aynı versiyon için önbellekteki JSON tekrar kullanılır.
+     * ETag ve 304 davranışı {@link #getRoom} ile aynıdır.
+     */
+    @GetMapping(value = "/{roomCode}/state", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getRoomState(@PathVariable String roomCode) {
         try {
             Room room = roomService.getRoom(roomCode);
             if (room != null) {
-                return ResponseEntity.ok(room);
+                // versiyon payload'dan önce okunur; payload daha yeni olabilir, daha eski olamaz
+                long version = room.getVersion();
+                return versioned(room, version).body(roomBroadcaster.encodedSnapshot(room));
             } else {
                 return ResponseEntity.notFound().build();
             }
@@ -51,4 +151,131 @@ public class RoomRestResource {
             return ResponseEntity.internalServerError().build();
         }
     }
+
+    /**
+     * Gövdesiz varlık kontrolü: oda varsa 204, yoksa 404. {@code HEAD} ile de çağrılabilir.
+     */
+    @RequestMapping(value = "/{roomCode}/exists", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public ResponseEntity<Void> roomExists(@PathVariable String roomCode) {
+        try {
+            if (roomService.getRoom(roomCode) != null) {
+                return ResponseEntity.noContent().build();
+            } else {
+                return ResponseEntity.notFound().build();
+            }
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Odanın tamamlanmış turları, eskiden yeniye. {@code format=ndjson} (varsayılan) her tur için bir JSON satırı,
+     * {@code format=csv} her oy için bir satır yazar. Satırlar doğrudan yanıt akışına yazılır; bellekte tutulan
+     * sadece turların kopyalanmamış oy dizileridir.
+     */
+    @GetMapping("/{roomCode}/history")
+    public ResponseEntity<StreamingResponseBody> getRoundHistory(
+            @PathVariable String roomCode,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        try {
+            Room room = roomService.getRoom(roomCode);
+            if (room == null) {
+                return ResponseEntity.notFound().build();
+            }
+            List<RoundHistory.Round> rounds = room.getHistory().snapshot();
+            return switch (format) {
+                case "ndjson" -> ResponseEntity.ok().contentType(NDJSON).body(ndjson(rounds));
+                case "csv" -> ResponseEntity.ok()
+                        .contentType(CSV)
+                        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                                .filename(roomCode + "-history.csv").build().toString())
+                        .body(csv(rounds));
+                default -> ResponseEntity.badRequest().build();
+            };
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Güçlü ETag ({@code "<oda kimliği>-<versiyon>"}) ve her seferinde yeniden doğrulama; tarayıcı önbelleği bayat
+     * yanıt vermez. Kimlik {@link Room#getInstanceId()}'dir: kod silinip başka odaya verilse de versiyonu eşleşen
+     * eski ETag 304 almaz.
+     */
+    private static ResponseEntity.BodyBuilder versioned(Room room, long version) {
+        return ResponseEntity.ok()
+                .eTag(Long.toHexString(room.getInstanceId()) + "-" + version)
+                .cacheControl(CacheControl.noCache());
+    }
+
+    /**
+     * Özetleri JSON dizisi olarak doğrudan yanıt akışına yazar; büyük listeler bellekte tek parça üretilmez.
+     * Her satırdan sonra flush edilmez, Jackson'ın tamponu doldukça gönderilir.
+     */
+    private <T> StreamingResponseBody statuses(List<T> items, Function<T, RoomStatus> toStatus) {
+        ObjectWriter writer = objectMapper.writerFor(RoomStatus.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                generator.writeStartArray();
+                for (T item : items) {
+                    writer.writeValue(generator, toStatus.apply(item));
+                }
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    /**
+     * {@code {"round":3,"completedAt":"...","votes":[{"participantId":1,"vote":"5"}]}} satırları.
+     */
+    private StreamingResponseBody ndjson(List<RoundHistory.Round> rounds) {
+        return out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                // kök değerler arasına boşluk değil satır sonu gelir, onu da her turun sonunda biz yazarız
+                generator.setRootValueSeparator(null);
+                for (RoundHistory.Round round : rounds) {
+                    generator.writeStartObject();
+                    generator.writeNumberField("round", round.number());
+                    generator.writeStringField("completedAt", Instant.ofEpochMilli(round.completedAt()).toString());
+                    generator.writeArrayFieldStart("votes");
+                    for (int i = 0; i < round.voteCount(); i++) {
+                        generator.writeStartObject();
+                        generator.writeNumberField("participantId", round.participantId(i));
+                        generator.writeStringField("vote", round.vote(i).getLabel());
+                        generator.writeEndObject();
+                    }
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+    }
+
+    /**
+     * {@code round,completedAt,participantId,vote} satırları; oysuz tur boş oy alanlarıyla tek satırdır.
+     */
+    private static StreamingResponseBody csv(List<RoundHistory.Round> rounds) {
+        return out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write("round,completedAt,participantId,vote\n");
+            for (RoundHistory.Round round : rounds) {
+                String prefix = round.number() + "," + Instant.ofEpochMilli(round.completedAt()) + ",";
+                if (round.voteCount() == 0) {
+                    writer.write(prefix + ",\n");
+                }
+                for (int i = 0; i < round.voteCount(); i++) {
+                    writer.write(prefix);
+                    writer.write(Integer.toString(round.participantId(i)));
+                    writer.write(',');
+                    writer.write(round.vote(i).getLabel());
+                    writer.write('\n');
+                }
+            }
+            // akış Spring'indir, kapatılmaz
+            writer.flush();
+        };
+    }
 }
@@ -1,78 +1,135 @@
 package co.estimoo.backend.resource;
 
+import co.estimoo.backend.cluster.ClusterEnvelope;
+import co.estimoo.backend.cluster.ClusterNode;
+import co.estimoo.backend.config.RoomBinaryMessageConverter;
+import co.estimoo.backend.metrics.LatencyMetrics;
+import co.estimoo.backend.metrics.LatencyMetrics.Stage;
 import co.estimoo.backend.dto.*;
+import co.estimoo.backend.dto.RoomDeltaMessage.ChangeType;
 import co.estimoo.backend.model.Room;
 import co.estimoo.backend.model.UserSession;
 import co.estimoo.backend.model.VoteValue;
+import co.estimoo.backend.resume.ResumeClaim;
+import co.estimoo.backend.resume.SessionResumption;
+import co.estimoo.backend.service.RoomBroadcaster;
+import co.estimoo.backend.service.RoomCommandExecutor;
+import co.estimoo.backend.service.RoomPresenceTracker;
 import co.estimoo.backend.service.RoomService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.stereotype.Controller;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
+/**
+ * STOMP oda komutları. Her komut odanın mailbox'ına eklenir ve {@link RoomCommandExecutor}
+ * tarafından oda başına tek thread'de, geliş sırasıyla uygulanır.
+ * Cluster modunda oda başka bir node'a aitse komut {@link ClusterNode} ile sahibine iletilir.
+ */
+@Slf4j
 @Controller
 @RequiredArgsConstructor
 public class RoomWsController {
 
     private final RoomService roomService;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final RoomBroadcaster broadcaster;
+    private final RoomCommandExecutor roomExecutor;
+    private final ClusterNode cluster;
+    private final LatencyMetrics latency;
+    private final RoomPresenceTracker presence;
+    private final SessionResumption resumption;
+
+    // Herkes oy verdiğinde oylar otomatik açılır; sayaç tally'den okunur, kullanıcılar taranmaz
+    @Value("${estimoo.rooms.auto-reveal:false}")
+    private boolean autoReveal;
+
+    // Oda başına saklanan tamamlanmış tur sayısı (GET /api/rooms/{roomCode}/history); 0 kapatır
+    @Value("${estimoo.rooms.history.capacity:50}")
+    private int historyCapacity = 50;
+
+    /**
+     * İstemci /app/room/{roomCode} aboneliğiyle odanın tam durumunu ister.
+     * İlk girişte ve delta versiyonları arasında boşluk oluştuğunda kullanılır.
+     */
+    @SubscribeMapping("/room/{roomCode}")
+    public void snapshot(@DestinationVariable String roomCode, SimpMessageHeaderAccessor headers) {
+        String sessionId = headers.getSessionId();
+        String subscriptionId = headers.getSubscriptionId();
+        String destination = headers.getDestination();
+        RoomWireFormat format = RoomBinaryMessageConverter.requestedFormat(headers.getMessageHeaders());
+
+        Room room = roomService.getRoom(roomCode);
+        if (room == null) {
+            // oda başka node'daysa sahibinin önbellekteki snapshot'ı aynen iletilir
+            cluster.fetchSnapshot(roomCode).thenAccept(payload -> {
+                if (payload != null) broadcaster.sendRemoteSnapshot(payload, sessionId, subscriptionId, destination, format);
+            });
+            return;
+        }
+
+        // mailbox üzerinden okunur, böylece snapshot versiyonu içeriğiyle tutarlı olur;
+        // önbellekteki hazır payload doğrudan abone oturuma gider, converter'a uğramaz
+        roomExecutor.execute(roomCode, () -> {
+            Room current = roomService.getRoom(roomCode);
+            if (current != null) {
+                broadcaster.sendSnapshot(current, sessionId, subscriptionId, destination, format);
+            } else {
+                // oda bu arada devredildi
+                cluster.fetchSnapshot(roomCode).thenAccept(payload -> {
+                    if (payload != null) broadcaster.sendRemoteSnapshot(payload, sessionId, subscriptionId, destination, format);
+                });
+            }
+        });
+    }
 
     @MessageMapping("/join")
     public void joinRoom(@Payload JoinRoomMessage msg, @Header("simpSessionAttributes") Map<String, Object> attributes) {
-        String sessionId = (String) attributes.get("sessionId");
-        // Fallback for integration tests: try to get from nativeHeaders
-        if (sessionId == null && attributes.get("nativeHeaders") instanceof Map nativeHeaders) {
-            Object testSessionId = ((Map<?, ?>) nativeHeaders).get("test-session-id");
-            if (testSessionId instanceof java.util.List list && !list.isEmpty()) {
-                sessionId = (String) list.get(0);
-            }
-        }
+        String sessionId = resolveSessionId(attributes);
         if (sessionId == null) return;
 
-        Room room = roomService.getRoom(msg.getRoomCode());
-        if (room == null) return;
+        // geçersiz ya da süresi dolmuş token normal katılıma düşer
+        ResumeClaim claim = msg.getResumeToken() != null
+                ? resumption.verify(msg.getResumeToken(), sessionId, msg.getRoomCode())
+                : null;
 
-        room.getUsers().put(sessionId, new UserSession(sessionId, msg.getNickname(), null));
-
-        RoomStateMessage state = new RoomStateMessage();
-        state.setUsers(
-                room.getUsers().values().stream().map(user -> {
-                    RoomStateMessage.UserVoteInfo info = new RoomStateMessage.UserVoteInfo();
-                    info.setNickname(user.getNickname());
-                    info.setVote(null); // JOIN aşamasında oy zaten yok
-                    return info;
-                }).toList()
-        );
-        state.setVotesRevealed(room.isVotesRevealed());
+        String roomCode = msg.getRoomCode();
+        Supplier<ClusterEnvelope> remote = () -> claim != null
+                ? ClusterEnvelope.resume(roomCode, sessionId, msg.getNickname(), msg.getResumeToken())
+                : ClusterEnvelope.command(ClusterEnvelope.Type.JOIN, roomCode, sessionId, msg.getNickname(), null);
+        // bağlantı kapanınca odadan çıkarılabilmesi için katılım bu node'da indekslenir, oda başka node'da olsa bile;
+        // komut kuyruğa girmeden yapılır ki bu arada gelen disconnect'in çıkışı katılımdan sonra uygulansın.
+        // Oda hiçbir node'da yoksa indekslenmez, kapanışta boşuna çıkış planlanmaz
+        if (roomService.getRoom(roomCode) == null) {
+            if (forward(remote.get())) presence.joined(sessionId, roomCode);
+            return;
+        }
+        presence.joined(sessionId, roomCode);
 
-        messagingTemplate.convertAndSend("/topic/room/" + msg.getRoomCode(), state);
+        if (claim != null) {
+            submit(roomCode, remote, room -> applyResume(room, claim));
+        } else {
+            submit(roomCode, remote, room -> applyJoin(room, sessionId, msg.getNickname()));
+        }
     }
 
     @MessageMapping("/vote")
     public void vote(@Payload VoteMessage msg, @Header("simpSessionAttributes") Map<String, Object> attributes) {
-        String sessionId = (String) attributes.get("sessionId");
-        // Fallback for integration tests: try to get from nativeHeaders
-        if (sessionId == null && attributes.get("nativeHeaders") instanceof Map nativeHeaders) {
-            Object testSessionId = ((Map<?, ?>) nativeHeaders).get("test-session-id");
-            if (testSessionId instanceof java.util.List list && !list.isEmpty()) {
-                sessionId = (String) list.get(0);
-            }
-        }
+        String sessionId = resolveSessionId(attributes);
         if (sessionId == null) return;
 
-        Room room = roomService.getRoom(msg.getRoomCode());
-        if (room == null) return;
-
-        UserSession user = room.getUsers().get(sessionId);
-        if (user == null) return;
-
-        // Sadece oylar açılmadıysa oylamaya izin ver
-        if (room.isVotesRevealed()) return;
+        String roomCode = msg.getRoomCode();
 
         VoteValue newVote;
         try {
@@ -81,77 +138,241 @@ public class RoomWsController {
             return; // Geçersiz oy, işlem yapma
         }
 
+        Supplier<ClusterEnvelope> remote = () -> ClusterEnvelope.command(ClusterEnvelope.Type.VOTE, roomCode, sessionId, null, newVote.getLabel());
+        if (roomService.getRoom(roomCode) == null) {
+            forward(remote.get());
+            return;
+        }
+
+        submit(roomCode, remote, room -> applyVote(room, sessionId, newVote));
+    }
+
+    @MessageMapping("/reveal")
+    public void revealVotes(@Payload RevealMessage msg) {
+        String roomCode = msg.getRoomCode();
+        Supplier<ClusterEnvelope> remote = () -> ClusterEnvelope.command(ClusterEnvelope.Type.REVEAL, roomCode, null, null, null);
+        if (roomService.getRoom(roomCode) == null) {
+            forward(remote.get());
+            return;
+        }
+
+        submit(roomCode, remote, this::applyReveal);
+    }
+
+    @MessageMapping("/reset")
+    public void resetVotes(@Payload ResetMessage msg) {
+        String roomCode = msg.getRoomCode();
+        Supplier<ClusterEnvelope> remote = () -> ClusterEnvelope.command(ClusterEnvelope.Type.RESET, roomCode, null, null, null);
+        if (roomService.getRoom(roomCode) == null) {
+            forward(remote.get());
+            return;
+        }
+
+        submit(roomCode, remote, this::applyReset);
+    }
+
+    /**
+     * Başka bir node'un ilettiği komutu uygular. Oda bu node'da değilse (ya da komut kuyruktayken
+     * devredildiyse) komut düşer; tekrar iletilmez, böylece sahiplik değişirken node'lar arasında döngü oluşmaz.
+     * Oda devredilirken gelen komut ise devir bitince aynen yeni sahibine gider.
+     */
+    public void applyForwarded(ClusterEnvelope envelope) {
+        String roomCode = envelope.getRoomCode();
+        if (roomService.getRoom(roomCode) == null) return;
+
+        Supplier<ClusterEnvelope> relay = () -> envelope;
+        switch (envelope.getType()) {
+            case JOIN -> submit(roomCode, null, relay, room -> applyJoin(room, envelope.getSessionId(), envelope.getNickname()));
+            case VOTE -> {
+                VoteValue vote = VoteValue.fromLabel(envelope.getVote());
+                submit(roomCode, null, relay, room -> applyVote(room, envelope.getSessionId(), vote));
+            }
+            case REVEAL -> submit(roomCode, null, relay, this::applyReveal);
+            case RESET -> submit(roomCode, null, relay, this::applyReset);
+            case RESUME -> {
+                // token bu node'un anahtarıyla da doğrulanır; tutmazsa normal katılım olarak uygulanır
+                ResumeClaim claim = resumption.verify(envelope.getResumeToken(), envelope.getSessionId(), roomCode);
+                submit(roomCode, null, relay, room -> {
+                    if (claim != null) applyResume(room, claim);
+                    else applyJoin(room, envelope.getSessionId(), envelope.getNickname());
+                });
+            }
+            case LEAVE -> submit(roomCode, null, relay, room -> presence.applyLeave(room, envelope.getSessionId()));
+            default -> {
+            }
+        }
+    }
+
+    private void submit(String roomCode, Supplier<ClusterEnvelope> remote, Consumer<Room> command) {
+        submit(roomCode, remote, remote, command);
+    }
+
+    /**
+     * Komutu odanın mailbox'ında, o an kayıtlı oda nesnesiyle uygular. Komut kuyruktayken oda başka node'a
+     * devredildiyse komut {@code remote} ile yeni sahibine iletilir ({@code remote} null ise düşer); devralınan
+     * daha yeni bir kopya kaydedildiyse komut ona uygulanır. Oda o sırada devrediliyorsa komut burada
+     * uygulanmaz: devir bitince {@code handedOff} ile yeni sahibine iletilir, devir başarısız olursa burada
+     * uygulanır ({@link ClusterNode#holdDuringHandOff}).
+     */
+    private void submit(String roomCode, Supplier<ClusterEnvelope> remote, Supplier<ClusterEnvelope> handedOff, Consumer<Room> command) {
+        roomExecutor.execute(roomCode, () -> apply(roomCode, remote, handedOff, command));
+    }
+
+    // odanın mailbox'ında çalışır
+    private void apply(String roomCode, Supplier<ClusterEnvelope> remote, Supplier<ClusterEnvelope> handedOff, Consumer<Room> command) {
+        Room room = roomService.getRoom(roomCode);
+        if (room == null) {
+            if (remote != null) forward(remote.get());
+        } else if (!cluster.holdDuringHandOff(roomCode, handedOff, () -> apply(roomCode, remote, handedOff, command))) {
+            command.accept(room);
+        }
+    }
+
+    /**
+     * @return komut odanın sahibi olan node'a iletildiyse true
+     */
+    private boolean forward(ClusterEnvelope envelope) {
+        // iletilemeyen komut ClusterNode'da sayılır; oda hiçbir node'da yoksa yapılacak bir şey yok
+        if (cluster.forward(envelope)) return true;
+        log.debug("Komut iletilmedi: {} {}", envelope.getType(), envelope.getRoomCode());
+        return false;
+    }
+
+    private void applyJoin(Room room, String sessionId, String nickname) {
+        long start = System.nanoTime();
+        // Aynı session tekrar katılırsa numarası korunur, istemci kaydı günceller
+        UserSession existing = room.getUsers().get(sessionId);
+        int participantId = existing != null ? existing.getParticipantId() : room.nextParticipantId();
+        UserSession user = new UserSession(sessionId, nickname, null, participantId);
+        room.getUsers().put(sessionId, user);
+        roomService.participantJoined(room, user, existing == null);
+        latency.record(Stage.JOIN, start);
+
+        broadcaster.publish(room, new RoomDeltaMessage.Change(ChangeType.JOINED, participantId, nickname, null));
+        resumption.publish(room, user);
+    }
+
+    /**
+     * Token'la yeniden bağlanan katılımcıyı odaya döndürür. Kullanıcı hâlâ odadaysa (grace süresi içinde,
+     * journal'dan geri yüklenmiş ya da devralınmış odada) hiçbir şey değişmez: versiyon artmaz, delta
+     * yayınlanmaz, oyu korunur. Odadan çıkarılmışsa token'daki nickname ve numarayla geri eklenir; oy
+     * sadece aynı turdaysa ve oylar açılmadıysa geri yüklenir.
+     */
+    private void applyResume(Room room, ResumeClaim claim) {
+        long start = System.nanoTime();
+        UserSession existing = room.getUsers().get(claim.sessionId());
+        if (existing != null) {
+            resumption.resumed(false);
+            latency.record(Stage.JOIN, start);
+            resumption.publish(room, existing);
+            return;
+        }
+
+        int participantId = isFreeParticipantId(room, claim.participantId()) ? claim.participantId() : room.nextParticipantId();
+        VoteValue vote = !room.isVotesRevealed() && claim.roundId() == room.getRoundId() ? claim.vote() : null;
+        UserSession user = new UserSession(claim.sessionId(), claim.nickname(), vote, participantId);
+        room.getUsers().put(claim.sessionId(), user);
+        roomService.participantJoined(room, user, true);
+        if (vote != null) roomService.voteChanged(room, user);
+        resumption.resumed(true);
+        latency.record(Stage.JOIN, start);
+
+        List<RoomDeltaMessage.Change> changes = new ArrayList<>(2);
+        changes.add(new RoomDeltaMessage.Change(ChangeType.JOINED, participantId, claim.nickname(), null));
+        if (vote != null) changes.add(new RoomDeltaMessage.Change(ChangeType.VOTED, participantId, null, null));
+        broadcaster.publish(room, changes);
+        resumption.publish(room, user);
+    }
+
+    /**
+     * Numara bu odada verilmiş ve şu an kimsede değilse true; aksi halde yeni numara alınır.
+     */
+    private static boolean isFreeParticipantId(Room room, int participantId) {
+        if (participantId <= 0 || participantId > room.getLastParticipantId()) return false;
+        for (UserSession user : room.getUsers().values()) {
+            if (user.getParticipantId() == participantId) return false;
+        }
+        return true;
+    }
+
+    private void applyVote(Room room, String sessionId, VoteValue newVote) {
+        long start = System.nanoTime();
+        UserSession user = room.getUsers().get(sessionId);
+        if (user == null) return;
+
+        // Sadece oylar açılmadıysa oylamaya izin ver
+        if (room.isVotesRevealed()) return;
+
         VoteValue currentVote = user.getVote();
+        ChangeType change;
 
         if (newVote == currentVote) {
             user.setVote(null); // Aynı oya tekrar tıklanırsa kaldır
+            change = ChangeType.UNVOTED;
         } else {
             user.setVote(newVote); // Yeni oy olarak güncelle
+            change = ChangeType.VOTED;
         }
 
-        room.setLastActivity(LocalDateTime.now());
+        room.touch();
+        roomService.voteChanged(room, user);
+        latency.record(Stage.VOTE, start);
 
-        // Yeni oylama durumunu hazırla
-        RoomStateMessage state = new RoomStateMessage();
-        state.setUsers(
-                room.getUsers().values().stream().map(u -> {
-                    RoomStateMessage.UserVoteInfo info = new RoomStateMessage.UserVoteInfo();
-                    info.setNickname(u.getNickname());
-                    info.setVote(null); // henüz reveal edilmediği için oylar gizli
-                    return info;
-                }).toList()
-        );
-        state.setVotesRevealed(room.isVotesRevealed());
+        // Oy değeri reveal edilene kadar gizli, sadece oy verildiği bilgisi gider
+        broadcaster.publish(room, new RoomDeltaMessage.Change(change, user.getParticipantId(), null, null));
+        resumption.publish(room, user);
 
-        messagingTemplate.convertAndSend("/topic/room/" + msg.getRoomCode(), state);
+        // son oy da geldiyse bekleyen VOTED deltası reveal ile aynı mesajda gider
+        if (autoReveal && room.getTally().isComplete()) {
+            applyReveal(room);
+        }
     }
 
+    private void applyReveal(Room room) {
+        // zaten açılmış oda için tekrar gelen reveal (iki kişi aynı anda bastı) versiyon artırıp yayın yapmaz
+        if (room.isVotesRevealed()) return;
 
-    @MessageMapping("/reveal")
-    public void revealVotes(@Payload RevealMessage msg) {
-        Room room = roomService.getRoom(msg.getRoomCode());
-        if (room == null) return;
-
+        long start = System.nanoTime();
         room.setVotesRevealed(true);
-        room.setLastActivity(LocalDateTime.now());
-
-        RoomStateMessage state = new RoomStateMessage();
+        room.touch();
+        roomService.votesRevealed(room);
 
-        state.setUsers(
-                room.getUsers().values().stream().map(user -> {
-                    RoomStateMessage.UserVoteInfo info = new RoomStateMessage.UserVoteInfo();
-                    info.setNickname(user.getNickname());
-                    info.setVote(user.getVote() != null ? user.getVote().getLabel() : null); // enum'dan string
-                    return info;
-                }).toList()
-        );
-        state.setVotesRevealed(room.isVotesRevealed());
+        List<RoomDeltaMessage.Change> changes = new ArrayList<>();
+        room.getUsers().values().forEach(user -> {
+            if (user.getVote() != null) {
+                changes.add(new RoomDeltaMessage.Change(ChangeType.REVEALED, user.getParticipantId(), null, user.getVote().getLabel()));
+            }
+        });
+        latency.record(Stage.REVEAL, start);
 
-        messagingTemplate.convertAndSend("/topic/room/" + msg.getRoomCode(), state);
+        broadcaster.publishNow(room, changes);
     }
 
-    @MessageMapping("/reset")
-    public void resetVotes(@Payload ResetMessage msg) {
-        Room room = roomService.getRoom(msg.getRoomCode());
-        if (room == null) return;
-
+    private void applyReset(Room room) {
+        long start = System.nanoTime();
+        // açılmış turun sonucu geçmişe yazılır; açılmadan sıfırlanan turun sonucu yoktur
+        if (room.isVotesRevealed()) room.archiveRound(System.currentTimeMillis(), historyCapacity);
         // Tüm kullanıcıların oyunu sıfırla
-        room.getUsers().values().forEach(user -> user.setVote(null));
+        room.clearVotes();
         room.setVotesRevealed(false);
-        room.setLastActivity(LocalDateTime.now());
-
-        // Yeni RoomStateMessage hazırla (oylar gizli)
-        RoomStateMessage state = new RoomStateMessage();
-        state.setUsers(
-                room.getUsers().values().stream().map(u -> {
-                    RoomStateMessage.UserVoteInfo info = new RoomStateMessage.UserVoteInfo();
-                    info.setNickname(u.getNickname());
-                    info.setVote(null); // hepsi null olacak zaten
-                    return info;
-                }).toList()
-        );
-        state.setVotesRevealed(room.isVotesRevealed());
-
-        messagingTemplate.convertAndSend("/topic/room/" + msg.getRoomCode(), state);
-    }
-}
\ No newline at end of file
+        room.touch();
+        roomService.votesReset(room);
+        latency.record(Stage.RESET, start);
+
+        broadcaster.publishNow(room, new RoomDeltaMessage.Change(ChangeType.RESET, 0, null, null));
+        // yeni turda eski token'ların oyu geçersiz
+        resumption.publishAll(room);
+    }
+
+    private static String resolveSessionId(Map<String, Object> attributes) {
+        String sessionId = (String) attributes.get("sessionId");
+        // Fallback for integration tests: try to get from nativeHeaders
+        if (sessionId == null && attributes.get("nativeHeaders") instanceof Map nativeHeaders) {
+            Object testSessionId = ((Map<?, ?>) nativeHeaders).get("test-session-id");
+            if (testSessionId instanceof java.util.List list && !list.isEmpty()) {
+                sessionId = (String) list.get(0);
+            }
+        }
+        return sessionId;
+    }
+}
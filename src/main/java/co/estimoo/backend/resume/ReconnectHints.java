@@ -0,0 +1,115 @@
+package co.estimoo.backend.resume;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uygulama kapanırken açık WebSocket bağlantılarını, her birine farklı bir yeniden bağlanma gecikmesi
+ * önererek kapatır. Kapatma kodu {@code 1012 (service restart)}, sebep {@code retry-after-ms=<gecikme>}'dir;
+ * gecikme {@code min-delay-ms} ile {@code min-delay-ms + spread-ms} arasında rastgeledir. Deploy'da tüm
+ * istemcilerin aynı anda yeniden bağlanıp snapshot istemesi yerine bağlantılar bu aralığa yayılır.
+ * <p>
+ * STOMP ve ham uç noktanın handler'ları bu fabrikayla sarılır; Spring'in kendi kapatması (GOING_AWAY,
+ * sebepsiz) lifecycle durdurulurken gelir, bu dinleyici ondan önce çalışır.
+ */
+@Slf4j
+@Component
+public class ReconnectHints implements WebSocketHandlerDecoratorFactory {
+
+    public static final String REASON_PREFIX = "retry-after-ms=";
+
+    // kapanış frame'leri en fazla bu kadar beklenir; takılan bağlantı sunucu durdurulurken zaten kopar
+    private static final long CLOSE_TIMEOUT_MS = 5_000;
+
+    private final long minDelayMs;
+    private final long spreadMs;
+
+    // WebSocket oturum id → bağlantı
+    private final Map<String, WebSocketSession> sockets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReconnectHints(@Value("${estimoo.ws.reconnect.min-delay-ms:1000}") long minDelayMs,
+                          @Value("${estimoo.ws.reconnect.spread-ms:10000}") long spreadMs) {
+        this.minDelayMs = minDelayMs;
+        this.spreadMs = spreadMs;
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                sockets.put(session.getId(), session);
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sockets.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void onShutdown() {
+        int closed = closeAll();
+        if (closed > 0) log.info("{} bağlantı yeniden bağlanma önerisiyle kapatıldı", closed);
+    }
+
+    /**
+     * Tüm bağlantıları rastgele gecikme önerisiyle kapatır; kapanış frame'leri paralel yazılır.
+     *
+     * @return kapatılan bağlantı sayısı
+     */
+    public int closeAll() {
+        List<WebSocketSession> open = List.copyOf(sockets.values());
+        // close() sonsuza kadar beklerdi; takılan kapanışlar süre dolunca bırakılır
+        ExecutorService closer = Executors.newVirtualThreadPerTaskExecutor();
+        for (WebSocketSession session : open) {
+            CloseStatus status = new CloseStatus(CloseStatus.SERVICE_RESTARTED.getCode(), REASON_PREFIX + nextDelayMs());
+            closer.execute(() -> close(session, status));
+        }
+        closer.shutdown();
+        try {
+            closer.awaitTermination(CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return open.size();
+    }
+
+    public int getConnectionCount() {
+        return sockets.size();
+    }
+
+    long nextDelayMs() {
+        return minDelayMs + (spreadMs > 0 ? ThreadLocalRandom.current().nextLong(spreadMs + 1) : 0);
+    }
+
+    private static void close(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Bağlantı kapatılamadı: {}", session.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package co.estimoo.backend.resume;
+
+import co.estimoo.backend.model.VoteValue;
+
+/**
+ * Doğrulanmış resume token'ının içeriği: token verildiği andaki katılımcı durumu.
+ *
+ * @param vote    null ise oy yoktu
+ * @param roundId token verildiğinde odanın tur kimliği; oy sadece aynı turda geri yüklenir
+ */
+public record ResumeClaim(String roomCode, String sessionId, String nickname, int participantId,
+                          VoteValue vote, long roundId, long issuedAtMillis) {
+}
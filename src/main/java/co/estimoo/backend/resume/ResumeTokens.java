@@ -0,0 +1,146 @@
+package co.estimoo.backend.resume;
+
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import co.estimoo.backend.model.VoteValue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.function.LongSupplier;
+
+/**
+ * Oturum devam ettirme (resume) token'larını üretir ve doğrular.
+ * <p>
+ * Token durumsuzdur: katılımcının oda kodu, token'ı (sessionId), nickname'i, numarası, oyu ve odanın tur
+ * kimliği kompakt ikili olarak kodlanır ve HMAC-SHA256 ile imzalanır ({@code base64url(gövde).base64url(imza)}).
+ * Sunucuda saklanmadığından yeniden başlatmadan ve node değişiminden etkilenmez; anahtar tüm node'larda aynı
+ * olmalıdır. {@code estimoo.ws.resume.secret} boşsa cluster anahtarı, o da boşsa süreç başına rastgele bir
+ * anahtar kullanılır (token'lar yeniden başlatmada geçersiz olur, istemci normal join'e düşer).
+ */
+@Slf4j
+@Component
+public class ResumeTokens {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte FORMAT_VERSION = 1;
+    // imzanın token'a yazılan kısmı; 128 bit tahmin edilemezlik için yeterli
+    private static final int SIGNATURE_BYTES = 16;
+    private static final VoteValue[] VOTES = VoteValue.values();
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    @Autowired
+    public ResumeTokens(@Value("${estimoo.ws.resume.secret:${estimoo.cluster.secret:}}") String secret,
+                        @Value("${estimoo.ws.resume.ttl-ms:900000}") long ttlMillis) {
+        this(keyBytes(secret), ttlMillis, System::currentTimeMillis);
+    }
+
+    public ResumeTokens(byte[] key, long ttlMillis, LongSupplier clock) {
+        this.key = new SecretKeySpec(key, ALGORITHM);
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Katılımcının odadaki güncel durumu için token üretir. Odanın mailbox'ında çağrılmalıdır.
+     */
+    public String issue(Room room, UserSession user) {
+        byte[] roomCode = utf8(room.getRoomCode());
+        byte[] sessionId = utf8(user.getSessionId());
+        byte[] nickname = utf8(user.getNickname() != null ? user.getNickname() : "");
+        ByteBuffer body = ByteBuffer.allocate(1 + 8 + 8 + 4 + 1 + 6 + roomCode.length + sessionId.length + nickname.length);
+        body.put(FORMAT_VERSION)
+                .putLong(clock.getAsLong())
+                .putLong(room.getRoundId())
+                .putInt(user.getParticipantId())
+                .put((byte) (user.getVote() != null ? user.getVote().ordinal() + 1 : 0));
+        putString(body, roomCode);
+        putString(body, sessionId);
+        putString(body, nickname);
+
+        byte[] bytes = body.array();
+        return ENCODER.encodeToString(bytes) + '.' + ENCODER.encodeToString(sign(bytes));
+    }
+
+    /**
+     * @param sessionId bağlantının handshake token'ı; token başka bir sessionId için verildiyse reddedilir
+     * @param roomCode  katılınmak istenen oda
+     * @return imza, süre, oturum ve oda tutuyorsa token'ın içeriği; aksi halde null
+     */
+    public ResumeClaim verify(String token, String sessionId, String roomCode) {
+        if (token == null || sessionId == null || roomCode == null) return null;
+        int dot = token.indexOf('.');
+        if (dot <= 0) return null;
+
+        try {
+            byte[] bytes = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(bytes), signature)) return null;
+
+            ByteBuffer body = ByteBuffer.wrap(bytes);
+            if (body.get() != FORMAT_VERSION) return null;
+            long issuedAt = body.getLong();
+            long roundId = body.getLong();
+            int participantId = body.getInt();
+            int vote = body.get();
+            ResumeClaim claim = new ResumeClaim(getString(body), getString(body), getString(body), participantId,
+                    vote > 0 && vote <= VOTES.length ? VOTES[vote - 1] : null, roundId, issuedAt);
+
+            if (clock.getAsLong() - issuedAt > ttlMillis) return null;
+            return claim.sessionId().equals(sessionId) && claim.roomCode().equals(roomCode) ? claim : null;
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            return null; // bozuk base64 ya da kısa gövde
+        }
+    }
+
+    private byte[] sign(byte[] body) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return Arrays.copyOf(mac.doFinal(body), SIGNATURE_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " kullanılamıyor", e);
+        }
+    }
+
+    private static byte[] keyBytes(String secret) {
+        if (secret != null && !secret.isBlank()) {
+            return utf8(secret);
+        }
+        log.info("Resume anahtarı tanımlı değil; token'lar yeniden başlatmadan sonra geçersiz olacak");
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        return random;
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer body, byte[] value) {
+        body.putShort((short) value.length).put(value);
+    }
+
+    private static String getString(ByteBuffer body) {
+        byte[] value = new byte[Short.toUnsignedInt(body.getShort())];
+        body.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
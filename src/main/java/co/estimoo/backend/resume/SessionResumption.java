@@ -0,0 +1,141 @@
+package co.estimoo.backend.resume;
+
+import co.estimoo.backend.dto.ResumeTokenMessage;
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Yeniden bağlanan istemcinin odaya yayın üretmeden dönmesini sağlar.
+ * <p>
+ * Katılımcının durumu değiştikçe (join, oy, reset) güncel resume token'ı kendi STOMP bağlantılarına
+ * {@code /user/queue/resume} üzerinden gönderilir. İstemci son aldığı token'ı saklar, yeniden bağlanınca
+ * {@code /app/join} mesajında {@code resumeToken} olarak geri yollar; token geçerliyse ve kullanıcı hâlâ
+ * odadaysa katılım hiçbir değişiklik ve delta üretmez.
+ * <p>
+ * Principal olmadığından hedef kullanıcı adı STOMP oturum id'sidir; Spring bu durumda mesajı doğrudan o
+ * oturuma yönlendirir. Bağlantısı bu node'da olmayan (cluster'da başka node'a bağlı) katılımcıya token
+ * gönderilmez, elindeki eski token geçerli kalır.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionResumption {
+
+    public static final String DESTINATION = "/queue/resume";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ResumeTokens tokens;
+
+    // sessionId (handshake token'ı) → bu node'daki STOMP bağlantıları
+    private final Map<String, Set<String>> connections = new ConcurrentHashMap<>();
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder resumed = new LongAdder();
+    private final LongAdder restored = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        String sessionId = sessionIdOf(event);
+        String connectionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (sessionId == null || connectionId == null) return;
+        connections.computeIfAbsent(sessionId, id -> ConcurrentHashMap.newKeySet()).add(connectionId);
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String sessionId = sessionIdOf(event);
+        if (sessionId == null) return;
+        connections.computeIfPresent(sessionId, (id, ids) -> {
+            ids.remove(event.getSessionId());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * @return token geçerliyse içeriği; geçersiz, süresi dolmuş ya da başka oturum/odaya aitse null
+     */
+    public ResumeClaim verify(String token, String sessionId, String roomCode) {
+        ResumeClaim claim = tokens.verify(token, sessionId, roomCode);
+        if (claim == null) rejected.increment();
+        return claim;
+    }
+
+    /**
+     * Devam ettirilen katılımı sayar.
+     *
+     * @param restoredUser kullanıcı odada yoktu ve token'dan geri eklendiyse true
+     */
+    public void resumed(boolean restoredUser) {
+        (restoredUser ? restored : resumed).increment();
+    }
+
+    /**
+     * Katılımcıya güncel token'ını gönderir. Odanın mailbox'ında çağrılmalıdır.
+     */
+    public void publish(Room room, UserSession user) {
+        Set<String> connectionIds = connections.get(user.getSessionId());
+        if (connectionIds == null || connectionIds.isEmpty()) return;
+
+        ResumeTokenMessage message = new ResumeTokenMessage(room.getRoomCode(), tokens.issue(room, user));
+        issued.increment();
+        for (String connectionId : connectionIds) {
+            SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            headers.setSessionId(connectionId);
+            headers.setLeaveMutable(true);
+            try {
+                messagingTemplate.convertAndSendToUser(connectionId, DESTINATION, message, headers.getMessageHeaders());
+            } catch (MessagingException e) {
+                // token en fazla bir sonraki değişikliğe kadar eski kalır
+                log.debug("Resume token gönderilemedi: {}", connectionId, e);
+            }
+        }
+    }
+
+    /**
+     * Reset gibi herkesin durumunu değiştiren işlemden sonra odadaki tüm yerel katılımcılara token gönderir.
+     */
+    public void publishAll(Room room) {
+        room.getUsers().values().forEach(user -> publish(room, user));
+    }
+
+    public long getIssued() {
+        return issued.sum();
+    }
+
+    /**
+     * Kullanıcı odada bulunduğu için hiçbir yayın üretmeden devam ettirilen katılımlar.
+     */
+    public long getResumed() {
+        return resumed.sum();
+    }
+
+    public long getRestored() {
+        return restored.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    private static String sessionIdOf(AbstractSubProtocolEvent event) {
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(event.getMessage().getHeaders());
+        return attributes != null && attributes.get("sessionId") instanceof String sessionId ? sessionId : null;
+    }
+}
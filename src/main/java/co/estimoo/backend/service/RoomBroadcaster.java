@@ -0,0 +1,451 @@
+package co.estimoo.backend.service;
+
+import co.estimoo.backend.dto.RoomBinaryCodec;
+import co.estimoo.backend.dto.RoomDeltaMessage;
+import co.estimoo.backend.dto.RoomStateMessage;
+import co.estimoo.backend.dto.RoomWireFormat;
+import co.estimoo.backend.dto.VoteStats;
+import co.estimoo.backend.metrics.LatencyMetrics;
+import co.estimoo.backend.metrics.LatencyMetrics.Stage;
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.RoomPayloadCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Oda değişikliklerini /topic/room/{roomCode} üzerinden yayınlar.
+ * Her mutasyon odanın versiyonunu artırır ve sadece değişen kısmı (delta) gönderir;
+ * tam liste yalnızca snapshot isteyen istemciye döner.
+ * <p>
+ * Join ve vote deltaları coalesce penceresi boyunca biriktirilir ve oda başına tek mesaj
+ * olarak gönderilir. Reveal ve reset beklemeden (bekleyen deltalarla birlikte) gönderilir.
+ * Pencere sonundaki gönderim de odanın {@link RoomCommandExecutor} mailbox'ında çalışır; yayın
+ * kodlama ve dağıtımı oda başına sıralı, odalar arasında paralel kalır.
+ * <p>
+ * Snapshot'lar oda versiyonu başına bir kez JSON'a çevrilir ve {@link RoomPayloadCache}
+ * üzerinden tüm isteklerde aynı byte dizisi olarak paylaşılır.
+ * <p>
+ * Odada JSON dışında bir {@link RoomWireFormat} isteyen abone varsa delta o formatta da bir kez
+ * kodlanır ve {@link #payloadHeader(RoomWireFormat)} header'ıyla taşınır; hangi abonenin hangisini
+ * alacağını outbound kanaldaki interceptor seçer. Sıkıştırılmış varyant da yayın başına bir kez
+ * üretildiğinden sıkıştırma maliyeti abone sayısıyla artmaz.
+ */
+@Slf4j
+@Service
+public class RoomBroadcaster {
+
+    public static final String ROOM_TOPIC_PREFIX = "/topic/room/";
+
+    private static final RoomWireFormat[] FORMATS = RoomWireFormat.values();
+
+    // format → delta mesajında o formatın payload'ını taşıyan header (STOMP frame'ine yazılmaz)
+    private static final String[] PAYLOAD_HEADERS = new String[FORMATS.length];
+
+    static {
+        for (RoomWireFormat format : FORMATS) {
+            PAYLOAD_HEADERS[format.ordinal()] = "estimooPayload." + format.name();
+        }
+    }
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final MessageChannel clientOutboundChannel;
+    private final ObjectMapper objectMapper;
+    private final LatencyMetrics latency;
+    private final RoomPayloadCompressor compressor;
+    private final RoomCommandExecutor roomExecutor;
+
+    // 0 ise her delta anında gönderilir
+    @Value("${estimoo.broadcast.coalesce-window-ms:40}")
+    private long coalesceWindowMs;
+
+    // roomCode → henüz gönderilmemiş birleşik delta
+    private final Map<String, PendingDelta> pending = new ConcurrentHashMap<>();
+
+    // sadece pencere sonunu bekler; flush'ın kendisi odanın mailbox'ında çalışır
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "room-broadcast-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Cluster modunda gönderilen deltalar diğer node'lardaki abonelere de aktarılır
+    private volatile BiConsumer<String, RoomDeltaMessage> relay = (roomCode, delta) -> {
+    };
+
+    // roomCode → odanın abonelerinin istediği wire formatları
+    private volatile Function<String, Set<RoomWireFormat>> audience = roomCode -> Set.of();
+
+    private final LongAdder broadcastsSent = new LongAdder();
+    private final LongAdder broadcastsCoalesced = new LongAdder();
+    private final LongAdder snapshotsEncoded = new LongAdder();
+    private final LongAdder snapshotCacheHits = new LongAdder();
+
+    @Autowired
+    public RoomBroadcaster(SimpMessagingTemplate messagingTemplate,
+                           @Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                           ObjectMapper objectMapper,
+                           LatencyMetrics latency,
+                           RoomPayloadCompressor compressor,
+                           RoomCommandExecutor roomExecutor) {
+        this.messagingTemplate = messagingTemplate;
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.objectMapper = objectMapper;
+        this.latency = latency;
+        this.compressor = compressor;
+        this.roomExecutor = roomExecutor;
+    }
+
+    public RoomBroadcaster(SimpMessagingTemplate messagingTemplate, MessageChannel clientOutboundChannel,
+                           ObjectMapper objectMapper) {
+        this(messagingTemplate, clientOutboundChannel, objectMapper, new LatencyMetrics(), new RoomPayloadCompressor(1024),
+                new RoomCommandExecutor(Integer.MAX_VALUE, Runnable::run));
+    }
+
+    /**
+     * Odanın versiyonunu artırır ve değişiklikleri yayın kuyruğuna ekler.
+     * Pencere içinde gelen diğer değişikliklerle tek mesajda birleştirilir.
+     *
+     * @param room    değişen oda
+     * @param changes uygulanan değişiklikler
+     */
+    public void publish(Room room, List<RoomDeltaMessage.Change> changes) {
+        boolean scheduleFlush = enqueue(room, changes);
+
+        if (coalesceWindowMs <= 0) {
+            flush(room.getRoomCode());
+        } else if (scheduleFlush) {
+            scheduleFlush(room.getRoomCode());
+        }
+    }
+
+    public void publish(Room room, RoomDeltaMessage.Change change) {
+        publish(room, List.of(change));
+    }
+
+    /**
+     * Reveal/reset gibi herkesin hemen görmesi gereken değişiklikler için kullanılır;
+     * bekleyen deltalarla birleştirilip pencere beklenmeden gönderilir.
+     */
+    public void publishNow(Room room, List<RoomDeltaMessage.Change> changes) {
+        enqueue(room, changes);
+        flush(room.getRoomCode());
+    }
+
+    public void publishNow(Room room, RoomDeltaMessage.Change change) {
+        publishNow(room, List.of(change));
+    }
+
+    /**
+     * Odanın tam durumunu hazırlar. Oylar açılmadıysa sadece kimin oy verdiği görünür.
+     */
+    public RoomStateMessage snapshot(Room room) {
+        // versiyon önce okunur; arada gelen delta istemcide tekrar uygulanabilir (idempotent)
+        long version = room.getVersion();
+        boolean revealed = room.isVotesRevealed();
+
+        List<RoomStateMessage.UserVoteInfo> users = new ArrayList<>(room.getUsers().size());
+        room.getUsers().values().forEach(user -> {
+            RoomStateMessage.UserVoteInfo info = new RoomStateMessage.UserVoteInfo();
+            info.setParticipantId(user.getParticipantId());
+            info.setNickname(user.getNickname());
+            info.setVoted(user.getVote() != null);
+            info.setVote(revealed && user.getVote() != null ? user.getVote().getLabel() : null);
+            users.add(info);
+        });
+
+        RoomStateMessage state = new RoomStateMessage();
+        state.setUsers(users);
+        state.setVotesRevealed(revealed);
+        state.setVersion(version);
+        if (revealed) state.setStats(room.getTally().stats());
+        return state;
+    }
+
+    /**
+     * Odanın güncel snapshot'ını JSON olarak döner. Aynı versiyon için önbellekteki
+     * byte dizisi tekrar kullanılır; dönen dizi değiştirilmemelidir.
+     */
+    public byte[] encodedSnapshot(Room room) {
+        return encodedSnapshot(room, RoomWireFormat.JSON);
+    }
+
+    /**
+     * Snapshot'ı istenen formatta döner.
+     *
+     * @return payload ya da DEFLATE formatında payload eşiğin altındaysa null ({@link RoomWireFormat#plain()} kullanılmalı)
+     */
+    public byte[] encodedSnapshot(Room room, RoomWireFormat format) {
+        boolean revealed = room.isVotesRevealed();
+        long version = room.getVersion();
+        byte[] cached = room.getPayloadCache().get(format, revealed, version);
+        if (cached != null) {
+            snapshotCacheHits.increment();
+            return cached;
+        }
+
+        if (format.isDeflated()) {
+            // sıkıştırılmamış hali de önbellekten gelir; versiyon arada değiştiyse sıkıştırılan o versiyondur
+            byte[] plain = encodedSnapshot(room, format.plain());
+            byte[] payload = compressor.compress(plain);
+            if (payload != null) {
+                room.getPayloadCache().put(format, revealed, version, payload);
+            }
+            return payload;
+        }
+
+        RoomStateMessage state = snapshot(room);
+        byte[] payload;
+        try {
+            payload = format.isBinary() ? RoomBinaryCodec.encode(state) : objectMapper.writeValueAsBytes(state);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Oda durumu serialize edilemedi: " + room.getRoomCode(), e);
+        }
+        snapshotsEncoded.increment();
+
+        // versiyon arada değiştiyse kayıt bir sonraki get'te zaten eşleşmez
+        room.getPayloadCache().put(format, state.isVotesRevealed(), state.getVersion(), payload);
+        return payload;
+    }
+
+    /**
+     * Snapshot'ı /app/room/{roomCode} aboneliği yapan oturuma doğrudan gönderir.
+     */
+    public void sendSnapshot(Room room, String sessionId, String subscriptionId, String destination) {
+        sendSnapshot(room, sessionId, subscriptionId, destination, RoomWireFormat.JSON);
+    }
+
+    public void sendSnapshot(Room room, String sessionId, String subscriptionId, String destination, RoomWireFormat format) {
+        byte[] payload = encodedSnapshot(room, format);
+        if (payload == null) {
+            format = format.plain();
+            payload = encodedSnapshot(room, format);
+        }
+        sendEncoded(payload, sessionId, subscriptionId, destination, format.getContentType());
+    }
+
+    /**
+     * Hazır JSON payload'ı (ör. oda sahibi node'dan gelen snapshot) tek bir oturuma gönderir.
+     */
+    public void sendEncoded(byte[] payload, String sessionId, String subscriptionId, String destination) {
+        sendEncoded(payload, sessionId, subscriptionId, destination, MimeTypeUtils.APPLICATION_JSON);
+    }
+
+    public void sendEncoded(byte[] payload, String sessionId, String subscriptionId, String destination, MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setContentType(contentType);
+        accessor.setLeaveMutable(true);
+
+        clientOutboundChannel.send(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+    }
+
+    /**
+     * Oda topic'i aboneliğine değişiklik içermeyen, güncel versiyonda bir delta gönderir. Güncel istemci
+     * için etkisizdir; arada delta kaçırmış istemci versiyon boşluğunu görüp snapshot ister.
+     */
+    public void sendResync(Room room, String sessionId, String subscriptionId, String destination, RoomWireFormat format) {
+        RoomDeltaMessage message = new RoomDeltaMessage();
+        long version = room.getVersion();
+        message.setBaseVersion(version);
+        message.setVersion(version);
+        message.setVotesRevealed(room.isVotesRevealed());
+        message.setChanges(List.of());
+        if (message.isVotesRevealed()) message.setStats(room.getTally().stats());
+
+        // birkaç byte'lık mesaj; sıkıştırılmış formatlarda da sıkıştırılmamış karşılığı gider
+        RoomWireFormat plain = format.plain();
+        byte[] payload;
+        try {
+            payload = plain.isBinary() ? RoomBinaryCodec.encode(message) : objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Resync serialize edilemedi: " + room.getRoomCode(), e);
+        }
+        sendEncoded(payload, sessionId, subscriptionId, destination, plain.getContentType());
+    }
+
+    /**
+     * Başka node'dan gelen JSON snapshot'ı istenen formata çevirip gönderir.
+     */
+    public void sendRemoteSnapshot(byte[] json, String sessionId, String subscriptionId, String destination, RoomWireFormat format) {
+        byte[] plain = format.isBinary() ? toBinarySnapshot(json) : json;
+        byte[] payload = format.isDeflated() ? compressor.compress(plain) : null;
+        if (payload == null) {
+            sendEncoded(plain, sessionId, subscriptionId, destination, format.plain().getContentType());
+        } else {
+            sendEncoded(payload, sessionId, subscriptionId, destination, format.getContentType());
+        }
+    }
+
+    /**
+     * JSON snapshot'ı (ör. oda sahibi node'dan gelen) ikili formata çevirir.
+     */
+    public byte[] toBinarySnapshot(byte[] json) {
+        try {
+            return RoomBinaryCodec.encode(objectMapper.readValue(json, RoomStateMessage.class));
+        } catch (IOException e) {
+            throw new IllegalStateException("Snapshot ikili formata çevrilemedi", e);
+        }
+    }
+
+    /**
+     * Delta mesajında verilen formatın payload'ını taşıyan header adı.
+     */
+    public static String payloadHeader(RoomWireFormat format) {
+        return PAYLOAD_HEADERS[format.ordinal()];
+    }
+
+    public void setAudience(Function<String, Set<RoomWireFormat>> audience) {
+        this.audience = audience;
+    }
+
+    public void setRelay(BiConsumer<String, RoomDeltaMessage> relay) {
+        this.relay = relay;
+    }
+
+    /**
+     * Pencere içinde birleştirilerek gönderilmeyen (tasarruf edilen) yayın sayısı.
+     */
+    public long getBroadcastsCoalesced() {
+        return broadcastsCoalesced.sum();
+    }
+
+    public long getBroadcastsSent() {
+        return broadcastsSent.sum();
+    }
+
+    public long getSnapshotsEncoded() {
+        return snapshotsEncoded.sum();
+    }
+
+    public long getSnapshotCacheHits() {
+        return snapshotCacheHits.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+    }
+
+    /**
+     * @return bu oda için yeni bir bekleyen delta açıldıysa true (flush planlanmalı)
+     */
+    private boolean enqueue(Room room, List<RoomDeltaMessage.Change> changes) {
+        boolean[] created = new boolean[1];
+        // versiyon artışı compute içinde yapılır, böylece kuyruktaki sıra versiyon sırasıyla aynı kalır
+        pending.compute(room.getRoomCode(), (code, delta) -> {
+            long version = room.nextVersion();
+            if (delta == null) {
+                delta = new PendingDelta(version - 1);
+                created[0] = true;
+            }
+            delta.version = version;
+            delta.changes.addAll(changes);
+            // oda durumu mailbox'ta, değişiklikle aynı anda alınır; flush odayı okumaz
+            delta.votesRevealed = room.isVotesRevealed();
+            delta.stats = delta.votesRevealed ? room.getTally().stats() : null;
+            return delta;
+        });
+        if (!created[0]) {
+            broadcastsCoalesced.increment();
+        }
+        return created[0];
+    }
+
+    /**
+     * Pencere dolunca flush'ı odanın mailbox'ına ekler; odanın bütün flush'ları (publishNow dahil) böylece
+     * sırayla çalışır. Mailbox doluysa bir pencere sonra tekrar denenir.
+     */
+    private void scheduleFlush(String roomCode) {
+        flusher.schedule(() -> {
+            if (!pending.containsKey(roomCode)) return;
+            if (!roomExecutor.execute(roomCode, () -> flush(roomCode))) scheduleFlush(roomCode);
+        }, coalesceWindowMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void flush(String roomCode) {
+        // delta map'ten atomik alınır; kodlama ve gönderim map kilidi dışında yapılır. Aynı odanın flush'ları
+        // odanın mailbox'ında sırayla çalıştığından yayınlar versiyon sırasıyla çıkar
+        PendingDelta delta = pending.remove(roomCode);
+        if (delta == null) return;
+
+        RoomDeltaMessage message = new RoomDeltaMessage();
+        message.setBaseVersion(delta.baseVersion);
+        message.setVersion(delta.version);
+        message.setVotesRevealed(delta.votesRevealed);
+        message.setChanges(delta.changes);
+        message.setStats(delta.stats);
+
+        try {
+            // serileştirme ve broker'a dağıtım ayrı ölçülsün diye mesaj burada JSON'a çevrilir
+            long start = System.nanoTime();
+            byte[] payload = objectMapper.writeValueAsBytes(message);
+            Set<RoomWireFormat> formats = audience.apply(roomCode);
+            boolean binaryNeeded = formats.contains(RoomWireFormat.BINARY) || formats.contains(RoomWireFormat.BINARY_DEFLATE);
+            byte[] binary = binaryNeeded ? RoomBinaryCodec.encode(message) : null;
+            latency.record(Stage.SERIALIZE, start);
+
+            MessageBuilder<byte[]> builder = MessageBuilder.withPayload(payload)
+                    .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON)
+                    .setHeader(payloadHeader(RoomWireFormat.BINARY), binary);
+            // eşiğin altındaysa header boş kalır, interceptor sıkıştırılmamış varyantı gönderir
+            if (formats.contains(RoomWireFormat.JSON_DEFLATE)) {
+                builder.setHeader(payloadHeader(RoomWireFormat.JSON_DEFLATE), compressor.compress(payload));
+            }
+            if (formats.contains(RoomWireFormat.BINARY_DEFLATE)) {
+                builder.setHeader(payloadHeader(RoomWireFormat.BINARY_DEFLATE), compressor.compress(binary));
+            }
+
+            start = System.nanoTime();
+            messagingTemplate.send(ROOM_TOPIC_PREFIX + roomCode, builder.build());
+            latency.record(Stage.DISPATCH, start);
+
+            relay.accept(roomCode, message);
+            broadcastsSent.increment();
+        } catch (JsonProcessingException | RuntimeException e) {
+            // delta düşer; istemciler versiyon boşluğunu görüp snapshot ister
+            log.warn("Oda yayını gönderilemedi: {}", roomCode, e);
+        }
+    }
+
+    private static final class PendingDelta {
+        private final long baseVersion;
+        private long version;
+        private final List<RoomDeltaMessage.Change> changes = new ArrayList<>();
+        // son eklenen değişiklikten sonraki oda durumu
+        private boolean votesRevealed;
+        private VoteStats stats;
+
+        private PendingDelta(long baseVersion) {
+            this.baseVersion = baseVersion;
+        }
+    }
+}
@@ -6,9 +6,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
 
 @Slf4j
 @Component
@@ -16,27 +14,20 @@ import java.util.Map;
 public class RoomCleanupScheduler {
 
     private final RoomService roomService;
+    private final RoomCommandExecutor roomExecutor;
 
-    @Scheduled(fixedRate = 60_000) // her 60 saniyede bir çalışır
+    // her tick'te sadece süresi o dilime düşen odalara bakılır
+    @Scheduled(fixedRateString = "${estimoo.rooms.expiry.tick-ms:1000}")
     public void cleanUpInactiveRooms() {
-        LocalDateTime now = LocalDateTime.now();
-        int removed = 0;
+        List<Room> expired = roomService.expireInactiveRooms();
 
-        Iterator<Map.Entry<String, Room>> iterator = roomService.getRooms().entrySet().iterator();
-
-        while (iterator.hasNext()) {
-            Map.Entry<String, Room> entry = iterator.next();
-            Room room = entry.getValue();
-
-            if (room.getLastActivity().isBefore(now.minusMinutes(10))) {
-                log.info("Inaktif oda temizleniyor: {}", room.getRoomCode());
-                iterator.remove();
-                removed++;
-            }
+        for (Room room : expired) {
+            log.info("Inaktif oda temizleniyor: {}", room.getRoomCode());
+            roomExecutor.remove(room.getRoomCode());
         }
 
-        if (removed > 0) {
-            log.info("Toplam {} inaktif oda silindi.", removed);
+        if (!expired.isEmpty()) {
+            log.info("Toplam {} inaktif oda silindi.", expired.size());
         }
     }
 }
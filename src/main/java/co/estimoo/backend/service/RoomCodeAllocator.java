@@ -0,0 +1,108 @@
+package co.estimoo.backend.service;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Oda kodu üretir. Kodlar birbirine karışmayan 31 karakterlik bir alfabeden (I, L, O, 0, 1 yok)
+ * thread'e özel rastgele sayı üreteciyle, paylaşılan bir kaynağa dokunmadan üretilir.
+ * Kodun sahiplenilmesi (putIfAbsent) çağıranın işidir; bu sınıf sadece aday üretir.
+ * <p>
+ * Doluluk arttıkça kod uzar: aday üretilirken çakışma olasılığı {@link #MAX_LOAD} altında kalacak
+ * en kısa uzunluk seçilir. Silinen odaların kodları karantina süresi boyunca tekrar verilmez,
+ * eski bağlantıların ya da paylaşılmış linklerin yeni bir odaya düşmesi engellenir.
+ */
+class RoomCodeAllocator {
+
+    static final char[] ALPHABET = "ABCDEFGHJKMNPQRSTUVWXYZ23456789".toCharArray();
+
+    // Bir adayın dolu bir koda denk gelme olasılığı bu oranı geçerse kod bir karakter uzar
+    static final double MAX_LOAD = 0.001;
+
+    private static final int MAX_LENGTH = 12;
+
+    private final int minLength;
+    private final long quarantineNanos;
+
+    // uzunluk → o uzunlukta dolulukla kabul edilen en fazla oda sayısı
+    private final long[] capacity = new long[MAX_LENGTH + 1];
+
+    // Karantinadaki kodlar: kod → serbest kalacağı an (System.nanoTime)
+    private final Map<String, Long> quarantine = new ConcurrentHashMap<>();
+    private final Queue<Quarantined> releaseOrder = new ConcurrentLinkedQueue<>();
+
+    RoomCodeAllocator(int minLength, long quarantineNanos) {
+        this.minLength = Math.min(Math.max(minLength, 1), MAX_LENGTH);
+        this.quarantineNanos = quarantineNanos;
+        long space = 1;
+        for (int length = 1; length <= MAX_LENGTH; length++) {
+            space *= ALPHABET.length;
+            capacity[length] = (long) (space * MAX_LOAD);
+        }
+    }
+
+    /**
+     * Rastgele bir aday kod üretir. Karantinadaki kodlar atlanır.
+     *
+     * @param occupied   şu an kullanımda olan kod sayısı
+     * @param collisions bu oluşturma için şimdiye kadar yaşanan çakışma sayısı; her ikisinde
+     *                   bir kod bir karakter uzatılır
+     */
+    String next(int occupied, int collisions) {
+        int length = Math.min(lengthFor(occupied) + collisions / 2, MAX_LENGTH);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] code = new char[length];
+        while (true) {
+            for (int i = 0; i < length; i++) {
+                code[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+            }
+            String candidate = new String(code);
+            if (!isQuarantined(candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    /**
+     * Silinen odanın kodunu karantinaya alır ve süresi dolmuş karantina kayıtlarını temizler.
+     */
+    void release(String roomCode) {
+        long now = System.nanoTime();
+        if (quarantineNanos > 0) {
+            long until = now + quarantineNanos;
+            quarantine.put(roomCode, until);
+            releaseOrder.offer(new Quarantined(roomCode, until));
+        }
+
+        Quarantined head;
+        while ((head = releaseOrder.peek()) != null && head.until - now <= 0) {
+            if (releaseOrder.remove(head)) {
+                // kod bu arada tekrar karantinaya alınmışsa yeni kayıt kalır
+                quarantine.remove(head.roomCode, head.until);
+            }
+        }
+    }
+
+    int lengthFor(int occupied) {
+        int length = minLength;
+        while (length < MAX_LENGTH && occupied >= capacity[length]) {
+            length++;
+        }
+        return length;
+    }
+
+    int quarantined() {
+        return quarantine.size();
+    }
+
+    boolean isQuarantined(String roomCode) {
+        Long until = quarantine.get(roomCode);
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+    private record Quarantined(String roomCode, long until) {
+    }
+}
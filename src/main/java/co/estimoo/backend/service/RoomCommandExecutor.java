@@ -0,0 +1,199 @@
+package co.estimoo.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Oda komutlarını oda başına bir mailbox'ta sıralar. Bir odanın mailbox'ını aynı anda
+ * sadece bir thread boşaltır; böylece vote/reset/reveal gibi mutasyonlar kilit olmadan,
+ * geliş sırasıyla uygulanır. Farklı odalar worker thread'lere dağılır.
+ */
+@Slf4j
+@Service
+public class RoomCommandExecutor {
+
+    // Bir mailbox tek seferde en fazla bu kadar komut çalıştırır, sonra diğer odalara sıra verir
+    private static final int DRAIN_BATCH = 64;
+
+    private final int mailboxCapacity;
+    private final Executor executor;
+
+    // roomCode → mailbox
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicLong maxDepth = new AtomicLong();
+    // tüm mailbox'larda bekleyen komutlar; ekleme ve boşaltmada güncellenir, okunurken mailbox'lar taranmaz
+    private final LongAdder queued = new LongAdder();
+
+    @Autowired
+    public RoomCommandExecutor(@Value("${estimoo.rooms.mailbox.capacity:256}") int mailboxCapacity,
+                               @Value("${estimoo.rooms.mailbox.threads:0}") int threads,
+                               @Value("${estimoo.rooms.mailbox.caller-runs:false}") boolean callerRuns) {
+        this(mailboxCapacity, callerRuns ? Runnable::run : newWorkerPool(threads));
+    }
+
+    /**
+     * @param executor mailbox'ları boşaltacak executor; {@code Runnable::run} verilirse
+     *                 komutu gönderen thread boşaltır (testler için senkron çalışma)
+     */
+    public RoomCommandExecutor(int mailboxCapacity, Executor executor) {
+        this.mailboxCapacity = mailboxCapacity;
+        this.executor = executor;
+    }
+
+    /**
+     * Komutu odanın mailbox'ına ekler.
+     *
+     * @return mailbox doluysa false, komut çalıştırılmaz
+     */
+    public boolean execute(String roomCode, Runnable command) {
+        // kabul, mailbox'ın silinmesiyle aynı anahtar kilidi altında sayılır: silinen mailbox'a komut girmez
+        int[] admitted = new int[1];
+        Mailbox mailbox = mailboxes.compute(roomCode, (code, current) -> {
+            Mailbox target = current != null ? current : new Mailbox(code);
+            admitted[0] = target.size.incrementAndGet();
+            if (admitted[0] > mailboxCapacity) target.size.decrementAndGet();
+            return target;
+        });
+
+        int depth = admitted[0];
+        if (depth > mailboxCapacity) {
+            rejected.increment();
+            log.warn("Oda mailbox'ı dolu, komut reddedildi: {}", roomCode);
+            return false;
+        }
+        maxDepth.accumulateAndGet(depth, Math::max);
+
+        queued.increment();
+        mailbox.queue.offer(command);
+        submitted.increment();
+        schedule(mailbox);
+        return true;
+    }
+
+    /**
+     * Oda silindiğinde mailbox'ı bırakır. Mailbox boşalana kadar yerinde kalır: kuyruktaki ve bu arada gelen
+     * komutlar aynı mailbox'ta sırayla çalışır, mailbox son boşaltmada haritadan çıkarılır. Böylece oda geri
+     * gelse de (sahiplik geri döndü, devir alındı) aynı oda için iki mailbox aynı anda boşaltılmaz.
+     */
+    public void remove(String roomCode) {
+        Mailbox mailbox = mailboxes.get(roomCode);
+        if (mailbox == null) return;
+        mailbox.retired = true;
+        // boşta duran mailbox için bir boşaltma turu; çalışan boşaltma varsa o turun sonunda silinir
+        schedule(mailbox);
+    }
+
+    public long getSubmitted() {
+        return submitted.sum();
+    }
+
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    public long getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    public int getMailboxCount() {
+        return mailboxes.size();
+    }
+
+    /**
+     * Tüm mailbox'larda bekleyen toplam komut sayısı.
+     */
+    public long getQueuedCommands() {
+        return queued.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService service) {
+            service.shutdown();
+        }
+    }
+
+    private void schedule(Mailbox mailbox) {
+        if (mailbox.scheduled.compareAndSet(false, true)) {
+            executor.execute(() -> drain(mailbox));
+        }
+    }
+
+    private void drain(Mailbox mailbox) {
+        int count = 0;
+        Runnable command;
+        while (count < DRAIN_BATCH && (command = mailbox.queue.poll()) != null) {
+            mailbox.size.decrementAndGet();
+            queued.decrement();
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.error("Oda komutu başarısız oldu", e);
+            }
+            processed.increment();
+            count++;
+        }
+
+        // boşaltma hakkı bırakılmadan silinir: aynı anda bu mailbox'ın komutunu çalıştıran başka thread yoktur
+        if (mailbox.retired && mailbox.queue.isEmpty()) {
+            mailboxes.computeIfPresent(mailbox.roomCode, (code, current) -> current == mailbox && current.size.get() == 0 ? null : current);
+        }
+        mailbox.scheduled.set(false);
+        // bırakırken yeni komut geldiyse tekrar sıraya gir
+        if (!mailbox.queue.isEmpty()) {
+            schedule(mailbox);
+        }
+    }
+
+    private static ExecutorService newWorkerPool(int threads) {
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        return Executors.newFixedThreadPool(size, r -> {
+            Thread thread = new Thread(r, "room-worker-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static final class Mailbox {
+        private final String roomCode;
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        // oda silindi; mailbox boşalınca haritadan çıkarılır
+        private volatile boolean retired;
+
+        private Mailbox(String roomCode) {
+            this.roomCode = roomCode;
+        }
+    }
+}
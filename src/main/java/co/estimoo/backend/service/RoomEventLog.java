@@ -0,0 +1,42 @@
+package co.estimoo.backend.service;
+
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+
+/**
+ * Oda mutasyonlarının kaydedildiği yer. Çağrılar mutasyon uygulandıktan sonra yapılır;
+ * her olay sonuç durumunu taşır (toggle değil), böylece tekrar uygulanması aynı durumu verir.
+ * Uygulamalar çağıran thread'i bloklamamalıdır.
+ */
+public interface RoomEventLog {
+
+    RoomEventLog NONE = new RoomEventLog() {
+    };
+
+    default void roomCreated(Room room) {
+    }
+
+    default void participantJoined(Room room, UserSession user) {
+    }
+
+    default void participantLeft(Room room, UserSession user) {
+    }
+
+    default void voteChanged(Room room, UserSession user) {
+    }
+
+    default void votesRevealed(Room room) {
+    }
+
+    default void votesReset(Room room) {
+    }
+
+    /**
+     * Başka bir kaynaktan (ör. cluster devri) gelen odanın tam durumu.
+     */
+    default void roomRestored(Room room) {
+    }
+
+    default void roomRemoved(String roomCode) {
+    }
+}
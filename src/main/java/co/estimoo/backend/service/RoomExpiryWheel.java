@@ -0,0 +1,112 @@
+package co.estimoo.backend.service;
+
+import co.estimoo.backend.model.Room;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Odaların inaktiflik süresini izleyen hashed timing wheel. Her bucket bir tick'lik zaman
+ * dilimidir; oda, son aktivitesi + timeout'un düştüğü bucket'ta bekler.
+ * <p>
+ * Aktivite sırasında wheel'e dokunulmaz, oda sadece {@code lastActivityNanos} alanını günceller.
+ * Bucket'ı gelen oda o an tekrar kontrol edilir: süresi dolmuşsa atılır, aktivite olmuşsa yeni
+ * deadline'ının bucket'ına taşınır. Böylece her tick sadece o dilime düşen odalara bakar;
+ * canlı bir oda timeout başına en fazla bir kez ziyaret edilir.
+ * <p>
+ * {@link #schedule} her thread'den çağrılabilir, {@link #advance} tek bir thread'den çağrılmalıdır.
+ */
+class RoomExpiryWheel {
+
+    // Timeout/tick çok büyük oranlarda wheel bu boyutta kalır, uzak deadline'lar tur atarak beklenir
+    private static final int MAX_BUCKETS = 1 << 16;
+
+    private final long timeoutNanos;
+    private final long tickNanos;
+    private final ArrayDeque<Room>[] buckets;
+    private final int mask;
+
+    // Yeni eklenen odalar bir sonraki tick'te bucket'lara dağıtılır
+    private final Queue<Room> pending = new ConcurrentLinkedQueue<>();
+
+    private long lastTick = Long.MIN_VALUE;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    RoomExpiryWheel(long timeoutNanos, long tickNanos) {
+        this.timeoutNanos = timeoutNanos;
+        this.tickNanos = Math.max(tickNanos, 1);
+        long ticks = Math.min(Math.ceilDiv(timeoutNanos, this.tickNanos) + 2, MAX_BUCKETS);
+        int length = Integer.highestOneBit((int) ticks);
+        if (length < ticks) length <<= 1;
+        this.buckets = new ArrayDeque[length];
+        this.mask = length - 1;
+        for (int i = 0; i < length; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+    void schedule(Room room) {
+        pending.offer(room);
+    }
+
+    /**
+     * Ekleme kuyruğunu boşaltır; daha önce {@link #schedule} edilmiş odalar tekrar eklenecekse kullanılır.
+     */
+    void clearPending() {
+        pending.clear();
+    }
+
+    /**
+     * Wheel'deki oda sayısı (henüz dağıtılmamış olanlar hariç).
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * {@code nowNanos} anına kadar gelen bucket'ları işler.
+     *
+     * @param live    false dönerse oda başka bir yoldan silinmiştir, sessizce düşürülür
+     * @param expired süresi dolan her oda için bir kez çağrılır
+     */
+    void advance(long nowNanos, Predicate<Room> live, Consumer<Room> expired) {
+        long tick = Math.floorDiv(nowNanos, tickNanos);
+        if (lastTick == Long.MIN_VALUE) {
+            lastTick = tick - 1;
+        }
+
+        // scheduler uzun süre gecikmişse her bucket'a bir kez bakmak yeterli
+        for (long t = Math.max(lastTick + 1, tick - mask); t <= tick; t++) {
+            ArrayDeque<Room> bucket = buckets[(int) (t & mask)];
+            for (int i = bucket.size(); i > 0; i--) {
+                Room room = bucket.poll();
+                size--;
+                if (!live.test(room)) continue;
+
+                if (room.getLastActivityNanos() + timeoutNanos - nowNanos <= 0) {
+                    expired.accept(room);
+                } else {
+                    place(room, tick + 1);
+                }
+            }
+        }
+        lastTick = tick;
+
+        Room room;
+        while ((room = pending.poll()) != null) {
+            place(room, tick + 1);
+        }
+    }
+
+    private void place(Room room, long earliestTick) {
+        long deadlineTick = Math.ceilDiv(room.getLastActivityNanos() + timeoutNanos, tickNanos);
+        // wheel'in bir turundan uzak deadline'lar en uzak bucket'a konur, geldiğinde tekrar yerleşir
+        long target = Math.min(Math.max(deadlineTick, earliestTick), earliestTick + mask);
+        buckets[(int) (target & mask)].add(room);
+        size++;
+    }
+}
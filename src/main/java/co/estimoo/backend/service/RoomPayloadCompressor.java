@@ -0,0 +1,128 @@
+package co.estimoo.backend.service;
+
+import co.estimoo.backend.metrics.LatencyMetrics;
+import co.estimoo.backend.metrics.LatencyMetrics.Stage;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+
+/**
+ * Oda payload'larını yayın başına bir kez raw DEFLATE ile sıkıştırır; çıktı tüm abonelerde paylaşılır.
+ * Eşiğin altındaki payload'lar sıkıştırılmaz. Deflater'lar (native zlib belleği) havuzda tutulup
+ * tekrar kullanılır; virtual thread'lerde ThreadLocal her görevde yeni deflater açardı.
+ */
+@Component
+public class RoomPayloadCompressor {
+
+    private final int thresholdBytes;
+    private final int level;
+    private final LatencyMetrics latency;
+
+    private final BlockingQueue<Deflater> idle = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    private final LongAdder compressed = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder compressNanos = new LongAdder();
+
+    @Autowired
+    public RoomPayloadCompressor(@Value("${estimoo.ws.compression.threshold-bytes:1024}") int thresholdBytes,
+                                 @Value("${estimoo.ws.compression.level:6}") int level,
+                                 LatencyMetrics latency) {
+        this.thresholdBytes = thresholdBytes;
+        this.level = level;
+        this.latency = latency;
+    }
+
+    public RoomPayloadCompressor(int thresholdBytes) {
+        this(thresholdBytes, Deflater.DEFAULT_COMPRESSION, new LatencyMetrics());
+    }
+
+    /**
+     * @return payload'ın raw DEFLATE karşılığı ya da eşiğin altındaysa null
+     */
+    public byte[] compress(byte[] payload) {
+        if (payload == null || payload.length < thresholdBytes) {
+            skipped.increment();
+            return null;
+        }
+
+        long start = System.nanoTime();
+        Deflater deflater = idle.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+        }
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            byte[] buffer = new byte[Math.max(64, payload.length / 4)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            byte[] result = Arrays.copyOf(buffer, length);
+
+            compressed.increment();
+            bytesIn.add(payload.length);
+            bytesOut.add(length);
+            compressNanos.add(System.nanoTime() - start);
+            latency.record(Stage.COMPRESS, start);
+            return result;
+        } finally {
+            deflater.reset();
+            if (!idle.offer(deflater)) {
+                deflater.end();
+            }
+        }
+    }
+
+    public long getCompressed() {
+        return compressed.sum();
+    }
+
+    /**
+     * Eşiğin altında kaldığı için sıkıştırılmadan gönderilen payload sayısı.
+     */
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    /**
+     * Sıkıştırılmış boyutun orijinale oranı (düşük olan iyi); henüz sıkıştırma yoksa 1.
+     */
+    public double getRatio() {
+        long in = bytesIn.sum();
+        return in == 0 ? 1 : (double) bytesOut.sum() / in;
+    }
+
+    public long getCompressNanos() {
+        return compressNanos.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Deflater deflater;
+        while ((deflater = idle.poll()) != null) {
+            deflater.end();
+        }
+    }
+}
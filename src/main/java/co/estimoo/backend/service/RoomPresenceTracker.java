@@ -0,0 +1,315 @@
+package co.estimoo.backend.service;
+
+import co.estimoo.backend.cluster.ClusterEnvelope;
+import co.estimoo.backend.cluster.ClusterNode;
+import co.estimoo.backend.dto.RoomDeltaMessage;
+import co.estimoo.backend.dto.RoomDeltaMessage.ChangeType;
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.AbstractSubProtocolEvent;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static co.estimoo.backend.service.RoomBroadcaster.ROOM_TOPIC_PREFIX;
+
+/**
+ * Bağlantısı kapanan ya da odadan aboneliğini kaldıran kullanıcıları odadan çıkarır.
+ * <p>
+ * Katılımlar {@code sessionId → odalar} ters indeksinde tutulur; disconnect ya da unsubscribe
+ * geldiğinde sadece o oturumun odalarına bakılır, oda taraması yapılmaz. Çıkış
+ * {@code grace-ms} kadar bekletilir: aynı token ile yeniden bağlanıp odaya tekrar abone olan
+ * (ya da tekrar katılan) kullanıcı odadan hiç düşmez. Çıkış odanın mailbox'ında uygulanır ve
+ * LEFT deltası diğer değişikliklerle aynı coalesce penceresinde yayınlanır.
+ * <p>
+ * sessionId, STOMP oturum kimliği değil handshake'teki {@code token} değeridir; aynı token ile
+ * açık birden fazla bağlantı olabilir.
+ */
+@Slf4j
+@Service
+public class RoomPresenceTracker {
+
+    private final RoomService roomService;
+    private final RoomBroadcaster broadcaster;
+    private final RoomCommandExecutor roomExecutor;
+    private final ClusterNode cluster;
+    private final long graceMs;
+
+    // sessionId (token) → bağlantı, abonelik ve katılım bilgisi
+    private final Map<String, Presence> presences = new ConcurrentHashMap<>();
+
+    // bağlantı (STOMP oturumu ya da ham WebSocket) → (subscriptionId → roomCode); unsubscribe ve disconnect'te hangi odanın bırakıldığını bulmak için
+    private final Map<String, Map<String, String>> subscriptions = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "room-presence");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder participantsLeft = new LongAdder();
+
+    @Autowired
+    public RoomPresenceTracker(RoomService roomService,
+                               RoomBroadcaster broadcaster,
+                               RoomCommandExecutor roomExecutor,
+                               ClusterNode cluster,
+                               @Value("${estimoo.rooms.presence.grace-ms:15000}") long graceMs) {
+        this.roomService = roomService;
+        this.broadcaster = broadcaster;
+        this.roomExecutor = roomExecutor;
+        this.cluster = cluster;
+        this.graceMs = graceMs;
+    }
+
+    /**
+     * Katılımı indekse ekler; oda için bekleyen bir çıkış varsa iptal edilir.
+     * Komutu alan node'da çağrılır, oda başka node'da olsa bile.
+     */
+    public void joined(String sessionId, String roomCode) {
+        update(sessionId, presence -> {
+            // bağlantısı bilinmeyen (ya da disconnect'ten sonra işlenen) katılım indekslenmez,
+            // kayıt hiç temizlenmeyecek şekilde asılı kalmasın
+            if (presence.connections == 0) return null;
+            presence.rooms.add(roomCode);
+            presence.pending.remove(roomCode);
+            return null;
+        });
+    }
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+        String sessionId = sessionIdOf(event);
+        if (sessionId != null) connected(sessionId);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        // /app/room/{kod} aboneliğinin header'ları bu sırada inbound thread'de değişebilir (@SubscribeMapping
+        // değişkenleri); kopyalamadan önce sadece destination okunur
+        String destination = SimpMessageHeaderAccessor.getDestination(event.getMessage().getHeaders());
+        if (destination == null || !destination.startsWith(ROOM_TOPIC_PREFIX)) return;
+        String sessionId = sessionIdOf(event);
+        if (sessionId == null) return;
+
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        subscribed(headers.getSessionId(), headers.getSubscriptionId(), sessionId, destination.substring(ROOM_TOPIC_PREFIX.length()));
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        unsubscribed(headers.getSessionId(), headers.getSubscriptionId(), sessionIdOf(event));
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        disconnected(event.getSessionId(), sessionIdOf(event));
+    }
+
+    /**
+     * Aşağıdaki dört metod STOMP olaylarından ve ham WebSocket bağlantılarından çağrılır.
+     * {@code connectionId} bağlantının (WebSocket oturumunun) kimliği, {@code sessionId} token'dır.
+     */
+    public void connected(String sessionId) {
+        update(sessionId, presence -> {
+            presence.connections++;
+            return null;
+        });
+    }
+
+    public void subscribed(String connectionId, String subscriptionId, String sessionId, String roomCode) {
+        subscriptions.computeIfAbsent(connectionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, roomCode);
+        update(sessionId, presence -> {
+            presence.subscriptions.merge(roomCode, 1, Integer::sum);
+            presence.pending.remove(roomCode);
+            return null;
+        });
+    }
+
+    public void unsubscribed(String connectionId, String subscriptionId, String sessionId) {
+        Map<String, String> rooms = subscriptions.get(connectionId);
+        String roomCode = rooms != null ? rooms.remove(subscriptionId) : null;
+        if (roomCode == null || sessionId == null) return;
+
+        List<Leave> leaving = update(sessionId, presence -> {
+            List<String> released = new ArrayList<>(1);
+            if (presence.unsubscribe(roomCode)) released.add(roomCode);
+            return presence.schedule(released);
+        });
+        scheduleLeaves(sessionId, leaving);
+    }
+
+    public void disconnected(String connectionId, String sessionId) {
+        Map<String, String> rooms = subscriptions.remove(connectionId);
+        if (sessionId == null) return;
+
+        List<Leave> leaving = update(sessionId, presence -> {
+            presence.connections = Math.max(0, presence.connections - 1);
+            List<String> released = new ArrayList<>();
+            if (rooms != null) {
+                for (String roomCode : rooms.values()) {
+                    if (presence.unsubscribe(roomCode)) released.add(roomCode);
+                }
+            }
+            // son bağlantı da kapandıysa abone olunmadan katılınan odalar da bırakılır
+            return presence.schedule(presence.connections == 0 ? new ArrayList<>(presence.rooms) : released);
+        });
+        scheduleLeaves(sessionId, leaving);
+    }
+
+    /**
+     * Kullanıcıyı odadan çıkarır ve LEFT deltasını yayınlar. Odanın mailbox'ında çalışmalıdır.
+     */
+    public void applyLeave(Room room, String sessionId) {
+        UserSession user = room.getUsers().remove(sessionId);
+        if (user == null) return;
+
+        roomService.participantLeft(room, user);
+        participantsLeft.increment();
+        log.debug("Oturum {} odadan ayrıldı: {}", sessionId, room.getRoomCode());
+        broadcaster.publish(room, new RoomDeltaMessage.Change(ChangeType.LEFT, user.getParticipantId(), null, null));
+    }
+
+    public int getTrackedSessions() {
+        return presences.size();
+    }
+
+    public long getParticipantsLeft() {
+        return participantsLeft.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private void scheduleLeaves(String sessionId, List<Leave> leaving) {
+        for (Leave leave : leaving) {
+            if (graceMs <= 0) {
+                expire(sessionId, leave);
+            } else {
+                timer.schedule(() -> expire(sessionId, leave), graceMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void expire(String sessionId, Leave planned) {
+        String roomCode = planned.roomCode();
+        Boolean leave = update(sessionId, presence -> {
+            Long pending = presence.pending.get(roomCode);
+            if (pending == null || pending != planned.generation()) return false; // iptal edilmiş
+            presence.pending.remove(roomCode);
+            if (presence.subscriptions.containsKey(roomCode)) return false;
+            return presence.rooms.remove(roomCode);
+        });
+        if (!leave) return;
+
+        if (roomService.getRoom(roomCode) == null) {
+            // oda başka node'daysa çıkış sahibine iletilir; oda silinmişse yapılacak bir şey yok
+            cluster.forward(ClusterEnvelope.command(ClusterEnvelope.Type.LEAVE, roomCode, sessionId, null, null));
+            return;
+        }
+        roomExecutor.execute(roomCode, () -> leave(roomCode, sessionId));
+    }
+
+    // odanın mailbox'ında çalışır
+    private void leave(String roomCode, String sessionId) {
+        // oda kuyrukta beklerken devredildiyse çıkış yeni sahibine gider; devir sürüyorsa devir bitince
+        Supplier<ClusterEnvelope> remote = () -> ClusterEnvelope.command(ClusterEnvelope.Type.LEAVE, roomCode, sessionId, null, null);
+        Room room = roomService.getRoom(roomCode);
+        if (room == null) {
+            cluster.forward(remote.get());
+        } else if (!cluster.holdDuringHandOff(roomCode, remote, () -> leave(roomCode, sessionId))) {
+            applyLeave(room, sessionId);
+        }
+    }
+
+    /**
+     * Oturumun kaydı üzerinde kilit altında işlem yapar; kayıt boşaldıysa haritadan çıkarılır.
+     * Çıkarılmış bir kayda denk gelen çağrı yeni kayıtla tekrar dener.
+     */
+    private <T> T update(String sessionId, Function<Presence, T> action) {
+        while (true) {
+            Presence presence = presences.computeIfAbsent(sessionId, id -> new Presence());
+            synchronized (presence) {
+                if (presence.detached) continue;
+                T result = action.apply(presence);
+                if (presence.isIdle()) {
+                    presence.detached = true;
+                    presences.remove(sessionId, presence);
+                }
+                return result;
+            }
+        }
+    }
+
+    private static String sessionIdOf(AbstractSubProtocolEvent event) {
+        Message<byte[]> message = event.getMessage();
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(message.getHeaders());
+        return attributes != null && attributes.get("sessionId") instanceof String sessionId ? sessionId : null;
+    }
+
+    private static final class Presence {
+        private int connections;
+        private final Set<String> rooms = new HashSet<>(2);
+        // roomCode → bu token'ın o odaya açık abonelik sayısı
+        private final Map<String, Integer> subscriptions = new HashMap<>(2);
+        // roomCode → planlanan çıkışın nesli
+        private final Map<String, Long> pending = new HashMap<>(2);
+        private long generation;
+        private boolean detached;
+
+        /**
+         * @return odaya açık abonelik kalmadıysa true
+         */
+        private boolean unsubscribe(String roomCode) {
+            Integer remaining = subscriptions.computeIfPresent(roomCode, (code, count) -> count > 1 ? count - 1 : null);
+            return remaining == null;
+        }
+
+        private List<Leave> schedule(List<String> roomCodes) {
+            List<Leave> scheduled = new ArrayList<>(roomCodes.size());
+            for (String roomCode : roomCodes) {
+                if (!rooms.contains(roomCode) || pending.containsKey(roomCode)) continue;
+                long next = ++generation;
+                pending.put(roomCode, next);
+                scheduled.add(new Leave(roomCode, next));
+            }
+            return scheduled;
+        }
+
+        private boolean isIdle() {
+            return connections == 0 && rooms.isEmpty() && subscriptions.isEmpty() && pending.isEmpty();
+        }
+    }
+
+    /**
+     * Planlanmış çıkış. Nesil, arada iptal edilip yeniden planlanan çıkışı eskisinden ayırır.
+     */
+    private record Leave(String roomCode, long generation) {
+    }
+}
@@ -1,20 +1,68 @@
 package co.estimoo.backend.service;
 
 import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
 import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 
 @Service
 public class RoomService {
 
+    // Cluster filtresine takılan adaylar dahil toplam deneme sınırı
+    private static final int MAX_CODE_ATTEMPTS = 1000;
+    // Dolu bir koda denk gelme sınırı; her çakışmada kod uzadığından pratikte hiç aşılmaz
+    private static final int MAX_CODE_COLLISIONS = 16;
+
     // roomCode → Room
     @Getter
     private final Map<String, Room> rooms = new ConcurrentHashMap<>();
 
+    // Cluster modunda sadece bu node'a düşen kodlar kabul edilir, oda sahibinde oluşur
+    @Setter
+    private volatile Predicate<String> codeFilter = code -> true;
+
+    // Oda mutasyonları journal açıksa buraya yazılır
+    @Getter
+    @Setter
+    private volatile RoomEventLog eventLog = RoomEventLog.NONE;
+
+    // İnaktif odaların süresini izler; sadece cleanup scheduler ilerletir
+    private final RoomExpiryWheel expiryWheel;
+    private boolean expiryStarted;
+
+    private final RoomCodeAllocator codeAllocator;
+
+    // Canlı toplamlar mutasyonlarla birlikte güncellenir; health/metrics odaları taramadan okur
+    private final LongAdder roomCount = new LongAdder();
+    private final LongAdder userCount = new LongAdder();
+    private final LongAdder votesCast = new LongAdder();
+    private final LongAdder reveals = new LongAdder();
+
+    @Autowired
+    public RoomService(@Value("${estimoo.rooms.expiry.timeout-ms:600000}") long expiryTimeoutMs,
+                       @Value("${estimoo.rooms.expiry.tick-ms:1000}") long expiryTickMs,
+                       @Value("${estimoo.rooms.code.min-length:6}") int codeMinLength,
+                       @Value("${estimoo.rooms.code.quarantine-ms:3600000}") long codeQuarantineMs) {
+        this.expiryWheel = new RoomExpiryWheel(TimeUnit.MILLISECONDS.toNanos(expiryTimeoutMs),
+                TimeUnit.MILLISECONDS.toNanos(expiryTickMs));
+        this.codeAllocator = new RoomCodeAllocator(codeMinLength, TimeUnit.MILLISECONDS.toNanos(codeQuarantineMs));
+    }
+
+    public RoomService() {
+        this(600_000, 1_000, 6, 3_600_000);
+    }
+
     /**
      * Yeni oda oluşturur ve roomCode’a göre saklar.
      *
@@ -22,14 +70,75 @@ public class RoomService {
      * @return Room nesnesi
      */
     public Room createRoom(String roomName) {
-        String roomCode = UUID.randomUUID().toString().substring(0, 6).toUpperCase();
         Room room = new Room();
-        room.setRoomCode(roomCode);
         room.setRoomName(roomName);
-        rooms.put(roomCode, room);
+        claimRoomCode(room);
+        expiryWheel.schedule(room);
+        eventLog.roomCreated(room);
         return room;
     }
 
+    /**
+     * Dışarıdan gelen tam oda durumunu ekler. Aynı oda zaten varsa versiyonu büyük olan kalır.
+     */
+    public void restoreRoom(Room room) {
+        Room[] replaced = new Room[1];
+        Room current = rooms.merge(room.getRoomCode(), room, (existing, received) -> {
+            if (received.getVersion() < existing.getVersion()) return existing;
+            replaced[0] = existing;
+            return received;
+        });
+        if (current == room) {
+            if (replaced[0] == null) {
+                roomCount.increment();
+            } else {
+                userCount.add(-replaced[0].getUsers().size());
+            }
+            userCount.add(room.getUsers().size());
+            expiryWheel.schedule(room);
+            eventLog.roomRestored(room);
+        }
+    }
+
+    /**
+     * Odaya katılımı kaydeder.
+     *
+     * @param newUser session odada ilk kez görülüyorsa true (aynı session'ın tekrar katılımı sayılmaz)
+     */
+    public void participantJoined(Room room, UserSession user, boolean newUser) {
+        // oda bu arada silinmişse sayaca eklenmez, silinirken kullanıcıları zaten düşülmüştür
+        if (newUser && rooms.get(room.getRoomCode()) == room) {
+            userCount.increment();
+        }
+        eventLog.participantJoined(room, user);
+    }
+
+    /**
+     * Odadan çıkışı kaydeder; kullanıcı çağrılmadan önce odadan çıkarılmış olmalıdır.
+     */
+    public void participantLeft(Room room, UserSession user) {
+        if (rooms.get(room.getRoomCode()) == room) {
+            userCount.decrement();
+        }
+        eventLog.participantLeft(room, user);
+    }
+
+    public void voteChanged(Room room, UserSession user) {
+        if (user.getVote() != null) {
+            votesCast.increment();
+        }
+        eventLog.voteChanged(room, user);
+    }
+
+    public void votesRevealed(Room room) {
+        reveals.increment();
+        eventLog.votesRevealed(room);
+    }
+
+    public void votesReset(Room room) {
+        eventLog.votesReset(room);
+    }
+
     /**
      * roomCode ile odanın getirilmesini sağlar.
      *
@@ -41,6 +150,92 @@ public class RoomService {
     }
 
     public void removeRoom(String roomCode) {
-        rooms.remove(roomCode);
+        Room removed = rooms.remove(roomCode);
+        if (removed != null) {
+            forget(removed);
+        }
+    }
+
+    public long getRoomCount() {
+        return roomCount.sum();
+    }
+
+    public long getUserCount() {
+        return userCount.sum();
+    }
+
+    public long getVotesCast() {
+        return votesCast.sum();
+    }
+
+    public long getReveals() {
+        return reveals.sum();
+    }
+
+    /**
+     * Oda ve kullanıcı sayaçlarını haritadan yeniden hesaplar. Odalar RoomService dışından
+     * toplu eklendiğinde (journal geri yüklemesi) bir kez çağrılır.
+     */
+    public void recountRooms() {
+        roomCount.reset();
+        userCount.reset();
+        for (Room room : rooms.values()) {
+            roomCount.increment();
+            userCount.add(room.getUsers().size());
+        }
+    }
+
+    /**
+     * Süresi dolan bucket'lardaki inaktif odaları siler.
+     *
+     * @return silinen odalar
+     */
+    public List<Room> expireInactiveRooms() {
+        return expireInactiveRooms(System.nanoTime());
+    }
+
+    synchronized List<Room> expireInactiveRooms(long nowNanos) {
+        if (!expiryStarted) {
+            // wheel'den önce eklenen odalar (ör. journal'dan geri yüklenenler) bir kez topluca alınır
+            expiryWheel.clearPending();
+            rooms.values().forEach(expiryWheel::schedule);
+            expiryStarted = true;
+        }
+
+        List<Room> expired = new ArrayList<>();
+        expiryWheel.advance(nowNanos, room -> rooms.get(room.getRoomCode()) == room, room -> {
+            if (rooms.remove(room.getRoomCode(), room)) {
+                forget(room);
+                expired.add(room);
+            }
+        });
+        return expired;
+    }
+
+    private void forget(Room room) {
+        roomCount.decrement();
+        userCount.add(-room.getUsers().size());
+        codeAllocator.release(room.getRoomCode());
+        eventLog.roomRemoved(room.getRoomCode());
+    }
+
+    /**
+     * Odaya boş bir kod bulup atomik olarak sahiplenir; mevcut bir oda asla ezilmez.
+     */
+    private void claimRoomCode(Room room) {
+        int collisions = 0;
+        for (int attempt = 0; attempt < MAX_CODE_ATTEMPTS && collisions < MAX_CODE_COLLISIONS; attempt++) {
+            String roomCode = codeAllocator.next(rooms.size(), collisions);
+            if (!codeFilter.test(roomCode)) {
+                continue;
+            }
+            room.setRoomCode(roomCode);
+            if (rooms.putIfAbsent(roomCode, room) == null) {
+                roomCount.increment();
+                return;
+            }
+            collisions++;
+        }
+        throw new IllegalStateException("Bu node'a düşen boş bir oda kodu üretilemedi");
     }
 }
@@ -1,13 +1,29 @@
 package co.estimoo.backend;
 
+import co.estimoo.backend.config.RoomSubscriptionRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 @SpringBootTest
 class EstimooBackendApplicationTests {
 
+    @Autowired
+    private SimpleBrokerMessageHandler simpleBrokerMessageHandler;
+
+    @Autowired
+    private RoomSubscriptionRegistry roomSubscriptionRegistry;
+
     @Test
     void contextLoads() {
     }
 
+    @Test
+    void simpleBroker_UsesRoomSubscriptionRegistry() {
+        assertSame(roomSubscriptionRegistry, simpleBrokerMessageHandler.getSubscriptionRegistry());
+    }
+
 }
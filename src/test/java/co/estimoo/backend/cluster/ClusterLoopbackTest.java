@@ -0,0 +1,294 @@
+package co.estimoo.backend.cluster;
+
+import co.estimoo.backend.EstimooBackendApplication;
+import co.estimoo.backend.dto.JoinRoomMessage;
+import co.estimoo.backend.dto.VoteMessage;
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.VoteValue;
+import co.estimoo.backend.resource.RoomWsController;
+import co.estimoo.backend.service.RoomService;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Aynı JVM'de loopback üzerinde birkaç node başlatıp cluster modunu uçtan uca dener.
+ */
+class ClusterLoopbackTest {
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            nodes.get(i).close();
+        }
+    }
+
+    @Test
+    void roomsAreServedFromAnyNodeAndMoveWithMembership() throws Exception {
+        ConfigurableApplicationContext a = startNode("");
+        ConfigurableApplicationContext b = startNode(urlOf(a));
+        await(() -> members(a) == 2 && members(b) == 2, "iki node birbirini görmeli");
+
+        // oda kendi sahibinde (A) açılır, istemci B'ye bağlanır
+        Room room = a.getBean(RoomService.class).createRoom("Cluster");
+        String roomCode = room.getRoomCode();
+        assertTrue(a.getBean(ClusterNode.class).isOwnedLocally(roomCode));
+        assertFalse(b.getBean(ClusterNode.class).isOwnedLocally(roomCode));
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        StompSession session = stompClient.connectAsync("ws://127.0.0.1:" + portOf(b) + "/ws/websocket?token=cluster-user-1",
+                new StompSessionHandlerAdapter() {
+                }).get(10, TimeUnit.SECONDS);
+
+        BlockingQueue<Map<?, ?>> deltas = new LinkedBlockingQueue<>();
+        session.subscribe("/topic/room/" + roomCode, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                deltas.add((Map<?, ?>) payload);
+            }
+        });
+        session.send("/app/join", Map.of("roomCode", roomCode, "nickname", "Alice"));
+
+        // komut A'ya iletilir, A'nın yayını B'deki aboneye ulaşır
+        Map<?, ?> delta = deltas.poll(10, TimeUnit.SECONDS);
+        assertNotNull(delta, "join deltası B'deki aboneye ulaşmalı");
+        assertEquals("JOINED", ((Map<?, ?>) ((List<?>) delta.get("changes")).get(0)).get("type"));
+        assertEquals("Alice", room.getUsers().get("cluster-user-1").getNickname());
+
+        // REST okumaları da sahibinden cevaplanır
+        HttpResponse<String> state = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(urlOf(b) + "/api/rooms/" + roomCode + "/state")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, state.statusCode());
+        assertTrue(state.body().contains("Alice"));
+        // sahibin ETag'i proxy'den geçer, aynı versiyon için 304 döner
+        String etag = state.headers().firstValue("ETag").orElseThrow();
+        HttpResponse<String> notModified = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(urlOf(b) + "/api/rooms/" + roomCode + "/state"))
+                        .header("If-None-Match", etag).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, notModified.statusCode());
+        // toplu özet sorgusu A'daki odayı sahibinden toplar
+        HttpResponse<String> statuses = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(urlOf(b) + "/api/rooms/batch/status"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("[\"" + roomCode + "\"]")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, statuses.statusCode());
+        assertTrue(statuses.body().contains("\"participants\":1"), statuses.body());
+        session.disconnect();
+        stompClient.stop();
+
+        for (int i = 0; i < 40; i++) {
+            a.getBean(RoomService.class).createRoom("a-" + i);
+            b.getBean(RoomService.class).createRoom("b-" + i);
+        }
+        int total = rooms(a) + rooms(b);
+
+        // yeni node katılınca kendi payına düşen odalar ona devredilir
+        ConfigurableApplicationContext c = startNode(urlOf(a));
+        await(() -> members(a) == 3 && members(b) == 3 && members(c) == 3, "üç node birbirini görmeli");
+        await(() -> allRoomsOnOwner(a, b, c) && rooms(a) + rooms(b) + rooms(c) == total, "odalar yeni sahiplerine geçmeli");
+        assertTrue(rooms(c) > 0);
+
+        // düzgün kapanan node odalarını kalanlara bırakır
+        c.close();
+        nodes.remove(c);
+        await(() -> members(a) == 2 && members(b) == 2, "ayrılan node halkadan çıkmalı");
+        await(() -> allRoomsOnOwner(a, b) && rooms(a) + rooms(b) == total, "odalar kalan node'lara dönmeli");
+    }
+
+    @Test
+    void votesDuringHandOffAreForwardedToTheNewOwner() throws Exception {
+        ConfigurableApplicationContext a = startNode("");
+        int portC;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            portC = socket.getLocalPort();
+        }
+        // C katılınca ona devredilecek bir oda A'da açılır
+        ConsistentHashRing ring = new ConsistentHashRing(128).withNode(urlOf(a)).withNode("http://127.0.0.1:" + portC);
+        RoomService roomsA = a.getBean(RoomService.class);
+        Room room = roomsA.createRoom("handoff");
+        while (!ring.ownerOf(room.getRoomCode()).endsWith(":" + portC)) {
+            room = roomsA.createRoom("handoff");
+        }
+        String roomCode = room.getRoomCode();
+
+        RoomWsController controllerA = a.getBean(RoomWsController.class);
+        List<String> votersA = List.of("voter-a-1", "voter-a-2", "voter-a-3");
+        List<String> votersC = List.of("voter-c-1", "voter-c-2", "voter-c-3");
+        for (String sessionId : concat(votersA, votersC)) {
+            JoinRoomMessage join = new JoinRoomMessage();
+            join.setRoomCode(roomCode);
+            join.setNickname(sessionId);
+            controllerA.joinRoom(join, Map.of("sessionId", sessionId));
+        }
+        Room joined = room;
+        await(() -> joined.getUsers().size() == 6, "seçmenler odaya katılmalı");
+
+        // C odayı kaydeder ama cevabı bekletir; devir bu süre boyunca A'da açık kalır
+        CountDownLatch release = new CountDownLatch(1);
+        Filter holdTransfer = (request, response, chain) -> {
+            chain.doFilter(request, response);
+            if (((HttpServletRequest) request).getRequestURI().endsWith("/internal/cluster/rooms")) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+
+        Map<String, String> lastVotes = new ConcurrentHashMap<>();
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for (String sessionId : votersA) {
+            threads.add(voter(controllerA, roomCode, sessionId, lastVotes, stop));
+        }
+        ConfigurableApplicationContext c = startNode(urlOf(a), portC,
+                context -> context.getBeanFactory().registerSingleton("holdTransfer", holdTransfer));
+        RoomService roomsC = c.getBean(RoomService.class);
+        await(() -> roomsC.getRoom(roomCode) != null, "oda yeni sahibine ulaşmalı");
+
+        // devir bitmeden iki node'da da oy verilir
+        RoomWsController controllerC = c.getBean(RoomWsController.class);
+        for (String sessionId : votersC) {
+            threads.add(voter(controllerC, roomCode, sessionId, lastVotes, stop));
+        }
+        Thread.sleep(250);
+        stop.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNotNull(roomsA.getRoom(roomCode), "devir henüz tamamlanmamış olmalı");
+        release.countDown();
+
+        // devirden sonra A'da gelen oylar yeni sahibe iletilmeli, kopya C'deki oyların üzerine yazılmamalı
+        await(() -> roomsA.getRoom(roomCode) == null, "A devri tamamlamalı");
+        await(() -> concat(votersA, votersC).stream().allMatch(sessionId -> {
+            VoteValue vote = roomsC.getRoom(roomCode).getUsers().get(sessionId).getVote();
+            return vote != null && vote.getLabel().equals(lastVotes.get(sessionId));
+        }), "her seçmenin son oyu yeni sahipte olmalı: " + lastVotes);
+        assertEquals(0, a.getBean(ClusterNode.class).getForwardsFailed());
+    }
+
+    // aynı oy iki kez verilirse geri alındığından ardışık oylar hep farklıdır
+    private static Thread voter(RoomWsController controller, String roomCode, String sessionId,
+                                Map<String, String> lastVotes, AtomicBoolean stop) {
+        Thread thread = new Thread(() -> {
+            String[] labels = {"1", "2", "3", "5", "8"};
+            for (int i = 0; !stop.get(); i++) {
+                VoteMessage vote = new VoteMessage();
+                vote.setRoomCode(roomCode);
+                vote.setVote(labels[i % labels.length]);
+                controller.vote(vote, Map.of("sessionId", sessionId));
+                lastVotes.put(sessionId, vote.getVote());
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "voter-" + sessionId);
+        thread.start();
+        return thread;
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        List<String> all = new ArrayList<>(first);
+        all.addAll(second);
+        return all;
+    }
+
+    private ConfigurableApplicationContext startNode(String seeds) {
+        return startNode(seeds, 0);
+    }
+
+    private ConfigurableApplicationContext startNode(String seeds, int port, ApplicationContextInitializer<?>... initializers) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(EstimooBackendApplication.class)
+                .initializers(initializers)
+                .run(
+                        "--server.port=" + port,
+                        "--server.address=127.0.0.1",
+                        "--estimoo.cluster.enabled=true",
+                        "--estimoo.cluster.seeds=" + seeds,
+                        "--estimoo.cluster.heartbeat-ms=200",
+                        "--spring.devtools.restart.enabled=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.co.estimoo.backend=WARN");
+        nodes.add(context);
+        return context;
+    }
+
+    private static int portOf(ConfigurableApplicationContext context) {
+        return Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+    }
+
+    private static String urlOf(ConfigurableApplicationContext context) {
+        return "http://127.0.0.1:" + portOf(context);
+    }
+
+    private static int members(ConfigurableApplicationContext context) {
+        return context.getBean(ClusterNode.class).getMembers().size();
+    }
+
+    private static int rooms(ConfigurableApplicationContext context) {
+        return context.getBean(RoomService.class).getRooms().size();
+    }
+
+    private static boolean allRoomsOnOwner(ConfigurableApplicationContext... contexts) {
+        for (ConfigurableApplicationContext context : contexts) {
+            ClusterNode node = context.getBean(ClusterNode.class);
+            for (String roomCode : context.getBean(RoomService.class).getRooms().keySet()) {
+                if (!node.isOwnedLocally(roomCode)) return false;
+            }
+        }
+        return true;
+    }
+
+    private static void await(BooleanSupplier condition, String message) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) fail(message);
+            Thread.sleep(50);
+        }
+    }
+}
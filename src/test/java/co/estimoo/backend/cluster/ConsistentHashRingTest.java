@@ -0,0 +1,57 @@
+package co.estimoo.backend.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 10_000;
+
+    @Test
+    void ownerOf_SameMembersInAnyOrder_GivesSameOwner() {
+        ConsistentHashRing first = new ConsistentHashRing(128).withNode("a").withNode("b").withNode("c");
+        ConsistentHashRing second = new ConsistentHashRing(128).withNode("c").withNode("a").withNode("b");
+
+        for (int i = 0; i < KEYS; i++) {
+            String key = "ROOM" + i;
+            assertEquals(first.ownerOf(key), second.ownerOf(key));
+        }
+    }
+
+    @Test
+    void withNode_MovesOnlyKeysTakenByNewNode() {
+        ConsistentHashRing before = new ConsistentHashRing(128).withNode("a").withNode("b").withNode("c");
+        ConsistentHashRing after = before.withNode("d");
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "ROOM" + i;
+            String owner = after.ownerOf(key);
+            if (!owner.equals(before.ownerOf(key))) {
+                assertEquals("d", owner); // eski node'lar arasında yer değiştirme olmaz
+                moved++;
+            }
+        }
+        // ideal pay 1/4; sanal node'larla dağılım makul sınırlar içinde kalmalı
+        assertTrue(moved > KEYS * 0.15 && moved < KEYS * 0.35, "moved=" + moved);
+    }
+
+    @Test
+    void withoutNode_ReturnsToPreviousOwnership() {
+        ConsistentHashRing ring = new ConsistentHashRing(128).withNode("a").withNode("b");
+        ConsistentHashRing restored = ring.withNode("c").withoutNode("c");
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            String key = "ROOM" + i;
+            assertEquals(ring.ownerOf(key), restored.ownerOf(key));
+            counts.merge(ring.ownerOf(key), 1, Integer::sum);
+        }
+        assertEquals(2, counts.size());
+        assertNull(new ConsistentHashRing(128).ownerOf("ROOM1"));
+    }
+}
@@ -0,0 +1,37 @@
+package co.estimoo.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.socket.WebSocketExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomHandshakeHandlerTest {
+
+    private static final List<WebSocketExtension> OFFERED = List.of(new WebSocketExtension("permessage-deflate"));
+
+    @Test
+    void filterRequestedExtensions_Enabled_AcceptsPermessageDeflate() {
+        RoomHandshakeHandler handler = new RoomHandshakeHandler(true);
+
+        assertEquals(OFFERED, handler.filterRequestedExtensions(request("/ws/websocket", "token=a"), OFFERED, OFFERED));
+        assertEquals(OFFERED, handler.filterRequestedExtensions(request("/ws/123/abc/websocket", "encoding=deflate"), OFFERED, OFFERED));
+    }
+
+    @Test
+    void filterRequestedExtensions_SharedDeflateOrDisabled_RejectsPermessageDeflate() {
+        assertTrue(new RoomHandshakeHandler(true)
+                .filterRequestedExtensions(request("/ws/websocket", "token=a&encoding=deflate"), OFFERED, OFFERED).isEmpty());
+        assertTrue(new RoomHandshakeHandler(false)
+                .filterRequestedExtensions(request("/ws/websocket", "token=a"), OFFERED, OFFERED).isEmpty());
+    }
+
+    private static ServletServerHttpRequest request(String path, String query) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setQueryString(query);
+        return new ServletServerHttpRequest(request);
+    }
+}
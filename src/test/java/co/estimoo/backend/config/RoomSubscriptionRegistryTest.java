@@ -0,0 +1,182 @@
+package co.estimoo.backend.config;
+
+import co.estimoo.backend.dto.RoomBinaryCodec;
+import co.estimoo.backend.dto.RoomWireFormat;
+import co.estimoo.backend.service.RoomBroadcaster;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MultiValueMap;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomSubscriptionRegistryTest {
+
+    private final RoomSubscriptionRegistry registry = new RoomSubscriptionRegistry();
+
+    @Test
+    void findSubscriptions_RoomTopic_ReturnsOnlyThatRoomsSessions() {
+        registry.registerSubscription(subscribe("s1", "sub-0", "/topic/room/ABC123"));
+        registry.registerSubscription(subscribe("s2", "sub-0", "/topic/room/ABC123"));
+        registry.registerSubscription(subscribe("s3", "sub-0", "/topic/room/XYZ789"));
+
+        MultiValueMap<String, String> result = registry.findSubscriptions(publish("/topic/room/ABC123"));
+
+        assertEquals(2, result.size());
+        assertEquals(List.of("sub-0"), result.get("s1"));
+        assertEquals(List.of("sub-0"), result.get("s2"));
+        assertEquals(2, registry.getSubscriberCount("ABC123"));
+        assertEquals(1, registry.getSubscriberCount("XYZ789"));
+        assertEquals(2, registry.getSubscribedRoomCount());
+    }
+
+    @Test
+    void unregisterSubscription_LastSubscriber_DropsRoomIndex() {
+        registry.registerSubscription(subscribe("s1", "sub-0", "/topic/room/ABC123"));
+        registry.unregisterSubscription(unsubscribe("s1", "sub-0"));
+
+        assertTrue(registry.findSubscriptions(publish("/topic/room/ABC123")).isEmpty());
+        assertEquals(0, registry.getSubscriberCount("ABC123"));
+        assertEquals(0, registry.getSubscribedRoomCount());
+    }
+
+    @Test
+    void unregisterAllSubscriptions_Disconnect_RemovesFromEveryRoom() {
+        registry.registerSubscription(subscribe("s1", "sub-0", "/topic/room/ABC123"));
+        registry.registerSubscription(subscribe("s1", "sub-1", "/topic/room/XYZ789"));
+        registry.registerSubscription(subscribe("s2", "sub-0", "/topic/room/ABC123"));
+        registry.registerSubscription(subscribe("s1", "sub-2", "/queue/errors"));
+
+        registry.unregisterAllSubscriptions("s1");
+
+        assertEquals(List.of("s2"), List.copyOf(registry.findSubscriptions(publish("/topic/room/ABC123")).keySet()));
+        assertEquals(0, registry.getSubscriberCount("XYZ789"));
+        assertTrue(registry.findSubscriptions(publish("/queue/errors")).isEmpty());
+    }
+
+    @Test
+    void findSubscriptions_ExcludedSession_SkippedUntilPredicateClears() {
+        registry.registerSubscription(subscribe("s1", "sub-0", "/topic/room/ABC123"));
+        registry.registerSubscription(subscribe("s2", "sub-0", "/topic/room/ABC123"));
+        registry.registerSubscription(subscribe("s2", "sub-1", "/queue/errors"));
+        Set<String> slow = new HashSet<>(Set.of("s2"));
+        registry.setExcludedSessions(slow::contains);
+
+        assertEquals(List.of("s1"), List.copyOf(registry.findSubscriptions(publish("/topic/room/ABC123")).keySet()));
+        // abonelik kaydı değişmez, sadece yayından çıkarılır
+        assertEquals(2, registry.getSubscriberCount("ABC123"));
+        assertEquals(Map.of("sub-0", "/topic/room/ABC123"), registry.getRoomSubscriptions("s2"));
+        assertEquals(List.of("s2"), List.copyOf(registry.findSubscriptions(publish("/queue/errors")).keySet()));
+
+        slow.clear();
+        assertEquals(2, registry.findSubscriptions(publish("/topic/room/ABC123")).size());
+    }
+
+    @Test
+    void findSubscriptions_OtherDestinationsAndPatterns_UseFallbackRegistry() {
+        registry.registerSubscription(subscribe("s1", "sub-0", "/queue/errors"));
+        registry.registerSubscription(subscribe("s2", "sub-0", "/topic/room/*"));
+        registry.registerSubscription(subscribe("s3", "sub-0", "/topic/room/ABC123"));
+
+        assertEquals(List.of("s1"), List.copyOf(registry.findSubscriptions(publish("/queue/errors")).keySet()));
+
+        MultiValueMap<String, String> room = registry.findSubscriptions(publish("/topic/room/ABC123"));
+        assertEquals(2, room.size());
+        assertTrue(room.containsKey("s2"));
+        assertTrue(room.containsKey("s3"));
+
+        registry.unregisterSubscription(unsubscribe("s2", "sub-0"));
+        assertEquals(List.of("s3"), List.copyOf(registry.findSubscriptions(publish("/topic/room/ABC123")).keySet()));
+    }
+
+    @Test
+    void wireFormats_BinaryOnlyOnRawWebSocket_InterceptorSwapsPayloadPerSubscriber() {
+        String binaryAccept = RoomBinaryCodec.MIME_TYPE.toString();
+        registry.registerSubscription(subscribe("s1", "sub-0", "/topic/room/ABC123", true, false, binaryAccept));
+        registry.registerSubscription(subscribe("s2", "sub-0", "/topic/room/ABC123", false, false, binaryAccept));
+        registry.registerSubscription(subscribe("s3", "sub-0", "/topic/room/ABC123", true, true, "application/json"));
+        registry.registerSubscription(subscribe("s4", "sub-0", "/topic/room/ABC123", true, true, binaryAccept));
+
+        assertEquals(Set.of(RoomWireFormat.JSON, RoomWireFormat.BINARY, RoomWireFormat.JSON_DEFLATE, RoomWireFormat.BINARY_DEFLATE),
+                registry.getWireFormats("ABC123"));
+        assertEquals(RoomWireFormat.BINARY, registry.getWireFormat("s1", "sub-0"));
+        assertEquals(RoomWireFormat.JSON, registry.getWireFormat("s2", "sub-0")); // SockJS: JSON'a düşer
+        assertEquals(RoomWireFormat.JSON_DEFLATE, registry.getWireFormat("s3", "sub-0"));
+
+        RoomWireFormatInterceptor interceptor = new RoomWireFormatInterceptor(registry);
+        byte[] binary = {1, 2, 3};
+        byte[] deflated = {9, 9};
+        Message<?> toBinary = interceptor.preSend(outbound("s1", binary, null), null);
+        Message<?> toJson = interceptor.preSend(outbound("s2", binary, null), null);
+        Message<?> toDeflated = interceptor.preSend(outbound("s3", binary, deflated), null);
+        Message<?> belowThreshold = interceptor.preSend(outbound("s4", binary, null), null);
+
+        assertSame(binary, toBinary.getPayload());
+        assertEquals(RoomBinaryCodec.MIME_TYPE, toBinary.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        assertFalse(toBinary.getHeaders().containsKey(RoomBroadcaster.payloadHeader(RoomWireFormat.BINARY)));
+        assertArrayEquals("{}".getBytes(), (byte[]) toJson.getPayload());
+        assertSame(deflated, toDeflated.getPayload());
+        assertEquals(RoomWireFormat.JSON_DEFLATE.getContentType(), toDeflated.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        // sıkıştırılmış varyant yoksa sıkıştırılmamış ikili gider
+        assertSame(binary, belowThreshold.getPayload());
+
+        registry.unregisterAllSubscriptions("s1");
+        registry.unregisterAllSubscriptions("s4");
+        assertEquals(Set.of(RoomWireFormat.JSON, RoomWireFormat.JSON_DEFLATE), registry.getWireFormats("ABC123"));
+        assertEquals(RoomWireFormat.JSON, registry.getWireFormat("s1", "sub-0"));
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination,
+                                             boolean rawWebSocket, boolean deflate, String accept) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setNativeHeader("accept", accept);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(RoomBinaryMessageConverter.BINARY_CAPABLE_ATTRIBUTE, rawWebSocket);
+        attributes.put(RoomBinaryMessageConverter.DEFLATE_ATTRIBUTE, deflate);
+        accessor.setSessionAttributes(attributes);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> outbound(String sessionId, byte[] binary, byte[] deflatedJson) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination("/topic/room/ABC123");
+        accessor.setHeader(RoomBroadcaster.payloadHeader(RoomWireFormat.BINARY), binary);
+        accessor.setHeader(RoomBroadcaster.payloadHeader(RoomWireFormat.JSON_DEFLATE), deflatedJson);
+        return MessageBuilder.createMessage("{}".getBytes(), accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> unsubscribe(String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> publish(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
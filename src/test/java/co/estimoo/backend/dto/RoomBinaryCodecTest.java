@@ -0,0 +1,102 @@
+package co.estimoo.backend.dto;
+
+import co.estimoo.backend.dto.RoomDeltaMessage.ChangeType;
+import co.estimoo.backend.model.VoteValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomBinaryCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void state_RoundTrip_KeepsHiddenAndRevealedVotes() {
+        RoomStateMessage state = state(true, 3);
+        state.getUsers().get(1).setVote(null);
+        state.getUsers().get(2).setVoted(false);
+        state.getUsers().get(2).setVote(null);
+
+        RoomStateMessage decoded = (RoomStateMessage) RoomBinaryCodec.decode(RoomBinaryCodec.encode(state));
+
+        assertTrue(decoded.isVotesRevealed());
+        assertEquals(state.getVersion(), decoded.getVersion());
+        assertEquals(3, decoded.getUsers().size());
+        assertEquals("Kullanıcı 0", decoded.getUsers().get(0).getNickname());
+        assertEquals("13", decoded.getUsers().get(0).getVote());
+        assertTrue(decoded.getUsers().get(1).isVoted());
+        assertNull(decoded.getUsers().get(1).getVote());
+        assertFalse(decoded.getUsers().get(2).isVoted());
+        assertEquals(2, decoded.getUsers().get(2).getParticipantId());
+    }
+
+    @Test
+    void delta_RoundTrip_KeepsChanges() {
+        RoomDeltaMessage delta = new RoomDeltaMessage();
+        delta.setBaseVersion(41);
+        delta.setVersion(300);
+        delta.setChanges(List.of(
+                new RoomDeltaMessage.Change(ChangeType.JOINED, 7, "Ayşe", null),
+                new RoomDeltaMessage.Change(ChangeType.REVEALED, 7, null, "?"),
+                new RoomDeltaMessage.Change(ChangeType.LEFT, 200, null, null)));
+
+        RoomDeltaMessage decoded = (RoomDeltaMessage) RoomBinaryCodec.decode(RoomBinaryCodec.encode(delta));
+
+        assertEquals(41, decoded.getBaseVersion());
+        assertEquals(300, decoded.getVersion());
+        assertEquals(delta.getChanges(), decoded.getChanges());
+    }
+
+    @Test
+    void stats_RoundTrip_RebuildsFromHistogram() {
+        RoomStateMessage state = state(true, 2);
+        int[] histogram = new int[VoteValue.values().length];
+        histogram[VoteValue.THIRTEEN.ordinal()] = 2;
+        histogram[VoteValue.QUESTION.ordinal()] = 1;
+        state.setStats(VoteStats.of(histogram, 4));
+
+        RoomStateMessage decoded = (RoomStateMessage) RoomBinaryCodec.decode(RoomBinaryCodec.encode(state));
+
+        assertEquals(state.getStats(), decoded.getStats());
+        assertEquals(13.0, decoded.getStats().getMean());
+        assertNull(((RoomStateMessage) RoomBinaryCodec.decode(RoomBinaryCodec.encode(state(false, 1)))).getStats());
+    }
+
+    @Test
+    void encode_IsSmallerThanJson() throws Exception {
+        RoomStateMessage state = state(true, 50);
+
+        int binary = RoomBinaryCodec.encode(state).length;
+        int json = objectMapper.writeValueAsBytes(state).length;
+
+        assertTrue(binary * 3 < json, "ikili " + binary + " bayt, JSON " + json + " bayt");
+    }
+
+    @Test
+    void decode_Garbage_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> RoomBinaryCodec.decode(new byte[]{9, 0}));
+        assertThrows(IllegalArgumentException.class, () -> RoomBinaryCodec.decode(new byte[]{RoomBinaryCodec.STATE, 0, 1, 5}));
+        assertThrows(IllegalArgumentException.class, () -> RoomBinaryCodec.decode(new byte[0]));
+    }
+
+    private static RoomStateMessage state(boolean revealed, int users) {
+        List<RoomStateMessage.UserVoteInfo> list = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            RoomStateMessage.UserVoteInfo user = new RoomStateMessage.UserVoteInfo();
+            user.setParticipantId(i);
+            user.setNickname("Kullanıcı " + i);
+            user.setVoted(true);
+            user.setVote("13");
+            list.add(user);
+        }
+        RoomStateMessage state = new RoomStateMessage();
+        state.setVotesRevealed(revealed);
+        state.setVersion(1_000_000L);
+        state.setUsers(list);
+        return state;
+    }
+}
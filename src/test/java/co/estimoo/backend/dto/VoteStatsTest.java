@@ -0,0 +1,57 @@
+package co.estimoo.backend.dto;
+
+import co.estimoo.backend.model.VoteValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VoteStatsTest {
+
+    @Test
+    void of_NumericVotes_ComputesMeanMedianModeSpread() {
+        // 2, 3, 3, 8 ve bir ?
+        VoteStats stats = VoteStats.of(histogram(VoteValue.TWO, VoteValue.THREE, VoteValue.THREE, VoteValue.EIGHT, VoteValue.QUESTION), 6);
+
+        assertEquals(5, stats.getVoted());
+        assertEquals(6, stats.getParticipants());
+        assertEquals(4.0, stats.getMean());
+        assertEquals(3.0, stats.getMedian());
+        assertEquals("3", stats.getMode());
+        assertEquals(6, stats.getSpread());
+        assertFalse(stats.isConsensus());
+        assertEquals(Map.of("2", 1, "3", 2, "8", 1, "?", 1), stats.getDistribution());
+    }
+
+    @Test
+    void of_EvenCountAndTiedMode_AveragesMiddleAndPrefersHigherMode() {
+        VoteStats stats = VoteStats.of(histogram(VoteValue.ONE, VoteValue.ONE, VoteValue.THIRTEEN, VoteValue.THIRTEEN), 4);
+
+        assertEquals(7.0, stats.getMedian());
+        assertEquals("13", stats.getMode());
+        assertEquals(12, stats.getSpread());
+    }
+
+    @Test
+    void of_SameCardOrNoNumericVotes() {
+        VoteStats consensus = VoteStats.of(histogram(VoteValue.FIVE, VoteValue.FIVE), 3);
+        assertTrue(consensus.isConsensus());
+        assertEquals(0, consensus.getSpread());
+
+        VoteStats coffee = VoteStats.of(histogram(VoteValue.COFFEE, VoteValue.COFFEE), 2);
+        assertTrue(coffee.isConsensus());
+        assertNull(coffee.getMean());
+        assertNull(coffee.getMode());
+
+        VoteStats empty = VoteStats.of(histogram(), 2);
+        assertEquals(0, empty.getVoted());
+        assertFalse(empty.isConsensus());
+    }
+
+    private static int[] histogram(VoteValue... votes) {
+        int[] histogram = new int[VoteValue.values().length];
+        for (VoteValue vote : votes) histogram[vote.ordinal()]++;
+        return histogram;
+    }
+}
@@ -0,0 +1,141 @@
+package co.estimoo.backend.flow;
+
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.service.RoomService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InboundRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final RoomService roomService = new RoomService();
+    private final InboundRateLimiter limiter =
+            new InboundRateLimiter(roomService, true, new RateLimitPolicy(3, 2), new RateLimitPolicy(5, 4));
+
+    @BeforeEach
+    void setUp() {
+        roomService.restoreRoom(room("ABC123"));
+        roomService.restoreRoom(room("XYZ789"));
+    }
+
+    @Test
+    void tryAcquire_SessionBurstThenRefill() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("s1", null, 0));
+        }
+        assertFalse(limiter.tryAcquire("s1", null, 0));
+        // diğer bağlantının kovası ayrıdır
+        assertTrue(limiter.tryAcquire("s2", null, 0));
+
+        // saniyede 2 token: yarım saniyede bir komut
+        assertTrue(limiter.tryAcquire("s1", null, SECOND / 2));
+        assertFalse(limiter.tryAcquire("s1", null, SECOND / 2));
+        assertEquals(2, limiter.getThrottledBySession());
+        assertEquals(0, limiter.getThrottledByRoom());
+    }
+
+    @Test
+    void tryAcquire_RoomLimitSharedAcrossSessions() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("s" + i, "ABC123", 0));
+        }
+        assertFalse(limiter.tryAcquire("s9", "ABC123", 0));
+        assertTrue(limiter.tryAcquire("s9", "XYZ789", 0));
+        assertEquals(1, limiter.getThrottledByRoom());
+    }
+
+    @Test
+    void tryAcquire_RoomRejection_RefundsSessionToken() {
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("s" + i, "ABC123", 0));
+        }
+        assertFalse(limiter.tryAcquire("s9", "ABC123", 0));
+
+        // odaya takılan komut bağlantının kovasından düşmez
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("s9", null, 0));
+        }
+        assertEquals(0, limiter.getThrottledBySession());
+    }
+
+    @Test
+    void tryAcquire_UnknownRoom_LimitsOnlyConnection() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire("s" + i, "R" + i, 0));
+        }
+        // uydurma kodlar oda kovası açmaz
+        assertEquals(10, limiter.getTrackedBuckets());
+        assertEquals(0, limiter.getThrottledByRoom());
+    }
+
+    @Test
+    void preSend_DropsOnlyAppMessagesOverLimit() {
+        Message<byte[]> vote = message(SimpMessageType.MESSAGE, "/app/vote", "{\"vote\":\"5\",\"roomCode\":\"ABC123\"}");
+        for (int i = 0; i < 3; i++) {
+            assertSame(vote, limiter.preSend(vote, null));
+        }
+        assertNull(limiter.preSend(vote, null));
+
+        // abonelik ve heartbeat gibi frame'ler sınırlanmaz
+        Message<byte[]> subscribe = message(SimpMessageType.SUBSCRIBE, "/topic/room/ABC123", "");
+        assertSame(subscribe, limiter.preSend(subscribe, null));
+
+        limiter.release("s1");
+        assertSame(vote, limiter.preSend(vote, null));
+    }
+
+    @Test
+    void sweep_RemovesRefilledBuckets() {
+        limiter.tryAcquire("s1", "ABC123", 0);
+        limiter.tryAcquire("s2", "ABC123", 0);
+        assertEquals(3, limiter.getTrackedBuckets());
+
+        limiter.sweep(SECOND / 4);
+        assertEquals(3, limiter.getTrackedBuckets());
+        limiter.sweep(SECOND);
+        assertEquals(0, limiter.getTrackedBuckets());
+    }
+
+    @Test
+    void disabled_NeverThrottles() {
+        InboundRateLimiter disabled = new InboundRateLimiter(roomService, false, new RateLimitPolicy(1, 1), new RateLimitPolicy(1, 1));
+        for (int i = 0; i < 10; i++) {
+            assertTrue(disabled.tryAcquire("s1", "ABC123"));
+        }
+        assertEquals(0, disabled.getTrackedBuckets());
+    }
+
+    @Test
+    void roomCodeOf_ReadsTopLevelFieldOnly() {
+        assertEquals("ABC123", InboundRateLimiter.roomCodeOf(bytes("{\"nested\":{\"roomCode\":\"X\"},\"roomCode\":\"ABC123\"}")));
+        assertNull(InboundRateLimiter.roomCodeOf(bytes("{\"vote\":\"5\"}")));
+        assertNull(InboundRateLimiter.roomCodeOf(bytes("not json")));
+        assertNull(InboundRateLimiter.roomCodeOf("{\"roomCode\":\"ABC123\"}"));
+    }
+
+    private static Message<byte[]> message(SimpMessageType type, String destination, String json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId("s1");
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(bytes(json), accessor.getMessageHeaders());
+    }
+
+    private static Room room(String roomCode) {
+        Room room = new Room();
+        room.setRoomCode(roomCode);
+        return room;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,91 @@
+package co.estimoo.backend.flow;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SlowConsumerGuardTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void snapshotPolicy_SkipsDeltasWhileStuckThenResyncs() throws Exception {
+        SlowConsumerGuard guard = new SlowConsumerGuard(SlowConsumerGuard.Policy.SNAPSHOT, 1000);
+        List<String> resynced = new ArrayList<>();
+        guard.setResync(resynced::add);
+        WebSocketHandler handler = guard.decorate(mock(WebSocketHandler.class));
+        handler.afterConnectionEstablished(session("s1"));
+
+        Message<byte[]> delta = message("s1");
+        guard.beforeHandle(delta, null, null);
+        long start = System.nanoTime();
+        assertFalse(guard.isSlow("s1", start));
+        assertTrue(guard.isSlow("s1", start + 2 * SECOND));
+        assertTrue(guard.isSlow("s1", start + 2 * SECOND));
+        assertEquals(1, guard.getSlowSessions());
+
+        guard.afterMessageHandled(delta, null, null, null);
+        assertEquals(List.of("s1"), resynced);
+        assertFalse(guard.isSlow("s1"));
+        assertEquals(1, guard.getDetected());
+        assertEquals(2, guard.getDeltasSkipped());
+        assertEquals(1, guard.getResyncs());
+        assertEquals(0, guard.getSlowSessions());
+    }
+
+    @Test
+    void disconnectPolicy_ClosesStuckSession() throws Exception {
+        SlowConsumerGuard guard = new SlowConsumerGuard(SlowConsumerGuard.Policy.DISCONNECT, 1000);
+        WebSocketHandler handler = guard.decorate(mock(WebSocketHandler.class));
+        WebSocketSession session = session("s1");
+        handler.afterConnectionEstablished(session);
+
+        Message<byte[]> delta = message("s1");
+        guard.beforeHandle(delta, null, null);
+        assertTrue(guard.isSlow("s1", System.nanoTime() + 2 * SECOND));
+        verify(session, timeout(1000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertEquals(1, guard.getDisconnected());
+
+        // yazım bitse de kapanana kadar yayın almaz
+        guard.afterMessageHandled(delta, null, null, null);
+        assertTrue(guard.isSlow("s1"));
+        assertEquals(0, guard.getResyncs());
+        assertEquals(1, guard.getSlowSessions());
+
+        // kapanan oturum yavaş sayacından düşer
+        handler.afterConnectionClosed(session, CloseStatus.SESSION_NOT_RELIABLE);
+        assertFalse(guard.isSlow("s1"));
+        assertEquals(0, guard.getSlowSessions());
+    }
+
+    @Test
+    void unknownSession_IsNeverSlow() {
+        SlowConsumerGuard guard = new SlowConsumerGuard(SlowConsumerGuard.Policy.SNAPSHOT, 1000);
+        // decorator'dan geçmemiş oturum (ör. bağlantısı kapanmış) için durum tutulmaz
+        guard.beforeHandle(message("gone"), null, null);
+        assertFalse(guard.isSlow("gone", System.nanoTime() + 2 * SECOND));
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        return session;
+    }
+
+    private static Message<byte[]> message(String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
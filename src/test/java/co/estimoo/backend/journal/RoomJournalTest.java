@@ -0,0 +1,155 @@
+package co.estimoo.backend.journal;
+
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import co.estimoo.backend.model.VoteValue;
+import co.estimoo.backend.service.RoomService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomJournalTest {
+
+    private static final int SEGMENT_SIZE = 1 << 20;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restart_ReplaysEventsIntoRooms() throws Exception {
+        RoomService first = new RoomService();
+        RoomJournal journal = open(first);
+
+        Room room = first.createRoom("Sprint 42");
+        join(first, room, "s1", "Alice");
+        join(first, room, "s2", "Bob");
+        vote(first, room, "s1", VoteValue.FIVE);
+        vote(first, room, "s2", VoteValue.EIGHT);
+        vote(first, room, "s2", null);
+        room.setVotesRevealed(true);
+        first.votesRevealed(room);
+        Room removed = first.createRoom("Silinecek");
+        first.removeRoom(removed.getRoomCode());
+        journal.close();
+
+        RoomService second = new RoomService();
+        open(second).close();
+
+        assertEquals(1, second.getRooms().size());
+        assertEquals(1, second.getRoomCount());
+        assertEquals(2, second.getUserCount());
+        Room recovered = second.getRoom(room.getRoomCode());
+        assertEquals("Sprint 42", recovered.getRoomName());
+        assertTrue(recovered.isVotesRevealed());
+        assertEquals(VoteValue.FIVE, recovered.getUsers().get("s1").getVote());
+        assertNull(recovered.getUsers().get("s2").getVote());
+        assertEquals(2, recovered.getUsers().get("s2").getParticipantId());
+        assertEquals(2, recovered.getLastParticipantId());
+        assertEquals(3, recovered.nextParticipantId()); // numaralar tekrar kullanılmaz
+    }
+
+    @Test
+    void snapshot_DeletesOlderSegmentsAndKeepsLaterEvents() throws Exception {
+        RoomService first = new RoomService();
+        RoomJournal journal = open(first);
+
+        Room room = first.createRoom("Snapshot");
+        join(first, room, "s1", "Alice");
+        vote(first, room, "s1", VoteValue.THREE);
+        journal.requestSnapshot().get(5, TimeUnit.SECONDS);
+
+        // snapshot sonrası olaylar yeni segmentten okunur
+        room.getUsers().values().forEach(user -> user.setVote(null));
+        room.setVotesRevealed(false);
+        first.votesReset(room);
+        join(first, room, "s2", "Bob");
+        join(first, room, "s3", "Carol");
+        leave(first, room, "s3");
+        journal.close();
+
+        assertEquals(1, files(".snapshot").size());
+        assertEquals(1, files(".journal").size());
+
+        RoomService second = new RoomService();
+        open(second).close();
+
+        Room recovered = second.getRoom(room.getRoomCode());
+        assertEquals(2, recovered.getUsers().size());
+        assertFalse(recovered.getUsers().containsKey("s3"));
+        assertNull(recovered.getUsers().get("s1").getVote());
+    }
+
+    @Test
+    void recover_TornTailIsIgnored() throws Exception {
+        RoomService first = new RoomService();
+        RoomJournal journal = open(first);
+        Room room = first.createRoom("Torn");
+        join(first, room, "s1", "Alice");
+        vote(first, room, "s1", VoteValue.TWO);
+        journal.close();
+
+        // son kaydın payload'ı yarım kalmış gibi bozulur
+        Path segment = files(".journal").get(0);
+        long end = lastRecordEnd(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), end - 1);
+        }
+
+        RoomService second = new RoomService();
+        RoomJournal reopened = new RoomJournal(second, true, directory, SEGMENT_SIZE, 1, 60_000);
+        reopened.recover();
+
+        Room recovered = second.getRoom(room.getRoomCode());
+        assertEquals("Alice", recovered.getUsers().get("s1").getNickname());
+        assertNull(recovered.getUsers().get("s1").getVote());
+        assertEquals(2, reopened.getRecoveredRecords());
+    }
+
+    private RoomJournal open(RoomService roomService) throws IOException {
+        RoomJournal journal = new RoomJournal(roomService, true, directory, SEGMENT_SIZE, 1, 60_000);
+        journal.start();
+        return journal;
+    }
+
+    private static void join(RoomService roomService, Room room, String sessionId, String nickname) {
+        UserSession user = new UserSession(sessionId, nickname, null, room.nextParticipantId());
+        room.getUsers().put(sessionId, user);
+        roomService.participantJoined(room, user, true);
+    }
+
+    private static void leave(RoomService roomService, Room room, String sessionId) {
+        roomService.participantLeft(room, room.getUsers().remove(sessionId));
+    }
+
+    private static void vote(RoomService roomService, Room room, String sessionId, VoteValue vote) {
+        UserSession user = room.getUsers().get(sessionId);
+        user.setVote(vote);
+        roomService.voteChanged(room, user);
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> path.toString().endsWith(suffix)).sorted().toList();
+        }
+    }
+
+    private static long lastRecordEnd(Path segment) throws IOException {
+        ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int position = 0;
+        while (records.getInt(position) > 0) {
+            position += JournalCodec.HEADER_BYTES + records.getInt(position);
+        }
+        return position;
+    }
+}
@@ -0,0 +1,342 @@
+package co.estimoo.backend.loadtest;
+
+import co.estimoo.backend.EstimooBackendApplication;
+import co.estimoo.backend.model.VoteValue;
+import co.estimoo.backend.resume.ReconnectHints;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Deploy sırasındaki yeniden bağlanma fırtınasını ölçer: uygulama journal açık ve sabit portta başlatılır,
+ * N oda × M istemci bağlanıp oy verir, ardından uygulama kapatılıp aynı journal ile yeniden açılır.
+ * İstemciler iki moddan biriyle geri döner:
+ * <ul>
+ *   <li>join: kapanış sebebine bakmadan hemen yeniden bağlanır, düz join gönderir ve oyunu tekrar verir</li>
+ *   <li>resume: kapanış sebebindeki {@code retry-after-ms} kadar bekler, join'de son aldığı resume token'ı
+ *       gönderir; oyu korunduğu için tekrar oy vermez</li>
+ * </ul>
+ * Her iki modda da istemci snapshot için {@code /app/room/{kod}}'a abone olur, sunucu kapalıyken başarısız
+ * bağlantıyı {@code retryMs} sonra tekrarlar.
+ * <p>
+ * Çalıştırma: {@code mvn -Ploadtest verify -DskipTests -Dloadtest.main=co.estimoo.backend.loadtest.RestartStormGenerator
+ * -Dloadtest.args="-Drooms=100 -DusersPerRoom=20 -Dmode=resume"}
+ * <p>
+ * Diğer parametreler: downtimeMs (kapanışla yeniden açılış arası), retryMs, observe (yeniden açılıştan sonra
+ * izlenen süre, sn), minDelayMs / spreadMs (sunucunun önerdiği gecikme aralığı).
+ * Rapor; yeniden açılıştan itibaren saniyelik bağlantı ve alınan mesaj sayısı, tepe değerler ve tüm
+ * istemcilerin geri dönme süresidir.
+ */
+public final class RestartStormGenerator {
+
+    private static final HttpClient HTTP = HttpClient.newHttpClient();
+    private static final Pattern ROOM_CODE = Pattern.compile("\"roomCode\"\\s*:\\s*\"([^\"]+)\"");
+    private static final VoteValue[] VOTES = VoteValue.values();
+
+    private final int rooms = Integer.getInteger("rooms", 100);
+    private final int usersPerRoom = Integer.getInteger("usersPerRoom", 20);
+    private final boolean resumeMode = "resume".equals(System.getProperty("mode", "resume"));
+    private final long downtimeMs = Long.getLong("downtimeMs", 2_000);
+    private final long retryMs = Long.getLong("retryMs", 1_000);
+    private final int observeSeconds = Integer.getInteger("observe", 20);
+    private final long minDelayMs = Long.getLong("minDelayMs", 1_000);
+    private final long spreadMs = Long.getLong("spreadMs", 10_000);
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4, r -> {
+        Thread thread = new Thread(r, "storm-driver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicInteger online = new AtomicInteger();
+    // handshake token → sunucunun kapanışta önerdiği gecikme
+    private final Map<String, Long> hints = new ConcurrentHashMap<>();
+
+    private int port;
+    private Path journalDir;
+    private WebSocketStompClient stompClient;
+
+    private RestartStormGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        new RestartStormGenerator().run();
+    }
+
+    private void run() throws Exception {
+        port = freePort();
+        journalDir = Files.createTempDirectory("estimoo-storm");
+        stompClient = new WebSocketStompClient(new HintRecordingClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        System.out.printf("%d oda × %d istemci, mod %s, kesinti %d ms, önerilen gecikme %d..%d ms%n",
+                rooms, usersPerRoom, resumeMode ? "resume" : "join", downtimeMs, minDelayMs, minDelayMs + spreadMs);
+
+        ConfigurableApplicationContext context = start();
+        List<Client> clients = new ArrayList<>(rooms * usersPerRoom);
+        for (int i = 0; i < rooms; i++) {
+            String roomCode = createRoom("storm-" + i);
+            for (int member = 0; member < usersPerRoom; member++) {
+                clients.add(new Client(roomCode, "storm-" + clients.size()));
+            }
+        }
+        List<CompletableFuture<StompSession>> first = new ArrayList<>(clients.size());
+        for (Client client : clients) {
+            first.add(client.connect());
+        }
+        CompletableFuture.allOf(first.toArray(new CompletableFuture[0])).get(5, TimeUnit.MINUTES);
+        // join/vote deltaları ve token'lar gelsin; kurulum fırtınasında token'lar saniyeler sonra ulaşabilir
+        long settleDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (clients.stream().anyMatch(c -> c.resumeToken == null) && System.nanoTime() < settleDeadline) {
+            Thread.sleep(100);
+        }
+        Thread.sleep(1_000);
+        System.out.printf("Bağlı: %d, token alan: %d%n", online.get(), clients.stream().filter(c -> c.resumeToken != null).count());
+
+        context.close();
+        Thread.sleep(downtimeMs);
+        received.reset();
+        connects.reset();
+        long restartedAt = System.nanoTime();
+        context = start();
+        System.out.printf("Yeniden açılış: %d ms%n", (System.nanoTime() - restartedAt) / 1_000_000);
+
+        List<long[]> timeline = new ArrayList<>();
+        long lastReceived = 0;
+        long lastConnects = 0;
+        long allBackAtMs = -1;
+        for (int second = 1; second <= observeSeconds; second++) {
+            Thread.sleep(1_000);
+            long nowReceived = received.sum();
+            long nowConnects = connects.sum();
+            timeline.add(new long[]{second, nowConnects - lastConnects, nowReceived - lastReceived, online.get()});
+            if (allBackAtMs < 0 && online.get() == clients.size()) allBackAtMs = second * 1000L;
+            lastReceived = nowReceived;
+            lastConnects = nowConnects;
+        }
+
+        report(timeline, clients.size(), allBackAtMs);
+        scheduler.shutdownNow();
+        clients.forEach(Client::disconnect);
+        stompClient.stop();
+        context.close();
+    }
+
+    private ConfigurableApplicationContext start() {
+        int connections = rooms * usersPerRoom;
+        return new SpringApplicationBuilder(EstimooBackendApplication.class)
+                .run(
+                        "--server.port=" + port,
+                        "--server.address=127.0.0.1",
+                        "--server.tomcat.max-connections=" + (connections + 1000),
+                        "--estimoo.journal.enabled=true",
+                        "--estimoo.journal.dir=" + journalDir,
+                        "--estimoo.ws.resume.secret=restart-storm",
+                        "--estimoo.ws.reconnect.min-delay-ms=" + minDelayMs,
+                        "--estimoo.ws.reconnect.spread-ms=" + spreadMs,
+                        // fırtınayı ölçerken hız sınırı komutları düşürmesin
+                        "--estimoo.ws.rate-limit.enabled=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--logging.level.co.estimoo.backend=WARN");
+    }
+
+    private void report(List<long[]> timeline, int clients, long allBackAtMs) {
+        System.out.println();
+        System.out.printf("%6s %10s %12s %8s%n", "t(s)", "connect/s", "received/s", "online");
+        for (long[] row : timeline) {
+            System.out.printf("%6d %10d %12d %8d%n", row[0], row[1], row[2], row[3]);
+        }
+        long peakReceived = timeline.stream().mapToLong(row -> row[2]).max().orElse(0);
+        long peakConnects = timeline.stream().mapToLong(row -> row[1]).max().orElse(0);
+        long totalReceived = timeline.stream().mapToLong(row -> row[2]).sum();
+        System.out.println();
+        System.out.printf("Tepe: %d bağlantı/sn, %d mesaj/sn; toplam alınan %d mesaj%n", peakConnects, peakReceived, totalReceived);
+        System.out.printf("Tüm istemciler geri döndü: %s; hata: %d%n",
+                allBackAtMs < 0 ? "hayır (" + timeline.get(timeline.size() - 1)[3] + "/" + clients + ")" : "~" + allBackAtMs + " ms",
+                errors.sum());
+    }
+
+    private String createRoom(String roomName) throws Exception {
+        HttpResponse<String> response = HTTP.send(HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/rooms"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"roomName\":\"" + roomName + "\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = ROOM_CODE.matcher(response.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("Oda oluşturulamadı: " + response.statusCode() + " " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * STOMP istemcisinin kullandığı WebSocket bağlantısının kapanış sebebini okur; STOMP katmanı
+     * sadece "bağlantı koptu" bildirir.
+     */
+    private final class HintRecordingClient extends StandardWebSocketClient {
+
+        @Override
+        protected CompletableFuture<WebSocketSession> executeInternal(WebSocketHandler handler, HttpHeaders headers, URI uri,
+                                                                      List<String> protocols, List<WebSocketExtension> extensions,
+                                                                      Map<String, Object> attributes) {
+            String token = uri.getQuery().substring("token=".length());
+            return super.executeInternal(new WebSocketHandlerDecorator(handler) {
+                @Override
+                public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+                    String reason = status.getReason();
+                    if (reason != null && reason.startsWith(ReconnectHints.REASON_PREFIX)) {
+                        hints.put(token, Long.parseLong(reason.substring(ReconnectHints.REASON_PREFIX.length())));
+                    }
+                    super.afterConnectionClosed(session, status);
+                }
+            }, headers, uri, protocols, extensions, attributes);
+        }
+    }
+
+    /**
+     * Tek katılımcı. Bağlantı koparsa moda göre yeniden bağlanır; ilk bağlantıda oy verir.
+     */
+    private final class Client extends StompSessionHandlerAdapter {
+
+        private final String roomCode;
+        private final String token;
+        private final String vote = VOTES[ThreadLocalRandom.current().nextInt(VOTES.length)].getLabel();
+
+        private volatile StompSession session;
+        private volatile String resumeToken;
+        private volatile boolean voted;
+
+        private Client(String roomCode, String token) {
+            this.roomCode = roomCode;
+            this.token = token;
+        }
+
+        private CompletableFuture<StompSession> connect() {
+            return stompClient.connectAsync("ws://127.0.0.1:" + port + "/ws/websocket?token=" + token, this)
+                    .whenComplete((connected, error) -> {
+                        if (error != null) scheduleReconnect(retryMs);
+                    });
+        }
+
+        @Override
+        public void afterConnected(StompSession connected, StompHeaders connectedHeaders) {
+            session = connected;
+            connects.increment();
+            online.incrementAndGet();
+            connected.subscribe("/user/queue/resume", new Frames(payload -> resumeToken = (String) payload.get("token")));
+            connected.subscribe("/topic/room/" + roomCode, new Frames(payload -> {
+            }));
+
+            Map<String, Object> join = new HashMap<>();
+            join.put("roomCode", roomCode);
+            join.put("nickname", "user-" + token);
+            boolean resuming = resumeMode && resumeToken != null;
+            if (resuming) join.put("resumeToken", resumeToken);
+            connected.send("/app/join", join);
+            connected.subscribe("/app/room/" + roomCode, new Frames(payload -> {
+            }));
+            // join oyu sıfırlar; resume etmeyen istemci oyunu tekrar verir
+            if (!voted || !resuming) {
+                connected.send("/app/vote", Map.of("roomCode", roomCode, "vote", vote));
+                voted = true;
+            }
+        }
+
+        @Override
+        public void handleTransportError(StompSession lost, Throwable exception) {
+            if (lost != session) return; // kurulamayan bağlantıyı connect() tekrar dener
+            session = null;
+            online.decrementAndGet();
+            Long hint = hints.remove(token);
+            scheduleReconnect(resumeMode && hint != null ? hint : 0);
+        }
+
+        private void scheduleReconnect(long delayMs) {
+            if (scheduler.isShutdown()) return;
+            try {
+                scheduler.schedule(this::connect, delayMs, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                errors.increment();
+            }
+        }
+
+        private void disconnect() {
+            StompSession current = session;
+            if (current == null) return;
+            try {
+                current.disconnect();
+            } catch (RuntimeException ignored) {
+                // bağlantı zaten kopmuş olabilir
+            }
+        }
+    }
+
+    private final class Frames implements StompFrameHandler {
+
+        private final Consumer<Map<String, Object>> consumer;
+
+        private Frames(Consumer<Map<String, Object>> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return Map.class;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void handleFrame(StompHeaders headers, Object payload) {
+            received.increment();
+            consumer.accept((Map<String, Object>) payload);
+        }
+    }
+}
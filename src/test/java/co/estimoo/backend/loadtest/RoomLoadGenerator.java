@@ -0,0 +1,369 @@
+package co.estimoo.backend.loadtest;
+
+import co.estimoo.backend.EstimooBackendApplication;
+import co.estimoo.backend.metrics.LatencyHistogram;
+import co.estimoo.backend.model.VoteValue;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Gerçekçi oda trafiği üretir: N oda × M istemci SockJS/STOMP ile bağlanır, her odada
+ * join → vote → reveal → reset turları düşünme süreleriyle tekrarlanır.
+ * Uygulama loopback üzerinde aynı JVM'de başlatılır, harici servis gerekmez.
+ * <p>
+ * Çalıştırma: {@code mvn -Ploadtest verify -DskipTests -Dloadtest.main=co.estimoo.backend.loadtest.RoomLoadGenerator
+ * -Dloadtest.args="-Drooms=200 -DusersPerRoom=25 -Dduration=60"}
+ * <p>
+ * Parametreler (system property):
+ * <ul>
+ *   <li>rooms, usersPerRoom: oda ve oda başına istemci sayısı</li>
+ *   <li>duration, warmup: ölçüm ve ısınma süresi (sn); ısınmadaki trafik sonuçlara katılmaz</li>
+ *   <li>voteThinkMs: turun başından oy verilene kadar geçen ortalama süre (±%50)</li>
+ *   <li>revealThinkMs, resetThinkMs: son oydan reveal'a, reveal'dan reset'e kadar beklenen süre</li>
+ *   <li>transport: sockjs (varsayılan) ya da websocket (SockJS'siz /ws/websocket)</li>
+ *   <li>url: verilirse uygulama başlatılmaz, bu adresteki sunucu kullanılır (http://host:8080)</li>
+ * </ul>
+ * Rapor; sürekli mesaj/sn, reveal ve reset fan-out yüzdelikleri, bağlantı kurulum süresi ve
+ * saniyelik heap kullanımıdır. Aynı JVM'de çalışırken heap istemcileri de içerir; harici modda
+ * sunucunun /api/health değeri okunur.
+ */
+public final class RoomLoadGenerator {
+
+    private static final int MAX_PENDING_CONNECTS = 200;
+    private static final HttpClient HTTP = HttpClient.newHttpClient();
+    private static final Pattern ROOM_CODE = Pattern.compile("\"roomCode\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern MEMORY_MB = Pattern.compile("\"memoryUsageMB\"\\s*:\\s*(\\d+)");
+    private static final VoteValue[] VOTES = VoteValue.values();
+
+    private final int rooms = Integer.getInteger("rooms", 200);
+    private final int usersPerRoom = Integer.getInteger("usersPerRoom", 25);
+    private final int durationSeconds = Integer.getInteger("duration", 60);
+    private final int warmupSeconds = Integer.getInteger("warmup", 10);
+    private final long voteThinkMs = Long.getLong("voteThinkMs", 3_000);
+    private final long revealThinkMs = Long.getLong("revealThinkMs", 1_000);
+    private final long resetThinkMs = Long.getLong("resetThinkMs", 2_000);
+    private final boolean sockJs = !"websocket".equals(System.getProperty("transport", "sockjs"));
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, r -> {
+        Thread thread = new Thread(r, "load-driver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram connectLatency = new LatencyHistogram();
+    private final LatencyHistogram revealLatency = new LatencyHistogram();
+    private final LatencyHistogram resetLatency = new LatencyHistogram();
+
+    // ısınma bitene kadar gecikmeler kaydedilmez
+    private volatile boolean measuring;
+    private volatile boolean running = true;
+
+    private RoomLoadGenerator() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // devtools classpath'teyse main'i ayrı bir thread'de yeniden başlatmaya çalışır
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        String external = System.getProperty("url");
+        RoomLoadGenerator generator = new RoomLoadGenerator();
+        if (external != null) {
+            generator.run(trimSlash(external), false);
+            return;
+        }
+
+        int connections = generator.rooms * generator.usersPerRoom;
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(EstimooBackendApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--server.address=127.0.0.1",
+                        "--server.tomcat.max-connections=" + (connections + 1000),
+                        "--server.tomcat.accept-count=" + MAX_PENDING_CONNECTS,
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--logging.level.co.estimoo.backend=WARN");
+        try {
+            generator.run("http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port"), true);
+        } finally {
+            context.close();
+        }
+    }
+
+    private void run(String baseUrl, boolean inProcess) throws Exception {
+        WebSocketClient webSocketClient = new StandardWebSocketClient();
+        WebSocketStompClient stompClient = new WebSocketStompClient(sockJs
+                ? new SockJsClient(List.of(new WebSocketTransport(webSocketClient)))
+                : webSocketClient);
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        String connectUrl = sockJs ? baseUrl + "/ws" : baseUrl.replaceFirst("^http", "ws") + "/ws/websocket";
+
+        System.out.printf("%d oda × %d istemci, %s, ısınma %ds + ölçüm %ds%n",
+                rooms, usersPerRoom, sockJs ? "SockJS" : "WebSocket", warmupSeconds, durationSeconds);
+
+        List<RoomDriver> drivers = new ArrayList<>(rooms);
+        for (int i = 0; i < rooms; i++) {
+            drivers.add(new RoomDriver(createRoom(baseUrl, "load-" + i)));
+        }
+
+        // bağlantı kurulumu; aynı anda en fazla MAX_PENDING_CONNECTS el sıkışma
+        Semaphore pendingConnects = new Semaphore(MAX_PENDING_CONNECTS);
+        List<CompletableFuture<StompSession>> futures = new ArrayList<>(rooms * usersPerRoom);
+        int client = 0;
+        for (RoomDriver driver : drivers) {
+            for (int member = 0; member < usersPerRoom; member++, client++) {
+                pendingConnects.acquire();
+                long start = System.nanoTime();
+                int index = client;
+                futures.add(stompClient.connectAsync(connectUrl + "?token=load-" + index, new StompSessionHandlerAdapter() {
+                }).whenComplete((session, error) -> {
+                    pendingConnects.release();
+                    if (session == null) {
+                        errors.increment();
+                        return;
+                    }
+                    connectLatency.record(System.nanoTime() - start);
+                    driver.attach(session, "user-" + index);
+                }));
+            }
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            System.err.println("Bazı bağlantılar kurulamadı: " + e.getMessage());
+        }
+        Thread.sleep(1_000); // join deltaları otursun
+
+        drivers.forEach(RoomDriver::startRound);
+
+        List<long[]> timeline = new ArrayList<>();
+        long lastSent = sent.sum();
+        long lastReceived = received.sum();
+        long measuredSent = 0;
+        long measuredReceived = 0;
+        for (int second = 1; second <= warmupSeconds + durationSeconds; second++) {
+            Thread.sleep(1_000);
+            if (second == warmupSeconds) measuring = true;
+
+            long nowSent = sent.sum();
+            long nowReceived = received.sum();
+            long heapMb = inProcess ? localHeapMb() : remoteHeapMb(baseUrl);
+            timeline.add(new long[]{second, nowSent - lastSent, nowReceived - lastReceived, heapMb});
+            if (second > warmupSeconds) {
+                measuredSent += nowSent - lastSent;
+                measuredReceived += nowReceived - lastReceived;
+            }
+            lastSent = nowSent;
+            lastReceived = nowReceived;
+        }
+
+        running = false;
+        scheduler.shutdownNow();
+        report(timeline, measuredSent, measuredReceived);
+
+        Thread.sleep(1_000); // yoldaki deltalar gelsin, kapanan oturuma mesaj düşmesin
+        drivers.forEach(RoomDriver::disconnect);
+        stompClient.stop();
+    }
+
+    private void report(List<long[]> timeline, long measuredSent, long measuredReceived) {
+        System.out.println();
+        System.out.printf("%6s %10s %12s %8s%n", "t(s)", "sent/s", "received/s", "heapMB");
+        for (long[] row : timeline) {
+            System.out.printf("%6d %10d %12d %8d%s%n", row[0], row[1], row[2], row[3], row[0] <= warmupSeconds ? "  (ısınma)" : "");
+        }
+
+        System.out.println();
+        System.out.printf("Sürekli mesaj/sn: gönderilen %.0f, alınan %.0f, toplam %.0f%n",
+                (double) measuredSent / durationSeconds, (double) measuredReceived / durationSeconds,
+                (double) (measuredSent + measuredReceived) / durationSeconds);
+        System.out.printf("%-16s %8s %10s %10s %10s %10s%n", "", "count", "p50", "p90", "p99", "max");
+        print("bağlantı kurulumu", connectLatency.snapshot());
+        print("reveal fan-out", revealLatency.snapshot());
+        print("reset fan-out", resetLatency.snapshot());
+        long heapMax = timeline.stream().mapToLong(row -> row[3]).max().orElse(0);
+        System.out.printf("Heap: son %d MB, en yüksek %d MB; hata: %d%n",
+                timeline.isEmpty() ? 0 : timeline.get(timeline.size() - 1)[3], heapMax, errors.sum());
+    }
+
+    private static void print(String label, LatencyHistogram.Snapshot snapshot) {
+        System.out.printf("%-16s %8d %8.1fms %8.1fms %8.1fms %8.1fms%n", label, snapshot.getCount(),
+                snapshot.valueAt(50) / 1e6, snapshot.valueAt(90) / 1e6, snapshot.valueAt(99) / 1e6, snapshot.getMax() / 1e6);
+    }
+
+    private static String createRoom(String baseUrl, String roomName) throws Exception {
+        HttpResponse<String> response = HTTP.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/rooms"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"roomName\":\"" + roomName + "\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = ROOM_CODE.matcher(response.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("Oda oluşturulamadı: " + response.statusCode() + " " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    private static long localHeapMb() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / (1024 * 1024);
+    }
+
+    private static long remoteHeapMb(String baseUrl) {
+        try {
+            HttpResponse<String> response = HTTP.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/health")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Matcher matcher = MEMORY_MB.matcher(response.body());
+            return matcher.find() ? Long.parseLong(matcher.group(1)) : -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private static String trimSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private long think(long meanMs) {
+        return meanMs <= 0 ? 0 : ThreadLocalRandom.current().nextLong(meanMs / 2, meanMs * 3 / 2 + 1);
+    }
+
+    /**
+     * Bir odanın istemcilerini yönetir. İlk istemci reveal/reset'i yapan moderatördür.
+     * Fan-out süresi, komutun gönderilmesinden her abonenin ilgili deltayı almasına kadar ölçülür.
+     */
+    private final class RoomDriver implements StompFrameHandler {
+
+        private final String roomCode;
+        private final List<StompSession> members = new ArrayList<>();
+        private final AtomicInteger votesPending = new AtomicInteger();
+
+        private volatile long revealSentAt;
+        private volatile long resetSentAt;
+        private volatile CountDownLatch revealArrivals = new CountDownLatch(0);
+        private volatile CountDownLatch resetArrivals = new CountDownLatch(0);
+
+        private RoomDriver(String roomCode) {
+            this.roomCode = roomCode;
+        }
+
+        private void attach(StompSession session, String nickname) {
+            session.subscribe("/topic/room/" + roomCode, this);
+            send(session, "/app/join", Map.of("roomCode", roomCode, "nickname", nickname));
+            synchronized (members) {
+                members.add(session);
+            }
+        }
+
+        private void startRound() {
+            if (!running || members.isEmpty()) return;
+            votesPending.set(members.size());
+            for (StompSession member : members) {
+                scheduler.schedule(() -> vote(member), think(voteThinkMs), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void vote(StompSession member) {
+            String label = VOTES[ThreadLocalRandom.current().nextInt(VOTES.length)].getLabel();
+            send(member, "/app/vote", Map.of("roomCode", roomCode, "vote", label));
+            if (votesPending.decrementAndGet() == 0) {
+                scheduler.schedule(this::reveal, think(revealThinkMs), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void reveal() {
+            revealArrivals = new CountDownLatch(members.size());
+            revealSentAt = System.nanoTime();
+            send(members.get(0), "/app/reveal", Map.of("roomCode", roomCode));
+            scheduler.schedule(this::reset, think(resetThinkMs), TimeUnit.MILLISECONDS);
+        }
+
+        private void reset() {
+            resetArrivals = new CountDownLatch(members.size());
+            resetSentAt = System.nanoTime();
+            send(members.get(0), "/app/reset", Map.of("roomCode", roomCode));
+            scheduler.schedule(this::startRound, think(voteThinkMs) / 2, TimeUnit.MILLISECONDS);
+        }
+
+        private void send(StompSession session, String destination, Object payload) {
+            if (!running) return;
+            try {
+                session.send(destination, payload);
+                sent.increment();
+            } catch (RuntimeException e) {
+                errors.increment();
+            }
+        }
+
+        private void disconnect() {
+            members.forEach(session -> {
+                try {
+                    session.disconnect();
+                } catch (RuntimeException ignored) {
+                    // bağlantı zaten kopmuş olabilir
+                }
+            });
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return Map.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            received.increment();
+            long now = System.nanoTime();
+            Map<?, ?> delta = (Map<?, ?>) payload;
+            if (!(delta.get("changes") instanceof List<?> changes) || changes.isEmpty()) return;
+            Object type = ((Map<?, ?>) changes.get(changes.size() - 1)).get("type");
+
+            // her abone için turda bir kez sayılır; latch sıfırlandıysa bu delta ölçülmüştür
+            if (Boolean.TRUE.equals(delta.get("votesRevealed")) && countDown(revealArrivals)) {
+                if (measuring) revealLatency.record(now - revealSentAt);
+            } else if ("RESET".equals(type) && countDown(resetArrivals)) {
+                if (measuring) resetLatency.record(now - resetSentAt);
+            }
+        }
+
+        private static boolean countDown(CountDownLatch latch) {
+            synchronized (latch) {
+                if (latch.getCount() == 0) return false;
+                latch.countDown();
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package co.estimoo.backend.loadtest;
+
+import co.estimoo.backend.EstimooBackendApplication;
+import co.estimoo.backend.service.RoomService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Platform thread havuzu ile virtual thread modunu aynı senaryoda karşılaştırır.
+ * Uygulamayı loopback üzerinde her mod için ayrı başlatır, N STOMP bağlantısı açar,
+ * tüm odalarda aynı anda reveal yapıp fan-out gecikmesini ölçer.
+ * <p>
+ * Çalıştırma: {@code mvn -Ploadtest verify -DskipTests -Dloadtest.main=co.estimoo.backend.loadtest.ThreadModeComparison
+ * -Dloadtest.args="-Dconnections=5000,10000"}
+ * <p>
+ * Not: istemci ve sunucu aynı JVM'de olduğundan 10k bağlantı ~20k dosya tanımlayıcısı ister;
+ * limit yetmiyorsa sunucuyu ayrı başlatıp {@code -Durl=ws://host:8080/ws/websocket -Dmode=external} ile ölçün.
+ */
+public final class ThreadModeComparison {
+
+    private static final int MAX_PENDING_CONNECTS = 200;
+    private static final HttpClient HTTP = HttpClient.newHttpClient();
+    private static final Pattern ROOM_CODE = Pattern.compile("\"roomCode\"\\s*:\\s*\"([^\"]+)\"");
+
+    private ThreadModeComparison() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // devtools classpath'teyse main'i ayrı bir thread'de yeniden başlatmaya çalışır
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        int[] connectionCounts = Arrays.stream(System.getProperty("connections", "5000,10000").split(","))
+                .mapToInt(value -> Integer.parseInt(value.trim()))
+                .toArray();
+        int roomSize = Integer.getInteger("roomSize", 50);
+        int rounds = Integer.getInteger("rounds", 5);
+        String mode = System.getProperty("mode", "both");
+
+        List<Result> results = new ArrayList<>();
+        for (int connections : connectionCounts) {
+            if (mode.equals("external")) {
+                results.add(run("external", System.getProperty("url"), null, connections, roomSize, rounds));
+                continue;
+            }
+            if (!mode.equals("virtual")) {
+                results.add(runInProcess(false, connections, roomSize, rounds));
+            }
+            if (!mode.equals("platform")) {
+                results.add(runInProcess(true, connections, roomSize, rounds));
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-9s %7s %12s %12s %12s %12s %12s %9s %9s%n",
+                "mode", "conns", "connect p50", "connect p99", "fanout p50", "fanout p99", "fanout max", "threads", "heapMB");
+        for (Result result : results) {
+            System.out.printf("%-9s %7d %10.1fms %10.1fms %10.1fms %10.1fms %10.1fms %9d %9d%n",
+                    result.mode, result.connections,
+                    result.connectP50Ms, result.connectP99Ms,
+                    result.fanoutP50Ms, result.fanoutP99Ms, result.fanoutMaxMs,
+                    result.peakThreads, result.heapUsedMb);
+        }
+    }
+
+    private static Result runInProcess(boolean virtual, int connections, int roomSize, int rounds) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(EstimooBackendApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--server.address=127.0.0.1",
+                        "--server.tomcat.max-connections=" + (connections + 1000),
+                        "--server.tomcat.accept-count=" + MAX_PENDING_CONNECTS,
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--logging.level.co.estimoo.backend=WARN");
+        try {
+            String url = "ws://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port") + "/ws/websocket";
+            return run(virtual ? "virtual" : "platform", url, context.getBean(RoomService.class), connections, roomSize, rounds);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Result run(String mode, String url, RoomService roomService, int connections, int roomSize, int rounds)
+            throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        int roomCount = (connections + roomSize - 1) / roomSize;
+        String[] roomCodes = new String[roomCount];
+        for (int i = 0; i < roomCount; i++) {
+            roomCodes[i] = roomService != null ? roomService.createRoom("load-" + i).getRoomCode()
+                    : createRoomRemote(url, "load-" + i);
+        }
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+
+        RoomProbe[] probes = new RoomProbe[roomCount];
+        for (int i = 0; i < roomCount; i++) {
+            probes[i] = new RoomProbe(roomCodes[i]);
+        }
+
+        // bağlantı kurulumu; aynı anda en fazla MAX_PENDING_CONNECTS el sıkışma
+        Semaphore pendingConnects = new Semaphore(MAX_PENDING_CONNECTS);
+        long[] connectNanos = new long[connections];
+        List<CompletableFuture<StompSession>> futures = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            RoomProbe probe = probes[i / roomSize];
+            int index = i;
+            pendingConnects.acquire();
+            long start = System.nanoTime();
+            CompletableFuture<StompSession> future = stompClient.connectAsync(url + "?token=lt-" + i,
+                    new StompSessionHandlerAdapter() {
+                    });
+            futures.add(future.whenComplete((session, error) -> {
+                pendingConnects.release();
+                connectNanos[index] = System.nanoTime() - start;
+                if (session != null) {
+                    session.subscribe("/topic/room/" + probe.roomCode, probe);
+                    session.send("/app/join", Map.of("roomCode", probe.roomCode, "nickname", "user-" + index));
+                    probe.members.add(session);
+                }
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.MINUTES);
+        Thread.sleep(2_000); // join deltaları ve coalesce penceresi otursun
+
+        List<Long> fanoutNanos = new ArrayList<>();
+        for (int round = 0; round < rounds; round++) {
+            for (RoomProbe probe : probes) {
+                probe.arm(probe.members.size());
+            }
+            for (RoomProbe probe : probes) {
+                probe.sentAt = System.nanoTime();
+                probe.members.peek().send("/app/reveal", Map.of("roomCode", probe.roomCode));
+            }
+            for (RoomProbe probe : probes) {
+                probe.await();
+                fanoutNanos.addAll(probe.latencies);
+            }
+            for (RoomProbe probe : probes) {
+                probe.members.peek().send("/app/reset", Map.of("roomCode", probe.roomCode));
+            }
+            Thread.sleep(500);
+        }
+
+        long heapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        int peakThreads = threads.getPeakThreadCount();
+
+        for (RoomProbe probe : probes) {
+            probe.members.forEach(StompSession::disconnect);
+        }
+        stompClient.stop();
+
+        Result result = new Result();
+        result.mode = mode;
+        result.connections = connections;
+        long[] connectSorted = Arrays.stream(connectNanos).sorted().toArray();
+        long[] fanoutSorted = fanoutNanos.stream().mapToLong(Long::longValue).sorted().toArray();
+        result.connectP50Ms = percentileMs(connectSorted, 0.50);
+        result.connectP99Ms = percentileMs(connectSorted, 0.99);
+        result.fanoutP50Ms = percentileMs(fanoutSorted, 0.50);
+        result.fanoutP99Ms = percentileMs(fanoutSorted, 0.99);
+        result.fanoutMaxMs = percentileMs(fanoutSorted, 1.0);
+        result.peakThreads = peakThreads;
+        result.heapUsedMb = heapUsed / (1024 * 1024);
+        return result;
+    }
+
+    /**
+     * Harici sunucuda REST ile oda açar; ws://host:port/ws/websocket → http://host:port/api/rooms
+     */
+    private static String createRoomRemote(String wsUrl, String roomName) throws Exception {
+        URI ws = URI.create(wsUrl);
+        String scheme = ws.getScheme().equals("wss") ? "https" : "http";
+        URI api = new URI(scheme, null, ws.getHost(), ws.getPort(), "/api/rooms", null, null);
+
+        HttpResponse<String> response = HTTP.send(HttpRequest.newBuilder(api)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"roomName\":\"" + roomName + "\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = ROOM_CODE.matcher(response.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("Oda oluşturulamadı: " + response.statusCode() + " " + response.body());
+        }
+        return matcher.group(1);
+    }
+
+    private static double percentileMs(long[] sorted, double percentile) {
+        if (sorted.length == 0) return Double.NaN;
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    /**
+     * Bir odanın abonelerine reveal deltasının ulaşma sürelerini toplar.
+     */
+    private static final class RoomProbe implements StompFrameHandler {
+        private final String roomCode;
+        private final Queue<StompSession> members = new ConcurrentLinkedQueue<>();
+        private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private volatile CountDownLatch revealed = new CountDownLatch(0);
+        private volatile long sentAt;
+
+        private RoomProbe(String roomCode) {
+            this.roomCode = roomCode;
+        }
+
+        private void arm(int subscribers) {
+            latencies.clear();
+            revealed = new CountDownLatch(subscribers);
+        }
+
+        private void await() throws InterruptedException {
+            if (!revealed.await(30, TimeUnit.SECONDS)) {
+                System.err.printf("Oda %s: %d abone reveal almadı%n", roomCode, revealed.getCount());
+            }
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return Map.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            if (Boolean.TRUE.equals(((Map<?, ?>) payload).get("votesRevealed"))) {
+                latencies.add(System.nanoTime() - sentAt);
+                revealed.countDown();
+            }
+        }
+    }
+
+    private static final class Result {
+        private String mode;
+        private int connections;
+        private double connectP50Ms;
+        private double connectP99Ms;
+        private double fanoutP50Ms;
+        private double fanoutP99Ms;
+        private double fanoutMaxMs;
+        private int peakThreads;
+        private long heapUsedMb;
+    }
+}
@@ -0,0 +1,50 @@
+package co.estimoo.backend.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void indexOf_BucketBoundsCoverEveryValue() {
+        int previous = -1;
+        for (long value = 0; value < 1 << 20; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index == previous || index == previous + 1, "value=" + value);
+            assertTrue(value <= LatencyHistogram.highestValueAt(index));
+            previous = index;
+        }
+    }
+
+    @Test
+    void valueAt_WithinRelativeErrorOfExactPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = ThreadLocalRandom.current().nextLong(1_000, 50_000_000);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(values.length, snapshot.getCount());
+        assertEquals(values[values.length - 1], snapshot.getMax());
+        for (double percentile : new double[]{50, 90, 99}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long reported = snapshot.valueAt(percentile);
+            assertTrue(reported >= exact && reported <= exact * 1.04, percentile + ": " + exact + " vs " + reported);
+        }
+    }
+
+    @Test
+    void snapshot_EmptyHistogramReportsZero() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.valueAt(99));
+        assertEquals(0, snapshot.getMean());
+    }
+}
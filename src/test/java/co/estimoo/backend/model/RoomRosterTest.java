@@ -0,0 +1,117 @@
+package co.estimoo.backend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomRosterTest {
+
+    @Test
+    void putAndRemove_KeepsJoinOrderAndTally() {
+        RoomRoster roster = new RoomRoster();
+        for (int i = 1; i <= 6; i++) {
+            roster.put("s" + i, "User" + i, i % 2 == 0 ? VoteValue.FIVE : null, i);
+        }
+        assertEquals(6, roster.getParticipants());
+        assertEquals(3, roster.getVoted());
+
+        UserSession removed = roster.remove("s2");
+        assertEquals("User2", removed.getNickname());
+        assertEquals(VoteValue.FIVE, removed.getVote());
+        assertNull(roster.remove("s2"));
+
+        assertEquals(List.of(1, 3, 4, 5, 6), roster.list().stream().map(UserSession::getParticipantId).toList());
+        assertEquals(2, roster.getVoted());
+        assertEquals(2, roster.count(VoteValue.FIVE));
+
+        // aynı oturum tekrar eklenince slotu ve sırası korunur, eski oyu sayımdan düşer
+        UserSession previous = roster.put("s4", "Renamed", null, 4);
+        assertEquals("User4", previous.getNickname());
+        assertEquals("Renamed", roster.list().get(2).getNickname());
+        assertEquals(1, roster.getVoted());
+    }
+
+    @Test
+    void view_ReadsAndWritesThroughToRoster() {
+        RoomRoster roster = new RoomRoster();
+        roster.put("a", "User1", null, 1);
+        roster.put("b", "User2", null, 2);
+
+        UserSession b = roster.get("b");
+        b.setVote(VoteValue.EIGHT);
+        assertEquals(VoteValue.EIGHT, roster.get("b").getVote());
+        assertEquals(1, roster.count(VoteValue.EIGHT));
+
+        // önündeki slot silinse de görünüm aynı katılımcıyı izler
+        roster.remove("a");
+        roster.setVote("b", VoteValue.THREE);
+        assertEquals(VoteValue.THREE, b.getVote());
+        assertEquals(0, roster.count(VoteValue.EIGHT));
+
+        roster.clearVotes();
+        assertNull(b.getVote());
+        assertEquals(0, roster.getVoted());
+        assertFalse(roster.isComplete());
+
+        // odadan çıkan katılımcının görünümü sayımı etkilemez
+        roster.remove("b");
+        b.setVote(VoteValue.ONE);
+        assertEquals(VoteValue.ONE, b.getVote());
+        assertEquals(0, roster.getVoted());
+        b.setSessionId("c");
+        assertEquals("c", b.getSessionId());
+        assertEquals(0, roster.size());
+    }
+
+    @Test
+    void setSessionId_RekeysParticipantInPlace() {
+        RoomRoster roster = new RoomRoster();
+        roster.put("a", "User1", VoteValue.FIVE, 1);
+        roster.put("b", "User2", VoteValue.EIGHT, 2);
+        roster.put("c", "User3", null, 3);
+
+        UserSession c = roster.get("c");
+        c.setSessionId("d");
+        assertFalse(roster.contains("c"));
+        assertEquals(3, roster.get("d").getParticipantId());
+        assertEquals(List.of("a", "b", "d"), roster.list().stream().map(UserSession::getSessionId).toList());
+
+        // başka bir katılımcının kimliğine taşınan kayıt onun yerine geçer, sayım da güncellenir
+        c.setSessionId("a");
+        assertEquals(List.of("b", "a"), roster.list().stream().map(UserSession::getSessionId).toList());
+        assertEquals("User3", roster.get("a").getNickname());
+        assertEquals(0, roster.count(VoteValue.FIVE));
+        assertEquals(1, roster.getVoted());
+
+        c.setVote(VoteValue.THREE);
+        assertEquals(VoteValue.THREE, roster.get("a").getVote());
+        assertFalse(roster.rekey("x", "y"));
+    }
+
+    @Test
+    void asMap_BehavesLikeUserMap() {
+        Room room = new Room();
+        Map<String, UserSession> users = room.getUsers();
+        users.put("a", new UserSession("a", "User1", VoteValue.FIVE, 1));
+        users.put("b", new UserSession("b", "User2", VoteValue.FIVE, 2));
+
+        assertTrue(users.containsKey("a"));
+        assertTrue(room.getTally().isComplete());
+        assertEquals(Map.of("5", 2), room.getTally().stats().getDistribution());
+
+        // yineleme kopya üzerindedir; yinelerken silmek hata vermez
+        for (UserSession user : users.values()) {
+            if (user.getParticipantId() == 1) users.remove(user.getSessionId());
+        }
+        users.entrySet().removeIf(entry -> entry.getValue().getVote() == null);
+        assertEquals(Map.of("b", new UserSession("b", "User2", VoteValue.FIVE, 2)), Map.copyOf(users));
+
+        room.setUsers(Map.of("c", new UserSession("c", "User3", null, 3)));
+        assertEquals(1, users.size());
+        assertNull(users.get("b"));
+        assertEquals(0, room.getTally().getVoted());
+    }
+}
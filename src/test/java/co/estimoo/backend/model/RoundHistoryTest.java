@@ -0,0 +1,55 @@
+package co.estimoo.backend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoundHistoryTest {
+
+    @Test
+    void archiveRound_RecordsVotersInJoinOrder() {
+        Room room = new Room();
+        room.getUsers().put("a", new UserSession("a", "Ali", VoteValue.FIVE, 1));
+        room.getUsers().put("b", new UserSession("b", "Ayşe", null, 2));
+        room.getUsers().put("c", new UserSession("c", "Can", VoteValue.COFFEE, 3));
+
+        room.archiveRound(1_000, 10);
+
+        List<RoundHistory.Round> rounds = room.getHistory().snapshot();
+        assertEquals(1, rounds.size());
+        RoundHistory.Round round = rounds.get(0);
+        assertEquals(1, round.number());
+        assertEquals(1_000, round.completedAt());
+        assertEquals(2, round.voteCount());
+        assertEquals(1, round.participantId(0));
+        assertEquals(VoteValue.FIVE, round.vote(0));
+        assertEquals(3, round.participantId(1));
+        assertEquals(VoteValue.COFFEE, round.vote(1));
+    }
+
+    @Test
+    void record_WhenFull_OverwritesOldestAndKeepsRoundNumbers() {
+        RoundHistory history = new RoundHistory();
+        for (int i = 1; i <= 5; i++) {
+            history.record(i, new int[]{RoundHistory.pack(i, VoteValue.THIRTEEN)}, 3);
+        }
+
+        List<RoundHistory.Round> rounds = history.snapshot();
+        assertEquals(3, history.size());
+        assertEquals(List.of(3L, 4L, 5L), rounds.stream().map(RoundHistory.Round::number).toList());
+        assertEquals(List.of(3L, 4L, 5L), rounds.stream().map(RoundHistory.Round::completedAt).toList());
+        assertEquals(5, rounds.get(2).participantId(0));
+        assertEquals(VoteValue.THIRTEEN, rounds.get(2).vote(0));
+    }
+
+    @Test
+    void record_ZeroCapacity_KeepsNothing() {
+        RoundHistory history = new RoundHistory();
+        history.record(1, new int[0], 0);
+
+        assertEquals(0, history.size());
+        assertTrue(history.snapshot().isEmpty());
+    }
+}
@@ -0,0 +1,44 @@
+package co.estimoo.backend.raw;
+
+import co.estimoo.backend.model.VoteValue;
+import co.estimoo.backend.raw.RawRoomProtocol.Command;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RawRoomProtocolTest {
+
+    @Test
+    void decode_RoundTripsEveryCommand() {
+        Command join = RawRoomProtocol.decode(ByteBuffer.wrap(RawRoomProtocol.join("ABC123", "Şule")));
+        assertEquals(new Command(RawRoomProtocol.JOIN, "ABC123", "Şule", null), join);
+
+        Command vote = RawRoomProtocol.decode(ByteBuffer.wrap(RawRoomProtocol.vote("ABC123", VoteValue.COFFEE)));
+        assertEquals(new Command(RawRoomProtocol.VOTE, "ABC123", null, VoteValue.COFFEE), vote);
+
+        for (byte opcode : new byte[]{RawRoomProtocol.REVEAL, RawRoomProtocol.RESET, RawRoomProtocol.SUBSCRIBE, RawRoomProtocol.UNSUBSCRIBE}) {
+            Command command = RawRoomProtocol.decode(ByteBuffer.wrap(RawRoomProtocol.command(opcode, "ABC123")));
+            assertEquals(new Command(opcode, "ABC123", null, null), command);
+        }
+
+        // opcode + uzunluk + 6 baytlık oda kodu; aynı komutun STOMP SEND frame'i ~70 bayt
+        assertEquals(8, RawRoomProtocol.command(RawRoomProtocol.REVEAL, "ABC123").length);
+    }
+
+    @Test
+    void decode_MalformedFrames_Throw() {
+        assertThrows(IllegalArgumentException.class, () -> RawRoomProtocol.decode(ByteBuffer.allocate(0)));
+        // bilinmeyen opcode
+        assertThrows(IllegalArgumentException.class, () -> RawRoomProtocol.decode(ByteBuffer.wrap(new byte[]{0x42, 1, 'A'})));
+        // uzunluk frame'den büyük
+        assertThrows(IllegalArgumentException.class, () -> RawRoomProtocol.decode(ByteBuffer.wrap(new byte[]{RawRoomProtocol.RESET, 9, 'A'})));
+        // boş oda kodu
+        assertThrows(IllegalArgumentException.class, () -> RawRoomProtocol.decode(ByteBuffer.wrap(new byte[]{RawRoomProtocol.RESET, 0})));
+        // oy sırası aralık dışında
+        assertThrows(IllegalArgumentException.class, () -> RawRoomProtocol.decode(ByteBuffer.wrap(new byte[]{RawRoomProtocol.VOTE, 1, 'A', 100})));
+        // fazla bayt
+        assertThrows(IllegalArgumentException.class, () -> RawRoomProtocol.decode(ByteBuffer.wrap(new byte[]{RawRoomProtocol.RESET, 1, 'A', 0})));
+    }
+}
@@ -0,0 +1,192 @@
+package co.estimoo.backend.raw;
+
+import co.estimoo.backend.cluster.ClusterNode;
+import co.estimoo.backend.dto.RoomBinaryCodec;
+import co.estimoo.backend.dto.RoomDeltaMessage;
+import co.estimoo.backend.dto.RoomDeltaMessage.ChangeType;
+import co.estimoo.backend.dto.RoomStateMessage;
+import co.estimoo.backend.dto.RoomWireFormat;
+import co.estimoo.backend.flow.InboundRateLimiter;
+import co.estimoo.backend.flow.RateLimitPolicy;
+import co.estimoo.backend.metrics.LatencyMetrics;
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.VoteValue;
+import co.estimoo.backend.resource.RoomWsController;
+import co.estimoo.backend.resume.ResumeTokens;
+import co.estimoo.backend.resume.SessionResumption;
+import co.estimoo.backend.service.RoomBroadcaster;
+import co.estimoo.backend.service.RoomCommandExecutor;
+import co.estimoo.backend.service.RoomPresenceTracker;
+import co.estimoo.backend.service.RoomService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.quality.Strictness;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RawRoomSocketHandlerTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private MessageChannel clientOutboundChannel;
+
+    @Mock
+    private ClusterNode clusterNode;
+
+    @Captor
+    private ArgumentCaptor<Message<byte[]>> published;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RoomService roomService;
+    private RawRoomSubscriptions subscriptions;
+    private RawRoomSocketHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        roomService = new RoomService();
+        RoomBroadcaster broadcaster = new RoomBroadcaster(messagingTemplate, clientOutboundChannel, objectMapper);
+        RoomCommandExecutor roomExecutor = new RoomCommandExecutor(16, Runnable::run);
+        RoomPresenceTracker presence = new RoomPresenceTracker(roomService, broadcaster, roomExecutor, clusterNode, 0);
+        RoomWsController controller = new RoomWsController(roomService, broadcaster, roomExecutor, clusterNode,
+                new LatencyMetrics(), presence,
+                new SessionResumption(messagingTemplate, new ResumeTokens(new byte[32], 900_000, System::currentTimeMillis)));
+        subscriptions = new RawRoomSubscriptions(objectMapper);
+        broadcaster.setAudience(code -> subscriptions.hasSubscribers(code) ? Set.of(RoomWireFormat.BINARY) : Set.of());
+        handler = new RawRoomSocketHandler(controller, roomService, broadcaster, roomExecutor, clusterNode, presence, subscriptions,
+                new InboundRateLimiter(roomService, true, new RateLimitPolicy(20, 10), new RateLimitPolicy(200, 100)));
+    }
+
+    @Test
+    void join_SendsSnapshotThenDeliversBinaryDeltaFromBroker() throws Exception {
+        Room room = roomService.createRoom("Ham");
+        WebSocketSession session = session("ws-1", "alice");
+        handler.afterConnectionEstablished(session);
+
+        handler.handleMessage(session, new BinaryMessage(RawRoomProtocol.join(room.getRoomCode(), "Alice")));
+
+        assertTrue(room.getUsers().containsKey("alice"));
+        // broker'ın ham aboneye ilettiği mesaj: yayıncının hazırladığı ikili delta kullanılır
+        verify(messagingTemplate).send(eq("/topic/room/" + room.getRoomCode()), published.capture());
+        subscriptions.handleMessage(toBroker(room.getRoomCode(), published.getValue()));
+
+        List<byte[]> frames = sentFrames(session);
+        assertEquals(2, frames.size());
+        RoomStateMessage state = (RoomStateMessage) RoomBinaryCodec.decode(frames.get(0));
+        assertEquals(0, state.getVersion());
+        RoomDeltaMessage delta = (RoomDeltaMessage) RoomBinaryCodec.decode(frames.get(1));
+        assertEquals(ChangeType.JOINED, delta.getChanges().get(0).getType());
+        assertEquals("Alice", delta.getChanges().get(0).getNickname());
+        assertEquals(0, subscriptions.getDeltasTranscoded());
+    }
+
+    @Test
+    void relayedJsonDelta_IsTranscodedForRawSubscribers() throws Exception {
+        Room room = roomService.createRoom("Aktarılan");
+        WebSocketSession session = session("ws-1", "alice");
+        handler.afterConnectionEstablished(session);
+        handler.handleMessage(session, new BinaryMessage(RawRoomProtocol.command(RawRoomProtocol.SUBSCRIBE, room.getRoomCode())));
+
+        RoomDeltaMessage relayed = new RoomDeltaMessage();
+        relayed.setBaseVersion(0);
+        relayed.setVersion(1);
+        relayed.setChanges(List.of(new RoomDeltaMessage.Change(ChangeType.VOTED, 3, null, null)));
+        subscriptions.handleMessage(toBroker(room.getRoomCode(), MessageBuilder.withPayload(objectMapper.writeValueAsBytes(relayed)).build()));
+
+        List<byte[]> frames = sentFrames(session);
+        assertEquals(2, frames.size());
+        assertEquals(relayed.getChanges(), ((RoomDeltaMessage) RoomBinaryCodec.decode(frames.get(1))).getChanges());
+        assertEquals(1, subscriptions.getDeltasTranscoded());
+    }
+
+    @Test
+    void voteAndClose_SharesRoomStateAndLeavesRoom() throws Exception {
+        Room room = roomService.createRoom("Ortak");
+        WebSocketSession session = session("ws-1", "alice");
+        handler.afterConnectionEstablished(session);
+        handler.handleMessage(session, new BinaryMessage(RawRoomProtocol.join(room.getRoomCode(), "Alice")));
+        handler.handleMessage(session, new BinaryMessage(RawRoomProtocol.vote(room.getRoomCode(), VoteValue.EIGHT)));
+        handler.handleMessage(session, new BinaryMessage(RawRoomProtocol.command(RawRoomProtocol.REVEAL, room.getRoomCode())));
+
+        assertEquals(VoteValue.EIGHT, room.getUsers().get("alice").getVote());
+        assertTrue(room.isVotesRevealed());
+        assertTrue(subscriptions.hasSubscribers(room.getRoomCode()));
+
+        handler.afterConnectionClosed(session, CloseStatus.GOING_AWAY);
+
+        assertFalse(room.getUsers().containsKey("alice"));
+        assertFalse(subscriptions.hasSubscribers(room.getRoomCode()));
+        assertEquals(0, handler.getConnectionCount());
+    }
+
+    @Test
+    void malformedFrameOrMissingToken_ClosesConnection() throws Exception {
+        WebSocketSession session = session("ws-1", "alice");
+        handler.afterConnectionEstablished(session);
+        handler.handleMessage(session, new BinaryMessage(new byte[]{0x42}));
+        verify(session).close(CloseStatus.BAD_DATA);
+
+        WebSocketSession anonymous = session("ws-2", null);
+        handler.afterConnectionEstablished(anonymous);
+        verify(anonymous).close(any(CloseStatus.class));
+        assertEquals(1, handler.getConnectionCount());
+    }
+
+    private static WebSocketSession session(String id, String token) {
+        WebSocketSession session = mock(WebSocketSession.class, withSettings().strictness(Strictness.LENIENT));
+        Map<String, Object> attributes = new HashMap<>();
+        if (token != null) attributes.put("sessionId", token);
+        when(session.getId()).thenReturn(id);
+        when(session.getAttributes()).thenReturn(attributes);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    private static List<byte[]> sentFrames(WebSocketSession session) throws Exception {
+        ArgumentCaptor<BinaryMessage> captor = ArgumentCaptor.forClass(BinaryMessage.class);
+        verify(session, atLeastOnce()).sendMessage(captor.capture());
+        List<byte[]> frames = new ArrayList<>();
+        for (BinaryMessage message : captor.getAllValues()) {
+            ByteBuffer payload = message.getPayload();
+            byte[] frame = new byte[payload.remaining()];
+            payload.get(frame);
+            frames.add(frame);
+        }
+        return frames;
+    }
+
+    // SimpMessagingTemplate'in broker kanalına koyduğu mesaj: hedef ve tür header'ı eklenmiş hali
+    private static Message<byte[]> toBroker(String roomCode, Message<byte[]> message) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.copyHeaders(message.getHeaders());
+        accessor.setDestination(RoomBroadcaster.ROOM_TOPIC_PREFIX + roomCode);
+        return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+    }
+}
@@ -1,20 +1,36 @@
 package co.estimoo.backend.resource;
 
+import co.estimoo.backend.cluster.ClusterNode;
+import co.estimoo.backend.dto.RoomStatus;
 import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import co.estimoo.backend.model.VoteValue;
+import co.estimoo.backend.service.RoomBroadcaster;
 import co.estimoo.backend.service.RoomService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -24,16 +40,22 @@ class RoomRestResourceTest {
     @Mock
     private RoomService roomService;
 
-    @InjectMocks
-    private RoomRestResource roomRestResource;
+    @Mock
+    private RoomBroadcaster roomBroadcaster;
+
+    @Mock
+    private ClusterNode clusterNode;
 
     private MockMvc mockMvc;
-    private ObjectMapper objectMapper;
 
     @BeforeEach
     void setUp() {
+        // Spring Boot'un varsayılanı: tarihler ISO metin
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        RoomRestResource roomRestResource = new RoomRestResource(roomService, roomBroadcaster, clusterNode, objectMapper);
         mockMvc = MockMvcBuilders.standaloneSetup(roomRestResource).build();
-        objectMapper = new ObjectMapper();
     }
 
     @Test
@@ -47,7 +69,7 @@ class RoomRestResourceTest {
         when(roomService.createRoom(roomName)).thenReturn(expectedRoom);
 
         // When & Then
-        mockMvc.perform(post("/rooms")
+        mockMvc.perform(post("/api/rooms")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"roomName\":\"Deneme\"}"))
                 .andExpect(status().isOk())
@@ -61,29 +83,65 @@ class RoomRestResourceTest {
     }
 
     @Test
-    void getRoom_WithValidRoomCode_ShouldReturnRoom() throws Exception {
+    void getRoom_WithValidRoomCode_ShouldReturnSummary() throws Exception {
         String roomCode = "ABC123";
         Room expectedRoom = new Room();
         expectedRoom.setRoomCode(roomCode);
+        expectedRoom.getUsers().put("secret-session", new UserSession("secret-session", "Ali", VoteValue.FIVE, 1));
+        expectedRoom.nextVersion();
 
         when(roomService.getRoom(roomCode)).thenReturn(expectedRoom);
 
-        mockMvc.perform(get("/rooms/{roomCode}", roomCode))
+        mockMvc.perform(get("/api/rooms/{roomCode}", roomCode))
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag(expectedRoom, 1)))
+                .andExpect(header().string("Cache-Control", "no-cache"))
                 .andExpect(jsonPath("$.roomCode").value(roomCode))
-                .andExpect(jsonPath("$.users").exists())
+                .andExpect(jsonPath("$.version").value(1))
+                .andExpect(jsonPath("$.participants").value(1))
+                .andExpect(jsonPath("$.voted").value(1))
                 .andExpect(jsonPath("$.votesRevealed").value(false))
-                .andExpect(jsonPath("$.lastActivity").exists());
+                .andExpect(jsonPath("$.users").doesNotExist())
+                .andExpect(content().string(not(containsString("secret-session"))));
 
         verify(roomService, times(1)).getRoom(roomCode);
     }
 
+    @Test
+    void getRoom_WithCurrentETag_ShouldReturn304WithoutBody() throws Exception {
+        Room room = new Room();
+        room.setRoomCode("ABC123");
+        room.nextVersion();
+        room.nextVersion();
+        when(roomService.getRoom("ABC123")).thenReturn(room);
+
+        mockMvc.perform(get("/api/rooms/{roomCode}", "ABC123").header("If-None-Match", etag(room, 2)))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag(room, 2)))
+                .andExpect(content().string(""));
+
+        // versiyon değişince eski ETag tam yanıt alır
+        room.nextVersion();
+        mockMvc.perform(get("/api/rooms/{roomCode}", "ABC123").header("If-None-Match", etag(room, 2)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag(room, 3)));
+
+        // aynı koda aynı versiyonda açılmış başka bir oda eski ETag'le 304 vermez
+        Room reopened = new Room();
+        reopened.setRoomCode("ABC123");
+        reopened.restoreCounters(3, 0);
+        when(roomService.getRoom("ABC123")).thenReturn(reopened);
+        mockMvc.perform(get("/api/rooms/{roomCode}", "ABC123").header("If-None-Match", etag(room, 3)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag(reopened, 3)));
+    }
+
     @Test
     void getRoom_WithNonExistentRoomCode_ShouldReturn404() throws Exception {
         String roomCode = "NONEXISTENT";
         when(roomService.getRoom(roomCode)).thenReturn(null);
 
-        mockMvc.perform(get("/rooms/{roomCode}", roomCode))
+        mockMvc.perform(get("/api/rooms/{roomCode}", roomCode))
                 .andExpect(status().isNotFound());
 
         verify(roomService, times(1)).getRoom(roomCode);
@@ -93,7 +151,7 @@ class RoomRestResourceTest {
     void createRoom_ShouldHandleServiceException() throws Exception {
         when(roomService.createRoom("Deneme")).thenThrow(new RuntimeException("Service error"));
 
-        mockMvc.perform(post("/rooms")
+        mockMvc.perform(post("/api/rooms")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content("{\"roomName\":\"Deneme\"}"))
                 .andExpect(status().isInternalServerError());
@@ -106,9 +164,224 @@ class RoomRestResourceTest {
         String roomCode = "ABC123";
         when(roomService.getRoom(roomCode)).thenThrow(new RuntimeException("Service error"));
 
-        mockMvc.perform(get("/rooms/{roomCode}", roomCode))
+        mockMvc.perform(get("/api/rooms/{roomCode}", roomCode))
                 .andExpect(status().isInternalServerError());
 
         verify(roomService, times(1)).getRoom(roomCode);
     }
+
+    @Test
+    void getRoomState_ShouldReturnEncodedSnapshot() throws Exception {
+        String roomCode = "ABC123";
+        Room room = new Room();
+        room.setRoomCode(roomCode);
+        byte[] payload = "{\"users\":[],\"votesRevealed\":false,\"version\":3}".getBytes();
+
+        when(roomService.getRoom(roomCode)).thenReturn(room);
+        when(roomBroadcaster.encodedSnapshot(room)).thenReturn(payload);
+
+        mockMvc.perform(get("/api/rooms/{roomCode}/state", roomCode))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.version").value(3));
+    }
+
+    @Test
+    void getRoomState_WithCurrentETag_ShouldReturn304() throws Exception {
+        Room room = new Room();
+        room.setRoomCode("ABC123");
+        when(roomService.getRoom("ABC123")).thenReturn(room);
+
+        mockMvc.perform(get("/api/rooms/{roomCode}/state", "ABC123").header("If-None-Match", etag(room, 0)))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void roomExists_ShouldReturn204WithoutBody() throws Exception {
+        when(roomService.getRoom("ABC123")).thenReturn(new Room());
+
+        mockMvc.perform(get("/api/rooms/{roomCode}/exists", "ABC123"))
+                .andExpect(status().isNoContent())
+                .andExpect(content().string(""));
+        mockMvc.perform(head("/api/rooms/{roomCode}/exists", "ABC123"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void roomExists_WithNonExistentRoomCode_ShouldReturn404() throws Exception {
+        when(roomService.getRoom("NONEXISTENT")).thenReturn(null);
+
+        mockMvc.perform(head("/api/rooms/{roomCode}/exists", "NONEXISTENT"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void createRooms_ShouldCreateEachRoomAndStreamSummaries() throws Exception {
+        when(roomService.createRoom(anyString())).thenAnswer(invocation -> {
+            Room room = new Room();
+            room.setRoomCode("CODE-" + invocation.getArgument(0));
+            room.setRoomName(invocation.getArgument(0));
+            return room;
+        });
+
+        MvcResult pending = mockMvc.perform(post("/api/rooms/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"roomName\":\"A\"},{\"roomName\":\"B\"}]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].roomCode").value("CODE-A"))
+                .andExpect(jsonPath("$[1].roomName").value("B"))
+                .andExpect(jsonPath("$[1].exists").value(true))
+                .andExpect(jsonPath("$[1].participants").value(0))
+                .andExpect(jsonPath("$[1].lastActivity").isString());
+
+        verify(roomService).createRoom("A");
+        verify(roomService).createRoom("B");
+    }
+
+    @Test
+    void createRooms_WhenCreationFails_ShouldRemoveRoomsCreatedSoFar() throws Exception {
+        Room first = new Room();
+        first.setRoomCode("CODE-A");
+        when(roomService.createRoom("A")).thenReturn(first);
+        when(roomService.createRoom("B")).thenThrow(new IllegalStateException("kod kalmadı"));
+
+        mockMvc.perform(post("/api/rooms/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"roomName\":\"A\"},{\"roomName\":\"B\"},{\"roomName\":\"C\"}]"))
+                .andExpect(status().isInternalServerError());
+
+        verify(roomService).removeRoom("CODE-A");
+        verify(roomService, never()).createRoom("C");
+    }
+
+    @Test
+    void getRoomStatuses_ShouldReturnSummariesInRequestOrder() throws Exception {
+        Room room = new Room();
+        room.setRoomCode("ABC123");
+        room.getUsers().put("s1", new UserSession("s1", "Ali", VoteValue.FIVE, 1));
+        room.getUsers().put("s2", new UserSession("s2", "Ayşe", null, 2));
+        room.setVotesRevealed(true);
+        when(roomService.getRoom("ABC123")).thenReturn(room);
+        when(roomService.getRoom("GONE99")).thenReturn(null);
+
+        MvcResult pending = mockMvc.perform(post("/api/rooms/batch/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"GONE99\",\"ABC123\"]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].roomCode").value("GONE99"))
+                .andExpect(jsonPath("$[0].exists").value(false))
+                .andExpect(jsonPath("$[0].participants").doesNotExist())
+                .andExpect(jsonPath("$[1].roomCode").value("ABC123"))
+                .andExpect(jsonPath("$[1].participants").value(2))
+                .andExpect(jsonPath("$[1].voted").value(1))
+                .andExpect(jsonPath("$[1].votesRevealed").value(true));
+    }
+
+    @Test
+    void getRoomStatuses_InClusterMode_ShouldFillRemoteRoomsFromOwners() throws Exception {
+        RoomStatus remote = new RoomStatus();
+        remote.setRoomCode("REMOTE1");
+        remote.setExists(true);
+        remote.setParticipants(7);
+        when(clusterNode.isEnabled()).thenReturn(true);
+        when(roomService.getRoom("REMOTE1")).thenReturn(null);
+        when(clusterNode.fetchStatuses(List.of("REMOTE1"))).thenReturn(Map.of("REMOTE1", remote));
+
+        MvcResult pending = mockMvc.perform(post("/api/rooms/batch/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"REMOTE1\"]"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].exists").value(true))
+                .andExpect(jsonPath("$[0].participants").value(7));
+    }
+
+    @Test
+    void batchEndpoints_ShouldRejectOversizedOrInvalidBatches() throws Exception {
+        String tooMany = IntStream.range(0, 1001).mapToObj(i -> "\"R" + i + "\"").collect(Collectors.joining(",", "[", "]"));
+
+        mockMvc.perform(post("/api/rooms/batch/status").contentType(MediaType.APPLICATION_JSON).content(tooMany))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/rooms/batch/status").contentType(MediaType.APPLICATION_JSON).content("[null]"))
+                .andExpect(status().isBadRequest());
+        verify(roomService, never()).getRoom(anyString());
+
+        // geçersiz eleman hiçbir oda açılmadan reddedilir
+        mockMvc.perform(post("/api/rooms/batch").contentType(MediaType.APPLICATION_JSON).content("[{\"roomName\":\"A\"},null]"))
+                .andExpect(status().isBadRequest());
+        verify(roomService, never()).createRoom(any());
+    }
+
+    @Test
+    void getRoundHistory_ShouldStreamNdjsonByDefault() throws Exception {
+        Room room = roomWithHistory();
+        when(roomService.getRoom("ABC123")).thenReturn(room);
+
+        MvcResult pending = mockMvc.perform(get("/api/rooms/{roomCode}/history", "ABC123"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(
+                        "{\"round\":1,\"completedAt\":\"1970-01-01T00:00:01Z\",\"votes\":[{\"participantId\":1,\"vote\":\"5\"},{\"participantId\":2,\"vote\":\"?\"}]}\n"
+                                + "{\"round\":2,\"completedAt\":\"1970-01-01T00:00:02Z\",\"votes\":[]}\n"));
+    }
+
+    @Test
+    void getRoundHistory_AsCsv_ShouldWriteOneRowPerVote() throws Exception {
+        Room room = roomWithHistory();
+        when(roomService.getRoom("ABC123")).thenReturn(room);
+
+        MvcResult pending = mockMvc.perform(get("/api/rooms/{roomCode}/history", "ABC123").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", containsString("text/csv")))
+                .andExpect(content().string("round,completedAt,participantId,vote\n"
+                        + "1,1970-01-01T00:00:01Z,1,5\n"
+                        + "1,1970-01-01T00:00:01Z,2,?\n"
+                        + "2,1970-01-01T00:00:02Z,,\n"));
+    }
+
+    @Test
+    void getRoundHistory_ShouldRejectUnknownFormatAndMissingRoom() throws Exception {
+        when(roomService.getRoom("ABC123")).thenReturn(new Room());
+        when(roomService.getRoom("NONEXISTENT")).thenReturn(null);
+
+        mockMvc.perform(get("/api/rooms/{roomCode}/history", "ABC123").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/rooms/{roomCode}/history", "NONEXISTENT"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static Room roomWithHistory() {
+        Room room = new Room();
+        room.setRoomCode("ABC123");
+        room.getUsers().put("a", new UserSession("a", "Ali", VoteValue.FIVE, 1));
+        room.getUsers().put("b", new UserSession("b", "Ayşe", VoteValue.QUESTION, 2));
+        room.archiveRound(1_000, 10);
+        room.clearVotes();
+        room.archiveRound(2_000, 10);
+        return room;
+    }
+
+    private static String etag(Room room, long version) {
+        return "\"" + Long.toHexString(room.getInstanceId()) + "-" + version + "\"";
+    }
 }
@@ -1,21 +1,40 @@
 package co.estimoo.backend.resource;
 
+import co.estimoo.backend.cluster.ClusterEnvelope;
+import co.estimoo.backend.cluster.ClusterNode;
 import co.estimoo.backend.dto.*;
+import co.estimoo.backend.metrics.LatencyMetrics;
 import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.RoundHistory;
 import co.estimoo.backend.model.UserSession;
 import co.estimoo.backend.model.VoteValue;
+import co.estimoo.backend.resume.ResumeTokens;
+import co.estimoo.backend.resume.SessionResumption;
+import co.estimoo.backend.service.RoomBroadcaster;
+import co.estimoo.backend.service.RoomCommandExecutor;
+import co.estimoo.backend.service.RoomPresenceTracker;
 import co.estimoo.backend.service.RoomService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentMatchers;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,7 +44,6 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class RoomWsControllerTest {
 
-    @InjectMocks
     private RoomWsController roomWsController;
 
     @Mock
@@ -34,11 +52,33 @@ class RoomWsControllerTest {
     @Mock
     private SimpMessagingTemplate messagingTemplate;
 
+    @Mock
+    private MessageChannel clientOutboundChannel;
+
+    @Mock
+    private ClusterNode clusterNode;
+
+    @Captor
+    private ArgumentCaptor<Message<byte[]>> published;
+
+    private final ResumeTokens tokens = new ResumeTokens(new byte[32], 900_000, System::currentTimeMillis);
+    private RoomPresenceTracker presence;
     private Room testRoom;
     private Map<String, Object> sessionAttributes;
 
     @BeforeEach
     void setUp() {
+        RoomBroadcaster broadcaster = new RoomBroadcaster(messagingTemplate, clientOutboundChannel, new ObjectMapper());
+        RoomCommandExecutor roomExecutor = new RoomCommandExecutor(16, Runnable::run);
+        presence = new RoomPresenceTracker(roomService, broadcaster, roomExecutor, clusterNode, 0);
+        roomWsController = new RoomWsController(roomService,
+                broadcaster,
+                roomExecutor,
+                clusterNode,
+                new LatencyMetrics(),
+                presence,
+                new SessionResumption(messagingTemplate, tokens));
+
         testRoom = new Room();
         testRoom.setRoomCode("TEST123");
         testRoom.setRoomName("Test Room");
@@ -60,12 +100,102 @@ class RoomWsControllerTest {
 
         roomWsController.joinRoom(joinMessage, sessionAttributes);
 
-        verify(roomService).getRoom("TEST123");
-        verify(messagingTemplate).convertAndSend(eq("/topic/room/TEST123"), any(RoomStateMessage.class));
+        // bir kez yönlendirme kararı için, bir kez mailbox'ta güncel oda için
+        verify(roomService, times(2)).getRoom("TEST123");
+        verify(messagingTemplate).send(eq("/topic/room/TEST123"), any(Message.class));
         assertTrue(testRoom.getUsers().containsKey("session123"));
         assertEquals("TestUser", testRoom.getUsers().get("session123").getNickname());
     }
 
+    @Test
+    void testJoinRoom_ResumeWhilePresent_KeepsVoteAndSendsNothing() {
+        UserSession user = new UserSession("session123", "TestUser", VoteValue.EIGHT, 1);
+        testRoom.getUsers().put("session123", user);
+        when(roomService.getRoom("TEST123")).thenReturn(testRoom);
+        long version = testRoom.getVersion();
+
+        JoinRoomMessage joinMessage = new JoinRoomMessage();
+        joinMessage.setRoomCode("TEST123");
+        joinMessage.setNickname("TestUser");
+        joinMessage.setResumeToken(tokens.issue(testRoom, user));
+        roomWsController.joinRoom(joinMessage, sessionAttributes);
+
+        assertEquals(VoteValue.EIGHT, testRoom.getUsers().get("session123").getVote());
+        assertEquals(version, testRoom.getVersion());
+        verify(messagingTemplate, never()).send(anyString(), any(Message.class));
+        verify(roomService, never()).participantJoined(any(), any(), anyBoolean());
+    }
+
+    @Test
+    void testJoinRoom_ResumeAfterDrop_RestoresParticipantAndVote() {
+        testRoom.restoreCounters(0, 4);
+        UserSession user = new UserSession("session123", "TestUser", VoteValue.EIGHT, 4);
+        String token = tokens.issue(testRoom, user);
+        when(roomService.getRoom("TEST123")).thenReturn(testRoom);
+
+        JoinRoomMessage joinMessage = new JoinRoomMessage();
+        joinMessage.setRoomCode("TEST123");
+        joinMessage.setNickname("TestUser");
+        joinMessage.setResumeToken(token);
+        roomWsController.joinRoom(joinMessage, sessionAttributes);
+
+        UserSession restored = testRoom.getUsers().get("session123");
+        assertEquals(4, restored.getParticipantId());
+        assertEquals(VoteValue.EIGHT, restored.getVote());
+        verify(roomService).participantJoined(testRoom, restored, true);
+        verify(messagingTemplate).send(eq("/topic/room/TEST123"), any(Message.class));
+    }
+
+    @Test
+    void testJoinRoom_ResumeAfterReset_DropsStaleVote() {
+        testRoom.restoreCounters(0, 4);
+        String token = tokens.issue(testRoom, new UserSession("session123", "TestUser", VoteValue.EIGHT, 4));
+        testRoom.clearVotes();
+        when(roomService.getRoom("TEST123")).thenReturn(testRoom);
+
+        JoinRoomMessage joinMessage = new JoinRoomMessage();
+        joinMessage.setRoomCode("TEST123");
+        joinMessage.setNickname("TestUser");
+        joinMessage.setResumeToken(token);
+        roomWsController.joinRoom(joinMessage, sessionAttributes);
+
+        assertEquals(4, testRoom.getUsers().get("session123").getParticipantId());
+        assertNull(testRoom.getUsers().get("session123").getVote());
+    }
+
+    @Test
+    void testJoinRoom_ForeignResumeToken_FallsBackToJoin() {
+        UserSession other = new UserSession("other-session", "Other", VoteValue.EIGHT, 1);
+        testRoom.getUsers().put("session123", new UserSession("session123", "TestUser", VoteValue.FIVE, 2));
+        when(roomService.getRoom("TEST123")).thenReturn(testRoom);
+
+        JoinRoomMessage joinMessage = new JoinRoomMessage();
+        joinMessage.setRoomCode("TEST123");
+        joinMessage.setNickname("TestUser");
+        joinMessage.setResumeToken(tokens.issue(testRoom, other));
+        roomWsController.joinRoom(joinMessage, sessionAttributes);
+
+        // başka oturumun token'ı kabul edilmez; normal join oyu sıfırlar
+        assertNull(testRoom.getUsers().get("session123").getVote());
+        verify(messagingTemplate).send(eq("/topic/room/TEST123"), any(Message.class));
+    }
+
+    @Test
+    void testJoinRoom_MissingRoom_DoesNotTrackPresence() {
+        presence.connected("session123");
+        JoinRoomMessage joinMessage = new JoinRoomMessage();
+        joinMessage.setRoomCode("GONE99");
+        joinMessage.setNickname("TestUser");
+
+        // oda hiçbir node'da yok: join iletilemez, katılım indekslenmez
+        roomWsController.joinRoom(joinMessage, sessionAttributes);
+        presence.disconnected("ws-1", "session123");
+
+        // sadece JOIN denendi, kapanışta LEAVE planlanmadı
+        verify(clusterNode, times(1)).forward(any());
+        assertEquals(0, presence.getTrackedSessions());
+    }
+
     @Test
     void testJoinRoom_NoSessionId() {
         JoinRoomMessage joinMessage = new JoinRoomMessage();
@@ -76,7 +206,7 @@ class RoomWsControllerTest {
 
         verify(roomService, never()).getRoom(anyString());
         verify(messagingTemplate, never())
-                .convertAndSend(anyString(), ArgumentMatchers.<Object>any());
+                .send(anyString(), any(Message.class));
     }
 
     @Test
@@ -92,8 +222,8 @@ class RoomWsControllerTest {
 
         roomWsController.vote(voteMessage, sessionAttributes);
 
-        assertEquals(VoteValue.FIVE, user.getVote());
-        verify(messagingTemplate).convertAndSend(eq("/topic/room/TEST123"), any(RoomStateMessage.class));
+        assertEquals(VoteValue.FIVE, testRoom.getUsers().get("session123").getVote());
+        verify(messagingTemplate).send(eq("/topic/room/TEST123"), any(Message.class));
     }
 
     @Test
@@ -109,8 +239,8 @@ class RoomWsControllerTest {
 
         roomWsController.vote(voteMessage, sessionAttributes);
 
-        assertNull(user.getVote());
-        verify(messagingTemplate).convertAndSend(eq("/topic/room/TEST123"), any(RoomStateMessage.class));
+        assertNull(testRoom.getUsers().get("session123").getVote());
+        verify(messagingTemplate).send(eq("/topic/room/TEST123"), any(Message.class));
     }
 
     @Test
@@ -122,13 +252,13 @@ class RoomWsControllerTest {
         UserSession user = new UserSession("session123", "TestUser", null);
         testRoom.getUsers().put("session123", user);
 
-        when(roomService.getRoom("TEST123")).thenReturn(testRoom);
-
         roomWsController.vote(voteMessage, sessionAttributes);
 
-        assertNull(user.getVote());
+        // geçersiz oy oda aranmadan reddedilir
+        verify(roomService, never()).getRoom(anyString());
+        assertNull(testRoom.getUsers().get("session123").getVote());
         verify(messagingTemplate, never())
-                .convertAndSend(anyString(), ArgumentMatchers.<Object>any());
+                .send(anyString(), any(Message.class));
     }
 
     @Test
@@ -145,9 +275,9 @@ class RoomWsControllerTest {
 
         roomWsController.vote(voteMessage, sessionAttributes);
 
-        assertNull(user.getVote());
+        assertNull(testRoom.getUsers().get("session123").getVote());
         verify(messagingTemplate, never())
-                .convertAndSend(anyString(), ArgumentMatchers.<Object>any());
+                .send(anyString(), any(Message.class));
     }
 
     @Test
@@ -163,7 +293,24 @@ class RoomWsControllerTest {
         roomWsController.revealVotes(reveal);
 
         assertTrue(testRoom.isVotesRevealed());
-        verify(messagingTemplate).convertAndSend(eq("/topic/room/TEST123"), any(RoomStateMessage.class));
+        verify(messagingTemplate).send(eq("/topic/room/TEST123"), any(Message.class));
+    }
+
+    @Test
+    void testRevealVotes_AlreadyRevealed_DoesNothing() {
+        RevealMessage reveal = new RevealMessage();
+        reveal.setRoomCode("TEST123");
+        testRoom.getUsers().put("a", new UserSession("a", "User1", VoteValue.FIVE));
+        testRoom.setVotesRevealed(true);
+        long version = testRoom.getVersion();
+
+        when(roomService.getRoom("TEST123")).thenReturn(testRoom);
+
+        roomWsController.revealVotes(reveal);
+
+        assertEquals(version, testRoom.getVersion());
+        verify(roomService, never()).votesRevealed(any());
+        verify(messagingTemplate, never()).send(anyString(), any(Message.class));
     }
 
     @Test
@@ -182,8 +329,230 @@ class RoomWsControllerTest {
         roomWsController.resetVotes(reset);
 
         assertFalse(testRoom.isVotesRevealed());
-        assertNull(u1.getVote());
-        assertNull(u2.getVote());
-        verify(messagingTemplate).convertAndSend(eq("/topic/room/TEST123"), any(RoomStateMessage.class));
+        assertNull(testRoom.getUsers().get("a").getVote());
+        assertNull(testRoom.getUsers().get("b").getVote());
+        verify(messagingTemplate).send(eq("/topic/room/TEST123"), any(Message.class));
+
+        // açılmış tur geçmişe yazılır
+        List<RoundHistory.Round> history = testRoom.getHistory().snapshot();
+        assertEquals(1, history.size());
+        assertEquals(VoteValue.FIVE, history.get(0).vote(0));
+        assertEquals(VoteValue.EIGHT, history.get(0).vote(1));
+    }
+
+    @Test
+    void testResetVotes_NotRevealed_DoesNotRecordRound() {
+        ResetMessage reset = new ResetMessage();
+        reset.setRoomCode("TEST123");
+        testRoom.getUsers().put("a", new UserSession("a", "User1", VoteValue.FIVE));
+
+        when(roomService.getRoom("TEST123")).thenReturn(testRoom);
+
+        roomWsController.resetVotes(reset);
+
+        assertEquals(0, testRoom.getHistory().size());
+    }
+
+    @Test
+    void testVote_PublishesDeltaWithoutVoteValue() {
+        VoteMessage voteMessage = new VoteMessage();
+        voteMessage.setRoomCode("TEST123");
+        voteMessage.setVote("8");
+
+        testRoom.getUsers().put("session123", new UserSession("session123", "TestUser", null, 7));
+
+        when(roomService.getRoom("TEST123")).thenReturn(testRoom);
+
+        roomWsController.vote(voteMessage, sessionAttributes);
+
+        verify(messagingTemplate).send(eq("/topic/room/TEST123"), published.capture());
+
+        RoomDeltaMessage delta = delta(published.getValue());
+        assertEquals(0, delta.getBaseVersion());
+        assertEquals(1, delta.getVersion());
+        assertEquals(1, delta.getChanges().size());
+        assertEquals(RoomDeltaMessage.ChangeType.VOTED, delta.getChanges().get(0).getType());
+        assertEquals(7, delta.getChanges().get(0).getParticipantId());
+        assertNull(delta.getChanges().get(0).getVote());
+    }
+
+    @Test
+    void testJoinRoom_VersionsAreSequential() {
+        JoinRoomMessage joinMessage = new JoinRoomMessage();
+        joinMessage.setRoomCode("TEST123");
+        joinMessage.setNickname("TestUser");
+
+        when(roomService.getRoom("TEST123")).thenReturn(testRoom);
+
+        roomWsController.joinRoom(joinMessage, sessionAttributes);
+        roomWsController.joinRoom(joinMessage, Map.of("sessionId", "session456"));
+
+        verify(messagingTemplate, times(2)).send(eq("/topic/room/TEST123"), published.capture());
+
+        RoomDeltaMessage second = delta(published.getAllValues().get(1));
+        assertEquals(1, second.getBaseVersion());
+        assertEquals(2, second.getVersion());
+        assertEquals(2, testRoom.getVersion());
+        assertNotEquals(testRoom.getUsers().get("session123").getParticipantId(),
+                testRoom.getUsers().get("session456").getParticipantId());
+    }
+
+    @Test
+    void testRevealVotes_DeltaCarriesVotes() {
+        RevealMessage reveal = new RevealMessage();
+        reveal.setRoomCode("TEST123");
+
+        testRoom.getUsers().put("a", new UserSession("a", "User1", VoteValue.FIVE, 1));
+        testRoom.getUsers().put("b", new UserSession("b", "User2", null, 2));
+
+        when(roomService.getRoom("TEST123")).thenReturn(testRoom);
+
+        roomWsController.revealVotes(reveal);
+
+        verify(messagingTemplate).send(eq("/topic/room/TEST123"), published.capture());
+
+        RoomDeltaMessage delta = delta(published.getValue());
+        assertTrue(delta.isVotesRevealed());
+        assertEquals(1, delta.getChanges().size());
+        assertEquals("5", delta.getChanges().get(0).getVote());
+    }
+
+    @Test
+    void testVote_LastVoteWithAutoReveal_RevealsWithStats() {
+        ReflectionTestUtils.setField(roomWsController, "autoReveal", true);
+        when(roomService.getRoom("TEST123")).thenReturn(testRoom);
+
+        String[] votes = {"3", "5", "5"};
+        for (int i = 0; i < votes.length; i++) {
+            JoinRoomMessage join = new JoinRoomMessage();
+            join.setRoomCode("TEST123");
+            join.setNickname("User" + i);
+            roomWsController.joinRoom(join, Map.of("sessionId", "s" + i));
+        }
+        for (int i = 0; i < votes.length; i++) {
+            assertFalse(testRoom.isVotesRevealed());
+            VoteMessage vote = new VoteMessage();
+            vote.setRoomCode("TEST123");
+            vote.setVote(votes[i]);
+            roomWsController.vote(vote, Map.of("sessionId", "s" + i));
+        }
+
+        assertTrue(testRoom.isVotesRevealed());
+        assertEquals(3, testRoom.getTally().getVoted());
+        assertEquals(2, testRoom.getTally().count(VoteValue.FIVE));
+
+        verify(messagingTemplate, atLeastOnce()).send(eq("/topic/room/TEST123"), published.capture());
+        RoomDeltaMessage last = delta(published.getValue());
+        assertEquals(3, last.getChanges().size());
+        assertEquals(RoomDeltaMessage.ChangeType.REVEALED, last.getChanges().get(0).getType());
+        VoteStats stats = last.getStats();
+        assertEquals(13.0 / 3, stats.getMean(), 1e-9);
+        assertEquals(5.0, stats.getMedian());
+        assertEquals("5", stats.getMode());
+        assertEquals(2, stats.getSpread());
+        assertFalse(stats.isConsensus());
+
+        ResetMessage reset = new ResetMessage();
+        reset.setRoomCode("TEST123");
+        roomWsController.resetVotes(reset);
+        assertEquals(0, testRoom.getTally().getVoted());
+        assertEquals(3, testRoom.getTally().getParticipants());
+    }
+
+    @Test
+    void testSnapshot_SendsStateToSubscriber() throws Exception {
+        testRoom.getUsers().put("a", new UserSession("a", "User1", VoteValue.FIVE, 1));
+
+        when(roomService.getRoom("TEST123")).thenReturn(testRoom);
+
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        headers.setSessionId("ws-1");
+        headers.setSubscriptionId("sub-0");
+        headers.setDestination("/app/room/TEST123");
+
+        roomWsController.snapshot("TEST123", headers);
+
+        verify(clientOutboundChannel).send(published.capture());
+
+        SimpMessageHeaderAccessor sent = SimpMessageHeaderAccessor.wrap(published.getValue());
+        assertEquals("ws-1", sent.getSessionId());
+        assertEquals("sub-0", sent.getSubscriptionId());
+
+        RoomStateMessage state = new ObjectMapper().readValue(published.getValue().getPayload(), RoomStateMessage.class);
+        assertEquals(1, state.getUsers().size());
+        assertTrue(state.getUsers().get(0).isVoted());
+        assertNull(state.getUsers().get(0).getVote());
+    }
+
+    @Test
+    void testVote_RoomOnOtherNode_ForwardsToOwner() {
+        VoteMessage voteMessage = new VoteMessage();
+        voteMessage.setRoomCode("REMOTE1");
+        voteMessage.setVote("8");
+
+        when(roomService.getRoom("REMOTE1")).thenReturn(null);
+
+        roomWsController.vote(voteMessage, sessionAttributes);
+
+        ArgumentCaptor<ClusterEnvelope> captor = ArgumentCaptor.forClass(ClusterEnvelope.class);
+        verify(clusterNode).forward(captor.capture());
+        assertEquals(ClusterEnvelope.Type.VOTE, captor.getValue().getType());
+        assertEquals("session123", captor.getValue().getSessionId());
+        assertEquals("8", captor.getValue().getVote());
+        verify(messagingTemplate, never()).send(anyString(), any(Message.class));
+    }
+
+    @Test
+    void testVote_RoomHandedOffWhileQueued_ForwardsToNewOwner() {
+        VoteMessage voteMessage = new VoteMessage();
+        voteMessage.setRoomCode("TEST123");
+        voteMessage.setVote("5");
+        testRoom.getUsers().put("session123", new UserSession("session123", "TestUser", null));
+
+        // komut kuyruğa girerken oda burada, mailbox'ta çalışırken devredilmiş
+        when(roomService.getRoom("TEST123")).thenReturn(testRoom, (Room) null);
+
+        roomWsController.vote(voteMessage, sessionAttributes);
+
+        ArgumentCaptor<ClusterEnvelope> captor = ArgumentCaptor.forClass(ClusterEnvelope.class);
+        verify(clusterNode).forward(captor.capture());
+        assertEquals(ClusterEnvelope.Type.VOTE, captor.getValue().getType());
+        assertEquals("5", captor.getValue().getVote());
+        assertNull(testRoom.getUsers().get("session123").getVote());
+        verify(messagingTemplate, never()).send(anyString(), any(Message.class));
+    }
+
+    @Test
+    void testApplyForwarded_JoinsLocalRoom() {
+        when(roomService.getRoom("TEST123")).thenReturn(testRoom);
+
+        roomWsController.applyForwarded(ClusterEnvelope.command(ClusterEnvelope.Type.JOIN, "TEST123", "remote-1", "Remote", null));
+
+        assertEquals("Remote", testRoom.getUsers().get("remote-1").getNickname());
+        verify(messagingTemplate).send(eq("/topic/room/TEST123"), any(Message.class));
+        verify(clusterNode, never()).forward(any());
+    }
+
+    @Test
+    void testApplyForwarded_LeaveRemovesUserAndBroadcasts() {
+        testRoom.getUsers().put("remote-1", new UserSession("remote-1", "Remote", VoteValue.FIVE, 3));
+        when(roomService.getRoom("TEST123")).thenReturn(testRoom);
+
+        roomWsController.applyForwarded(ClusterEnvelope.command(ClusterEnvelope.Type.LEAVE, "TEST123", "remote-1", null, null));
+
+        assertFalse(testRoom.getUsers().containsKey("remote-1"));
+        verify(roomService).participantLeft(eq(testRoom), any(UserSession.class));
+        verify(messagingTemplate).send(eq("/topic/room/TEST123"), published.capture());
+        RoomDeltaMessage delta = delta(published.getValue());
+        assertEquals(RoomDeltaMessage.ChangeType.LEFT, delta.getChanges().get(0).getType());
+        assertEquals(3, delta.getChanges().get(0).getParticipantId());
+    }
+
+    private static RoomDeltaMessage delta(Message<byte[]> message) {
+        try {
+            return new ObjectMapper().readValue(message.getPayload(), RoomDeltaMessage.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
@@ -0,0 +1,60 @@
+package co.estimoo.backend.resume;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReconnectHintsTest {
+
+    @Test
+    void closeAll_SendsServiceRestartWithJitteredDelay() throws Exception {
+        ReconnectHints hints = new ReconnectHints(1000, 500);
+        WebSocketHandler handler = hints.decorate(mock(WebSocketHandler.class));
+        WebSocketSession session = session("ws-1");
+        handler.afterConnectionEstablished(session);
+
+        assertEquals(1, hints.closeAll());
+
+        ArgumentCaptor<CloseStatus> captor = ArgumentCaptor.forClass(CloseStatus.class);
+        verify(session).close(captor.capture());
+        assertEquals(CloseStatus.SERVICE_RESTARTED.getCode(), captor.getValue().getCode());
+        String reason = captor.getValue().getReason();
+        assertTrue(reason.startsWith(ReconnectHints.REASON_PREFIX));
+        long delay = Long.parseLong(reason.substring(ReconnectHints.REASON_PREFIX.length()));
+        assertTrue(delay >= 1000 && delay <= 1500, "gecikme aralık dışında: " + delay);
+    }
+
+    @Test
+    void closedConnection_IsNotTracked() throws Exception {
+        ReconnectHints hints = new ReconnectHints(1000, 0);
+        WebSocketHandler handler = hints.decorate(mock(WebSocketHandler.class));
+        WebSocketSession session = session("ws-1");
+        handler.afterConnectionEstablished(session);
+        handler.afterConnectionClosed(session, CloseStatus.NORMAL);
+
+        assertEquals(0, hints.getConnectionCount());
+        assertEquals(0, hints.closeAll());
+        verify(session, never()).close(any());
+    }
+
+    @Test
+    void nextDelay_StaysWithinSpread() {
+        ReconnectHints hints = new ReconnectHints(200, 100);
+        for (int i = 0; i < 1000; i++) {
+            long delay = hints.nextDelayMs();
+            assertTrue(delay >= 200 && delay <= 300);
+        }
+        assertEquals(200, new ReconnectHints(200, 0).nextDelayMs());
+    }
+
+    private static WebSocketSession session(String id) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(id);
+        return session;
+    }
+}
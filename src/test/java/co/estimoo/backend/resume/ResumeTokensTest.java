@@ -0,0 +1,77 @@
+package co.estimoo.backend.resume;
+
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import co.estimoo.backend.model.VoteValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResumeTokensTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final ResumeTokens tokens = new ResumeTokens(new byte[32], 60_000, now::get);
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        room = new Room();
+        room.setRoomCode("ABC123");
+        room.setUsers(new HashMap<>());
+    }
+
+    @Test
+    void issueThenVerify_ReturnsParticipantState() {
+        String token = tokens.issue(room, new UserSession("s-1", "Çağla", VoteValue.THIRTEEN, 7));
+
+        ResumeClaim claim = tokens.verify(token, "s-1", "ABC123");
+
+        assertNotNull(claim);
+        assertEquals("Çağla", claim.nickname());
+        assertEquals(7, claim.participantId());
+        assertEquals(VoteValue.THIRTEEN, claim.vote());
+        assertEquals(room.getRoundId(), claim.roundId());
+    }
+
+    @Test
+    void verify_NoVote_ReturnsNullVote() {
+        String token = tokens.issue(room, new UserSession("s-1", "Ali", null, 1));
+        assertNull(tokens.verify(token, "s-1", "ABC123").vote());
+    }
+
+    @Test
+    void verify_RejectsOtherSessionOrRoom() {
+        String token = tokens.issue(room, new UserSession("s-1", "Ali", VoteValue.FIVE, 1));
+
+        assertNull(tokens.verify(token, "s-2", "ABC123"));
+        assertNull(tokens.verify(token, "s-1", "XYZ999"));
+    }
+
+    @Test
+    void verify_RejectsExpiredToken() {
+        String token = tokens.issue(room, new UserSession("s-1", "Ali", VoteValue.FIVE, 1));
+
+        now.addAndGet(60_001);
+
+        assertNull(tokens.verify(token, "s-1", "ABC123"));
+    }
+
+    @Test
+    void verify_RejectsTamperedOrForeignToken() {
+        String token = tokens.issue(room, new UserSession("s-1", "Ali", VoteValue.FIVE, 1));
+        // imzanın ilk karakteri değiştirilir; son karakterin bir kısmı dolgu bitidir, çözülürken yok sayılabilir
+        int first = token.indexOf('.') + 1;
+        char c = token.charAt(first);
+        String tampered = token.substring(0, first) + (c == 'A' ? 'B' : 'A') + token.substring(first + 1);
+        ResumeTokens otherKey = new ResumeTokens(new byte[]{1, 2, 3}, 60_000, now::get);
+
+        assertNull(tokens.verify(tampered, "s-1", "ABC123"));
+        assertNull(otherKey.verify(token, "s-1", "ABC123"));
+        assertNull(tokens.verify("not-a-token", "s-1", "ABC123"));
+        assertNull(tokens.verify("!!.??", "s-1", "ABC123"));
+    }
+}
@@ -0,0 +1,229 @@
+package co.estimoo.backend.service;
+
+import co.estimoo.backend.dto.RoomBinaryCodec;
+import co.estimoo.backend.dto.RoomDeltaMessage;
+import co.estimoo.backend.dto.RoomDeltaMessage.ChangeType;
+import co.estimoo.backend.dto.RoomStateMessage;
+import co.estimoo.backend.dto.RoomWireFormat;
+import co.estimoo.backend.metrics.LatencyMetrics;
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import co.estimoo.backend.model.VoteValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoomBroadcasterTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private MessageChannel clientOutboundChannel;
+
+    @Captor
+    private ArgumentCaptor<Message<byte[]>> published;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private RoomBroadcaster broadcaster;
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        broadcaster = new RoomBroadcaster(messagingTemplate, clientOutboundChannel, objectMapper);
+        ReflectionTestUtils.setField(broadcaster, "coalesceWindowMs", 50L);
+
+        room = new Room();
+        room.setRoomCode("TEST123");
+    }
+
+    @Test
+    void publish_WithinWindow_SendsSingleMergedDelta() {
+        broadcaster.publish(room, new RoomDeltaMessage.Change(ChangeType.JOINED, 1, "Alice", null));
+        broadcaster.publish(room, new RoomDeltaMessage.Change(ChangeType.JOINED, 2, "Bob", null));
+        broadcaster.publish(room, new RoomDeltaMessage.Change(ChangeType.VOTED, 1, null, null));
+
+        verify(messagingTemplate, timeout(1000)).send(eq("/topic/room/TEST123"), published.capture());
+
+        RoomDeltaMessage delta = delta(published.getValue());
+        assertEquals(0, delta.getBaseVersion());
+        assertEquals(3, delta.getVersion());
+        assertEquals(3, delta.getChanges().size());
+        assertEquals(2, broadcaster.getBroadcastsCoalesced());
+        assertEquals(1, broadcaster.getBroadcastsSent());
+    }
+
+    @Test
+    void publish_TimedFlush_RunsOnRoomMailbox() {
+        RoomCommandExecutor roomExecutor = new RoomCommandExecutor(16, Runnable::run);
+        RoomBroadcaster mailboxed = new RoomBroadcaster(messagingTemplate, clientOutboundChannel, objectMapper,
+                new LatencyMetrics(), new RoomPayloadCompressor(1024), roomExecutor);
+        ReflectionTestUtils.setField(mailboxed, "coalesceWindowMs", 20L);
+
+        mailboxed.publish(room, new RoomDeltaMessage.Change(ChangeType.JOINED, 1, "Alice", null));
+
+        verify(messagingTemplate, timeout(1000)).send(eq("/topic/room/TEST123"), any(Message.class));
+        // pencere sonundaki gönderim odanın mailbox'ından geçti
+        assertEquals(1, roomExecutor.getSubmitted());
+        mailboxed.shutdown();
+    }
+
+    @Test
+    void publish_SendsRoomStateCapturedWhenQueued() {
+        room.getUsers().put("a", new UserSession("a", "Alice", VoteValue.FIVE, 1));
+        broadcaster.publish(room, new RoomDeltaMessage.Change(ChangeType.VOTED, 1, null, null));
+        // yayınlanmamış değişiklik bekleyen deltaya sızmaz
+        room.setVotesRevealed(true);
+
+        verify(messagingTemplate, timeout(1000)).send(eq("/topic/room/TEST123"), published.capture());
+
+        RoomDeltaMessage delta = delta(published.getValue());
+        assertFalse(delta.isVotesRevealed());
+        assertNull(delta.getStats());
+    }
+
+    @Test
+    void publishNow_FlushesPendingDeltasImmediately() {
+        broadcaster.publish(room, new RoomDeltaMessage.Change(ChangeType.VOTED, 1, null, null));
+        room.setVotesRevealed(true);
+        broadcaster.publishNow(room, new RoomDeltaMessage.Change(ChangeType.REVEALED, 1, null, "5"));
+
+        // pencere beklenmeden gönderilmiş olmalı
+        verify(messagingTemplate).send(eq("/topic/room/TEST123"), published.capture());
+
+        RoomDeltaMessage delta = delta(published.getValue());
+        assertTrue(delta.isVotesRevealed());
+        assertEquals(0, delta.getBaseVersion());
+        assertEquals(2, delta.getVersion());
+        assertEquals(ChangeType.REVEALED, delta.getChanges().get(1).getType());
+    }
+
+    @Test
+    void publish_AfterFlush_StartsFromPreviousVersion() {
+        broadcaster.publishNow(room, new RoomDeltaMessage.Change(ChangeType.RESET, 0, null, null));
+        broadcaster.publishNow(room, new RoomDeltaMessage.Change(ChangeType.JOINED, 1, "Alice", null));
+
+        verify(messagingTemplate, times(2)).send(eq("/topic/room/TEST123"), published.capture());
+
+        assertEquals(1, delta(published.getAllValues().get(1)).getBaseVersion());
+        assertEquals(2, delta(published.getAllValues().get(1)).getVersion());
+        assertEquals(0, broadcaster.getBroadcastsCoalesced());
+    }
+
+    @Test
+    void encodedSnapshot_SameVersion_ReusesPayload() {
+        room.getUsers().put("a", new UserSession("a", "Alice", VoteValue.FIVE, 1));
+
+        byte[] first = broadcaster.encodedSnapshot(room);
+        byte[] second = broadcaster.encodedSnapshot(room);
+
+        assertSame(first, second);
+        assertEquals(1, broadcaster.getSnapshotsEncoded());
+        assertEquals(1, broadcaster.getSnapshotCacheHits());
+    }
+
+    @Test
+    void encodedSnapshot_AfterMutation_EncodesRevealedView() throws Exception {
+        room.getUsers().put("a", new UserSession("a", "Alice", VoteValue.FIVE, 1));
+
+        byte[] hidden = broadcaster.encodedSnapshot(room);
+        RoomStateMessage hiddenState = objectMapper.readValue(hidden, RoomStateMessage.class);
+        assertTrue(hiddenState.getUsers().get(0).isVoted());
+        assertNull(hiddenState.getUsers().get(0).getVote());
+
+        room.setVotesRevealed(true);
+        broadcaster.publishNow(room, new RoomDeltaMessage.Change(ChangeType.REVEALED, 1, null, "5"));
+
+        byte[] revealed = broadcaster.encodedSnapshot(room);
+        assertNotSame(hidden, revealed);
+
+        RoomStateMessage revealedState = objectMapper.readValue(revealed, RoomStateMessage.class);
+        assertEquals(1, revealedState.getVersion());
+        assertEquals("5", revealedState.getUsers().get(0).getVote());
+    }
+
+    @Test
+    void publishNow_Audience_AttachesPayloadPerRequestedFormat() throws Exception {
+        broadcaster.publishNow(room, new RoomDeltaMessage.Change(ChangeType.JOINED, 1, "Alice", null));
+        broadcaster.setAudience(code -> Set.of(RoomWireFormat.BINARY, RoomWireFormat.JSON_DEFLATE));
+        // JSON eşiği (1024) aşsın, ikili karşılığı aşmasın
+        List<RoomDeltaMessage.Change> changes = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            changes.add(new RoomDeltaMessage.Change(ChangeType.JOINED, i + 2, "Kullanıcı " + i, null));
+        }
+        broadcaster.publishNow(room, changes);
+
+        verify(messagingTemplate, times(2)).send(eq("/topic/room/TEST123"), published.capture());
+
+        assertNull(published.getAllValues().get(0).getHeaders().get(RoomBroadcaster.payloadHeader(RoomWireFormat.BINARY)));
+        Message<byte[]> second = published.getAllValues().get(1);
+        byte[] binary = (byte[]) second.getHeaders().get(RoomBroadcaster.payloadHeader(RoomWireFormat.BINARY));
+        assertEquals(delta(second), RoomBinaryCodec.decode(binary));
+        byte[] deflated = (byte[]) second.getHeaders().get(RoomBroadcaster.payloadHeader(RoomWireFormat.JSON_DEFLATE));
+        assertTrue(deflated.length < second.getPayload().length);
+        assertArrayEquals(second.getPayload(), RoomPayloadCompressorTest.inflate(deflated));
+        assertFalse(second.getHeaders().containsKey(RoomBroadcaster.payloadHeader(RoomWireFormat.BINARY_DEFLATE)));
+    }
+
+    @Test
+    void encodedSnapshot_Binary_CachedSeparatelyFromJson() {
+        room.getUsers().put("a", new UserSession("a", "Alice", VoteValue.FIVE, 1));
+
+        byte[] json = broadcaster.encodedSnapshot(room);
+        byte[] binary = broadcaster.encodedSnapshot(room, RoomWireFormat.BINARY);
+
+        assertSame(binary, broadcaster.encodedSnapshot(room, RoomWireFormat.BINARY));
+        assertSame(json, broadcaster.encodedSnapshot(room));
+        RoomStateMessage state = (RoomStateMessage) RoomBinaryCodec.decode(binary);
+        assertEquals("Alice", state.getUsers().get(0).getNickname());
+        assertEquals(2, broadcaster.getSnapshotsEncoded());
+        // küçük odada sıkıştırılmış varyant yok, gönderen sıkıştırılmamışa düşer
+        assertNull(broadcaster.encodedSnapshot(room, RoomWireFormat.BINARY_DEFLATE));
+    }
+
+    @Test
+    void sendSnapshot_LargeRoomWithDeflate_SendsSharedCompressedPayload() throws Exception {
+        for (int i = 0; i < 60; i++) {
+            room.getUsers().put("s" + i, new UserSession("s" + i, "Kullanıcı " + i, VoteValue.EIGHT, i + 1));
+        }
+
+        broadcaster.sendSnapshot(room, "ws-1", "sub-1", "/app/room/TEST123", RoomWireFormat.JSON_DEFLATE);
+        broadcaster.sendSnapshot(room, "ws-2", "sub-1", "/app/room/TEST123", RoomWireFormat.JSON_DEFLATE);
+
+        verify(clientOutboundChannel, times(2)).send(published.capture());
+        Message<byte[]> first = published.getAllValues().get(0);
+        assertSame(first.getPayload(), published.getAllValues().get(1).getPayload());
+        assertEquals(RoomWireFormat.JSON_DEFLATE.getContentType(), first.getHeaders().get(MessageHeaders.CONTENT_TYPE));
+        assertArrayEquals(broadcaster.encodedSnapshot(room), RoomPayloadCompressorTest.inflate(first.getPayload()));
+    }
+
+    private static RoomDeltaMessage delta(Message<byte[]> message) {
+        try {
+            return new ObjectMapper().readValue(message.getPayload(), RoomDeltaMessage.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package co.estimoo.backend.service;
+
+import co.estimoo.backend.model.Room;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomCodeAllocatorTest {
+
+    @Test
+    void next_UsesUnambiguousAlphabet() {
+        RoomCodeAllocator allocator = new RoomCodeAllocator(6, 0);
+        for (int i = 0; i < 1_000; i++) {
+            String code = allocator.next(0, 0);
+            assertEquals(6, code.length());
+            assertTrue(code.matches("[A-HJKMNP-Z2-9]{6}"), code);
+        }
+    }
+
+    @Test
+    void lengthFor_GrowsWithOccupancyAndCollisions() {
+        RoomCodeAllocator allocator = new RoomCodeAllocator(2, 0);
+        // 31^2 * 0.001 → iki karakterde en fazla 0 oda, üç karakterde 29 oda
+        assertEquals(3, allocator.lengthFor(0));
+        assertEquals(4, allocator.lengthFor(29));
+        assertEquals(5, allocator.next(0, 4).length());
+    }
+
+    @Test
+    void release_QuarantinesCodeUntilTimeout() throws InterruptedException {
+        RoomCodeAllocator allocator = new RoomCodeAllocator(6, TimeUnit.MILLISECONDS.toNanos(50));
+        allocator.release("ABC234");
+        assertTrue(allocator.isQuarantined("ABC234"));
+        assertFalse(allocator.isQuarantined("ABC235"));
+
+        Thread.sleep(60);
+        assertFalse(allocator.isQuarantined("ABC234"));
+        allocator.release("XYZ789"); // süresi dolan kayıtlar temizlenir
+        assertEquals(1, allocator.quarantined());
+    }
+
+    @Test
+    void createRoom_NeverOverwritesExistingRoom() {
+        RoomService roomService = new RoomService(600_000, 1_000, 1, 0);
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 500; i++) {
+            Room room = roomService.createRoom("room-" + i);
+            assertTrue(codes.add(room.getRoomCode()));
+        }
+        assertEquals(500, roomService.getRooms().size());
+    }
+}
@@ -0,0 +1,116 @@
+package co.estimoo.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomCommandExecutorTest {
+
+    @Test
+    void execute_SameRoom_RunsCommandsOneAtATimeInOrder() throws Exception {
+        ExecutorService workers = Executors.newFixedThreadPool(4);
+        RoomCommandExecutor executor = new RoomCommandExecutor(100_000, workers);
+
+        int producers = 8;
+        int perProducer = 2_000;
+        int[] counter = new int[1]; // kasıtlı olarak senkronize değil
+        List<Integer> firstProducerOrder = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(producers * perProducer);
+
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    int sequence = i;
+                    assertTrue(executor.execute("ROOM1", () -> {
+                        counter[0]++;
+                        if (producer == 0) {
+                            firstProducerOrder.add(sequence);
+                        }
+                        done.countDown();
+                    }));
+                }
+            });
+            threads[p].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(producers * perProducer, counter[0]);
+        for (int i = 0; i < perProducer; i++) {
+            assertEquals(i, firstProducerOrder.get(i));
+        }
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(producers * perProducer, executor.getProcessed());
+    }
+
+    @Test
+    void execute_FullMailbox_RejectsCommand() {
+        List<Runnable> parked = new ArrayList<>();
+        RoomCommandExecutor executor = new RoomCommandExecutor(2, parked::add);
+
+        assertTrue(executor.execute("ROOM1", () -> { }));
+        assertTrue(executor.execute("ROOM1", () -> { }));
+        assertFalse(executor.execute("ROOM1", () -> { }));
+        // başka odanın mailbox'ı bağımsız
+        assertTrue(executor.execute("ROOM2", () -> { }));
+
+        assertEquals(1, executor.getRejected());
+        assertEquals(3, executor.getQueuedCommands());
+
+        parked.forEach(Runnable::run);
+        assertEquals(0, executor.getQueuedCommands());
+        assertEquals(3, executor.getProcessed());
+    }
+
+    @Test
+    void remove_WhileDraining_KeepsMailboxUntilEmpty() {
+        List<Runnable> parked = new ArrayList<>();
+        RoomCommandExecutor executor = new RoomCommandExecutor(16, parked::add);
+        List<String> ran = new ArrayList<>();
+
+        executor.execute("ROOM1", () -> {
+            executor.remove("ROOM1");
+            // silinirken gelen komut yeni mailbox (ve ikinci bir boşaltıcı) açmaz, aynı boşaltmada sırayla çalışır
+            executor.execute("ROOM1", () -> ran.add("after-remove"));
+            ran.add("removing");
+        });
+        parked.remove(0).run();
+
+        assertEquals(List.of("removing", "after-remove"), ran);
+        assertTrue(parked.isEmpty());
+        assertEquals(0, executor.getMailboxCount());
+
+        // boşta duran mailbox bir boşaltma turunda silinir
+        executor.execute("ROOM2", () -> { });
+        parked.remove(0).run();
+        executor.remove("ROOM2");
+        parked.remove(0).run();
+        assertEquals(0, executor.getMailboxCount());
+    }
+
+    @Test
+    void execute_FailingCommand_DoesNotBlockMailbox() {
+        RoomCommandExecutor executor = new RoomCommandExecutor(16, Runnable::run);
+        boolean[] ran = new boolean[1];
+
+        executor.execute("ROOM1", () -> {
+            throw new IllegalStateException("boom");
+        });
+        executor.execute("ROOM1", () -> ran[0] = true);
+
+        assertTrue(ran[0]);
+        assertEquals(1, executor.getFailed());
+    }
+}
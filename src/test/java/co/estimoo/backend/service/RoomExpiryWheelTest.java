@@ -0,0 +1,78 @@
+package co.estimoo.backend.service;
+
+import co.estimoo.backend.model.Room;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomExpiryWheelTest {
+
+    private static final long TICK = TimeUnit.SECONDS.toNanos(1);
+    private static final long TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+    private static final long START = TimeUnit.HOURS.toNanos(1);
+
+    private final RoomExpiryWheel wheel = new RoomExpiryWheel(TIMEOUT, TICK);
+    private final List<Room> expired = new ArrayList<>();
+
+    @Test
+    void advance_IdleRoomExpiresWithinOneTickOfTimeout() {
+        Room room = room("IDLE01", START);
+        wheel.schedule(room);
+
+        advance(START + TIMEOUT - TICK);
+        assertTrue(expired.isEmpty());
+
+        advance(START + TIMEOUT + TICK);
+        assertEquals(List.of(room), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_ActivityPostponesExpiry() {
+        Room room = room("BUSY01", START);
+        wheel.schedule(room);
+        advance(START);
+
+        // aktivite wheel'e dokunmaz, bucket geldiğinde oda yeni deadline'ına taşınır
+        room.setLastActivityNanos(START + TimeUnit.SECONDS.toNanos(8));
+        advance(START + TIMEOUT + TICK);
+        assertTrue(expired.isEmpty());
+        assertEquals(1, wheel.size());
+
+        advance(START + TimeUnit.SECONDS.toNanos(19));
+        assertEquals(List.of(room), expired);
+    }
+
+    @Test
+    void advance_OnlyVisitsDueBucketsAndDropsRemovedRooms() {
+        Room removed = room("GONE01", START);
+        wheel.schedule(removed);
+        for (int i = 0; i < 100; i++) {
+            wheel.schedule(room("LIVE" + i, START + TimeUnit.SECONDS.toNanos(5)));
+        }
+        advance(START);
+        assertEquals(101, wheel.size());
+
+        wheel.advance(START + TIMEOUT + TICK, room -> room != removed, expired::add);
+        assertTrue(expired.isEmpty());
+        assertEquals(100, wheel.size());
+
+        advance(START + TimeUnit.SECONDS.toNanos(16));
+        assertEquals(100, expired.size());
+    }
+
+    private void advance(long now) {
+        wheel.advance(now, room -> true, expired::add);
+    }
+
+    private static Room room(String code, long lastActivityNanos) {
+        Room room = new Room();
+        room.setRoomCode(code);
+        room.setLastActivityNanos(lastActivityNanos);
+        return room;
+    }
+}
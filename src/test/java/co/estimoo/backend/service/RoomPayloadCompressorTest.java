@@ -0,0 +1,60 @@
+package co.estimoo.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomPayloadCompressorTest {
+
+    private final RoomPayloadCompressor compressor = new RoomPayloadCompressor(256);
+
+    @Test
+    void compress_AboveThreshold_RoundTripsAsRawDeflate() throws Exception {
+        byte[] payload = "{\"type\":\"VOTED\",\"participantId\":1},".repeat(40).getBytes(StandardCharsets.UTF_8);
+
+        byte[] first = compressor.compress(payload);
+        byte[] second = compressor.compress(payload);
+
+        assertArrayEquals(payload, inflate(first));
+        // havuzdan gelen deflater reset'lenmiş olmalı
+        assertArrayEquals(first, second);
+        assertEquals(2, compressor.getCompressed());
+        assertEquals(2L * payload.length, compressor.getBytesIn());
+        assertTrue(compressor.getRatio() < 0.2, "oran " + compressor.getRatio());
+        assertTrue(compressor.getCompressNanos() > 0);
+    }
+
+    @Test
+    void compress_BelowThreshold_ReturnsNull() {
+        assertNull(compressor.compress(new byte[255]));
+        assertNull(compressor.compress(null));
+        assertEquals(2, compressor.getSkipped());
+        assertEquals(0, compressor.getCompressed());
+        assertEquals(1, compressor.getRatio());
+    }
+
+    /**
+     * Tarayıcıdaki {@code DecompressionStream('deflate-raw')} karşılığı.
+     */
+    static byte[] inflate(byte[] deflated) throws DataFormatException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(deflated);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0 && inflater.needsInput()) break;
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
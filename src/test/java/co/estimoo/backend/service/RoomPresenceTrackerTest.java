@@ -0,0 +1,169 @@
+package co.estimoo.backend.service;
+
+import co.estimoo.backend.cluster.ClusterEnvelope;
+import co.estimoo.backend.cluster.ClusterNode;
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoomPresenceTrackerTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private MessageChannel clientOutboundChannel;
+
+    @Mock
+    private ClusterNode clusterNode;
+
+    private RoomService roomService;
+    private RoomBroadcaster broadcaster;
+    private RoomCommandExecutor roomExecutor;
+
+    @BeforeEach
+    void setUp() {
+        roomService = new RoomService();
+        broadcaster = new RoomBroadcaster(messagingTemplate, clientOutboundChannel, new ObjectMapper());
+        roomExecutor = new RoomCommandExecutor(16, Runnable::run);
+    }
+
+    @Test
+    void disconnect_RemovesUserFromJoinedRoomsOnly() {
+        RoomPresenceTracker tracker = tracker(0);
+        Room first = roomService.createRoom("Birinci");
+        Room second = roomService.createRoom("İkinci");
+
+        connect(tracker, "ws-1", "alice");
+        join(tracker, first, "alice");
+        join(tracker, second, "alice");
+        connect(tracker, "ws-2", "bob");
+        join(tracker, first, "bob");
+        assertEquals(3, roomService.getUserCount());
+
+        tracker.onDisconnect(new SessionDisconnectEvent(this, message(StompCommand.DISCONNECT, "ws-1", "alice", null, null),
+                "ws-1", CloseStatus.GOING_AWAY));
+
+        assertFalse(first.getUsers().containsKey("alice"));
+        assertFalse(second.getUsers().containsKey("alice"));
+        assertTrue(first.getUsers().containsKey("bob"));
+        assertEquals(1, roomService.getUserCount());
+        assertEquals(2, tracker.getParticipantsLeft());
+        assertEquals(1, tracker.getTrackedSessions()); // sadece bob kaldı
+        verify(messagingTemplate).send(eq("/topic/room/" + first.getRoomCode()), any(Message.class));
+        verify(messagingTemplate).send(eq("/topic/room/" + second.getRoomCode()), any(Message.class));
+    }
+
+    @Test
+    void unsubscribe_LeavesThatRoomButKeepsOthers() {
+        RoomPresenceTracker tracker = tracker(0);
+        Room first = roomService.createRoom("Birinci");
+        Room second = roomService.createRoom("İkinci");
+
+        connect(tracker, "ws-1", "alice");
+        subscribe(tracker, "ws-1", "alice", "sub-0", first);
+        join(tracker, first, "alice");
+        subscribe(tracker, "ws-1", "alice", "sub-1", second);
+        join(tracker, second, "alice");
+
+        tracker.onUnsubscribe(new SessionUnsubscribeEvent(this, message(StompCommand.UNSUBSCRIBE, "ws-1", "alice", "sub-0", null)));
+
+        assertFalse(first.getUsers().containsKey("alice"));
+        assertTrue(second.getUsers().containsKey("alice"));
+    }
+
+    @Test
+    void reconnectWithinGrace_KeepsUser() throws InterruptedException {
+        RoomPresenceTracker tracker = tracker(100);
+        Room room = roomService.createRoom("Grace");
+
+        connect(tracker, "ws-1", "alice");
+        subscribe(tracker, "ws-1", "alice", "sub-0", room);
+        join(tracker, room, "alice");
+        tracker.onDisconnect(new SessionDisconnectEvent(this, message(StompCommand.DISCONNECT, "ws-1", "alice", null, null),
+                "ws-1", CloseStatus.GOING_AWAY));
+
+        // sekme yenilendi: aynı token yeni bağlantıyla aynı odaya abone oluyor
+        connect(tracker, "ws-2", "alice");
+        subscribe(tracker, "ws-2", "alice", "sub-0", room);
+        Thread.sleep(300);
+
+        assertTrue(room.getUsers().containsKey("alice"));
+        assertEquals(0, tracker.getParticipantsLeft());
+        tracker.shutdown();
+    }
+
+    @Test
+    void disconnect_RoomOnOtherNode_ForwardsLeave() {
+        RoomPresenceTracker tracker = tracker(0);
+
+        connect(tracker, "ws-1", "alice");
+        tracker.joined("alice", "REMOTE1");
+        tracker.onDisconnect(new SessionDisconnectEvent(this, message(StompCommand.DISCONNECT, "ws-1", "alice", null, null),
+                "ws-1", CloseStatus.NORMAL));
+
+        ArgumentCaptor<ClusterEnvelope> captor = ArgumentCaptor.forClass(ClusterEnvelope.class);
+        verify(clusterNode).forward(captor.capture());
+        assertEquals(ClusterEnvelope.Type.LEAVE, captor.getValue().getType());
+        assertEquals("alice", captor.getValue().getSessionId());
+        assertEquals(0, tracker.getTrackedSessions());
+    }
+
+    private RoomPresenceTracker tracker(long graceMs) {
+        return new RoomPresenceTracker(roomService, broadcaster, roomExecutor, clusterNode, graceMs);
+    }
+
+    private void connect(RoomPresenceTracker tracker, String stompSessionId, String token) {
+        tracker.onConnect(new SessionConnectEvent(this, message(StompCommand.CONNECT, stompSessionId, token, null, null)));
+    }
+
+    private void subscribe(RoomPresenceTracker tracker, String stompSessionId, String token, String subscriptionId, Room room) {
+        tracker.onSubscribe(new SessionSubscribeEvent(this, message(StompCommand.SUBSCRIBE, stompSessionId, token,
+                subscriptionId, RoomBroadcaster.ROOM_TOPIC_PREFIX + room.getRoomCode())));
+    }
+
+    private void join(RoomPresenceTracker tracker, Room room, String token) {
+        tracker.joined(token, room.getRoomCode());
+        UserSession user = new UserSession(token, token, null, room.nextParticipantId());
+        room.getUsers().put(token, user);
+        roomService.participantJoined(room, user, true);
+    }
+
+    private static Message<byte[]> message(StompCommand command, String stompSessionId, String token,
+                                           String subscriptionId, String destination) {
+        StompHeaderAccessor headers = StompHeaderAccessor.create(command);
+        headers.setSessionId(stompSessionId);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("sessionId", token);
+        headers.setSessionAttributes(attributes);
+        if (subscriptionId != null) headers.setSubscriptionId(subscriptionId);
+        if (destination != null) headers.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], headers.getMessageHeaders());
+    }
+}
@@ -0,0 +1,63 @@
+package co.estimoo.backend.service;
+
+import co.estimoo.backend.model.Room;
+import co.estimoo.backend.model.UserSession;
+import co.estimoo.backend.model.VoteValue;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoomServiceTest {
+
+    private final RoomService roomService = new RoomService();
+
+    @Test
+    void counters_FollowRoomLifecycle() {
+        Room first = roomService.createRoom("first");
+        Room second = roomService.createRoom("second");
+        join(first, "s1", true);
+        join(first, "s2", true);
+        join(first, "s2", false); // aynı session tekrar katıldı
+        join(second, "s3", true);
+
+        UserSession user = first.getUsers().get("s1");
+        user.setVote(VoteValue.FIVE);
+        roomService.voteChanged(first, user);
+        user.setVote(null);
+        roomService.voteChanged(first, user); // oy geri alındı, sayılmaz
+        roomService.votesRevealed(first);
+
+        assertEquals(2, roomService.getRoomCount());
+        assertEquals(3, roomService.getUserCount());
+        assertEquals(1, roomService.getVotesCast());
+        assertEquals(1, roomService.getReveals());
+
+        roomService.removeRoom(first.getRoomCode());
+        roomService.removeRoom(first.getRoomCode());
+        assertEquals(1, roomService.getRoomCount());
+        assertEquals(1, roomService.getUserCount());
+    }
+
+    @Test
+    void restoreRoom_ReplacingOlderCopyAdjustsUsers() {
+        Room room = roomService.createRoom("transfer");
+        join(room, "s1", true);
+
+        Room newer = new Room();
+        newer.setRoomCode(room.getRoomCode());
+        newer.getUsers().put("s1", new UserSession("s1", "s1", null, 1));
+        newer.getUsers().put("s2", new UserSession("s2", "s2", null, 2));
+        newer.restoreCounters(room.getVersion() + 1, 2);
+        roomService.restoreRoom(newer);
+
+        assertSame(newer, roomService.getRoom(room.getRoomCode()));
+        assertEquals(1, roomService.getRoomCount());
+        assertEquals(2, roomService.getUserCount());
+    }
+
+    private void join(Room room, String sessionId, boolean newUser) {
+        UserSession user = new UserSession(sessionId, sessionId, null, room.nextParticipantId());
+        room.getUsers().put(sessionId, user);
+        roomService.participantJoined(room, user, newUser);
+    }
+}